@@ -0,0 +1,74 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.LookupService;
+import gov.vha.isaac.ochre.api.commit.CommitService;
+import gov.vha.isaac.ochre.api.externalizable.BinaryDataReaderService;
+import static gov.vha.isaac.ochre.api.constants.Constants.DATA_STORE_ROOT_LOCATION_PROPERTY;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Starts ISAAC in a temporary folder, and loads the benchmark fixture (by default, the 
+ * IsaacMetadataAuxiliary.ibdf file unpacked from the metadata module), for the benchmarks 
+ * which need a populated database.  ISAAC can not be restarted within a JVM, so the 
+ * database is started once, shared by every benchmark run in the JVM, and discarded 
+ * by a shutdown hook.
+ */
+public class BenchmarkDatabase {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * System property which holds the path to the ibdf file to load.
+     */
+    public static final String FIXTURE_PROPERTY = "ochre.benchmark.fixture";
+
+    private static Path dbFolder;
+
+    public static String getFixture() {
+        return System.getProperty(FIXTURE_PROPERTY, 
+                Paths.get("target", "data", "IsaacMetadataAuxiliary.ibdf").toAbsolutePath().toString());
+    }
+
+    public static synchronized void start() throws Exception {
+        if (dbFolder != null) {
+            return;
+        }
+        dbFolder = Files.createTempDirectory("ochre-benchmark");
+        System.setProperty(DATA_STORE_ROOT_LOCATION_PROPERTY, dbFolder.toString());
+        LookupService.startupIsaac();
+        Runtime.getRuntime().addShutdownHook(new Thread(BenchmarkDatabase::stop, "benchmark-database-shutdown"));
+
+        long start = System.currentTimeMillis();
+        AtomicInteger count = new AtomicInteger();
+        BinaryDataReaderService reader = Get.binaryDataReader(Paths.get(getFixture()));
+        CommitService commitService = Get.commitService();
+        reader.getStream().forEach((object) -> {
+            commitService.importNoChecks(object);
+            count.incrementAndGet();
+        });
+        Get.startIndexTask().get();
+        LOG.info("Loaded " + count.get() + " objects from " + getFixture() + " in " 
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private static synchronized void stop() {
+        try {
+            LookupService.shutdownIsaac();
+            try (Stream<Path> paths = Files.walk(dbFolder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        } catch (IOException ex) {
+            LOG.warn("Unable to remove benchmark database " + dbFolder, ex);
+        }
+    }
+}
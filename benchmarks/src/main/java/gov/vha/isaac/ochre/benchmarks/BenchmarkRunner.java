@@ -0,0 +1,36 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import java.util.Arrays;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks in this module, writing the results as JSON, so that they can be 
+ * compared across versions.
+ * 
+ * Usage: BenchmarkRunner &lt;result file&gt; [standard JMH command line arguments]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: BenchmarkRunner <result file> [JMH arguments]");
+            System.exit(1);
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(Arrays.copyOfRange(args, 1, args.length));
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        Options options = builder
+                .parent(commandLine)
+                .jvmArgsPrepend("-D" + BenchmarkDatabase.FIXTURE_PROPERTY + "=" + BenchmarkDatabase.getFixture())
+                .resultFormat(ResultFormatType.JSON)
+                .result(args[0])
+                .build();
+        new Runner(options).run();
+    }
+}
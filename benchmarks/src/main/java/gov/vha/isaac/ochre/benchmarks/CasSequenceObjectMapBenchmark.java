@@ -0,0 +1,79 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.model.waitfree.CasSequenceObjectMap;
+import gov.vha.isaac.taxonomy.TaxonomyRecordPrimitive;
+import gov.vha.isaac.taxonomy.TaxonomyRecordSerializer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CasSequenceObjectMap#get(int)} (read and deserialize) of taxonomy records, in a 
+ * standalone map of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CasSequenceObjectMapBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private Path folder;
+    private CasSequenceObjectMap<TaxonomyRecordPrimitive> map;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("cas-map-benchmark");
+        map = new CasSequenceObjectMap<>(new TaxonomyRecordSerializer(), folder, "seg.", ".taxonomy.map");
+        for (int i = 0; i < size; i++) {
+            //A concept with 4 parent / child records, of 2 ints each
+            int[] record = new int[8];
+            for (int j = 0; j < record.length; j++) {
+                record[j] = (i + j) % size;
+            }
+            map.put(i, new TaxonomyRecordPrimitive(record, 0));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Optional<TaxonomyRecordPrimitive> get(Cursor cursor) {
+        int sequence = cursor.next++;
+        if (cursor.next == size) {
+            cursor.next = 0;
+        }
+        return map.get(sequence);
+    }
+}
@@ -0,0 +1,65 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.component.sememe.SememeService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full scans of the concepts and sememes of the benchmark fixture, by the chronology
+ * streams of the services, which iterate the stored segments, and by looking up each
+ * sequence of the identifier service, as the parallel streams did before. The
+ * identifier service also has sequences for identifiers that were referenced but
+ * never written, which are skipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChronologyScanBenchmark {
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.start();
+    }
+
+    @Benchmark
+    public long parallelSememeStream() {
+        return Get.sememeService().getParallelSememeStream()
+                .mapToInt((sememe) -> sememe.getVersionList().size()).sum();
+    }
+
+    @Benchmark
+    public long parallelSememeSequenceStream() {
+        SememeService sememeService = Get.sememeService();
+        return Get.identifierService().getParallelSememeSequenceStream()
+                .mapToObj((sememeSequence) -> sememeService.getOptionalSememe(sememeSequence))
+                .filter((sememe) -> sememe.isPresent())
+                .mapToInt((sememe) -> sememe.get().getVersionList().size()).sum();
+    }
+
+    @Benchmark
+    public long parallelConceptStream() {
+        return Get.conceptService().getParallelConceptChronologyStream()
+                .mapToInt((concept) -> concept.getVersionList().size()).sum();
+    }
+
+    @Benchmark
+    public long parallelConceptSequenceStream() {
+        return Get.identifierService().getParallelConceptSequenceStream()
+                .mapToObj((conceptSequence) -> Get.conceptService().getOptionalConcept(conceptSequence))
+                .filter((concept) -> concept.isPresent())
+                .mapToInt((concept) -> concept.get().getVersionList().size()).sum();
+    }
+}
@@ -0,0 +1,72 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshot;
+import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotService;
+import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotTable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The latest version, status and description texts of every concept of the
+ * benchmark fixture, by a snapshot per concept and by the batch snapshot
+ * table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConceptSnapshotBenchmark {
+
+    private ConceptSnapshotService snapshotService;
+    private ConceptSequenceSet conceptSequences;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.start();
+        snapshotService = Get.conceptSnapshot();
+        conceptSequences = ConceptSequenceSet.of(Get.identifierService().getConceptSequenceStream()
+                .filter((conceptSequence) -> Get.conceptService().hasConcept(conceptSequence)));
+    }
+
+    @Benchmark
+    public long conceptSnapshots() {
+        long count = 0;
+        for (int conceptSequence : conceptSequences.asArray()) {
+            ConceptSnapshot snapshot = snapshotService.getConceptSnapshot(conceptSequence);
+            count += snapshot.getStampSequence();
+            count += snapshotService.isConceptActive(conceptSequence) ? 1 : 0;
+            count += snapshotService.getFullySpecifiedDescription(conceptSequence).isPresent() ? 1 : 0;
+            count += snapshotService.getPreferredDescription(conceptSequence).isPresent() ? 1 : 0;
+            count += snapshotService.conceptDescriptionText(conceptSequence).length();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long conceptSnapshotTable() {
+        ConceptSnapshotTable table = snapshotService.getConceptSnapshots(conceptSequences);
+        long count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            count += table.getStampSequence(row);
+            count += table.isActive(row) ? 1 : 0;
+            count += table.getFullySpecifiedText(row) != null ? 1 : 0;
+            count += table.getPreferredText(row) != null ? 1 : 0;
+            String text = table.getDescriptionText(row);
+            count += text != null ? text.length() : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,65 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Encode and decode of a version-like record (stamp, nids, a uuid, a string) 
+ * with {@link ByteArrayDataBuffer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataBufferBenchmark {
+
+    private final UUID uuid = UUID.randomUUID();
+    private final String text = "Benchmark description text, of a typical length";
+    private final int[] intArray = new int[] {1, 2, 3, 4, 5, 6, 7, 8};
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        encoded = encode();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(128);
+        buffer.putInt(42);
+        buffer.putStampSequence(12345);
+        buffer.putNid(Integer.MIN_VALUE + 1000);
+        buffer.putLong(System.identityHashCode(buffer));
+        buffer.putUuid(uuid);
+        buffer.putUTF(text);
+        buffer.putIntArray(intArray);
+        buffer.trimToSize();
+        return buffer.getData();
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(encoded);
+        blackhole.consume(buffer.getInt());
+        blackhole.consume(buffer.getStampSequence());
+        blackhole.consume(buffer.getNid());
+        blackhole.consume(buffer.getLong());
+        blackhole.consume(buffer.getUuid());
+        blackhole.consume(buffer.readUTF());
+        blackhole.consume(buffer.getIntArray());
+    }
+}
@@ -0,0 +1,51 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.LookupService;
+import gov.vha.isaac.ochre.api.index.IndexServiceBI;
+import gov.vha.isaac.ochre.api.index.SearchResult;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Description index queries against the benchmark fixture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LuceneIndexerBenchmark {
+
+    @Param({"concept", "description type"})
+    public String query;
+
+    private IndexServiceBI descriptionIndexer;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.start();
+        descriptionIndexer = LookupService.get().getService(IndexServiceBI.class, "description indexer");
+    }
+
+    @Benchmark
+    public List<SearchResult> query() {
+        return descriptionIndexer.query(query, 100);
+    }
+
+    @Benchmark
+    public List<SearchResult> prefixQuery() {
+        return descriptionIndexer.query(query.substring(0, 4), true, null, 100, null);
+    }
+}
@@ -0,0 +1,104 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.MetaData;
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.collections.NidSet;
+import gov.vha.isaac.ochre.api.coordinate.PremiseType;
+import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
+import gov.vha.isaac.ochre.query.provider.Clause;
+import gov.vha.isaac.ochre.query.provider.ComponentCollectionTypes;
+import gov.vha.isaac.ochre.query.provider.ForSetSpecification;
+import gov.vha.isaac.ochre.query.provider.Query;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Query#compute()} for representative taxonomy, lucene and boolean clauses, 
+ * against the benchmark fixture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    private TaxonomyCoordinate taxonomyCoordinate;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.start();
+        taxonomyCoordinate = Get.configurationService().getDefaultTaxonomyCoordinate().makeAnalog(PremiseType.STATED);
+    }
+
+    @Benchmark
+    public NidSet conceptIsKindOf() {
+        return new Query(taxonomyCoordinate) {
+            @Override
+            protected ForSetSpecification ForSetSpecification() {
+                return new ForSetSpecification(ComponentCollectionTypes.ALL_CONCEPTS);
+            }
+
+            @Override
+            public void Let() {
+                let("metadata", MetaData.SOLOR_METADATA);
+            }
+
+            @Override
+            public Clause Where() {
+                return ConceptIsKindOf("metadata");
+            }
+        }.compute();
+    }
+
+    @Benchmark
+    public NidSet kindOfNotChildOf() {
+        return new Query(taxonomyCoordinate) {
+            @Override
+            protected ForSetSpecification ForSetSpecification() {
+                return new ForSetSpecification(ComponentCollectionTypes.ALL_CONCEPTS);
+            }
+
+            @Override
+            public void Let() {
+                let("root", MetaData.ISAAC_ROOT);
+                let("metadata", MetaData.SOLOR_METADATA);
+            }
+
+            @Override
+            public Clause Where() {
+                return And(ConceptIsKindOf("root"), Not(ConceptIsChildOf("metadata")));
+            }
+        }.compute();
+    }
+
+    @Benchmark
+    public NidSet descriptionLuceneMatch() {
+        return new Query(taxonomyCoordinate) {
+            @Override
+            protected ForSetSpecification ForSetSpecification() {
+                return new ForSetSpecification(ComponentCollectionTypes.ALL_CONCEPTS);
+            }
+
+            @Override
+            public void Let() {
+                let("text", "description");
+            }
+
+            @Override
+            public Clause Where() {
+                return DescriptionLuceneMatch("text");
+            }
+        }.compute();
+    }
+}
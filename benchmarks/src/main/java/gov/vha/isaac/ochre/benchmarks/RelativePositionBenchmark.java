@@ -0,0 +1,73 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.chronicle.ObjectChronology;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.identity.StampedVersion;
+import gov.vha.isaac.ochre.api.snapshot.calculator.RelativePositionCalculator;
+import gov.vha.isaac.ochre.model.configuration.StampCoordinates;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latest version resolution over the sememes of the benchmark fixture, both by 
+ * {@link RelativePositionCalculator#getLatestVersion(ObjectChronology)}, which decodes 
+ * every version, and by {@link ObjectChronology#getLatestVersion(Class, StampCoordinate)}, 
+ * which resolves the latest stamps before decoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelativePositionBenchmark {
+
+    private StampCoordinate stampCoordinate;
+    private RelativePositionCalculator calculator;
+    private ObjectChronology<?>[] chronologies;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.start();
+        stampCoordinate = StampCoordinates.getDevelopmentLatest();
+        calculator = RelativePositionCalculator.getCalculator(stampCoordinate);
+        chronologies = Get.sememeService().getSememeChronologyStream().toArray(ObjectChronology<?>[]::new);
+    }
+
+    @Benchmark
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Optional<LatestVersion> getLatestVersion(Cursor cursor) {
+        int index = cursor.next++;
+        if (cursor.next == chronologies.length) {
+            cursor.next = 0;
+        }
+        return calculator.getLatestVersion((ObjectChronology) chronologies[index]);
+    }
+
+    @Benchmark
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Optional<LatestVersion> getLatestVersionFromChronology(Cursor cursor) {
+        int index = cursor.next++;
+        if (cursor.next == chronologies.length) {
+            cursor.next = 0;
+        }
+        return ((ObjectChronology) chronologies[index]).getLatestVersion(StampedVersion.class, stampCoordinate);
+    }
+}
@@ -0,0 +1,73 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.MetaData;
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.coordinate.PremiseType;
+import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
+import gov.vha.isaac.ochre.api.tree.Tree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Kind-of tests, concept status tests and taxonomy tree construction over the
+ * stated taxonomy of the benchmark fixture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaxonomyBenchmark {
+
+    private TaxonomyCoordinate taxonomyCoordinate;
+    private int[] conceptSequences;
+    private int rootSequence;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.start();
+        taxonomyCoordinate = Get.configurationService().getDefaultTaxonomyCoordinate().makeAnalog(PremiseType.STATED);
+        conceptSequences = Get.identifierService().getConceptSequenceStream().toArray();
+        rootSequence = MetaData.ISAAC_ROOT.getConceptSequence();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean isKindOf(Cursor cursor) {
+        int index = cursor.next++;
+        if (cursor.next == conceptSequences.length) {
+            cursor.next = 0;
+        }
+        return Get.taxonomyService().isKindOf(conceptSequences[index], rootSequence, taxonomyCoordinate);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean isConceptActive(Cursor cursor) {
+        int index = cursor.next++;
+        if (cursor.next == conceptSequences.length) {
+            cursor.next = 0;
+        }
+        return Get.conceptActiveService().isConceptActive(conceptSequences[index], taxonomyCoordinate.getStampCoordinate());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Tree getTaxonomyTree() {
+        return Get.taxonomyService().getTaxonomyTree(taxonomyCoordinate);
+    }
+}
@@ -0,0 +1,76 @@
+package gov.vha.isaac.ochre.benchmarks;
+
+import gov.vha.isaac.ochre.api.collections.UuidIntMapMap;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link UuidIntMapMap#getWithGeneration(UUID)} for uuids which are already mapped, 
+ * in a standalone map of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UuidIntMapMapBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private Path folder;
+    private UuidIntMapMap map;
+    private UUID[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("uuid-nid-benchmark");
+        map = UuidIntMapMap.create(folder.toFile());
+        keys = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = UUID.randomUUID();
+            map.getWithGeneration(keys[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        map.setShutdown(true);
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int getWithGeneration(Cursor cursor) {
+        int index = cursor.next++;
+        if (cursor.next == keys.length) {
+            cursor.next = 0;
+        }
+        return map.getWithGeneration(keys[index]);
+    }
+}
@@ -10,6 +10,7 @@ import gov.vha.isaac.ochre.api.ConfigurationService;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.SystemStatusService;
+import gov.vha.isaac.ochre.api.bootstrap.TermAux;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronology;
 import gov.vha.isaac.ochre.api.commit.*;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
@@ -650,6 +651,9 @@ public class CommitProvider implements CommitService {
                 Get.sememeService().writeSememe(sememeChronology);
                 if (sememeChronology.getSememeType() == SememeType.LOGIC_GRAPH) {
                     Get.taxonomyService().updateTaxonomy(sememeChronology);
+                } else if (sememeChronology.getAssemblageSequence() == TermAux.PATH_ASSEMBLAGE.getConceptSequence()
+                        || sememeChronology.getAssemblageSequence() == TermAux.PATH_ORIGIN_ASSEMBLAGE.getConceptSequence()) {
+                    Get.pathService().invalidatePaths();
                 }
                 break;
             case STAMP_ALIAS:
@@ -16,11 +16,9 @@ package gov.vha.isaac.ochre.commit.manager;
  * limitations under the License.
  */
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.commit.*;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import gov.vha.isaac.ochre.api.task.TimedTask;
 import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.collections.SememeSequenceSet;
@@ -100,7 +98,6 @@ public class CommitTask extends TimedTask<Optional<CommitRecord>> {
             ConcurrentSkipListSet<Alert> alertCollection,
             Map<UncommittedStamp, Integer> pendingStampsForCommit,
             CommitProvider commitProvider) {
-        LookupService.getService(ActiveTasks.class).get().add(this);
         this.commitComment = commitComment;
         conceptsToCommit.or(uncommittedConceptsNoChecksSequenceSet);
         conceptsToCommit.or(uncommittedConceptsWithChecksSequenceSet);
@@ -16,13 +16,11 @@
 package gov.vha.isaac.ochre.commit.manager;
 
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.commit.Alert;
 import gov.vha.isaac.ochre.api.commit.ChangeChecker;
 import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
 import gov.vha.isaac.ochre.api.commit.CheckPhase;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -36,6 +34,8 @@ import javafx.concurrent.Task;
 public class WriteAndCheckConceptChronicle extends Task<Void> implements Callable<Void> {
 
 
+    private static final String TITLE = "Write and check concept";
+
     private final ConceptChronology cc;
     private final ConcurrentSkipListSet<ChangeChecker> checkers;
     private final ConcurrentSkipListSet<Alert> alertCollection;
@@ -51,16 +51,16 @@ public class WriteAndCheckConceptChronicle extends Task<Void> implements Callabl
         this.alertCollection = alertCollection;
         this.writeSemaphore = writeSemaphore;
         this.changeListeners = changeListeners;
-        updateTitle("Write and check concept");
+        updateTitle(TITLE);
         //TODO dan disabled this, cause it keeps causing a timing based (randomly occurring) null pointer exception when it tries to read the descriptions 
         //for this new concept.  see https://slack-files.com/T04QD7FHW-F0B2PQL87-4d6e82e985
         updateMessage("writing nid " + cc.getNid()); // Get.conceptDescriptionText(cc.getConceptSequence()));
         updateProgress(-1, Long.MAX_VALUE); // Indeterminate progress
-        LookupService.getService(ActiveTasks.class).get().add(this);
     }
 
     @Override
     public Void call() throws Exception {
+        long startTime = Get.activeTasks().begin(TITLE);
         try {
             Get.conceptService().writeConcept(cc);
             updateProgress(1, 3);
@@ -93,7 +93,7 @@ public class WriteAndCheckConceptChronicle extends Task<Void> implements Callabl
              return null;
         } finally {
             writeSemaphore.release();
-            LookupService.getService(ActiveTasks.class).get().remove(this);
+            Get.activeTasks().end(TITLE, startTime);
         }
     }
 }
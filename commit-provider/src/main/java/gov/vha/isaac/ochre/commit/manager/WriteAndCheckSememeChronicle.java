@@ -16,14 +16,12 @@
 package gov.vha.isaac.ochre.commit.manager;
 
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.commit.Alert;
 import gov.vha.isaac.ochre.api.commit.ChangeChecker;
 import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
 import gov.vha.isaac.ochre.api.commit.CheckPhase;
 import gov.vha.isaac.ochre.api.commit.CommitStates;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -36,6 +34,8 @@ import javafx.concurrent.Task;
  */
 public class WriteAndCheckSememeChronicle extends Task<Void> implements Callable<Void> {
 
+    private static final String TITLE = "Write, check, and notify for sememe change";
+
     private final SememeChronology sc;
     private final ConcurrentSkipListSet<ChangeChecker> checkers;
     private final ConcurrentSkipListSet<Alert> alertCollection;
@@ -51,14 +51,14 @@ public class WriteAndCheckSememeChronicle extends Task<Void> implements Callable
         this.alertCollection = alertCollection;
         this.writeSemaphore = writeSemaphore;
         this.changeListeners = changeListeners;
-        updateTitle("Write, check, and notify for sememe change");
+        updateTitle(TITLE);
         updateMessage("write: " + sc.getSememeType() + " " + sc.getSememeSequence());
         updateProgress(-1, Long.MAX_VALUE); // Indeterminate progress
-        LookupService.getService(ActiveTasks.class).get().add(this);
     }
 
     @Override
     public Void call() throws Exception {
+        long startTime = Get.activeTasks().begin(TITLE);
         try {
             Get.sememeService().writeSememe(sc);
             updateProgress(1, 3);
@@ -86,7 +86,7 @@ public class WriteAndCheckSememeChronicle extends Task<Void> implements Callable
             return null;
         } finally {
             writeSemaphore.release();
-            LookupService.getService(ActiveTasks.class).get().remove(this);
+            Get.activeTasks().end(TITLE, startTime);
         }
     }
 }
@@ -16,10 +16,8 @@
 package gov.vha.isaac.ochre.commit.manager;
 
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -33,6 +31,8 @@ import javafx.concurrent.Task;
 public class WriteConceptChronicle extends Task<Void>  implements Callable<Void>{
     
     
+    private static final String TITLE = "Write concept";
+
     private final ConceptChronology cc;
     private final Semaphore writeSemaphore;
     private final ConcurrentSkipListSet<WeakReference<ChronologyChangeListener>> changeListeners;
@@ -42,14 +42,14 @@ public class WriteConceptChronicle extends Task<Void>  implements Callable<Void>
         this.cc = cc;
         this.writeSemaphore = writeSemaphore;
         this.changeListeners = changeListeners;
-        updateTitle("Write concept");
+        updateTitle(TITLE);
         updateMessage(Get.conceptDescriptionText(cc.getConceptSequence()));
         updateProgress(-1, Long.MAX_VALUE); // Indeterminate progress
-        LookupService.getService(ActiveTasks.class).get().add(this);
     }
 
     @Override
     public Void call() throws Exception {
+        long startTime = Get.activeTasks().begin(TITLE);
         try {
             Get.conceptService().writeConcept(cc);
             updateProgress(1, 2); 
@@ -70,7 +70,7 @@ public class WriteConceptChronicle extends Task<Void>  implements Callable<Void>
              return null;
         } finally {
             writeSemaphore.release();
-            LookupService.getService(ActiveTasks.class).get().remove(this); 
+            Get.activeTasks().end(TITLE, startTime);
         }
     }
     
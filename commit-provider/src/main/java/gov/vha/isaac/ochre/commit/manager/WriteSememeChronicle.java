@@ -16,10 +16,8 @@
 package gov.vha.isaac.ochre.commit.manager;
 
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -32,6 +30,8 @@ import javafx.concurrent.Task;
  */
 public class WriteSememeChronicle extends Task<Void>  implements Callable<Void>{
     
+    private static final String TITLE = "Write and notify sememe change";
+
     private final SememeChronology sc;
     private final Semaphore writeSemaphore;
     private final ConcurrentSkipListSet<WeakReference<ChronologyChangeListener>> changeListeners;
@@ -41,14 +41,14 @@ public class WriteSememeChronicle extends Task<Void>  implements Callable<Void>{
         this.sc = sc;
         this.writeSemaphore = writeSemaphore;
         this.changeListeners = changeListeners;
-        updateTitle("Write and notify sememe change");
+        updateTitle(TITLE);
         updateMessage("write: " + sc.getSememeType() + " " + sc.getSememeSequence());
         updateProgress(-1, Long.MAX_VALUE); // Indeterminate progress
-        LookupService.getService(ActiveTasks.class).get().add(this);
     }
 
     @Override
     public Void call() throws Exception {
+        long startTime = Get.activeTasks().begin(TITLE);
         try {
             Get.sememeService().writeSememe(sc);
             updateProgress(1, 2); 
@@ -68,7 +68,7 @@ public class WriteSememeChronicle extends Task<Void>  implements Callable<Void>{
             return null;
         } finally {
             writeSemaphore.release();
-            LookupService.getService(ActiveTasks.class).get().remove(this);            
+            Get.activeTasks().end(TITLE, startTime);
         }
     }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import gov.vha.isaac.ochre.concept.provider.ConceptSerializer;
 import gov.vha.isaac.ochre.api.ConceptActiveService;
 import gov.vha.isaac.ochre.api.ConfigurationService;
 import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.LanguageCoordinateService;
 import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.SystemStatusService;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
@@ -27,28 +28,40 @@ import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
 import gov.vha.isaac.ochre.api.component.concept.ConceptService;
 import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshot;
 import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotService;
+import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotTable;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
 import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.snapshot.calculator.RelativePositionCalculator;
+import gov.vha.isaac.ochre.model.StampChangeIndex;
 import gov.vha.isaac.ochre.model.concept.ConceptChronologyImpl;
 import gov.vha.isaac.ochre.model.concept.ConceptSnapshotImpl;
+import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
 import gov.vha.isaac.ochre.model.waitfree.CasSequenceObjectMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -73,6 +86,8 @@ public class ConceptProvider implements ConceptService {
     ConceptActiveService conceptActiveService;
 
     final CasSequenceObjectMap<ConceptChronologyImpl> conceptMap;
+    final StampChangeIndex changeIndex = new StampChangeIndex();
+    final Path changeIndexPath;
     private AtomicBoolean loadRequired = new AtomicBoolean();
 
     public ConceptProvider() throws IOException, NumberFormatException, ParseException {
@@ -80,6 +95,7 @@ public class ConceptProvider implements ConceptService {
             Path propertiesPath = LookupService.getService(ConfigurationService.class).getChronicleFolderPath().resolve(CRADLE_PROPERTIES_FILE_NAME);
             Path folderPath = LookupService.getService(ConfigurationService.class).getChronicleFolderPath().resolve("ochre-concepts");
             Files.createDirectories(folderPath);
+            changeIndexPath = folderPath.resolve("stamp-change.index");
             LOG.info("Setting up OCHRE ConceptProvider at " + folderPath.toAbsolutePath());
             Properties cradleProps = new Properties();
             if (propertiesPath.toFile().exists()) {
@@ -116,6 +132,17 @@ public class ConceptProvider implements ConceptService {
             LOG.info("Reading existing OCHRE concept-map.");
             conceptMap.initialize();
 
+            if (Files.exists(changeIndexPath)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(changeIndexPath.toFile())))) {
+                    changeIndex.read(in);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            } else {
+                LOG.info("Building concept change index.");
+                conceptMap.getParallelStream().forEach((concept) -> changeIndex.index(
+                        concept.getConceptSequence(), concept.getVersionStampSequences()));
+            }
             LOG.info("Finished OCHRE read.");
         }
     }
@@ -125,6 +152,13 @@ public class ConceptProvider implements ConceptService {
 
         LOG.info("Writing OCHRE concept-map.");
         conceptMap.write();
+
+        LOG.info("Writing OCHRE concept change index.");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(changeIndexPath.toFile())))) {
+            changeIndex.write(out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -212,6 +246,72 @@ public class ConceptProvider implements ConceptService {
             return new ConceptSnapshotImpl(getConcept(conceptSequence), stampCoordinate, languageCoordinate);
         }
 
+        @Override
+        public ConceptSnapshotTable getConceptSnapshots(ConceptSequenceSet conceptSequenceSet) {
+            int[] conceptSequences = conceptSequenceSet.stream().filter(conceptMap::containsKey).toArray();
+            int rowCount = conceptSequences.length;
+            int[] stampSequences = new int[rowCount];
+            boolean[] active = new boolean[rowCount];
+            List<List<SememeChronology<? extends DescriptionSememe<?>>>> descriptionLists
+                    = new ArrayList<>(Collections.nCopies(rowCount, null));
+
+            // the rows are sorted, so the concepts of each segment are a range of rows, read by one task.
+            IntStream.Builder segmentStarts = IntStream.builder();
+            for (int row = 0; row < rowCount; row++) {
+                if (row == 0 || CasSequenceObjectMap.getSegmentIndex(conceptSequences[row])
+                        != CasSequenceObjectMap.getSegmentIndex(conceptSequences[row - 1])) {
+                    segmentStarts.add(row);
+                }
+            }
+            int[] starts = IntStream.concat(segmentStarts.build(), IntStream.of(rowCount)).toArray();
+            RelativePositionCalculator calculator = RelativePositionCalculator.getCalculator(stampCoordinate);
+            IntStream.range(0, starts.length - 1).parallel().forEach((segment) -> {
+                for (int row = starts[segment]; row < starts[segment + 1]; row++) {
+                    int conceptSequence = conceptSequences[row];
+                    ConceptChronologyImpl concept = conceptMap.getQuick(conceptSequence);
+                    Optional<LatestVersion<ConceptVersionImpl>> latestVersion = concept.getLatestVersion(calculator);
+                    stampSequences[row] = latestVersion.isPresent() ? latestVersion.get().value().getStampSequence() : -1;
+                    active[row] = conceptActiveService.isConceptActive(conceptSequence, stampCoordinate);
+                    descriptionLists.set(row, Get.sememeService().getDescriptionsForComponent(concept.getNid())
+                            .collect(Collectors.toList()));
+                }
+            });
+
+            LanguageCoordinateService languageCoordinateService = Get.languageCoordinateService();
+            String[] fullySpecifiedTexts = getTexts(languageCoordinateService.getFullySpecifiedConceptSequence(), descriptionLists);
+            String[] preferredTexts = getTexts(languageCoordinateService.getSynonymConceptSequence(), descriptionLists);
+            String[] descriptionTexts = new String[rowCount];
+            for (int descriptionType : languageCoordinate.getDescriptionTypePreferenceList()) {
+                String[] texts;
+                if (descriptionType == languageCoordinateService.getFullySpecifiedConceptSequence()) {
+                    texts = fullySpecifiedTexts;
+                } else if (descriptionType == languageCoordinateService.getSynonymConceptSequence()) {
+                    texts = preferredTexts;
+                } else {
+                    texts = getTexts(descriptionType, descriptionLists);
+                }
+                for (int row = 0; row < rowCount; row++) {
+                    if (descriptionTexts[row] == null) {
+                        descriptionTexts[row] = texts[row];
+                    }
+                }
+            }
+            return new ConceptSnapshotTable(conceptSequences, stampSequences, active,
+                    fullySpecifiedTexts, preferredTexts, descriptionTexts);
+        }
+
+        private String[] getTexts(int descriptionType, List<List<SememeChronology<? extends DescriptionSememe<?>>>> descriptionLists) {
+            DescriptionSememe<?>[] descriptions = Get.languageCoordinateService()
+                    .getSpecifiedDescriptions(stampCoordinate, descriptionLists, descriptionType, languageCoordinate);
+            String[] texts = new String[descriptions.length];
+            for (int row = 0; row < descriptions.length; row++) {
+                if (descriptions[row] != null) {
+                    texts[row] = descriptions[row].getText();
+                }
+            }
+            return texts;
+        }
+
         @Override
         public LanguageCoordinate getLanguageCoordinate() {
             return languageCoordinate;
@@ -307,8 +407,14 @@ public class ConceptProvider implements ConceptService {
         return conceptMap.getSize();
     }
 
+    @Override
+    public ConceptSequenceSet getConceptSequencesModifiedAfterPosition(StampPosition position) {
+        return new ConceptSequenceSet(changeIndex.getSequencesModifiedAfter(position));
+    }
+
     @Override
     public void writeConcept(ConceptChronology<? extends ConceptVersion<?>> concept) {
+        changeIndex.index(concept.getConceptSequence(), concept.getVersionStampSequences());
         conceptMap.put(concept.getConceptSequence(), (ConceptChronologyImpl) concept);
     }
 
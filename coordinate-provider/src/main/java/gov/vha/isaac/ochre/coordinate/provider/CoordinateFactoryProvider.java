@@ -24,7 +24,9 @@ import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.State;
 import gov.vha.isaac.ochre.api.bootstrap.TermAux;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.collections.NidSet;
 import gov.vha.isaac.ochre.api.component.concept.ConceptSpecification;
+import gov.vha.isaac.ochre.api.component.sememe.LatestSememeVersionTable;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeSnapshotService;
 import gov.vha.isaac.ochre.api.component.sememe.version.ComponentNidSememe;
@@ -45,8 +47,8 @@ import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 import javax.inject.Singleton;
 import org.jvnet.hk2.annotations.Service;
 
@@ -58,21 +60,25 @@ import org.jvnet.hk2.annotations.Service;
 @Singleton
 public class CoordinateFactoryProvider implements CoordinateFactory {
 
+    @SuppressWarnings("unchecked")
+    private static final Class<DescriptionSememe<?>> DESCRIPTION_SEMEME_CLASS
+            = (Class<DescriptionSememe<?>>) (Class<?>) DescriptionSememe.class;
+
     @Override
     public StampCoordinate createStampCoordinate(ConceptSpecification stampPath, StampPrecedence precedence, List<ConceptSpecification> moduleSpecificationList, EnumSet<State> allowedStateSet, int year, int month, int dayOfMonth, int hour, int minute, int second) {
-        StampPositionImpl stampPosition = new StampPositionImpl(LocalDateTime.of(year, month, dayOfMonth, hour, minute, second).toEpochSecond(ZoneOffset.UTC), stampPath.getConceptSequence());
+        StampPositionImpl stampPosition = new StampPositionImpl(LocalDateTime.of(year, month, dayOfMonth, hour, minute, second).toInstant(ZoneOffset.UTC).toEpochMilli(), stampPath.getConceptSequence());
         return new StampCoordinateImpl(precedence, stampPosition, moduleSpecificationList, allowedStateSet);
     }
 
     @Override
     public StampCoordinate createStampCoordinate(ConceptSpecification stampPath, StampPrecedence precedence, List<ConceptSpecification> moduleSpecificationList, EnumSet<State> allowedStateSet, TemporalAccessor temporal) {
-        StampPositionImpl stampPosition = new StampPositionImpl(LocalDateTime.from(temporal).toEpochSecond(ZoneOffset.UTC), stampPath.getConceptSequence());
+        StampPositionImpl stampPosition = new StampPositionImpl(LocalDateTime.from(temporal).toInstant(ZoneOffset.UTC).toEpochMilli(), stampPath.getConceptSequence());
         return new StampCoordinateImpl(precedence, stampPosition, moduleSpecificationList, allowedStateSet);
     }
 
     @Override
     public StampCoordinate createStampCoordinate(ConceptSpecification stampPath, StampPrecedence precedence, List<ConceptSpecification> moduleSpecificationList, EnumSet<State> allowedStateSet, CharSequence dateTimeText) {
-        StampPositionImpl stampPosition = new StampPositionImpl(LocalDateTime.parse(dateTimeText).toEpochSecond(ZoneOffset.UTC), stampPath.getConceptSequence());
+        StampPositionImpl stampPosition = new StampPositionImpl(LocalDateTime.parse(dateTimeText).toInstant(ZoneOffset.UTC).toEpochMilli(), stampPath.getConceptSequence());
         return new StampCoordinateImpl(precedence, stampPosition, moduleSpecificationList, allowedStateSet);
     }
 
@@ -194,6 +200,71 @@ public class CoordinateFactoryProvider implements CoordinateFactory {
             int typeSequence, LanguageCoordinate languageCoordinate) {
         SememeSnapshotService<ComponentNidSememe> acceptabilitySnapshot = Get.sememeService().getSnapshot(ComponentNidSememe.class, stampCoordinate);
         
+        List<DescriptionSememe<?>> descriptionsForLanguageOfType 
+                = getDescriptionsForLanguageOfType(stampCoordinate, descriptionList, typeSequence, languageCoordinate);
+
+        if (descriptionsForLanguageOfType.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // handle dialect...
+        LatestVersion<DescriptionSememe<?>> preferredForDialect = new LatestVersion<>(DESCRIPTION_SEMEME_CLASS);
+        NidSet descriptionNids = NidSet.of(descriptionsForLanguageOfType.stream().mapToInt((description) -> description.getNid()));
+        IntStream.of(languageCoordinate.getDialectAssemblagePreferenceList()).forEach((dialectAssemblageSequence) -> {
+            if (preferredForDialect.value() == null) {
+                LatestSememeVersionTable acceptabilities
+                        = acceptabilitySnapshot.getLatestSememeVersionsForComponentsFromAssemblage(descriptionNids, dialectAssemblageSequence);
+                addPreferred(descriptionsForLanguageOfType, acceptabilities, preferredForDialect);
+            }
+        });
+
+        if (preferredForDialect.value() == null) {
+            descriptionsForLanguageOfType.forEach((fsn) -> {preferredForDialect.addLatest(fsn);});
+        }
+        if (preferredForDialect.value() == null) { 
+            return Optional.empty();
+        }
+        return Optional.of((LatestVersion<DescriptionSememe<?>>) preferredForDialect);
+    }
+
+    @Override
+    public DescriptionSememe<?>[] getSpecifiedDescriptions(StampCoordinate stampCoordinate, 
+            List<List<SememeChronology<? extends DescriptionSememe<?>>>> descriptionLists, 
+            int typeSequence, LanguageCoordinate languageCoordinate) {
+        SememeSnapshotService<ComponentNidSememe> acceptabilitySnapshot = Get.sememeService().getSnapshot(ComponentNidSememe.class, stampCoordinate);
+        
+        List<List<DescriptionSememe<?>>> descriptionsForLanguageOfTypeLists = descriptionLists.parallelStream()
+                .map((descriptionList) -> getDescriptionsForLanguageOfType(stampCoordinate, descriptionList, typeSequence, languageCoordinate))
+                .collect(Collectors.toList());
+        
+        // the acceptabilities of the descriptions of every list, one table per dialect.
+        NidSet descriptionNids = NidSet.of(descriptionsForLanguageOfTypeLists.stream()
+                .flatMap((descriptions) -> descriptions.stream()).mapToInt((description) -> description.getNid()));
+        LatestSememeVersionTable[] acceptabilityTables = IntStream.of(languageCoordinate.getDialectAssemblagePreferenceList())
+                .mapToObj((dialectAssemblageSequence) -> acceptabilitySnapshot.getLatestSememeVersionsForComponentsFromAssemblage(descriptionNids, dialectAssemblageSequence))
+                .toArray(LatestSememeVersionTable[]::new);
+        
+        DescriptionSememe<?>[] specifiedDescriptions = new DescriptionSememe<?>[descriptionLists.size()];
+        IntStream.range(0, specifiedDescriptions.length).parallel().forEach((index) -> {
+            List<DescriptionSememe<?>> descriptionsForLanguageOfType = descriptionsForLanguageOfTypeLists.get(index);
+            LatestVersion<DescriptionSememe<?>> preferredForDialect = new LatestVersion<>(DESCRIPTION_SEMEME_CLASS);
+            for (LatestSememeVersionTable acceptabilities : acceptabilityTables) {
+                if (preferredForDialect.value() != null) {
+                    break;
+                }
+                addPreferred(descriptionsForLanguageOfType, acceptabilities, preferredForDialect);
+            }
+            if (preferredForDialect.value() == null) {
+                descriptionsForLanguageOfType.forEach((fsn) -> {preferredForDialect.addLatest(fsn);});
+            }
+            specifiedDescriptions[index] = preferredForDialect.value();
+        });
+        return specifiedDescriptions;
+    }
+
+    private List<DescriptionSememe<?>> getDescriptionsForLanguageOfType(StampCoordinate stampCoordinate, 
+            List<SememeChronology<? extends DescriptionSememe<?>>> descriptionList, 
+            int typeSequence, LanguageCoordinate languageCoordinate) {
         List<DescriptionSememe<?>> descriptionsForLanguageOfType = new ArrayList<>();
         
         descriptionList.stream().forEach((descriptionChronicle) -> {
@@ -212,35 +283,18 @@ public class CoordinateFactoryProvider implements CoordinateFactory {
 
             }
         });
+        return descriptionsForLanguageOfType;
+    }
 
-        if (descriptionsForLanguageOfType.isEmpty()) {
-            return Optional.empty();
-        }
-
-        // handle dialect...
-        LatestVersion<DescriptionSememe<?>> preferredForDialect = new LatestVersion(DescriptionSememe.class);
-        IntStream.of(languageCoordinate.getDialectAssemblagePreferenceList()).forEach((dialectAssemblageSequence) -> {
-            if (preferredForDialect.value() == null) {
-                descriptionsForLanguageOfType.forEach((DescriptionSememe description) -> {
-                    Stream<LatestVersion<ComponentNidSememe>> acceptability
-                            = acceptabilitySnapshot.getLatestSememeVersionsForComponentFromAssemblage(description.getNid(), dialectAssemblageSequence);
-
-                    if (acceptability.anyMatch((LatestVersion<ComponentNidSememe> acceptabilityVersion) -> {
-                         return Get.identifierService().getConceptSequence(acceptabilityVersion.value().getComponentNid()) == getPreferredConceptSequence();
-                    })) {
-                        preferredForDialect.addLatest(description);
-                    }
-                });
+    private void addPreferred(List<DescriptionSememe<?>> descriptions, LatestSememeVersionTable acceptabilities, 
+            LatestVersion<DescriptionSememe<?>> preferredForDialect) {
+        descriptions.forEach((DescriptionSememe description) -> {
+            if (acceptabilities.getRowsForComponent(description.getNid()).anyMatch((int row) -> {
+                 return Get.identifierService().getConceptSequence(acceptabilities.getComponentNidValue(row)) == getPreferredConceptSequence();
+            })) {
+                preferredForDialect.addLatest(description);
             }
         });
-
-        if (preferredForDialect.value() == null) {
-            descriptionsForLanguageOfType.forEach((fsn) -> {preferredForDialect.addLatest(fsn);});
-        }
-        if (preferredForDialect.value() == null) { 
-            return Optional.empty();
-        }
-        return Optional.of((LatestVersion<DescriptionSememe<?>>) preferredForDialect);
     }
 
     @Override
@@ -0,0 +1,99 @@
+package gov.vha.isaac.ochre.coordinate.provider;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.IdentifierService;
+import gov.vha.isaac.ochre.api.State;
+import gov.vha.isaac.ochre.api.bootstrap.TermAux;
+import gov.vha.isaac.ochre.api.commit.StampService;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
+import gov.vha.isaac.ochre.api.coordinate.StampPrecedence;
+import gov.vha.isaac.ochre.model.StampChangeIndex;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Stamp positions created from a date and time, as used to export the
+ * changes after a time.
+ */
+public class CoordinateFactoryProviderTest {
+
+    private static final int PATH = 7;
+    private static final String CHANGED_AFTER = "2016-03-01T00:00:00";
+
+    private final Map<Integer, Long> stampTimes = new HashMap<>();
+
+    @BeforeClass
+    public void setUp() throws ReflectiveOperationException {
+        install("identifierService", IdentifierService.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConceptSequence":
+                    return args[0];
+                case "getConceptSequenceForUuids":
+                    return PATH;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        install("stampService", StampService.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getTimeForStamp":
+                    return stampTimes.get((Integer) args[0]);
+                case "getPathSequenceForStamp":
+                    return PATH;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @AfterClass
+    public void tearDown() {
+        new Get().reset();
+    }
+
+    private static void install(String fieldName, Class<?> serviceClass, InvocationHandler handler)
+            throws ReflectiveOperationException {
+        Field field = Get.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(null, Proxy.newProxyInstance(CoordinateFactoryProviderTest.class.getClassLoader(),
+                new Class<?>[]{serviceClass}, handler));
+    }
+
+    private static long millis(String dateTimeText) {
+        return LocalDateTime.parse(dateTimeText).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @Test
+    public void testPositionTimeInMillis() {
+        StampPosition position = new CoordinateFactoryProvider().createStampCoordinate(TermAux.DEVELOPMENT_PATH,
+                StampPrecedence.PATH, new ArrayList<>(), State.ANY_STATE_SET, CHANGED_AFTER).getStampPosition();
+        assertEquals(position.getTime(), millis(CHANGED_AFTER));
+        assertEquals(position.getStampPathSequence(), PATH);
+    }
+
+    @Test
+    public void testChangedBeforePositionNotExported() {
+        stampTimes.put(1, millis("2016-02-01T00:00:00"));
+        stampTimes.put(2, millis("2016-04-01T00:00:00"));
+        StampChangeIndex changeIndex = new StampChangeIndex();
+        changeIndex.index(10, IntStream.of(1));
+        changeIndex.index(11, IntStream.of(1, 2));
+        changeIndex.index(12, IntStream.of(2));
+
+        StampPosition position = new CoordinateFactoryProvider().createStampCoordinate(TermAux.DEVELOPMENT_PATH,
+                StampPrecedence.PATH, new ArrayList<>(), State.ANY_STATE_SET, CHANGED_AFTER).getStampPosition();
+        assertEquals(changeIndex.getSequencesModifiedAfter(position), new int[]{11, 12});
+    }
+}
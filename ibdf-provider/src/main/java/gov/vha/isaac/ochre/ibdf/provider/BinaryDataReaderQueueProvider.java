@@ -21,7 +21,11 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Spliterator;
+import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -37,6 +41,7 @@ import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
 import gov.vha.isaac.ochre.api.externalizable.OchreExternalizable;
 import gov.vha.isaac.ochre.api.externalizable.OchreExternalizableObjectType;
 import gov.vha.isaac.ochre.api.task.TimedTaskWithProgressTracker;
+import gov.vha.isaac.ochre.model.ObjectChronologyImpl;
 
 /**
  * 
@@ -66,6 +71,9 @@ public class BinaryDataReaderQueueProvider
 	//This buffers from between the time when we deserialize the object, and when we write it back to the DB.
 	private BlockingQueue<OchreExternalizable> parsedData = new ArrayBlockingQueue<>(50);
 	ExecutorService es_;
+	//Records are read ahead in batches, so the identifiers of a batch can be resolved together.
+	private static final int BATCH_SIZE = 1024;
+	private final ArrayDeque<OchreExternalizableUnparsed> readAhead = new ArrayDeque<>(BATCH_SIZE);
 
 	public BinaryDataReaderQueueProvider(Path dataPath) throws FileNotFoundException
 	{
@@ -144,31 +152,62 @@ public class BinaryDataReaderQueueProvider
 	@Override
 	public boolean tryAdvance(Consumer<? super OchreExternalizableUnparsed> action)
 	{
-		try
+		if (readAhead.isEmpty())
 		{
-			int startBytes = input.available();
-			OchreExternalizableObjectType type = OchreExternalizableObjectType.fromDataStream(input);
-			byte dataFormatVersion = input.readByte();
-			int recordSize = input.readInt();
-			byte[] objectData = new byte[recordSize];
-			input.readFully(objectData);
-			ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(objectData);
-			buffer.setExternalData(true);
-			buffer.setObjectDataFormatVersion(dataFormatVersion);
-			action.accept(new OchreExternalizableUnparsed(type, buffer));
-			objects++;
-			completedUnitsOfWork(startBytes - input.available());
-			return true;
+			readBatch();
 		}
-		catch (EOFException ex)
+		OchreExternalizableUnparsed unparsed = readAhead.poll();
+		if (unparsed == null)
 		{
 			shutdown();
 			return false;
 		}
+		action.accept(unparsed);
+		return true;
+	}
+
+	/**
+	 * Reads the next batch of records, and resolves the identifiers at the start of each concept and sememe
+	 * in bulk, so the parsing threads find the nids already assigned, rather than each taking a write lock
+	 * on a uuid map to generate them.
+	 */
+	private void readBatch()
+	{
+		List<UUID> uuids = new ArrayList<>();
+		try
+		{
+			while (readAhead.size() < BATCH_SIZE)
+			{
+				int startBytes = input.available();
+				OchreExternalizableObjectType type = OchreExternalizableObjectType.fromDataStream(input);
+				byte dataFormatVersion = input.readByte();
+				int recordSize = input.readInt();
+				byte[] objectData = new byte[recordSize];
+				input.readFully(objectData);
+				ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(objectData);
+				buffer.setExternalData(true);
+				buffer.setObjectDataFormatVersion(dataFormatVersion);
+				if (type == OchreExternalizableObjectType.CONCEPT || type == OchreExternalizableObjectType.SEMEME)
+				{
+					ObjectChronologyImpl.addExternalIdentifierUuids(buffer, type, uuids);
+				}
+				readAhead.add(new OchreExternalizableUnparsed(type, buffer));
+				objects++;
+				completedUnitsOfWork(startBytes - input.available());
+			}
+		}
+		catch (EOFException ex)
+		{
+			// the end of the data, the batch holds the remaining records.
+		}
 		catch (IOException ex)
 		{
 			throw new RuntimeException(ex);
 		}
+		if (!uuids.isEmpty())
+		{
+			Get.identifierService().getNidsForUuids(uuids.toArray(new UUID[uuids.size()]));
+		}
 	}
 
 	@Override
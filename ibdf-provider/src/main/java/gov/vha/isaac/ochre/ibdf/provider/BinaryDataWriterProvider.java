@@ -26,6 +26,9 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * @author kec
@@ -36,6 +39,13 @@ public class BinaryDataWriterProvider implements BinaryDataWriterService {
     private static final boolean DEBUG = Get.configurationService().enableVerboseDebug();
 
     private static final int BUFFER_SIZE = 1024;
+    private static final int BATCH_SIZE = 4096;
+    /**
+     * Object type token, data format version, and data length.
+     */
+    private static final int RECORD_HEADER_SIZE = 6;
+    private static final ThreadLocal<ByteArrayDataBuffer> RECORD_BUFFER
+            = ThreadLocal.withInitial(() -> new ByteArrayDataBuffer(BUFFER_SIZE));
     Path dataPath;
     ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(BUFFER_SIZE);
     DataOutputStream output;
@@ -75,6 +85,53 @@ public class BinaryDataWriterProvider implements BinaryDataWriterService {
         }
     }
 
+    /**
+     * Serializes the objects in parallel, a batch at a time, and writes each
+     * batch in the order of the stream.
+     * @param ochreObjects the objects to write
+     */
+    @Override
+    public void putAll(Stream<? extends OchreExternalizable> ochreObjects) {
+        OchreExternalizable[] batch = new OchreExternalizable[BATCH_SIZE];
+        byte[][] records = new byte[BATCH_SIZE][];
+        Iterator<? extends OchreExternalizable> iterator = ochreObjects.iterator();
+        while (iterator.hasNext()) {
+            int batchSize = 0;
+            while (batchSize < BATCH_SIZE && iterator.hasNext()) {
+                batch[batchSize++] = iterator.next();
+            }
+            IntStream.range(0, batchSize).parallel().forEach((i) -> records[i] = toRecord(batch[i]));
+            try {
+                for (int i = 0; i < batchSize; i++) {
+                    output.write(records[i]);
+                    batch[i] = null;
+                    records[i] = null;
+                }
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+            writtenObjects += batchSize;
+        }
+    }
+
+    private static byte[] toRecord(OchreExternalizable ochreObject) {
+        ByteArrayDataBuffer recordBuffer = RECORD_BUFFER.get();
+        recordBuffer.clear();
+        // also picks up the current identifier service, as the buffer outlives a database.
+        recordBuffer.setExternalData(true);
+        ochreObject.putExternal(recordBuffer);
+        int dataLength = recordBuffer.getLimit();
+        byte[] record = new byte[RECORD_HEADER_SIZE + dataLength];
+        record[0] = ochreObject.getOchreObjectType().getToken();
+        record[1] = ochreObject.getDataFormatVersion();
+        record[2] = (byte) (dataLength >>> 24);
+        record[3] = (byte) (dataLength >>> 16);
+        record[4] = (byte) (dataLength >>> 8);
+        record[5] = (byte) dataLength;
+        System.arraycopy(recordBuffer.getData(), 0, record, RECORD_HEADER_SIZE, dataLength);
+        return record;
+    }
+
     @Override
     public void close() {
         try {
@@ -276,6 +276,11 @@ public class IdentifierProvider implements IdentifierService, IdentifiedObjectSe
         return nid;
     }
 
+    @Override
+    public int[] getNidsForUuids(UUID[] uuids) {
+        return uuidIntMapMap.getWithGeneration(uuids);
+    }
+
     @Override
     public Optional<UUID> getUuidPrimordialForNid(int nid) {
         if (nid > 0) {
@@ -411,6 +416,20 @@ public class IdentifierProvider implements IdentifierService, IdentifiedObjectSe
         return getIdentifierForAuthority(conceptId, identifierAuthorityUuid, stampCoordinate);
     }
 
+    @Override
+    public int[] getNidsForIdentifiers(int authoritySequence, String... identifiers) {
+        return Get.sememeService().getReferencedComponentNidsForIdentifiers(authoritySequence, identifiers);
+    }
+
+    @Override
+    public int[] getNidsForIdentifiers(int authoritySequence, long... identifiers) {
+        String[] identifierStrings = new String[identifiers.length];
+        for (int i = 0; i < identifiers.length; i++) {
+            identifierStrings[i] = Long.toString(identifiers[i]);
+        }
+        return getNidsForIdentifiers(authoritySequence, identifierStrings);
+    }
+
     protected static void reset() {
         THREAD_LOCAL_CACHE
                 = new ThreadLocal() {
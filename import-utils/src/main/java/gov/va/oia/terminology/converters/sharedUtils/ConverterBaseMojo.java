@@ -88,6 +88,13 @@ public abstract class ConverterBaseMojo extends AbstractMojo
 	@Parameter (required = false, defaultValue = "${skipUUIDDebug}")
 	private String createDebugUUIDMap;
 	
+	/**
+	 * Set '-DspillUUIDDebug' on the command line, to keep the strings of the UUID Debug map in a file in the output directory, 
+	 * rather than in memory.  Duplicate detection still works, with a much smaller RAM overhead than the in memory map.
+	 */
+	@Parameter (required = false, defaultValue = "${spillUUIDDebug}")
+	private String spillDebugUUIDMap;
+	
 	/**
 	 * An optional list of annotation type names which should be skipped during this transformation.
 	 */
@@ -135,6 +142,12 @@ public abstract class ConverterBaseMojo extends AbstractMojo
 			outputDirectory.mkdirs();
 		}
 		
+		if (!ConverterUUID.disableUUIDMap_ && spillDebugUUIDMap != null && spillDebugUUIDMap.length() > 0 && Boolean.parseBoolean(spillDebugUUIDMap))
+		{
+			ConsoleUtil.println("The UUID Debug map strings will be stored on disk");
+			ConverterUUID.configureSpillFile(new File(outputDirectory, "uuidDebugMap.spill"));
+		}
+		
 		checkSkipListSupport();
 	}
 	
@@ -0,0 +1,288 @@
+package gov.va.oia.terminology.converters.sharedUtils.gson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import gov.vha.isaac.ochre.api.externalizable.OchreExternalizable;
+import gov.vha.isaac.ochre.model.ObjectChronologyImpl;
+import gov.vha.isaac.ochre.model.concept.ConceptChronologyImpl;
+import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
+
+/**
+ * {@link ChronologyJsonSerializer} - hand written JSON for concept and sememe chronologies.
+ *
+ * The output is laid out exactly as the pretty printed output of the json-io JsonWriter for the
+ * chronology in its written form, as it is after being read from a store: the fields of the chronology
+ * are taken from the data returned by {@link ObjectChronologyImpl#getDataToWrite()}, which holds all of
+ * the versions, and the in memory caches (unwritten versions, version list, relationship lists) are
+ * written as null. The JSON is written as ASCII bytes into a buffer that is reused for each chronology.
+ *
+ * Not thread safe - use one instance per thread.
+ */
+public class ChronologyJsonSerializer
+{
+	private static final byte[] NEW_LINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] CONCEPT_TYPE = ascii(ConceptChronologyImpl.class.getName());
+	private static final byte[] SEMEME_TYPE = ascii(SememeChronologyImpl.class.getName());
+	private static final byte[] NULL = ascii("null");
+	private static final byte[][] BYTE_STRINGS = new byte[256][];
+
+	static
+	{
+		for (int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++)
+		{
+			BYTE_STRINGS[i - Byte.MIN_VALUE] = ascii(Integer.toString(i));
+		}
+	}
+
+	private byte[] buffer_ = new byte[8192];
+	private int size_ = 0;
+	private final byte[] digits_ = new byte[20];
+
+	/**
+	 * @param ochreObject
+	 * @return true if the object is a concept or sememe chronology, which this serializer writes
+	 */
+	public static boolean canSerialize(OchreExternalizable ochreObject)
+	{
+		return ochreObject instanceof ConceptChronologyImpl || ochreObject instanceof SememeChronologyImpl;
+	}
+
+	/**
+	 * Replace the contents of the buffer with the JSON of the chronology.
+	 * @param chronology a {@link ConceptChronologyImpl} or {@link SememeChronologyImpl}
+	 */
+	public void serialize(ObjectChronologyImpl<?> chronology)
+	{
+		size_ = 0;
+		ByteArrayDataBuffer data = new ByteArrayDataBuffer(chronology.getDataToWrite());
+		int writeSequence = data.getInt();
+		long primordialUuidMsb = data.getLong();
+		long primordialUuidLsb = data.getLong();
+		long[] additionalUuidParts = null;
+		int additionalUuidPartsSize = data.getInt();
+		if (additionalUuidPartsSize > 0)
+		{
+			additionalUuidParts = new long[additionalUuidPartsSize];
+			for (int i = 0; i < additionalUuidPartsSize; i++)
+			{
+				additionalUuidParts[i] = data.getLong();
+			}
+		}
+		int nid = data.getInt();
+		int containerSequence = data.getInt();
+		short versionSequence = data.getShort();
+
+		put('{');
+		putNewLine();
+		if (chronology instanceof ConceptChronologyImpl)
+		{
+			putType(CONCEPT_TYPE);
+			putNullField("conceptOriginRelationshipList");
+			putNullField("conceptOriginRelationshipListDefaltCoordinate");
+			putNullField("relationshipListWithConceptAsDestination");
+			putNullField("relationshipListWithConceptAsDestinationListDefaltCoordinate");
+		}
+		else if (chronology instanceof SememeChronologyImpl)
+		{
+			putType(SEMEME_TYPE);
+			putField("sememeTypeToken", data.getByte());
+			putField("assemblageSequence", data.getInt());
+			putField("referencedComponentNid", data.getInt());
+		}
+		else
+		{
+			throw new IllegalArgumentException("Can't serialize " + chronology.getClass().getName());
+		}
+		putField("writeSequence", writeSequence);
+		putField("primordialUuidMsb", primordialUuidMsb);
+		putField("primordialUuidLsb", primordialUuidLsb);
+		if (additionalUuidParts == null)
+		{
+			putNullField("additionalUuidParts");
+		}
+		else
+		{
+			putFieldName("additionalUuidParts");
+			putArrayStart(additionalUuidParts.length);
+			for (int i = 0; i < additionalUuidParts.length; i++)
+			{
+				if (i > 0)
+				{
+					put(',');
+				}
+				putNumber(additionalUuidParts[i]);
+			}
+			putArrayEnd(additionalUuidParts.length);
+			put(',');
+			putNewLine();
+		}
+		putField("nid", nid);
+		putField("containerSequence", containerSequence);
+		putField("versionSequence", versionSequence);
+		putField("versionStartPosition", data.getPosition());
+		putFieldName("writtenData");
+		byte[] writtenData = data.getData();
+		putArrayStart(writtenData.length);
+		for (int i = 0; i < writtenData.length; i++)
+		{
+			if (i > 0)
+			{
+				put(',');
+			}
+			put(BYTE_STRINGS[writtenData[i] - Byte.MIN_VALUE]);
+		}
+		putArrayEnd(writtenData.length);
+		put(',');
+		putNewLine();
+		putNullField("unwrittenData");
+		putNullField("versionListReference");
+		putFieldName("writtenStampHeader");
+		put(NULL);
+		putNewLine();
+		put('}');
+	}
+
+	/**
+	 * @return the JSON of the last serialized chronology
+	 */
+	public byte[] toByteArray()
+	{
+		return Arrays.copyOf(buffer_, size_);
+	}
+
+	/**
+	 * Write the JSON of the last serialized chronology.
+	 */
+	public void writeTo(OutputStream out) throws IOException
+	{
+		out.write(buffer_, 0, size_);
+	}
+
+	private static byte[] ascii(String s)
+	{
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private void putType(byte[] typeName)
+	{
+		putFieldName("@type");
+		put('"');
+		put(typeName);
+		put('"');
+		put(',');
+		putNewLine();
+	}
+
+	private void putFieldName(String name)
+	{
+		put(' ');
+		put(' ');
+		put('"');
+		for (int i = 0; i < name.length(); i++)
+		{
+			put((byte) name.charAt(i));
+		}
+		put('"');
+		put(':');
+	}
+
+	private void putNullField(String name)
+	{
+		putFieldName(name);
+		put(NULL);
+		put(',');
+		putNewLine();
+	}
+
+	private void putField(String name, long value)
+	{
+		putFieldName(name);
+		putNumber(value);
+		put(',');
+		putNewLine();
+	}
+
+	private void putArrayStart(int length)
+	{
+		put('[');
+		if (length > 0)
+		{
+			putNewLine();
+			put(' ');
+			put(' ');
+			put(' ');
+			put(' ');
+		}
+	}
+
+	private void putArrayEnd(int length)
+	{
+		if (length > 0)
+		{
+			putNewLine();
+			put(' ');
+			put(' ');
+		}
+		put(']');
+	}
+
+	private void putNumber(long value)
+	{
+		if (value == Long.MIN_VALUE)
+		{
+			put(ascii(Long.toString(value)));
+			return;
+		}
+		if (value < 0)
+		{
+			put('-');
+			value = -value;
+		}
+		int count = 0;
+		do
+		{
+			digits_[count++] = (byte) ('0' + (value % 10));
+			value /= 10;
+		}
+		while (value != 0);
+		ensureCapacity(count);
+		while (count > 0)
+		{
+			buffer_[size_++] = digits_[--count];
+		}
+	}
+
+	private void putNewLine()
+	{
+		put(NEW_LINE);
+	}
+
+	private void put(char c)
+	{
+		put((byte) c);
+	}
+
+	private void put(byte b)
+	{
+		ensureCapacity(1);
+		buffer_[size_++] = b;
+	}
+
+	private void put(byte[] bytes)
+	{
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer_, size_, bytes.length);
+		size_ += bytes.length;
+	}
+
+	private void ensureCapacity(int additional)
+	{
+		if (size_ + additional > buffer_.length)
+		{
+			buffer_ = Arrays.copyOf(buffer_, Math.max(buffer_.length * 2, size_ + additional));
+		}
+	}
+}
@@ -3,7 +3,7 @@
  *
  * This is a work of the U.S. Government and is not subject to copyright
  * protection in the United States. Foreign copyrights may apply.
- * 
+ *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
@@ -18,40 +18,160 @@
  */
 package gov.va.oia.terminology.converters.sharedUtils.gson;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 import com.cedarsoftware.util.io.JsonWriter;
 import gov.vha.isaac.ochre.api.externalizable.BinaryDataWriterService;
 import gov.vha.isaac.ochre.api.externalizable.OchreExternalizable;
+import gov.vha.isaac.ochre.model.ObjectChronologyImpl;
 
 /**
  * {@link JsonDataWriterService} - serialize to JSON
  *
+ * Concept and sememe chronologies are written by a {@link ChronologyJsonSerializer}, in the same layout as
+ * the json-io JsonWriter output; any other object is written by json-io.
+ *
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
 public class JsonDataWriterService implements BinaryDataWriterService
 {
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final int BATCH_SIZE = 4096;
+	private static final ThreadLocal<ChronologyJsonSerializer> SERIALIZER = ThreadLocal.withInitial(() -> new ChronologyJsonSerializer());
+
+	private final OutputStream out_;
 	private JsonWriter json_;
 
 	public JsonDataWriterService(File path) throws IOException
 	{
-		Map<String, Object> args = new HashMap<>();
-		args.put(JsonWriter.PRETTY_PRINT, true);
-		json_ = new JsonWriter(new FileOutputStream(path), args);
+		this(path, false);
+	}
+
+	/**
+	 * @param path the file to write
+	 * @param compress true to gzip the output
+	 */
+	public JsonDataWriterService(File path, boolean compress) throws IOException
+	{
+		OutputStream file = new FileOutputStream(path);
+		if (compress)
+		{
+			file = new GZIPOutputStream(file, 1 << 16);
+		}
+		out_ = new BufferedOutputStream(file, BUFFER_SIZE);
 	}
 
 	@Override
 	public void put(OchreExternalizable ochreObject)
 	{
-		json_.write(ochreObject);
+		if (ChronologyJsonSerializer.canSerialize(ochreObject))
+		{
+			ChronologyJsonSerializer serializer = SERIALIZER.get();
+			serializer.serialize((ObjectChronologyImpl<?>) ochreObject);
+			try
+			{
+				serializer.writeTo(out_);
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+		else
+		{
+			getJsonWriter().write(ochreObject);
+		}
+	}
+
+	/**
+	 * Serializes the chronologies in parallel, a batch at a time, and writes each batch in the order of the stream.
+	 * The objects must not be changed until they are written.
+	 */
+	@Override
+	public void putAll(Stream<? extends OchreExternalizable> ochreObjects)
+	{
+		OchreExternalizable[] batch = new OchreExternalizable[BATCH_SIZE];
+		byte[][] records = new byte[BATCH_SIZE][];
+		Iterator<? extends OchreExternalizable> iterator = ochreObjects.iterator();
+		while (iterator.hasNext())
+		{
+			int batchSize = 0;
+			while (batchSize < BATCH_SIZE && iterator.hasNext())
+			{
+				batch[batchSize++] = iterator.next();
+			}
+			IntStream.range(0, batchSize).parallel().forEach((i) ->
+			{
+				if (ChronologyJsonSerializer.canSerialize(batch[i]))
+				{
+					ChronologyJsonSerializer serializer = SERIALIZER.get();
+					serializer.serialize((ObjectChronologyImpl<?>) batch[i]);
+					records[i] = serializer.toByteArray();
+				}
+			});
+			try
+			{
+				for (int i = 0; i < batchSize; i++)
+				{
+					if (records[i] == null)
+					{
+						getJsonWriter().write(batch[i]);
+					}
+					else
+					{
+						out_.write(records[i]);
+					}
+					batch[i] = null;
+					records[i] = null;
+				}
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * The json-io writer for objects other than chronologies, which shares the output stream, and flushes it after each object.
+	 */
+	private JsonWriter getJsonWriter()
+	{
+		if (json_ == null)
+		{
+			Map<String, Object> args = new HashMap<>();
+			args.put(JsonWriter.PRETTY_PRINT, true);
+			json_ = new JsonWriter(out_, args);
+		}
+		return json_;
 	}
 
 	@Override
 	public void close()
 	{
-		json_.close();
+		if (json_ != null)
+		{
+			json_.close();
+		}
+		else
+		{
+			try
+			{
+				out_.close();
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
 	}
 }
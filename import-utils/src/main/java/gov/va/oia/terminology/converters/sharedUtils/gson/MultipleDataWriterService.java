@@ -22,7 +22,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.stream.Stream;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.externalizable.BinaryDataWriterService;
 import gov.vha.isaac.ochre.api.externalizable.OchreExternalizable;
@@ -35,6 +37,8 @@ import gov.vha.isaac.ochre.api.externalizable.OchreExternalizable;
  */
 public class MultipleDataWriterService implements BinaryDataWriterService
 {
+	private static final int BATCH_SIZE = 4096;
+
 	ArrayList<BinaryDataWriterService> writers_ = new ArrayList<>();
 	
 	public MultipleDataWriterService(Optional<File> gsonPath, Optional<Path> ibdfPath) throws IOException
@@ -58,6 +62,28 @@ public class MultipleDataWriterService implements BinaryDataWriterService
 		}
 	}
 
+	/**
+	 * Passes the objects to each writer a batch at a time, so writers can serialize them in parallel.
+	 */
+	@Override
+	public void putAll(Stream<? extends OchreExternalizable> ochreObjects)
+	{
+		ArrayList<OchreExternalizable> batch = new ArrayList<>(BATCH_SIZE);
+		Iterator<? extends OchreExternalizable> iterator = ochreObjects.iterator();
+		while (iterator.hasNext())
+		{
+			batch.clear();
+			while (batch.size() < BATCH_SIZE && iterator.hasNext())
+			{
+				batch.add(iterator.next());
+			}
+			for (BinaryDataWriterService writer : writers_)
+			{
+				writer.putAll(batch.stream());
+			}
+		}
+	}
+
 	@Override
 	public void close()
 	{
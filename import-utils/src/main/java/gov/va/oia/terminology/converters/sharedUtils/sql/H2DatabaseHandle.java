@@ -9,16 +9,32 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import gov.va.oia.terminology.converters.sharedUtils.ConsoleUtil;
 
 public class H2DatabaseHandle
 {
 
+	private static final int PARSE_CHUNK_SIZE = 1000;
+
 	protected Connection connection_;
+	
+	private int batchSize_ = 1;
+	private int rowsPerCommit_ = 0;
+	private int parserThreads_ = 0;
+	private boolean deferIndexCreation_ = false;
+	private final HashMap<String, List<String>> deferredIndexes_ = new HashMap<>();
 
 	public H2DatabaseHandle()
 	{
@@ -57,11 +73,7 @@ public class H2DatabaseHandle
 		Statement s = connection_.createStatement();
 		
 		StringBuilder sql = new StringBuilder();
-		String tableName = td.getTableName();
-		if (tableName.indexOf('/') > 0)
-		{
-			tableName = tableName.substring(tableName.indexOf('/') + 1);
-		}
+		String tableName = stripTablePrefix(td.getTableName());
 		sql.append("CREATE TABLE " + tableName + " (");
 		for (ColumnDefinition cd : td.getColumns())
 		{
@@ -93,6 +105,118 @@ public class H2DatabaseHandle
 		return loadDataIntoTable(td, data, null, null);
 	}
 	
+	/**
+	 * Switch {@link #loadDataIntoTable(TableDefinition, TerminologyFileReader, String, Collection)} into bulk mode.  In bulk mode, 
+	 * rows are sent to the database with JDBC batches, autocommit is turned off during the load (with a commit every 
+	 * rowsPerCommit rows) and the string columns are parsed into typed values on a pool of worker threads, while the 
+	 * calling thread reads the file and executes the inserts.  If a load fails, the rows since the last commit are 
+	 * rolled back.
+	 * 
+	 * @param batchSize - the number of rows per JDBC batch.  1 disables batching.
+	 * @param rowsPerCommit - commit after this many rows.  0 or less leaves autocommit on.
+	 * @param parserThreads - the number of threads to use for parsing rows.  0 parses on the calling thread.
+	 */
+	public void configureBulkLoad(int batchSize, int rowsPerCommit, int parserThreads)
+	{
+		batchSize_ = Math.max(1, batchSize);
+		rowsPerCommit_ = rowsPerCommit;
+		parserThreads_ = Math.max(0, parserThreads);
+	}
+	
+	/**
+	 * Shorthand for {@link #configureBulkLoad(int, int, int)} with a batch size of 1000, a commit every 100,000 rows, 
+	 * and one parser thread per available processor (leaving one for the calling thread).
+	 */
+	public void configureBulkLoad()
+	{
+		configureBulkLoad(1000, 100000, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+	
+	/**
+	 * When set to true, indexes requested via {@link #createIndex(String, String...)} are not built until the table 
+	 * they belong to has been loaded by {@link #loadDataIntoTable(TableDefinition, TerminologyFileReader, String, Collection)} 
+	 * (or {@link #createDeferredIndexes()} is called) - which is much faster than maintaining the index during the load.
+	 */
+	public void setDeferIndexCreation(boolean defer)
+	{
+		deferIndexCreation_ = defer;
+	}
+	
+	/**
+	 * Create a (non-unique) index on the specified column(s) of a table - immediately, or after the table is loaded, 
+	 * see {@link #setDeferIndexCreation(boolean)}.
+	 */
+	public void createIndex(String tableName, String ... columnNames) throws SQLException
+	{
+		tableName = stripTablePrefix(tableName);
+		StringBuilder sql = new StringBuilder();
+		sql.append("CREATE INDEX IF NOT EXISTS " + tableName + "_" + String.join("_", columnNames) + "_INDEX ON " + tableName + " (");
+		sql.append(String.join(",", columnNames));
+		sql.append(")");
+		
+		if (deferIndexCreation_)
+		{
+			synchronized (deferredIndexes_)
+			{
+				deferredIndexes_.computeIfAbsent(tableName.toUpperCase(), key -> new ArrayList<>()).add(sql.toString());
+			}
+		}
+		else
+		{
+			executeIndex(sql.toString());
+		}
+	}
+	
+	/**
+	 * Build any indexes which are still waiting for their table to be loaded.
+	 */
+	public void createDeferredIndexes() throws SQLException
+	{
+		ArrayList<String> tables;
+		synchronized (deferredIndexes_)
+		{
+			tables = new ArrayList<>(deferredIndexes_.keySet());
+		}
+		for (String table : tables)
+		{
+			createDeferredIndexes(table);
+		}
+	}
+	
+	private void createDeferredIndexes(String tableName) throws SQLException
+	{
+		List<String> indexes;
+		synchronized (deferredIndexes_)
+		{
+			indexes = deferredIndexes_.remove(tableName.toUpperCase());
+		}
+		if (indexes != null)
+		{
+			for (String sql : indexes)
+			{
+				executeIndex(sql);
+			}
+		}
+	}
+	
+	private void executeIndex(String sql) throws SQLException
+	{
+		ConsoleUtil.println("Executing " + sql);
+		try (Statement s = connection_.createStatement())
+		{
+			s.executeUpdate(sql);
+		}
+	}
+	
+	private static String stripTablePrefix(String tableName)
+	{
+		if (tableName.indexOf('/') > 0)
+		{
+			return tableName.substring(tableName.indexOf('/') + 1);
+		}
+		return tableName;
+	}
+	
 	/**
 	 * @param td
 	 * @param data
@@ -106,13 +230,10 @@ public class H2DatabaseHandle
 	public int loadDataIntoTable(TableDefinition td, TerminologyFileReader data, String includeValuesColumnName, Collection<String> includeValues) throws SQLException, IOException
 	{
 		ConsoleUtil.println("Loading table " + td.getTableName());
+		long startTime = System.currentTimeMillis();
 		StringBuilder insert = new StringBuilder();
 		insert.append("INSERT INTO ");
-		String tableName = td.getTableName();
-		if (tableName.indexOf('/') > 0)
-		{
-			tableName = tableName.substring(tableName.indexOf('/') + 1);
-		}
+		String tableName = stripTablePrefix(td.getTableName());
 		insert.append(tableName);
 		insert.append("(");
 		for (ColumnDefinition cd : td.getColumns())
@@ -128,8 +249,6 @@ public class H2DatabaseHandle
 		}
 		insert.setLength(insert.length() - 1);
 		insert.append(")");
-
-		PreparedStatement ps = connection_.prepareStatement(insert.toString());
 		
 		int filterColumn = -1;
 		HashSet<String> sabHashSet = null;
@@ -149,110 +268,316 @@ public class H2DatabaseHandle
 			}
 		}
 		
+		DataType[] colTypes = new DataType[td.getColumns().length];
+		for (int i = 0; i < colTypes.length; i++)
+		{
+			colTypes[i] = td.getColumns()[i].getDataType();
+		}
 
-		int rowCount = 0;
+		boolean priorAutoCommit = connection_.getAutoCommit();
+		if (rowsPerCommit_ > 0)
+		{
+			connection_.setAutoCommit(false);
+		}
+		
+		ExecutorService parsers = null;
+		if (parserThreads_ > 0)
+		{
+			AtomicInteger threadCount = new AtomicInteger(1);
+			parsers = Executors.newFixedThreadPool(parserThreads_, r -> 
+			{
+				Thread t = new Thread(r, "H2 row parser " + threadCount.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+
+		RowInserter inserter = new RowInserter(connection_.prepareStatement(insert.toString()), colTypes);
 		int sabSkipCount = 0;
 		HashSet<String> skippedSabs = new HashSet<>();
-		while (data.hasNextRow())
+		boolean loaded = false;
+		
+		try
 		{
-			List<String> cols = data.getNextRow();
-			if (cols.size() != td.getColumns().length)
-			{
-				throw new RuntimeException("Data length mismatch!");
-			}
-			
-			if (filterColumn >= 0)
+			//Chunks of rows are handed to the parser threads in file order, and inserted in the same order
+			ArrayDeque<Future<Object[][]>> pending = new ArrayDeque<>();
+			ArrayList<List<String>> chunk = new ArrayList<>(PARSE_CHUNK_SIZE);
+			while (data.hasNextRow())
 			{
-				if (!sabHashSet.contains(cols.get(filterColumn)))
+				List<String> cols = data.getNextRow();
+				if (cols.size() != colTypes.length)
 				{
-					skippedSabs.add(cols.get(filterColumn));
-					sabSkipCount++;
-					continue;
+					throw new RuntimeException("Data length mismatch!");
 				}
-			}
-
-			ps.clearParameters();
-			int psIndex = 1;
-			
-			for (String s : cols)
-			{
-				DataType colType = td.getColumns()[psIndex - 1].getDataType();
-				if (colType.isBoolean())
+				
+				if (filterColumn >= 0)
 				{
-					if (s == null || s.length() == 0)
+					if (!sabHashSet.contains(cols.get(filterColumn)))
 					{
-						ps.setNull(psIndex, Types.BOOLEAN);
-					}
-					else
-					{
-						ps.setBoolean(psIndex, (s.equalsIgnoreCase("true") || s.equals("1")));
+						skippedSabs.add(cols.get(filterColumn));
+						sabSkipCount++;
+						continue;
 					}
 				}
-				else if (colType.isInteger())
+				
+				if (parsers == null)
 				{
-					if (s == null || s.length() == 0)
-					{
-						ps.setNull(psIndex, Types.INTEGER);
-					}
-					else
-					{
-						ps.setInt(psIndex, Integer.parseInt(s));
-					}
+					inserter.insert(parseRow(cols, colTypes));
+					continue;
 				}
-				else if (colType.isLong())
+				
+				chunk.add(cols);
+				if (chunk.size() == PARSE_CHUNK_SIZE)
 				{
-					if (s == null || s.length() == 0)
+					final List<List<String>> toParse = chunk;
+					pending.add(parsers.submit(() -> parseRows(toParse, colTypes)));
+					chunk = new ArrayList<>(PARSE_CHUNK_SIZE);
+					while (pending.size() > parserThreads_ * 2)
 					{
-						ps.setNull(psIndex, Types.BIGINT);
-					}
-					else
-					{
-						ps.setLong(psIndex, Long.parseLong(s));
+						inserter.insert(getParsed(pending.remove()));
 					}
 				}
-				else if (colType.isString())
+			}
+			//The earlier chunks go in first, the last partial chunk follows them
+			while (pending.size() > 0)
+			{
+				inserter.insert(getParsed(pending.remove()));
+			}
+			if (chunk.size() > 0)
+			{
+				inserter.insert(parseRows(chunk, colTypes));
+			}
+			inserter.finish();
+			loaded = true;
+		}
+		finally
+		{
+			if (parsers != null)
+			{
+				parsers.shutdownNow();
+			}
+			try
+			{
+				inserter.ps.close();
+			}
+			finally
+			{
+				if (rowsPerCommit_ > 0)
 				{
-					if (s == null || s.length() == 0)
+					//Restoring autocommit would commit the rows of a failed load
+					try
 					{
-						ps.setNull(psIndex, Types.VARCHAR);
+						if (!loaded)
+						{
+							connection_.rollback();
+						}
 					}
-					else
+					finally
 					{
-						ps.setString(psIndex, s);
+						connection_.setAutoCommit(priorAutoCommit);
 					}
 				}
-				else if (colType.isBigDecimal())
+			}
+		}
+		data.close();
+		
+		long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+		ConsoleUtil.println("Loaded " + inserter.rowCount + " rows in " + (elapsed / 1000) + " seconds (" + ((inserter.rowCount * 1000l) / elapsed) 
+				+ " rows/sec) into " + tableName);
+		if (sabSkipCount > 0)
+		{
+			ConsoleUtil.println("Skipped " + sabSkipCount+ " rows for not matching the include filter - " + Arrays.toString(skippedSabs.toArray(new String[] {})));
+		}
+		createDeferredIndexes(tableName);
+		return inserter.rowCount;
+	}
+	
+	private Object[][] getParsed(Future<Object[][]> parsed) throws IOException
+	{
+		try
+		{
+			return parsed.get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new IOException("Interrupted while parsing rows", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException("Failed parsing rows", e.getCause());
+		}
+	}
+	
+	private static Object[][] parseRows(List<List<String>> rows, DataType[] colTypes)
+	{
+		Object[][] result = new Object[rows.size()][];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = parseRow(rows.get(i), colTypes);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the typed value of each column - null for empty columns
+	 */
+	private static Object[] parseRow(List<String> cols, DataType[] colTypes)
+	{
+		Object[] result = new Object[cols.size()];
+		int i = 0;
+		for (String s : cols)
+		{
+			DataType colType = colTypes[i];
+			if (s == null || s.length() == 0)
+			{
+				result[i] = null;
+			}
+			else if (colType.isBoolean())
+			{
+				result[i] = (s.equalsIgnoreCase("true") || s.equals("1"));
+			}
+			else if (colType.isInteger())
+			{
+				result[i] = Integer.parseInt(s);
+			}
+			else if (colType.isLong())
+			{
+				result[i] = Long.parseLong(s);
+			}
+			else if (colType.isString())
+			{
+				result[i] = s;
+			}
+			else if (colType.isBigDecimal())
+			{
+				result[i] = new BigDecimal(s);
+			}
+			else
+			{
+				throw new RuntimeException("Unsupported data type");
+			}
+			i++;
+		}
+		return result;
+	}
+	
+	private static int sqlType(DataType colType)
+	{
+		if (colType.isBoolean())
+		{
+			return Types.BOOLEAN;
+		}
+		else if (colType.isInteger())
+		{
+			return Types.INTEGER;
+		}
+		else if (colType.isLong())
+		{
+			return Types.BIGINT;
+		}
+		else if (colType.isString())
+		{
+			return Types.VARCHAR;
+		}
+		else if (colType.isBigDecimal())
+		{
+			return Types.DECIMAL;
+		}
+		else
+		{
+			throw new RuntimeException("Unsupported data type");
+		}
+	}
+	
+	/**
+	 * Sends parsed rows to the database, batching and committing per the bulk load configuration.
+	 */
+	private class RowInserter
+	{
+		private final PreparedStatement ps;
+		private final int[] sqlTypes;
+		private int rowCount = 0;
+		private int batched = 0;
+		private int uncommitted = 0;
+		
+		private RowInserter(PreparedStatement ps, DataType[] colTypes)
+		{
+			this.ps = ps;
+			sqlTypes = new int[colTypes.length];
+			for (int i = 0; i < colTypes.length; i++)
+			{
+				sqlTypes[i] = sqlType(colTypes[i]);
+			}
+		}
+		
+		private void insert(Object[][] rows) throws SQLException
+		{
+			for (Object[] row : rows)
+			{
+				insert(row);
+			}
+		}
+		
+		private void insert(Object[] row) throws SQLException
+		{
+			ps.clearParameters();
+			for (int i = 0; i < row.length; i++)
+			{
+				if (row[i] == null)
 				{
-					if (s == null || s.length() == 0)
-					{
-						ps.setNull(psIndex, Types.DECIMAL);
-					}
-					else
-					{
-						ps.setBigDecimal(psIndex, new BigDecimal(s));
-					}
+					ps.setNull(i + 1, sqlTypes[i]);
 				}
 				else
 				{
-					throw new RuntimeException("Unsupported data type");
+					ps.setObject(i + 1, row[i]);
 				}
-				psIndex++;
 			}
-			ps.execute();
+			if (batchSize_ > 1)
+			{
+				ps.addBatch();
+				if (++batched >= batchSize_)
+				{
+					ps.executeBatch();
+					batched = 0;
+				}
+			}
+			else
+			{
+				ps.execute();
+			}
 			rowCount++;
+			if (rowsPerCommit_ > 0 && ++uncommitted >= rowsPerCommit_)
+			{
+				if (batched > 0)
+				{
+					ps.executeBatch();
+					batched = 0;
+				}
+				connection_.commit();
+				uncommitted = 0;
+			}
 			if (rowCount % 10000 == 0)
 			{
 				ConsoleUtil.showProgress();
 			}
 		}
-		ps.close();
-		data.close();
-		ConsoleUtil.println("Loaded " + rowCount + " rows");
-		if (sabSkipCount > 0)
+		
+		private void finish() throws SQLException
 		{
-			ConsoleUtil.println("Skipped " + sabSkipCount+ " rows for not matching the include filter - " + Arrays.toString(skippedSabs.toArray(new String[] {})));
+			if (batched > 0)
+			{
+				ps.executeBatch();
+				batched = 0;
+			}
+			if (rowsPerCommit_ > 0)
+			{
+				connection_.commit();
+				uncommitted = 0;
+			}
 		}
-		return rowCount;
 	}
-
 }
\ No newline at end of file
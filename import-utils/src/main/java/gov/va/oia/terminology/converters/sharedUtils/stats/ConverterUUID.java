@@ -22,8 +22,6 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Hashtable;
-import java.util.Map;
 import java.util.UUID;
 import gov.va.oia.terminology.converters.sharedUtils.ConsoleUtil;
 import gov.va.oia.terminology.converters.sharedUtils.ConverterBaseMojo;
@@ -39,13 +37,16 @@ import gov.vha.isaac.ochre.api.util.UuidT5Generator;
  * The in-memory map can be disabled by setting the static flag here - or - with loaders that extend {@link ConverterBaseMojo}
  * by setting the system property skipUUIDDebug to true - or in maven speak - '-DskipUUIDDebug' on the command line.
  * 
+ * The map is a compact {@link UUIDNameMap} - and the strings can be moved out of memory into a file with 
+ * {@link #configureSpillFile(File)} (or '-DspillUUIDDebug' with loaders that extend {@link ConverterBaseMojo}).
+ * 
  * @author darmbrust
  */
 
 public class ConverterUUID
 {
 	public static boolean disableUUIDMap_ = false;  //Some loaders need to disable this due to memory constraints
-	private static Hashtable<UUID, String> masterUUIDMap_ = new Hashtable<UUID, String>();
+	private static UUIDNameMap masterUUIDMap_ = new UUIDNameMap();
 	private static UUID namespace_ = null;
 
 	private static ConceptSpecification[] constants = new ConceptSpecification[] {
@@ -125,6 +126,31 @@ public class ConverterUUID
 		}
 	}
 	
+	/**
+	 * Create a new Type5 UUID for each of the provided names, using the configured namespace.  The same as calling 
+	 * {@link #createNamespaceUUIDFromString(String, boolean)} for each name, but the UUIDs are generated as a batch.
+	 * 
+	 * Throws a runtime exception if the namespace has not been configured.
+	 * @param skipDupeCheck see {@link #createNamespaceUUIDFromString(UUID, String, boolean)}
+	 */
+	public static UUID[] createNamespaceUUIDsFromStrings(String[] names, boolean skipDupeCheck)
+	{
+		initCheck();
+		UUID[] uuids = UuidT5Generator.getBatch(namespace_, names);
+		if (!disableUUIDMap_)
+		{
+			for (int i = 0; i < uuids.length; i++)
+			{
+				boolean existed = masterUUIDMap_.put(uuids[i], names[i]);
+				if (!skipDupeCheck && existed)
+				{
+					throw new RuntimeException("Just made a duplicate UUID! '" + names[i] + "' -> " + uuids[i]);
+				}
+			}
+		}
+		return uuids;
+	}
+	
 	/**
 	 * Create a new Type5 UUID using the provided namespace, and provided name as the seed.
 	 */
@@ -153,8 +179,8 @@ public class ConverterUUID
 		
 		if (!disableUUIDMap_)
 		{
-			String putResult = masterUUIDMap_.put(uuid, name);
-			if (!skipDupeCheck && putResult != null)
+			boolean existed = masterUUIDMap_.put(uuid, name);
+			if (!skipDupeCheck && existed)
 			{
 				throw new RuntimeException("Just made a duplicate UUID! '" + name + "' -> " + uuid);
 			}
@@ -196,11 +222,27 @@ public class ConverterUUID
 			ConsoleUtil.println("UUID Debug map was disabled");
 			br.write("Note - the UUID debug feature was disabled, this file is incomplete" + System.getProperty("line.separator"));
 		}
-		for (Map.Entry<UUID, String> entry : masterUUIDMap_.entrySet())
+		String lineSeparator = System.getProperty("line.separator");
+		IOException[] writeFailure = new IOException[1];
+		masterUUIDMap_.forEach((uuid, name) ->
 		{
-			br.write(entry.getKey() + " - " + entry.getValue() + System.getProperty("line.separator"));
-		}
+			if (writeFailure[0] == null)
+			{
+				try
+				{
+					br.write(uuid + " - " + name + lineSeparator);
+				}
+				catch (IOException e)
+				{
+					writeFailure[0] = e;
+				}
+			}
+		});
 		br.close();
+		if (writeFailure[0] != null)
+		{
+			throw writeFailure[0];
+		}
 	}
 
 	public static void clearCache()
@@ -215,8 +257,8 @@ public class ConverterUUID
 	{
 		if (!disableUUIDMap_)
 		{
-			String putResult = masterUUIDMap_.put(uuid, value);
-			if (putResult != null)
+			boolean existed = masterUUIDMap_.put(uuid, value);
+			if (existed)
 			{
 				throw new RuntimeException("Just made a duplicate UUID! '" + value + "' -> " + uuid);
 			}
@@ -231,6 +273,16 @@ public class ConverterUUID
 		masterUUIDMap_.remove(uuid);
 	}
 	
+	/**
+	 * Keep the UUID creation strings in the specified file, rather than in memory.  Any existing mappings are discarded.
+	 * @param spillFile - the file to use, or null, to go back to keeping the strings in memory
+	 */
+	public static void configureSpillFile(File spillFile)
+	{
+		masterUUIDMap_.clear();
+		masterUUIDMap_ = new UUIDNameMap(spillFile);
+	}
+	
 	public static UUID getNamespace()
 	{
 		return namespace_;
@@ -0,0 +1,288 @@
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * A compact UUID -> String map, used by {@link ConverterUUID} to track the strings that UUIDs were generated from 
+ * (for duplicate detection, and the debug map).
+ * 
+ * The keys are stored as pairs of longs in an open addressing table, along with the offset of the name in an 
+ * append only log of UTF-8 bytes - rather than as a {@link UUID} and {@link String} object per entry.  The log 
+ * is kept in fixed size pages - when a spill file is provided, full pages are written to the file and dropped 
+ * from memory, so only the table itself (24 bytes per slot) needs to stay in memory.
+ * 
+ * Replacing or removing a mapping does not reclaim the space used by the old name in the log.
+ * 
+ * This class is thread safe.
+ */
+public class UUIDNameMap
+{
+	private static final int PAGE_SIZE = 1 << 20;
+	private static final float LOAD_FACTOR = 0.6f;
+	
+	private long[] msb_;
+	private long[] lsb_;
+	private long[] nameOffset_;  //offset + 1 into the name log, 0 for an empty slot
+	private int size_;
+	private int resizeAt_;
+	
+	private final ArrayList<byte[]> pages_ = new ArrayList<>();
+	private int pagePosition_;
+	private final File spillFile_;
+	private RandomAccessFile spill_;
+	
+	/**
+	 * Create a map which holds all of the names in memory
+	 */
+	public UUIDNameMap()
+	{
+		this(null);
+	}
+	
+	/**
+	 * @param spillFile - if not null, full pages of the name log are written to this file, rather than being kept in memory.  
+	 * The file is overwritten if it exists, and deleted on {@link #clear()} or on exit.
+	 */
+	public UUIDNameMap(File spillFile)
+	{
+		spillFile_ = spillFile;
+		allocate(1024);
+	}
+	
+	/**
+	 * @return true, if the uuid was already present (in which case, the name is replaced)
+	 */
+	public synchronized boolean put(UUID uuid, String name)
+	{
+		long offset = append(name);
+		int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		if (nameOffset_[slot] != 0)
+		{
+			nameOffset_[slot] = offset + 1;
+			return true;
+		}
+		msb_[slot] = uuid.getMostSignificantBits();
+		lsb_[slot] = uuid.getLeastSignificantBits();
+		nameOffset_[slot] = offset + 1;
+		if (++size_ > resizeAt_)
+		{
+			rehash(msb_.length * 2);
+		}
+		return false;
+	}
+	
+	/**
+	 * @return the name stored for the uuid, or null, if not present
+	 */
+	public synchronized String get(UUID uuid)
+	{
+		int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		return nameOffset_[slot] == 0 ? null : readName(nameOffset_[slot] - 1);
+	}
+	
+	public synchronized boolean containsKey(UUID uuid)
+	{
+		return nameOffset_[find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())] != 0;
+	}
+	
+	public synchronized void remove(UUID uuid)
+	{
+		int slot = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+		if (nameOffset_[slot] == 0)
+		{
+			return;
+		}
+		nameOffset_[slot] = 0;
+		size_--;
+		//shift back any following entries in the probe sequence, so that lookups don't stop at the hole
+		int mask = msb_.length - 1;
+		int hole = slot;
+		int i = (slot + 1) & mask;
+		while (nameOffset_[i] != 0)
+		{
+			int home = hash(msb_[i], lsb_[i]) & mask;
+			if (((i - home) & mask) >= ((i - hole) & mask))
+			{
+				msb_[hole] = msb_[i];
+				lsb_[hole] = lsb_[i];
+				nameOffset_[hole] = nameOffset_[i];
+				nameOffset_[i] = 0;
+				hole = i;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+	
+	public synchronized int size()
+	{
+		return size_;
+	}
+	
+	/**
+	 * Pass each uuid and name pair to the consumer, in no particular order.
+	 */
+	public synchronized void forEach(BiConsumer<UUID, String> consumer)
+	{
+		for (int i = 0; i < msb_.length; i++)
+		{
+			if (nameOffset_[i] != 0)
+			{
+				consumer.accept(new UUID(msb_[i], lsb_[i]), readName(nameOffset_[i] - 1));
+			}
+		}
+	}
+	
+	public synchronized void clear()
+	{
+		allocate(1024);
+		size_ = 0;
+		pages_.clear();
+		pagePosition_ = 0;
+		if (spill_ != null)
+		{
+			try
+			{
+				spill_.close();
+			}
+			catch (IOException e)
+			{
+				//noop
+			}
+			spill_ = null;
+			spillFile_.delete();
+		}
+	}
+	
+	private void allocate(int capacity)
+	{
+		msb_ = new long[capacity];
+		lsb_ = new long[capacity];
+		nameOffset_ = new long[capacity];
+		resizeAt_ = (int) (capacity * LOAD_FACTOR);
+	}
+	
+	private void rehash(int capacity)
+	{
+		long[] oldMsb = msb_;
+		long[] oldLsb = lsb_;
+		long[] oldOffset = nameOffset_;
+		allocate(capacity);
+		for (int i = 0; i < oldMsb.length; i++)
+		{
+			if (oldOffset[i] != 0)
+			{
+				int slot = find(oldMsb[i], oldLsb[i]);
+				msb_[slot] = oldMsb[i];
+				lsb_[slot] = oldLsb[i];
+				nameOffset_[slot] = oldOffset[i];
+			}
+		}
+	}
+	
+	private static int hash(long msb, long lsb)
+	{
+		long h = msb ^ lsb;
+		h ^= (h >>> 32);
+		h *= 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32);
+	}
+	
+	/**
+	 * @return the slot holding the key, or the empty slot where it should be placed
+	 */
+	private int find(long msb, long lsb)
+	{
+		int mask = msb_.length - 1;
+		int i = hash(msb, lsb) & mask;
+		while (nameOffset_[i] != 0 && (msb_[i] != msb || lsb_[i] != lsb))
+		{
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+	
+	/**
+	 * Names are written as a 4 byte length followed by the UTF-8 bytes, and never span a page boundary.
+	 * @return the offset of the name in the log
+	 */
+	private long append(String name)
+	{
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		int required = bytes.length + 4;
+		if (required > PAGE_SIZE)
+		{
+			throw new RuntimeException("Name too long for the UUID map: " + bytes.length + " bytes");
+		}
+		if (pages_.isEmpty() || pagePosition_ + required > PAGE_SIZE)
+		{
+			if (!pages_.isEmpty())
+			{
+				spillPage(pages_.size() - 1);
+			}
+			pages_.add(new byte[PAGE_SIZE]);
+			pagePosition_ = 0;
+		}
+		byte[] page = pages_.get(pages_.size() - 1);
+		long offset = ((long) (pages_.size() - 1) * PAGE_SIZE) + pagePosition_;
+		page[pagePosition_++] = (byte) (bytes.length >>> 24);
+		page[pagePosition_++] = (byte) (bytes.length >>> 16);
+		page[pagePosition_++] = (byte) (bytes.length >>> 8);
+		page[pagePosition_++] = (byte) bytes.length;
+		System.arraycopy(bytes, 0, page, pagePosition_, bytes.length);
+		pagePosition_ += bytes.length;
+		return offset;
+	}
+	
+	private void spillPage(int pageIndex)
+	{
+		if (spillFile_ == null)
+		{
+			return;
+		}
+		try
+		{
+			if (spill_ == null)
+			{
+				spillFile_.deleteOnExit();
+				spill_ = new RandomAccessFile(spillFile_, "rw");
+				spill_.setLength(0);
+			}
+			spill_.seek((long) pageIndex * PAGE_SIZE);
+			spill_.write(pages_.get(pageIndex));
+			pages_.set(pageIndex, null);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to write to the UUID map spill file " + spillFile_.getAbsolutePath(), e);
+		}
+	}
+	
+	private String readName(long offset)
+	{
+		int pageIndex = (int) (offset / PAGE_SIZE);
+		int position = (int) (offset % PAGE_SIZE);
+		byte[] page = pages_.get(pageIndex);
+		if (page != null)
+		{
+			int length = ((page[position] & 0xff) << 24) | ((page[position + 1] & 0xff) << 16) | ((page[position + 2] & 0xff) << 8) | (page[position + 3] & 0xff);
+			return new String(page, position + 4, length, StandardCharsets.UTF_8);
+		}
+		try
+		{
+			spill_.seek(offset);
+			byte[] bytes = new byte[spill_.readInt()];
+			spill_.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to read from the UUID map spill file " + spillFile_.getAbsolutePath(), e);
+		}
+	}
+}
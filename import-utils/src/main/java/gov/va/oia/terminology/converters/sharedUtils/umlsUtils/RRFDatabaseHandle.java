@@ -150,6 +150,15 @@ public class RRFDatabaseHandle extends H2DatabaseHandle
 	{
 		loadDataIntoTable(td, data, "SAB", SABFilterList); 
 	}
+	
+	/**
+	 * As {@link #loadDataIntoTable(TableDefinition, TerminologyFileReader, Collection)}
+	 * @return row count loaded
+	 */
+	public int loadCountedDataIntoTable(TableDefinition td, TerminologyFileReader data, Collection<String> SABFilterList) throws SQLException, IOException
+	{
+		return loadDataIntoTable(td, data, "SAB", SABFilterList); 
+	}
 
 	public static void main(String[] args) throws ClassNotFoundException, SQLException
 	{
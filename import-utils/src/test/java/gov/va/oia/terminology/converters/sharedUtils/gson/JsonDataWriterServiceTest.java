@@ -0,0 +1,131 @@
+package gov.va.oia.terminology.converters.sharedUtils.gson;
+
+import static org.testng.Assert.assertEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import com.cedarsoftware.util.io.JsonWriter;
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.commit.StampService;
+import gov.vha.isaac.ochre.api.component.sememe.SememeType;
+import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import gov.vha.isaac.ochre.model.ObjectChronologyImpl;
+import gov.vha.isaac.ochre.model.concept.ConceptChronologyImpl;
+import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
+import gov.vha.isaac.ochre.model.sememe.version.StringSememeImpl;
+
+/**
+ * The chronologies written by {@link ChronologyJsonSerializer} must match the json-io output for the same chronologies.
+ */
+public class JsonDataWriterServiceTest
+{
+	private File folder_;
+	private List<ObjectChronologyImpl<?>> chronologies_;
+
+	@BeforeClass
+	public void setUp() throws Exception
+	{
+		//Versions are only written if their stamp is not canceled
+		Field field = Get.class.getDeclaredField("stampService");
+		field.setAccessible(true);
+		field.set(null, Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {StampService.class}, (proxy, method, args) ->
+		{
+			if (method.getName().equals("isNotCanceled"))
+			{
+				return true;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		}));
+		folder_ = Files.createTempDirectory("json").toFile();
+
+		ConceptChronologyImpl concept = new ConceptChronologyImpl(UUID.fromString("0c6b7e9a-5f0e-4c8e-9d8a-2b1f3c4d5e6f"), -7, 3);
+		concept.addAdditionalUuids(UUID.fromString("8d2c4a1e-7b3f-4e6d-a5c9-1f0e2d3c4b5a"));
+		concept.createMutableVersion(1);
+		concept.createMutableVersion(2);
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		SememeChronologyImpl<StringSememeImpl> sememe = new SememeChronologyImpl(SememeType.STRING, UUID.fromString("3e5f7a9b-1c2d-4e3f-8a6b-5c4d3e2f1a0b"),
+				-12, 3, -7, 5);
+		sememe.createMutableVersion(StringSememeImpl.class, 1).setString("first");
+		sememe.createMutableVersion(StringSememeImpl.class, 2).setString("second, with \"quotes\"");
+
+		//As read back from a store, so the versions are in the written data
+		chronologies_ = Arrays.asList(ConceptChronologyImpl.make(new ByteArrayDataBuffer(concept.getDataToWrite(11))),
+				SememeChronologyImpl.make(new ByteArrayDataBuffer(sememe.getDataToWrite(12))));
+	}
+
+	@AfterClass
+	public void tearDown() throws IOException
+	{
+		new Get().reset();
+		for (File f : folder_.listFiles())
+		{
+			Files.delete(f.toPath());
+		}
+		Files.delete(folder_.toPath());
+	}
+
+	private byte[] jsonIo()
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Map<String, Object> args = new HashMap<>();
+		args.put(JsonWriter.PRETTY_PRINT, true);
+		JsonWriter json = new JsonWriter(out, args);
+		chronologies_.forEach((chronology) -> json.write(chronology));
+		json.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] read(File file, boolean compressed) throws IOException
+	{
+		try (InputStream in = compressed ? new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file))
+		{
+			return IOUtils.toByteArray(in);
+		}
+	}
+
+	@Test
+	public void testPut() throws IOException
+	{
+		File file = new File(folder_, "put.json");
+		JsonDataWriterService writer = new JsonDataWriterService(file);
+		chronologies_.forEach((chronology) -> writer.put(chronology));
+		writer.close();
+		assertEquals(new String(read(file, false)), new String(jsonIo()));
+	}
+
+	@Test
+	public void testPutAll() throws IOException
+	{
+		File file = new File(folder_, "putAll.json");
+		JsonDataWriterService writer = new JsonDataWriterService(file);
+		writer.putAll(chronologies_.stream());
+		writer.close();
+		assertEquals(new String(read(file, false)), new String(jsonIo()));
+	}
+
+	@Test
+	public void testCompressed() throws IOException
+	{
+		File file = new File(folder_, "put.json.gz");
+		JsonDataWriterService writer = new JsonDataWriterService(file, true);
+		writer.putAll(chronologies_.stream());
+		writer.close();
+		assertEquals(new String(read(file, true)), new String(jsonIo()));
+	}
+}
@@ -0,0 +1,118 @@
+package gov.va.oia.terminology.converters.sharedUtils.stats;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.UUID;
+import org.testng.annotations.Test;
+
+public class UUIDNameMapTest
+{
+	private static UUID uuid(int i)
+	{
+		return UUID.nameUUIDFromBytes(Integer.toString(i).getBytes());
+	}
+
+	/**
+	 * Long enough that the names fill several pages of the name log
+	 */
+	private static String name(int i)
+	{
+		StringBuilder sb = new StringBuilder("name \u00e9\u4e2d ").append(i).append(' ');
+		for (int j = 0; j < 50; j++)
+		{
+			sb.append(i % 97);
+		}
+		return sb.toString();
+	}
+
+	private static void putAndCheck(UUIDNameMap map, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			assertFalse(map.put(uuid(i), name(i)));
+		}
+		assertEquals(map.size(), count);
+		for (int i = 0; i < count; i++)
+		{
+			assertEquals(map.get(uuid(i)), name(i));
+			assertTrue(map.containsKey(uuid(i)));
+		}
+		assertNull(map.get(uuid(-1)));
+		assertFalse(map.containsKey(uuid(-1)));
+	}
+
+	@Test
+	public void testInMemory()
+	{
+		UUIDNameMap map = new UUIDNameMap();
+		putAndCheck(map, 20000);
+
+		HashMap<UUID, String> all = new HashMap<>();
+		map.forEach((uuid, name) -> all.put(uuid, name));
+		assertEquals(all.size(), 20000);
+		assertEquals(all.get(uuid(123)), name(123));
+
+		for (int i = 0; i < 20000; i += 2)
+		{
+			map.remove(uuid(i));
+		}
+		assertEquals(map.size(), 10000);
+		for (int i = 0; i < 20000; i++)
+		{
+			assertEquals(map.get(uuid(i)), i % 2 == 0 ? null : name(i));
+		}
+
+		map.clear();
+		assertEquals(map.size(), 0);
+		assertNull(map.get(uuid(1)));
+	}
+
+	@Test
+	public void testSpilled() throws IOException
+	{
+		File spillFile = File.createTempFile("uuidNames", ".spill");
+		try
+		{
+			UUIDNameMap map = new UUIDNameMap(spillFile);
+			putAndCheck(map, 20000);
+			//the names take a few pages, all but the last of which are read back from the file
+			assertTrue(spillFile.length() >= 2 << 20, "spill file length " + spillFile.length());
+
+			map.clear();
+			assertFalse(spillFile.exists());
+			putAndCheck(map, 100);
+		}
+		finally
+		{
+			Files.deleteIfExists(spillFile.toPath());
+		}
+	}
+
+	@Test
+	public void testDuplicatePut() throws IOException
+	{
+		File spillFile = File.createTempFile("uuidNames", ".spill");
+		try
+		{
+			UUIDNameMap map = new UUIDNameMap(spillFile);
+			putAndCheck(map, 20000);
+			//replace names written to the spill file, and names still in memory
+			assertTrue(map.put(uuid(0), "replaced 0"));
+			assertTrue(map.put(uuid(19999), "replaced 19999"));
+			assertEquals(map.size(), 20000);
+			assertEquals(map.get(uuid(0)), "replaced 0");
+			assertEquals(map.get(uuid(19999)), "replaced 19999");
+			assertEquals(map.get(uuid(1)), name(1));
+		}
+		finally
+		{
+			Files.deleteIfExists(spillFile.toPath());
+		}
+	}
+}
@@ -30,7 +30,6 @@ import gov.vha.isaac.ochre.api.coordinate.EditCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.LogicCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.logic.LogicalExpression;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import gov.vha.isaac.ochre.model.logic.LogicalExpressionOchreImpl;
 import gov.vha.isaac.ochre.model.sememe.version.LogicGraphSememeImpl;
 import gov.vha.isaac.ochre.api.util.WorkExecutors;
@@ -65,7 +64,7 @@ public class GetConceptSequenceForExpressionTask extends Task<Integer> {
     public static GetConceptSequenceForExpressionTask create(LogicalExpression expression,
             ClassifierProvider classifierProvider, EditCoordinate statedEditCoordinate) {
         GetConceptSequenceForExpressionTask task = new GetConceptSequenceForExpressionTask(expression, classifierProvider, statedEditCoordinate);
-        LookupService.getService(ActiveTasks.class).get().add(task);
+        Get.activeTasks().add(task);
         LookupService.getService(WorkExecutors.class).getForkJoinPoolExecutor().execute(task);
         return task;
     }
@@ -113,7 +112,7 @@ public class GetConceptSequenceForExpressionTask extends Task<Integer> {
             return concept.getConceptSequence();
         } finally {
             updateProgress(-1, Integer.MAX_VALUE);
-            LookupService.getService(ActiveTasks.class).get().remove(this);
+            Get.activeTasks().remove(this);
         }
     }
 
@@ -17,7 +17,6 @@ package gov.vha.isaac.ochre.logic.provider;
 
 import au.csiro.ontology.Ontology;
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.LookupService;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.classifier.ClassifierResults;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
@@ -25,7 +24,6 @@ import gov.vha.isaac.ochre.api.component.sememe.SememeSnapshotService;
 import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
 import gov.vha.isaac.ochre.api.coordinate.LogicCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import java.util.concurrent.atomic.AtomicInteger;
 import javafx.concurrent.Task;
 
@@ -47,7 +45,7 @@ public class UpdateInferredFormsTask extends Task<Integer> {
             StampCoordinate stampCoordinate) {
         UpdateInferredFormsTask task = new UpdateInferredFormsTask(classifierResults,
                 classifiedModel, logicCoordinate, stampCoordinate);
-        LookupService.getService(ActiveTasks.class).get().add(task);
+        Get.activeTasks().add(task);
         return task;
 
     }
@@ -87,7 +85,7 @@ public class UpdateInferredFormsTask extends Task<Integer> {
 
             });
         } finally {
-            LookupService.getService(ActiveTasks.class).get().remove(this);
+            Get.activeTasks().remove(this);
         }
         throw new UnsupportedOperationException("Not supported yet.");
     }
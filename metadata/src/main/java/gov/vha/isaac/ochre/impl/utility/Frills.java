@@ -60,7 +60,6 @@ import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.identity.StampedVersion;
 import gov.vha.isaac.ochre.api.index.IndexServiceBI;
-import gov.vha.isaac.ochre.api.index.SearchResult;
 import gov.vha.isaac.ochre.api.logic.LogicNode;
 import gov.vha.isaac.ochre.api.logic.LogicalExpression;
 import gov.vha.isaac.ochre.api.logic.LogicalExpressionBuilder;
@@ -457,19 +456,16 @@ public class Frills implements DynamicSememeColumnUtility {
 		return results;
 	}
 
+	/**
+	 * Find the component identified by a SCTID, using the identifier index of the sememe service.
+	 * For many SCTIDs, use {@link gov.vha.isaac.ochre.api.IdentifierService#getNidsForIdentifiers(int, long...)}.
+	 *
+	 * @param sctID
+	 * @return the nid of the component, if found, or empty (will not return null)
+	 */
 	public static Optional<Integer> getNidForSCTID(long sctID) {
-		IndexServiceBI si = LookupService.get().getService(IndexServiceBI.class, "sememe indexer");
-		if (si != null) {
-			//force the prefix algorithm, and add a trailing space - quickest way to do an exact-match type of search
-			List<SearchResult> result = si.query(sctID + " ", true,
-					new Integer[] {MetaData.SNOMED_INTEGER_ID.getConceptSequence()}, 5, Long.MIN_VALUE);
-			if (result.size() > 0) {
-				return Optional.of(Get.sememeService().getSememe(result.get(0).getNid()).getReferencedComponentNid());
-			}
-		} else {
-			log.warn("Sememe Index not available - can't lookup SCTID");
-		}
-		return Optional.empty();
+		int nid = Get.identifierService().getNidsForIdentifiers(MetaData.SNOMED_INTEGER_ID.getConceptSequence(), sctID)[0];
+		return nid == 0 ? Optional.empty() : Optional.of(nid);
 	}
 
 	/**
@@ -15,6 +15,7 @@
  */
 package gov.vha.isaac.ochre.api;
 
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import org.jvnet.hk2.annotations.Contract;
@@ -27,6 +28,14 @@ import org.jvnet.hk2.annotations.Contract;
 public interface ConceptActiveService {
     
     boolean isConceptActive(int conceptSequence, StampCoordinate stampCoordinate);
+
+    /**
+     * 
+     * @param stampCoordinate
+     * @return the sequences of all concepts that are active under the 
+     * coordinate. 
+     */
+    ConceptSequenceSet getActiveConceptSequenceSet(StampCoordinate stampCoordinate);
     
     /**
      * Update the service with the status values in this ConceptChronology. This method will be
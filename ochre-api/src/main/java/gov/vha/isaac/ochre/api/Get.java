@@ -42,6 +42,7 @@ import gov.vha.isaac.ochre.api.component.sememe.SememeService;
 import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
 import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
 import gov.vha.isaac.ochre.api.coordinate.CoordinateFactory;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 import gov.vha.isaac.ochre.api.index.GenerateIndexes;
 import gov.vha.isaac.ochre.api.index.IndexServiceBI;
 import gov.vha.isaac.ochre.api.logic.LogicService;
@@ -362,6 +363,17 @@ public class Get implements OchreCache {
         return StreamSupport.stream(new OchreExternalizableSpliterator(), false);
     }
 
+    /**
+     * @param changedAfter the position to compare against
+     * @return the concepts and sememes with a version on the path of the
+     * position, after the time of the position, and the stamp aliases and
+     * comments of stamps after the position, for export of the changes since
+     * a prior export.
+     */
+    public static Stream<OchreExternalizable> ochreExternalizableStream(StampPosition changedAfter) {
+        return StreamSupport.stream(new OchreExternalizableSpliterator(changedAfter), false);
+    }
+
     @Override
     public void reset() {
         LOG.info("Resetting service cache.");
@@ -75,6 +75,15 @@ public interface IdentifierService {
     
     int getNidForUuids(Collection<UUID> uuids);
     int getNidForUuids(UUID... uuids);
+
+    /**
+     * Bulk form of {@link #getNidForUuids(UUID...)}, for loaders that resolve
+     * the identifiers of many components at once. Nids are generated for
+     * UUIDs that don't have one.
+     * @param uuids the UUIDs, each of which identifies its own component.
+     * @return the nid for each UUID, in the same order.
+     */
+    int[] getNidsForUuids(UUID[] uuids);
     int getNidForProxy(ConceptSpecification conceptProxy);
     
     int getConceptSequenceForUuids(Collection<UUID> uuids);
@@ -93,6 +102,28 @@ public interface IdentifierService {
     Optional<LatestVersion<String>> getConceptIdentifierForAuthority(int conceptId, UUID identifierAuthorityUuid, 
             StampCoordinate stampCoordinate);
 
+    /**
+     * Resolve many identifiers from one authority, such as SNOMED CT ids or
+     * VUIDs, to the nids of the components they identify.
+     * @param authoritySequence the concept sequence or nid of the identifier
+     * authority assemblage.
+     * @param identifiers the identifiers to resolve.
+     * @return an array parallel to identifiers, with the nid of the component
+     * for each identifier, or 0 where no component has the identifier.
+     */
+    int[] getNidsForIdentifiers(int authoritySequence, String... identifiers);
+
+    /**
+     * Resolve many numeric identifiers from one authority, such as SNOMED CT
+     * ids or VUIDs, to the nids of the components they identify.
+     * @param authoritySequence the concept sequence or nid of the identifier
+     * authority assemblage.
+     * @param identifiers the identifiers to resolve.
+     * @return an array parallel to identifiers, with the nid of the component
+     * for each identifier, or 0 where no component has the identifier.
+     */
+    int[] getNidsForIdentifiers(int authoritySequence, long... identifiers);
+
     List<UUID> getUuidsForNid(int nid);
 
     default UUID[] getUuidArrayForNid(int nid) {
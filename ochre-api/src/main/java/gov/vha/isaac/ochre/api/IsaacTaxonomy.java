@@ -336,7 +336,7 @@ public class IsaacTaxonomy {
         
         commitService.addAlias(stampSequence, stampAliasForPromotion, "promoted by maven");
         try (BinaryDataWriterService writer = Get.binaryDataWriter(exportFilePath)) {
-            Get.ochreExternalizableStream().forEach((ochreExternalizable) -> writer.put(ochreExternalizable));
+            writer.putAll(Get.ochreExternalizableStream());
         }
     }
 
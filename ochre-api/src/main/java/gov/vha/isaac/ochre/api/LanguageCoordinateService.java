@@ -70,6 +70,20 @@ public interface LanguageCoordinateService {
     Optional<LatestVersion<DescriptionSememe<?>>> getSpecifiedDescription(StampCoordinate stampCoordinate, 
             List<SememeChronology<? extends DescriptionSememe<?>>> descriptionList, 
             int typeSequence, LanguageCoordinate languageCoordinate);
+
+    /**
+     * Batch form of {@link #getSpecifiedDescription(StampCoordinate, List, int, LanguageCoordinate)}, 
+     * which reads the dialect annotations of the descriptions of all the lists at once. 
+     * @param stampCoordinate used to determine which versions of descriptions and dialect annotations are current. 
+     * @param descriptionLists the descriptions to consider, one list per concept. 
+     * @param typeSequence The specific type to match. 
+     * @param languageCoordinate Used to determine ranking of candidate matches. 
+     * @return the latest value of the specified description for each list, or null 
+     * for a list without a match. 
+     */
+    DescriptionSememe<?>[] getSpecifiedDescriptions(StampCoordinate stampCoordinate, 
+            List<List<SememeChronology<? extends DescriptionSememe<?>>>> descriptionLists, 
+            int typeSequence, LanguageCoordinate languageCoordinate);
     /**
      * 
      * @param stampCoordinate used to determine which versions of descriptions and dialect annotations are current. 
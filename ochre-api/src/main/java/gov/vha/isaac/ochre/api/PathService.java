@@ -41,5 +41,12 @@ public interface PathService {
 	RelativePosition getRelativePosition(StampedVersion v1, StampedVersion v2);
     
 	RelativePosition getRelativePosition(int stampSequence1, int stampSequence2);
+
+	/**
+	 * Discard any cached paths and origins, so they are read again on next
+	 * use. Called when path or path origin sememes are written without a
+	 * commit, such as on import, since change listeners are not notified.
+	 */
+	void invalidatePaths();
     
 }
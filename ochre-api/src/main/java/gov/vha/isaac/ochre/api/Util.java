@@ -15,7 +15,6 @@
  */
 package gov.vha.isaac.ochre.api;
 
-import gov.vha.isaac.ochre.api.progress.ActiveTasks;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.ExecutionException;
@@ -35,12 +34,12 @@ public class Util {
     }
     
     public static <T> T addToTaskSetAndWaitTillDone(Task<T> task) throws InterruptedException, ExecutionException {
-        LookupService.get().getService(ActiveTasks.class).get().add(task);
+        Get.activeTasks().add(task);
         try {
             T returnValue = task.get();
             return returnValue;
         } finally {
-            LookupService.get().getService(ActiveTasks.class).get().remove(task);
+            Get.activeTasks().remove(task);
         }
     }
 }
@@ -321,8 +321,11 @@ public abstract class AbstractIntSet<T extends AbstractIntSet<T>> {
 
         @Override
         public boolean tryAdvance(IntConsumer action) {
-            action.accept(intIterator.next());
-            return intIterator.hasNext();
+            if (intIterator.hasNext()) {
+                action.accept(intIterator.next());
+                return true;
+            }
+            return false;
         }
 
         @Override
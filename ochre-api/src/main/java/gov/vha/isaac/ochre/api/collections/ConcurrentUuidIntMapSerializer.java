@@ -16,6 +16,8 @@ public class ConcurrentUuidIntMapSerializer implements DataSerializer<Concurrent
 
     @Override
     public void serialize(DataOutput out, ConcurrentUuidToIntHashMap map) {
+        // the map may be written while it is being updated.
+        long stamp = map.getStampedLock().readLock();
         try {
             out.writeInt(map.size());
             map.forEachPair((long[] uuid, int nid) -> {
@@ -30,6 +32,8 @@ public class ConcurrentUuidIntMapSerializer implements DataSerializer<Concurrent
             });
         } catch (IOException ex) {
             throw new RuntimeException(ex);
+        } finally {
+            map.getStampedLock().unlockRead(stamp);
         }
 
     }
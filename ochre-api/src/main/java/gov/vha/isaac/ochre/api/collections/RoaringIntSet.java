@@ -191,8 +191,11 @@ public class RoaringIntSet implements IntSet {
 
 		@Override
 		public boolean tryAdvance(IntConsumer action) {
-			action.accept(intIterator.next());
-			return intIterator.hasNext();
+			if (intIterator.hasNext()) {
+				action.accept(intIterator.next());
+				return true;
+			}
+			return false;
 		}
 
 		@Override
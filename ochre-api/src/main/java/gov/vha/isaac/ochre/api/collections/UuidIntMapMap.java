@@ -18,7 +18,6 @@ import gov.vha.isaac.ochre.api.collections.uuidnidmap.UuidToIntMap;
 import gov.vha.isaac.ochre.api.memory.DiskSemaphore;
 import gov.vha.isaac.ochre.api.memory.HoldInMemoryCache;
 import gov.vha.isaac.ochre.api.memory.MemoryManagedReference;
-import gov.vha.isaac.ochre.api.memory.WriteToDiskCache;
 import gov.vha.isaac.ochre.api.util.UUIDUtil;
 
 /**
@@ -33,6 +32,10 @@ public class UuidIntMapMap implements UuidToIntMap {
     public static int NID_TO_UUID_CACHE_SIZE = 0;  //defaults to disabled / not normally used.
     //Loader utility code sets this to a much larger value, as there is no alternate cache to get from nid back to UUID
     //when the data isn't being written to the DB.
+
+    public static boolean NID_TO_UUID_INDEX = false;  //defaults to disabled, as it adds an int to int map and an int per slot to each map.
+    //When enabled, each map indexes its UUIDs by nid, so getKeysForValue doesn't scan every map. Set before
+    //the maps are read.
     
     private static final int DEFAULT_MAP_SIZE = DEFAULT_TOTAL_MAP_SIZE / NUMBER_OF_MAPS;
     private static final double MIN_LOAD_FACTOR = 0.75;
@@ -60,7 +63,6 @@ public class UuidIntMapMap implements UuidToIntMap {
             maps[i] = new MemoryManagedReference<>(
                     null,
                     new File(folder, i + "-uuid-nid.map"), SERIALIZER);
-            WriteToDiskCache.addToCache(maps[i]);
         }
         if (NID_TO_UUID_CACHE_SIZE > 0) {
             nidToPrimoridialCache = new LruCache<>(NID_TO_UUID_CACHE_SIZE);
@@ -90,21 +92,27 @@ public class UuidIntMapMap implements UuidToIntMap {
             if (maps[i].get() == null) {
                 File mapFile = new File(folder, i + "-uuid-nid.map");
                 if (mapFile.exists()) {
+                    long loadStart = System.nanoTime();
                     DiskSemaphore.acquire();
                     try (DataInputStream in = new DataInputStream(new BufferedInputStream(
                             new FileInputStream(mapFile)))) {
-                        maps[i] = new MemoryManagedReference<>(SERIALIZER.deserialize(in),
+                        ConcurrentUuidToIntHashMap map = SERIALIZER.deserialize(in);
+                        map.setValueIndexed(NID_TO_UUID_INDEX);
+                        maps[i] = new MemoryManagedReference<>(map,
                                 mapFile, SERIALIZER);
-                        WriteToDiskCache.addToCache(maps[i]);
+                        maps[i].setEstimatedSize(estimateSize(map));
                         LOG.debug("UuidIntMapMap restored: " + i + " from: " + this + " file: " + mapFile.getAbsolutePath());
                     } finally {
                         DiskSemaphore.release();
+                        HoldInMemoryCache.recordLoad(System.nanoTime() - loadStart);
                     }
                 } else {
+                    ConcurrentUuidToIntHashMap map = new ConcurrentUuidToIntHashMap(DEFAULT_MAP_SIZE, MIN_LOAD_FACTOR, MAX_LOAD_FACTOR);
+                    map.setValueIndexed(NID_TO_UUID_INDEX);
                     maps[i] = new MemoryManagedReference<>(
-                            new ConcurrentUuidToIntHashMap(DEFAULT_MAP_SIZE, MIN_LOAD_FACTOR, MAX_LOAD_FACTOR),
+                            map,
                             new File(folder, i + "-uuid-nid.map"), SERIALIZER);
-                    WriteToDiskCache.addToCache(maps[i]);
+                    maps[i].setEstimatedSize(estimateSize(map));
 
                 }
             }
@@ -113,6 +121,15 @@ public class UuidIntMapMap implements UuidToIntMap {
         }
     }
 
+    /**
+     * @param map
+     * @return the estimated heap used by the key, value and state arrays of the map, and its value index.
+     */
+    private static long estimateSize(ConcurrentUuidToIntHashMap map) {
+        return 64L + map.getTable().length * 8L + map.getValues().length * 4L + map.getState().length
+                + map.getValueIndexSize();
+    }
+
     private ConcurrentUuidToIntHashMap getMap(UUID key) {
         if (key == null) {
             throw new IllegalStateException("UUIDs cannot be null. ");
@@ -171,8 +188,9 @@ public class UuidIntMapMap implements UuidToIntMap {
 //            if (nid == -2147483637) {
 //                System.out.println(nid + "->" + key);
 //            }
-            maps[mapIndex].elementUpdated();
             map.put(keyAsArray, nid, stamp);
+            maps[mapIndex].elementUpdated();
+            maps[mapIndex].setEstimatedSize(estimateSize(map));
             updateCache(nid, uuidKey);
             return nid;
         } finally {
@@ -180,6 +198,79 @@ public class UuidIntMapMap implements UuidToIntMap {
         }
     }
 
+    /**
+     * Resolves a batch of UUIDs to nids, generating nids for the UUIDs that
+     * don't have one. The UUIDs are grouped by map, so each map is looked up
+     * once, and its write lock is acquired at most once for the batch.
+     * @param uuidKeys the UUIDs, each of which identifies its own component.
+     * @return the nid for each UUID, in the same order.
+     */
+    public int[] getWithGeneration(UUID[] uuidKeys) {
+        int[] nids = new int[uuidKeys.length];
+        // counting sort of the key indexes by map index.
+        int[] mapStarts = new int[NUMBER_OF_MAPS + 1];
+        int[] mapIndexes = new int[uuidKeys.length];
+        for (int i = 0; i < uuidKeys.length; i++) {
+            if (uuidKeys[i] == null) {
+                throw new IllegalStateException("UUIDs cannot be null. ");
+            }
+            mapIndexes[i] = getMapIndex(uuidKeys[i]);
+            mapStarts[mapIndexes[i] + 1]++;
+        }
+        for (int mapIndex = 0; mapIndex < NUMBER_OF_MAPS; mapIndex++) {
+            mapStarts[mapIndex + 1] += mapStarts[mapIndex];
+        }
+        int[] keyOrder = new int[uuidKeys.length];
+        int[] mapEnds = Arrays.copyOf(mapStarts, NUMBER_OF_MAPS);
+        for (int i = 0; i < uuidKeys.length; i++) {
+            keyOrder[mapEnds[mapIndexes[i]]++] = i;
+        }
+        long[][] keysAsArrays = new long[uuidKeys.length][];
+        for (int mapIndex = 0; mapIndex < NUMBER_OF_MAPS; mapIndex++) {
+            int start = mapStarts[mapIndex];
+            int end = mapStarts[mapIndex + 1];
+            if (start == end) {
+                continue;
+            }
+            ConcurrentUuidToIntHashMap map = getMap(mapIndex);
+            int misses = 0;
+            for (int i = start; i < end; i++) {
+                int keyIndex = keyOrder[i];
+                keysAsArrays[keyIndex] = UUIDUtil.convert(uuidKeys[keyIndex]);
+                nids[keyIndex] = map.get(keysAsArrays[keyIndex]);
+                if (nids[keyIndex] == Integer.MAX_VALUE) {
+                    misses++;
+                }
+            }
+            if (misses == 0) {
+                continue;
+            }
+            long stamp = map.getStampedLock().writeLock();
+            try {
+                for (int i = start; i < end; i++) {
+                    int keyIndex = keyOrder[i];
+                    if (nids[keyIndex] != Integer.MAX_VALUE) {
+                        continue;
+                    }
+                    // checked again under the lock, which also finds
+                    // duplicates within the batch.
+                    int nid = map.get(keysAsArrays[keyIndex], stamp);
+                    if (nid == Integer.MAX_VALUE) {
+                        nid = NEXT_NID_PROVIDER.incrementAndGet();
+                        map.put(keysAsArrays[keyIndex], nid, stamp);
+                        updateCache(nid, uuidKeys[keyIndex]);
+                    }
+                    nids[keyIndex] = nid;
+                }
+                maps[mapIndex].elementUpdated();
+                maps[mapIndex].setEstimatedSize(estimateSize(map));
+            } finally {
+                map.getStampedLock().unlockWrite(stamp);
+            }
+        }
+        return nids;
+    }
+
     private void updateCache(int nid, UUID uuidKey) {
         if (nidToPrimoridialCache != null) {
             UUID[] temp = nidToPrimoridialCache.get(nid);
@@ -205,6 +296,7 @@ public class UuidIntMapMap implements UuidToIntMap {
         try {
             boolean returnValue = map.put(keyAsArray, value, stamp);
             maps[mapIndex].elementUpdated();
+            maps[mapIndex].setEstimatedSize(estimateSize(map));
             return returnValue;
         } finally {
             map.getStampedLock().unlockWrite(stamp);
@@ -1,5 +1,6 @@
 package gov.vha.isaac.ochre.api.collections.uuidnidmap;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.locks.StampedLock;
 
@@ -121,8 +122,29 @@ public class ConcurrentUuidToIntHashMap extends UuidToIntHashMap {
         return super.put(key, value);
     }
 
+    @Override
+    public List<UUID> keysOf(int value) {
+        long stamp = sl.readLock();
+        try {
+            return super.keysOf(value);
+        } finally {
+            sl.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void setValueIndexed(boolean valueIndexed) {
+        long stamp = sl.writeLock();
+        try {
+            super.setValueIndexed(valueIndexed);
+        } finally {
+            sl.unlockWrite(stamp);
+        }
+    }
+
     public String getStats() {
         return "distinct: " + getDistinct() + " free: " + getFreeEntries()
-                + " utilization: " + getDistinct() * 100 /(getDistinct() + getFreeEntries());
+                + " utilization: " + getDistinct() * 100 /(getDistinct() + getFreeEntries())
+                + " value index bytes: " + getValueIndexSize();
     }
 }
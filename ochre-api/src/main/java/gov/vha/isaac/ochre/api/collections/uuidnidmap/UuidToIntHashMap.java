@@ -16,12 +16,14 @@
 package gov.vha.isaac.ochre.api.collections.uuidnidmap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.apache.mahout.math.function.DoubleProcedure;
 import org.apache.mahout.math.list.ByteArrayList;
 import org.apache.mahout.math.list.IntArrayList;
 import org.apache.mahout.math.map.HashFunctions;
+import org.apache.mahout.math.map.OpenIntIntHashMap;
 import org.apache.mahout.math.map.PrimeFinder;
 
 /**
@@ -79,6 +81,17 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
      * @serial
      */
     protected int freeEntries;
+    /**
+     * When the map is value indexed, the slot + 1 of a key for each value.
+     * Null otherwise.
+     */
+    protected transient ValueSlotMap valueSlots;
+    /**
+     * When the map is value indexed, for each slot the next slot with the
+     * same value, or -1, so all the keys for a value can be found without
+     * scanning the table. Null otherwise.
+     */
+    protected transient int[] nextSlotForValue;
     protected static final byte FREE = 0;
     protected static final byte FULL = 1;
     protected static final byte REMOVED = 2;
@@ -130,6 +143,9 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         this.distinct = 0;
         this.freeEntries = state.length; // delta
         trimToSize();
+        if (valueSlots != null) {
+            indexValues();
+        }
     }
 
     /**
@@ -143,6 +159,10 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         copy.table = (long[]) copy.table.clone();
         copy.values = (int[]) copy.values.clone();
         copy.state = (byte[]) copy.state.clone();
+        if (valueSlots != null) {
+            copy.valueSlots = (ValueSlotMap) valueSlots.clone();
+            copy.nextSlotForValue = nextSlotForValue.clone();
+        }
         return copy;
     }
 
@@ -342,6 +362,9 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
      * @return the index where the value is contained in the receiver, returns -1 if the value was not found.
      */
     protected int indexOfValue(int value) {
+        if (valueSlots != null) {
+            return valueSlots.get(value) - 1;
+        }
         final int val[] = values;
         final byte stat[] = state;
 
@@ -353,18 +376,38 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
 
         return -1; // not found
     }
-	protected List<Integer> indexesOfValue(int value) {
-                List<Integer> indexes = new ArrayList<>();
-		final int val[] = values;
-		final byte stat[] = state;
-
-		for (int i = stat.length; --i >= 0;) {
-			if (stat[i] == FULL && val[i] == value)
-				indexes.add(i);
-		}
-
-		return indexes; // not found
-	}
+    /**
+     * @param value the value to be searched in the receiver.
+     * @return the indexes where the value is contained in the receiver, which
+     * is empty if the value was not found.
+     */
+    protected int[] indexesOfValue(int value) {
+        if (valueSlots != null) {
+            int count = 0;
+            for (int i = valueSlots.get(value) - 1; i >= 0; i = nextSlotForValue[i]) {
+                count++;
+            }
+            int[] indexes = new int[count];
+            count = 0;
+            for (int i = valueSlots.get(value) - 1; i >= 0; i = nextSlotForValue[i]) {
+                indexes[count++] = i;
+            }
+            return indexes;
+        }
+        final int val[] = values;
+        final byte stat[] = state;
+        int[] indexes = new int[1];
+        int count = 0;
+        for (int i = stat.length; --i >= 0;) {
+            if (stat[i] == FULL && val[i] == value) {
+                if (count == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, count * 2);
+                }
+                indexes[count++] = i;
+            }
+        }
+        return count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+    }
 
     /**
      * Returns the first key the given value is associated with. It is often a good idea to first check with
@@ -390,16 +433,86 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         uuid[1] = table[lsb];
         return uuid;
     }
-	public List<UUID> keysOf(int value) {
-		List<Integer> indexes = indexesOfValue(value);
-                List<UUID> keys = new ArrayList<>(indexes.size());
-		
-                indexes.stream().map((index) -> index * 2).forEach((msb) -> {
-                    int lsb = msb + 1;
-                    keys.add(new UUID(table[msb], table[lsb]));
-        });
-		return keys;
-	}
+    public List<UUID> keysOf(int value) {
+        int[] indexes = indexesOfValue(value);
+        List<UUID> keys = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            int msb = index * 2;
+            keys.add(new UUID(table[msb], table[msb + 1]));
+        }
+        return keys;
+    }
+
+    /**
+     * Index the keys by value, so {@link #keyOf(int)} and
+     * {@link #keysOf(int)} don't scan the table, at the cost of
+     * {@link #getValueIndexSize()} bytes, or drop the index.
+     *
+     * @param valueIndexed true to index the keys by value.
+     */
+    public void setValueIndexed(boolean valueIndexed) {
+        if (valueIndexed && valueSlots == null) {
+            valueSlots = new ValueSlotMap(distinct);
+            indexValues();
+        } else if (!valueIndexed) {
+            valueSlots = null;
+            nextSlotForValue = null;
+        }
+    }
+
+    public boolean isValueIndexed() {
+        return valueSlots != null;
+    }
+
+    /**
+     * @return the estimated heap used by the value index, or 0 if the map
+     * is not value indexed.
+     */
+    public long getValueIndexSize() {
+        if (valueSlots == null) {
+            return 0;
+        }
+        return valueSlots.estimateSize() + nextSlotForValue.length * 4L;
+    }
+
+    /**
+     * Rebuild the value index from the table, after it is created or the
+     * table is rehashed.
+     */
+    protected void indexValues() {
+        valueSlots.clear();
+        nextSlotForValue = new int[state.length];
+        for (int i = state.length; i-- > 0;) {
+            if (state[i] == FULL) {
+                indexValue(i);
+            }
+        }
+    }
+
+    protected void indexValue(int slot) {
+        int value = values[slot];
+        nextSlotForValue[slot] = valueSlots.get(value) - 1;
+        valueSlots.put(value, slot + 1);
+    }
+
+    protected void unindexValue(int slot) {
+        int value = values[slot];
+        int head = valueSlots.get(value) - 1;
+        if (head == slot) {
+            int next = nextSlotForValue[slot];
+            if (next < 0) {
+                valueSlots.removeKey(value);
+            } else {
+                valueSlots.put(value, next + 1);
+            }
+            return;
+        }
+        int previous = head;
+        while (nextSlotForValue[previous] != slot) {
+            previous = nextSlotForValue[previous];
+        }
+        nextSlotForValue[previous] = nextSlotForValue[slot];
+    }
 
     /**
      * Fills all keys contained in the receiver into the specified list. Fills the list, starting at index 0.
@@ -450,7 +563,13 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         int i = indexOfInsertion(key);
         if (i < 0) { // already contained
             i = -i - 1;
-            this.values[i] = value;
+            if (valueSlots != null && this.values[i] != value) {
+                unindexValue(i);
+                this.values[i] = value;
+                indexValue(i);
+            } else {
+                this.values[i] = value;
+            }
             return false;
         }
         if (this.distinct > this.highWaterMark) {
@@ -469,6 +588,9 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         }
         this.state[i] = FULL;
         this.distinct++;
+        if (valueSlots != null) {
+            indexValue(i);
+        }
         
         if (this.freeEntries < 1) { // delta
             int newCapacity = chooseGrowCapacity(this.distinct + 1,
@@ -521,6 +643,9 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         this.values = newValues;
         this.state = newState;
         this.freeEntries = newCapacity - this.distinct; // delta
+        if (valueSlots != null) {
+            indexValues();
+        }
     }
     protected int indexOfInsertionForRehash(long[] key, long[] tab, byte[] stat) {
         final int length = stat.length;
@@ -583,6 +708,9 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         if (i < 0) {
             return false; // key not contained
         }
+        if (valueSlots != null) {
+            unindexValue(i);
+        }
         this.state[i] = REMOVED;
         // this.values[i]=0; // delta
         this.distinct--;
@@ -703,4 +831,18 @@ public class UuidToIntHashMap extends AbstractUuidToIntHashMap implements UuidTo
         }
         return true;
     }
+
+    /**
+     * Value to slot map that can report its size.
+     */
+    protected static class ValueSlotMap extends OpenIntIntHashMap {
+
+        ValueSlotMap(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        long estimateSize() {
+            return 64L + table.length * 4L + values.length * 4L + state.length;
+        }
+    }
 }
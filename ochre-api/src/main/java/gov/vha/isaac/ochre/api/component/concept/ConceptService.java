@@ -18,6 +18,7 @@ package gov.vha.isaac.ochre.api.component.concept;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import java.util.Optional;
 import java.util.UUID;
@@ -85,6 +86,13 @@ public interface ConceptService {
     ConceptSnapshotService getSnapshot(StampCoordinate stampCoordinate, LanguageCoordinate languageCoordinate);
 
     int getConceptCount();
+
+    /**
+     * @param position the position to compare against
+     * @return the sequences of the concepts with a version on the path of the
+     * position, with a time after the time of the position.
+     */
+    ConceptSequenceSet getConceptSequencesModifiedAfterPosition(StampPosition position);
     
     Stream<ConceptChronology<? extends ConceptVersion<?>>> getConceptChronologyStream();
     Stream<ConceptChronology<? extends ConceptVersion<?>>> getParallelConceptChronologyStream();
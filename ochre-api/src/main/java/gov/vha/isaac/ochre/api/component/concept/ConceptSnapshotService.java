@@ -16,6 +16,7 @@
 package gov.vha.isaac.ochre.api.component.concept;
 
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
 import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
@@ -43,6 +44,15 @@ public interface ConceptSnapshotService {
      */
     ConceptSnapshot getConceptSnapshot(int conceptId);
 
+    /**
+     * Batch form of {@link #getConceptSnapshot(int)}, for use when snapshots
+     * of many concepts are needed. 
+     * @param conceptSequenceSet the concepts to get snapshots of
+     * @return a table of the latest version, status and description texts
+     * of each concept in the set that exists. 
+     */
+    ConceptSnapshotTable getConceptSnapshots(ConceptSequenceSet conceptSequenceSet);
+
     /**
      * 
      * @return the {@code StampCoordinate} associated with this snapshot. 
@@ -0,0 +1,108 @@
+package gov.vha.isaac.ochre.api.component.concept;
+
+import java.util.Arrays;
+
+/**
+ * Snapshots of many concepts, as parallel columns with one row per concept,
+ * sorted by concept sequence. Returned by
+ * {@link ConceptSnapshotService#getConceptSnapshots}, so callers that show or
+ * export thousands of concepts read the columns rather than a
+ * {@code ConceptSnapshot} per concept, each of which looks up its versions
+ * and descriptions separately.
+ *
+ * The texts are those of the latest version of the description chosen by the
+ * language coordinate of the snapshot service; contradictions are not
+ * included.
+ */
+public class ConceptSnapshotTable {
+
+    private final int[] conceptSequences;
+    private final int[] stampSequences;
+    private final boolean[] active;
+    private final String[] fullySpecifiedTexts;
+    private final String[] preferredTexts;
+    private final String[] descriptionTexts;
+
+    /**
+     * @param conceptSequences the concepts, sorted by sequence.
+     * @param stampSequences the stamp of the latest version of each concept,
+     * or -1 if there is no latest version.
+     * @param active the status of each concept.
+     * @param fullySpecifiedTexts the fully specified name of each concept, or
+     * null.
+     * @param preferredTexts the preferred name of each concept, or null.
+     * @param descriptionTexts the description of each concept according to
+     * the type preferences of the language coordinate, or null.
+     */
+    public ConceptSnapshotTable(int[] conceptSequences, int[] stampSequences, boolean[] active,
+            String[] fullySpecifiedTexts, String[] preferredTexts, String[] descriptionTexts) {
+        this.conceptSequences = conceptSequences;
+        this.stampSequences = stampSequences;
+        this.active = active;
+        this.fullySpecifiedTexts = fullySpecifiedTexts;
+        this.preferredTexts = preferredTexts;
+        this.descriptionTexts = descriptionTexts;
+    }
+
+    public int size() {
+        return conceptSequences.length;
+    }
+
+    /**
+     * @param conceptSequence
+     * @return the row of the concept, or -1 if the concept is not in the
+     * table.
+     */
+    public int getRow(int conceptSequence) {
+        int row = Arrays.binarySearch(conceptSequences, conceptSequence);
+        if (row < 0) {
+            return -1;
+        }
+        return row;
+    }
+
+    public int getConceptSequence(int row) {
+        return conceptSequences[row];
+    }
+
+    /**
+     * @param row
+     * @return the stamp of the latest version of the concept, or -1 if there
+     * is no version on the stamp coordinate.
+     */
+    public int getStampSequence(int row) {
+        return stampSequences[row];
+    }
+
+    public boolean isActive(int row) {
+        return active[row];
+    }
+
+    /**
+     * @param row
+     * @return the text of the fully specified description, or null if none
+     * satisfies the coordinates.
+     */
+    public String getFullySpecifiedText(int row) {
+        return fullySpecifiedTexts[row];
+    }
+
+    /**
+     * @param row
+     * @return the text of the preferred description, or null if none
+     * satisfies the coordinates.
+     */
+    public String getPreferredText(int row) {
+        return preferredTexts[row];
+    }
+
+    /**
+     * @param row
+     * @return the text of the description of the most preferred type, as
+     * returned by {@link ConceptSnapshotService#conceptDescriptionText(int)},
+     * or null if none satisfies the coordinates.
+     */
+    public String getDescriptionText(int row) {
+        return descriptionTexts[row];
+    }
+}
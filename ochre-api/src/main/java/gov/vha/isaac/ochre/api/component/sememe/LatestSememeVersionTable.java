@@ -0,0 +1,148 @@
+package gov.vha.isaac.ochre.api.component.sememe;
+
+import gov.vha.isaac.ochre.api.collections.NidSet;
+import gov.vha.isaac.ochre.api.component.sememe.version.ComponentNidSememe;
+import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
+import gov.vha.isaac.ochre.api.component.sememe.version.LongSememe;
+import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.component.sememe.version.StringSememe;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The latest versions of the sememes of many components, as parallel
+ * columns with one row per latest version, sorted by referenced component
+ * nid. Returned by the batch methods of {@link SememeSnapshotService}, so
+ * callers that need the sememes of thousands of components read the columns
+ * rather than a stream of {@code LatestVersion} objects per component.
+ *
+ * Only the {@code value()} of each latest version is included; contradictions
+ * are not. The value columns hold the value of the version if it is of the
+ * matching type, and the default value (0 or null) otherwise.
+ */
+public class LatestSememeVersionTable {
+
+    private final int[] componentNids;
+    private final int[] sememeSequences;
+    private final int[] assemblageSequences;
+    private final int[] stampSequences;
+    private final int[] componentNidValues;
+    private final long[] longValues;
+    private final String[] stringValues;
+
+    /**
+     * @param versions the latest versions, in any order.
+     */
+    public LatestSememeVersionTable(SememeVersion<?>[] versions) {
+        int rowCount = versions.length;
+        // sort by component nid, then by position, without boxing.
+        long[] nidPositions = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            nidPositions[i] = ((long) versions[i].getReferencedComponentNid() << 32) | i;
+        }
+        Arrays.parallelSort(nidPositions);
+        this.componentNids = new int[rowCount];
+        this.sememeSequences = new int[rowCount];
+        this.assemblageSequences = new int[rowCount];
+        this.stampSequences = new int[rowCount];
+        this.componentNidValues = new int[rowCount];
+        this.longValues = new long[rowCount];
+        this.stringValues = new String[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            SememeVersion<?> version = versions[(int) nidPositions[row]];
+            componentNids[row] = version.getReferencedComponentNid();
+            sememeSequences[row] = version.getSememeSequence();
+            assemblageSequences[row] = version.getAssemblageSequence();
+            stampSequences[row] = version.getStampSequence();
+            if (version instanceof ComponentNidSememe) {
+                componentNidValues[row] = ((ComponentNidSememe<?>) version).getComponentNid();
+            } else if (version instanceof LongSememe) {
+                longValues[row] = ((LongSememe<?>) version).getLongValue();
+            } else if (version instanceof StringSememe) {
+                stringValues[row] = ((StringSememe<?>) version).getString();
+            } else if (version instanceof DescriptionSememe) {
+                stringValues[row] = ((DescriptionSememe<?>) version).getText();
+            }
+        }
+    }
+
+    public int size() {
+        return componentNids.length;
+    }
+
+    public int getComponentNid(int row) {
+        return componentNids[row];
+    }
+
+    public int getSememeSequence(int row) {
+        return sememeSequences[row];
+    }
+
+    public int getAssemblageSequence(int row) {
+        return assemblageSequences[row];
+    }
+
+    public int getStampSequence(int row) {
+        return stampSequences[row];
+    }
+
+    /**
+     * @param row
+     * @return the component nid of a {@link ComponentNidSememe} version.
+     */
+    public int getComponentNidValue(int row) {
+        return componentNidValues[row];
+    }
+
+    /**
+     * @param row
+     * @return the value of a {@link LongSememe} version.
+     */
+    public long getLongValue(int row) {
+        return longValues[row];
+    }
+
+    /**
+     * @param row
+     * @return the string of a {@link StringSememe} version, or the text of a
+     * {@link DescriptionSememe} version.
+     */
+    public String getStringValue(int row) {
+        return stringValues[row];
+    }
+
+    /**
+     * @param componentNid
+     * @return the rows for the sememes of the component, which may be empty.
+     */
+    public IntStream getRowsForComponent(int componentNid) {
+        int row = Arrays.binarySearch(componentNids, componentNid);
+        if (row < 0) {
+            return IntStream.empty();
+        }
+        int start = row;
+        while (start > 0 && componentNids[start - 1] == componentNid) {
+            start--;
+        }
+        int end = row + 1;
+        while (end < componentNids.length && componentNids[end] == componentNid) {
+            end++;
+        }
+        return IntStream.range(start, end);
+    }
+
+    /**
+     * @param componentNid
+     * @return the sememe sequences of the latest versions for the component.
+     */
+    public int[] getSememeSequencesForComponent(int componentNid) {
+        return getRowsForComponent(componentNid).map((row) -> sememeSequences[row]).toArray();
+    }
+
+    /**
+     * @return the components with at least one latest sememe version.
+     */
+    public NidSet getComponentNids() {
+        return NidSet.of(componentNids);
+    }
+}
@@ -61,6 +61,13 @@ public interface SememeService {
     Stream<SememeChronology<? extends SememeVersion<?>>> getSememesFromAssemblage(int assemblageConceptSequence);
     SememeSequenceSet getSememeSequencesFromAssemblage(int assemblageConceptSequence);
     SememeSequenceSet getSememeSequencesForComponentsFromAssemblageModifiedAfterPosition(NidSet componentNidSet, int assemblageConceptSequence, StampPosition position);
+
+    /**
+     * @param position the position to compare against
+     * @return the sequences of the sememes with a version on the path of the
+     * position, with a time after the time of the position.
+     */
+    SememeSequenceSet getSememeSequencesModifiedAfterPosition(StampPosition position);
     
     Stream<SememeChronology<? extends SememeVersion<?>>> getSememesForComponent(int componentNid);
     SememeSequenceSet getSememeSequencesForComponent(int componentNid);
@@ -90,6 +97,31 @@ public interface SememeService {
      * @param sememe to be written.
      */
     void writeSememe(SememeChronology<?> sememeChronicle, SememeConstraints... constraints);
+
+    /**
+     * Find the components identified by a value of a string sememe, such as a
+     * SNOMED CT id, VUID or LOINC code, using an index of string sememe values
+     * maintained as sememes are written. The index of an assemblage is built
+     * by its first lookup. Values of any version of a sememe match; filter by
+     * a stamp coordinate if only current identifiers are wanted.
+     * @param assemblageConceptSequence the identifier assemblage, for example
+     * the SNOMED CT identifier concept.
+     * @param identifier the identifier value.
+     * @return the nids of the identified components, or an empty array if none.
+     */
+    int[] getReferencedComponentNidsForIdentifier(int assemblageConceptSequence, String identifier);
+
+    /**
+     * Find the components identified by many values of string sememes from
+     * one assemblage, with one lookup of the identifier index for all the
+     * values.
+     * @param assemblageConceptSequence the identifier assemblage, for example
+     * the SNOMED CT identifier concept.
+     * @param identifiers the identifier values.
+     * @return an array parallel to identifiers, with the nid of a component
+     * identified by each value, or 0 where no component has the value.
+     */
+    int[] getReferencedComponentNidsForIdentifiers(int assemblageConceptSequence, String... identifiers);
     
     Stream<SememeChronology<? extends SememeVersion<?>>> getSememeChronologyStream();
     
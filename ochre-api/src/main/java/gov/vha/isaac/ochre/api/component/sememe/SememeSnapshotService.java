@@ -16,6 +16,8 @@
 package gov.vha.isaac.ochre.api.component.sememe;
 
 import gov.vha.isaac.ochre.api.ProgressTracker;
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.collections.NidSet;
 import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import java.util.Optional;
@@ -47,5 +49,22 @@ public interface SememeSnapshotService<V extends SememeVersion> {
     Stream<LatestVersion<V>> getLatestSememeVersionsForComponentFromAssemblage(int componentNid, int assemblageConceptSequence);
 
     Stream<LatestVersion<V>> getLatestDescriptionVersionsForComponent(int componentNid);
+
+    /**
+     * Batch form of {@link #getLatestSememeVersionsForComponentFromAssemblage(int, int)},
+     * for use when the sememes of many components are needed.
+     * @param componentNidSet the components referenced by the sememes
+     * @param assemblageConceptSequence The sequence identifier of the assemblage to select
+     * sememes from.
+     * @return a table of the latest version of each sememe, by component.
+     */
+    LatestSememeVersionTable getLatestSememeVersionsForComponentsFromAssemblage(NidSet componentNidSet, int assemblageConceptSequence);
+
+    /**
+     * @param componentNidSet the components referenced by the sememes
+     * @param assemblageConceptSequenceSet the assemblages to select sememes from.
+     * @return a table of the latest version of each sememe, by component.
+     */
+    LatestSememeVersionTable getLatestSememeVersionsForComponentsFromAssemblages(NidSet componentNidSet, ConceptSequenceSet assemblageConceptSequenceSet);
     
 }
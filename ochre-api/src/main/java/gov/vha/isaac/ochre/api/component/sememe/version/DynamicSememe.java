@@ -22,6 +22,7 @@ package gov.vha.isaac.ochre.api.component.sememe.version;
 import javax.naming.InvalidNameException;
 
 import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeData;
+import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeDataType;
 import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeUsageDescription;
 
 /**
@@ -54,6 +55,50 @@ public interface DynamicSememe<T extends DynamicSememe<T>> extends SememeVersion
      */
     DynamicSememeData getData(String columnName) throws InvalidNameException;
 
+    /**
+     * @return the number of data columns in this DynamicSememe, without materializing
+     * the data objects for the columns.
+     */
+    int getColumnCount();
+
+    /**
+     * @param columnNumber
+     * @return the data type of the specified column, or {@link DynamicSememeDataType#UNKNOWN}
+     * if the column has no data.
+     * @throws IndexOutOfBoundsException
+     */
+    DynamicSememeDataType getColumnType(int columnNumber) throws IndexOutOfBoundsException;
+
+    /**
+     * Read the value of an {@link DynamicSememeDataType#INTEGER}, {@link DynamicSememeDataType#NID}
+     * or {@link DynamicSememeDataType#SEQUENCE} column, without creating a {@link DynamicSememeData} object.
+     * @param columnNumber
+     * @return the int value of the column
+     * @throws IndexOutOfBoundsException
+     * @throws UnsupportedOperationException if the column is not of an int valued type
+     */
+    int getInt(int columnNumber) throws IndexOutOfBoundsException;
+
+    /**
+     * Read the value of a {@link DynamicSememeDataType#LONG} column, without creating a
+     * {@link DynamicSememeData} object.
+     * @param columnNumber
+     * @return the long value of the column
+     * @throws IndexOutOfBoundsException
+     * @throws UnsupportedOperationException if the column is not of type LONG
+     */
+    long getLong(int columnNumber) throws IndexOutOfBoundsException;
+
+    /**
+     * Read the value of a {@link DynamicSememeDataType#STRING} column, without creating a
+     * {@link DynamicSememeData} object.
+     * @param columnNumber
+     * @return the String value of the column
+     * @throws IndexOutOfBoundsException
+     * @throws UnsupportedOperationException if the column is not of type STRING
+     */
+    String getString(int columnNumber) throws IndexOutOfBoundsException;
+
 	
 	/**
      * A convenience method that reads the concept referenced in {@link #getAssemblageNid()} and returns the actual column
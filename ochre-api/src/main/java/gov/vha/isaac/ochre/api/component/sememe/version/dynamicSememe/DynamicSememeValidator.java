@@ -0,0 +1,27 @@
+package gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe;
+
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
+
+/**
+ * {@link DynamicSememeValidator}
+ *
+ * A {@link DynamicSememeValidatorType} that has been compiled against a specific piece of validator definition data, 
+ * via {@link DynamicSememeValidatorType#compile(DynamicSememeData)}.  All of the work that only depends on the validator 
+ * definition data (parsing regular expressions and intervals, resolving UUIDs to nids, locating external validators) 
+ * is done once, at compile time, so that the same validator can be cheaply applied to many pieces of user data.
+ */
+@FunctionalInterface
+public interface DynamicSememeValidator
+{
+	/**
+	 * See {@link DynamicSememeValidatorType#passesValidator(DynamicSememeData, DynamicSememeData, StampCoordinate, TaxonomyCoordinate)}
+	 * 
+	 * @param userData
+	 * @param sc The Stamp Coordinate - not needed for some types of validations. Null allowed when unneeded (for math based tests, for example)
+	 * @param tc The Taxonomy Coordinate - not needed for some types of validations. Null allowed when unneeded (for math based tests, for example)
+	 * @return true, if the userData passes the validator
+	 * @throws RuntimeException - if the userData is not of a type that the validator can evaluate, or the validator fails to execute
+	 */
+	public boolean passes(DynamicSememeData userData, StampCoordinate sc, TaxonomyCoordinate tc) throws RuntimeException;
+}
@@ -23,6 +23,7 @@ import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.LookupService;
+import gov.vha.isaac.ochre.api.TaxonomySnapshotService;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronologyType;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeType;
@@ -175,14 +176,31 @@ public enum DynamicSememeValidatorType
 	 * These are all defined from the perspective of the userData - so for passesValidator to return true -
 	 * userData must be LESS_THAN validatorDefinitionData, for example.
 	 * 
+	 * This compiles the validator on every call - when the same validator definition will be applied repeatedly, 
+	 * use {@link #compile(DynamicSememeData)} once, and reuse the result.
+	 * 
 	 * @param userData
 	 * @param validatorDefinitionData
 	 * @param sc The Stamp Coordinate - not needed for some types of validations. Null allowed when unneeded (for math based tests, for example)
 	 * @param tc The Taxonomy Coordinate - not needed for some types of validations. Null allowed when unneeded (for math based tests, for example)
 	 * @return
 	 */
-	@SuppressWarnings("unchecked")
 	public boolean passesValidator(DynamicSememeData userData, DynamicSememeData validatorDefinitionData, StampCoordinate sc, TaxonomyCoordinate tc)
+	{
+		return compile(validatorDefinitionData).passes(userData, sc, tc);
+	}
+	
+	/**
+	 * Parse and resolve the validatorDefinitionData for this validator type once, returning a {@link DynamicSememeValidator} which 
+	 * can be applied to any number of userData values.  Regular expressions and intervals are parsed here, UUIDs in the definition 
+	 * are resolved to nids here, and external validators are located here - so errors in the definition data are reported by this call.
+	 * 
+	 * @param validatorDefinitionData
+	 * @return the compiled validator
+	 * @throws RuntimeException if the validatorDefinitionData is missing or invalid for this validator type
+	 */
+	@SuppressWarnings("unchecked")
+	public DynamicSememeValidator compile(DynamicSememeData validatorDefinitionData)
 	{
 		if (validatorDefinitionData == null)
 		{
@@ -192,13 +210,9 @@ public enum DynamicSememeValidatorType
 		{
 			DynamicSememeExternalValidator validator = null;
 			DynamicSememeString[] valNameInfo = null;
-			DynamicSememeArray<DynamicSememeString> stringValidatorDefData = null;
+			DynamicSememeArray<DynamicSememeString> stringValidatorDefData = (DynamicSememeArray<DynamicSememeString>)validatorDefinitionData;
 			String valName = null;
-			if (validatorDefinitionData != null)
-			{
-				stringValidatorDefData = (DynamicSememeArray<DynamicSememeString>)validatorDefinitionData;
-				valNameInfo = stringValidatorDefData.getDataArray();
-			}
+			valNameInfo = stringValidatorDefData.getDataArray();
 			if (valNameInfo != null && valNameInfo.length > 0)
 			{
 				valName = valNameInfo[0].getDataString();
@@ -213,47 +227,34 @@ public enum DynamicSememeValidatorType
 			{
 				throw new RuntimeException("Could not locate an implementation of DynamicSememeExternalValidatorBI with the requested name of '" + valName + "'");
 			}
-			return validator.validate(userData, stringValidatorDefData, sc, tc);
+			final DynamicSememeExternalValidator externalValidator = validator;
+			return (userData, sc, tc) -> externalValidator.validate(userData, stringValidatorDefData, sc, tc);
 		}
 		else if (this == DynamicSememeValidatorType.REGEXP)
 		{
+			Pattern pattern;
 			try
 			{
-				if (userData == null)
-				{
-					return false;
-				}
-				return Pattern.matches(((DynamicSememeString)validatorDefinitionData).getDataString(), userData.getDataObject().toString());
+				pattern = Pattern.compile(((DynamicSememeString)validatorDefinitionData).getDataString());
 			}
 			catch (Exception e)
 			{
 				throw new RuntimeException("The specified validator data object was not a valid regular expression: " + e.getMessage());
 			}
+			return (userData, sc, tc) -> 
+			{
+				if (userData == null)
+				{
+					return false;
+				}
+				return pattern.matcher(userData.getDataObject().toString()).matches();
+			};
 		}
 		else if (this == DynamicSememeValidatorType.IS_CHILD_OF || this == DynamicSememeValidatorType.IS_KIND_OF)
 		{
+			int parentNid;
 			try
 			{
-				int childNid;
-				int parentNid;
-
-				if (userData instanceof DynamicSememeUUID)
-				{
-					childNid = Get.identifierService().getNidForUuids(((DynamicSememeUUID) userData).getDataUUID());
-				}
-				else if (userData instanceof DynamicSememeNid)
-				{
-					childNid = ((DynamicSememeNid) userData).getDataNid();
-				}
-				else if (userData instanceof DynamicSememeSequence)
-				{
-					childNid = ((DynamicSememeSequence) userData).getDataSequence();
-				}
-				else
-				{
-					throw new RuntimeException("Userdata is invalid for a IS_CHILD_OF or IS_KIND_OF comparison");
-				}
-
 				if (validatorDefinitionData instanceof DynamicSememeUUID)
 				{
 					parentNid = Get.identifierService().getNidForUuids(((DynamicSememeUUID) validatorDefinitionData).getDataUUID());
@@ -262,7 +263,7 @@ public enum DynamicSememeValidatorType
 				{
 					parentNid = ((DynamicSememeNid) validatorDefinitionData).getDataNid();
 				}
-				else if (userData instanceof DynamicSememeSequence)
+				else if (validatorDefinitionData instanceof DynamicSememeSequence)
 				{
 					parentNid = ((DynamicSememeSequence) validatorDefinitionData).getDataSequence();
 				}
@@ -270,91 +271,93 @@ public enum DynamicSememeValidatorType
 				{
 					throw new RuntimeException("Validator DefinitionData is invalid for a IS_CHILD_OF or IS_KIND_OF comparison");
 				}
-
-				return (this == DynamicSememeValidatorType.IS_CHILD_OF ? 
-						Get.taxonomyService().isChildOf(childNid, parentNid, tc) : 
-						Get.taxonomyService().isKindOf(childNid, parentNid, tc));
+			}
+			catch (RuntimeException e)
+			{
+				throw e;
 			}
 			catch (Exception e)
 			{
-				logger.log(Level.WARNING, "Failure executing validator", e);
-				throw new RuntimeException("Failure executing validator", e);
+				logger.log(Level.WARNING, "Failure compiling validator", e);
+				throw new RuntimeException("Failure compiling validator", e);
 			}
+			return new TaxonomyValidator(this == DynamicSememeValidatorType.IS_CHILD_OF, parentNid);
 		}
 		else if (this == DynamicSememeValidatorType.COMPONENT_TYPE)
 		{
-			try
+			//Position 0 tells us the ObjectChronologyType.  When the type is Sememe, position 2 tells us the (optional) SememeType of the assemblage restriction
+			DynamicSememeString[] valData = ((DynamicSememeArray<DynamicSememeString>)validatorDefinitionData).getDataArray();
+			
+			ObjectChronologyType expectedCT = ObjectChronologyType.parse(valData[0].getDataString());
+			if (expectedCT == ObjectChronologyType.UNKNOWN_NID)
 			{
-				int nid;
-				if (userData instanceof DynamicSememeUUID)
+				throw new RuntimeException("Couldn't determine validator type from validator data '" + valData + "'");
+			}
+			SememeType st = (expectedCT == ObjectChronologyType.SEMEME && valData.length == 2) ? SememeType.parse(valData[1].getDataString()) : null;
+			
+			return (userData, sc, tc) ->
+			{
+				try
 				{
-					DynamicSememeUUID uuid = (DynamicSememeUUID) userData;
-					if (!Get.identifierService().hasUuid(uuid.getDataUUID()))
+					int nid;
+					if (userData instanceof DynamicSememeUUID)
 					{
-						throw new RuntimeException("The specified UUID can not be found in the database, so the validator cannot execute");
+						DynamicSememeUUID uuid = (DynamicSememeUUID) userData;
+						if (!Get.identifierService().hasUuid(uuid.getDataUUID()))
+						{
+							throw new RuntimeException("The specified UUID can not be found in the database, so the validator cannot execute");
+						}
+						else
+						{
+							nid = Get.identifierService().getNidForUuids(uuid.getDataUUID());
+						}
+					}
+					else if (userData instanceof DynamicSememeNid)
+					{
+						nid = ((DynamicSememeNid) userData).getDataNid();
 					}
 					else
 					{
-						nid = Get.identifierService().getNidForUuids(uuid.getDataUUID());
+						throw new RuntimeException("Userdata is invalid for a COMPONENT_TYPE comparison");
 					}
+					
+					ObjectChronologyType component = Get.identifierService().getChronologyTypeForNid(nid); 
+					if (component != expectedCT)
+					{
+						throw new RuntimeException("The specified component must be of type " + expectedCT.toString() + ", not " + component);
+					}
+					
+					if (st != null)
+					{
+						//they specified a specific sememe type.  Verify.
+						SememeChronology<? extends SememeVersion<?>> sememe = Get.sememeService().getSememe(nid);
+						
+						if (sememe.getSememeType() != st)
+						{
+							throw new RuntimeException("The specified component must be of type " + st.toString() + ", not " + sememe.getSememeType().toString());
+						}
+					}
+					return true;
 				}
-				else if (userData instanceof DynamicSememeNid)
-				{
-					nid = ((DynamicSememeNid) userData).getDataNid();
-				}
-				else
-				{
-					throw new RuntimeException("Userdata is invalid for a COMPONENT_TYPE comparison");
-				}
-				
-				//Position 0 tells us the ObjectChronologyType.  When the type is Sememe, position 2 tells us the (optional) SememeType of the assemblage restriction
-				DynamicSememeString[] valData = ((DynamicSememeArray<DynamicSememeString>)validatorDefinitionData).getDataArray();
-				
-				ObjectChronologyType expectedCT = ObjectChronologyType.parse(valData[0].getDataString());
-				ObjectChronologyType component = Get.identifierService().getChronologyTypeForNid(nid); 
-				
-				if (expectedCT == ObjectChronologyType.UNKNOWN_NID)
-				{
-					throw new RuntimeException("Couldn't determine validator type from validator data '" + valData + "'");
-				}
-				
-				if (component != expectedCT)
+				catch (RuntimeException e)
 				{
-					throw new RuntimeException("The specified component must be of type " + expectedCT.toString() + ", not " + component);
+					throw e;
 				}
-				
-				if (expectedCT == ObjectChronologyType.SEMEME && valData.length == 2)
+				catch (Exception e)
 				{
-					//they specified a specific sememe type.  Verify.
-					SememeType st = SememeType.parse(valData[1].getDataString());
-					SememeChronology<? extends SememeVersion<?>> sememe = Get.sememeService().getSememe(nid);
-					
-					if (sememe.getSememeType() != st)
-					{
-						throw new RuntimeException("The specified component must be of type " + st.toString() + ", not " + sememe.getSememeType().toString());
-					}
+					logger.log(Level.WARNING, "Failure executing validator", e);
+					throw new RuntimeException("Failure executing validator", e);
 				}
-				return true;
-			}
-			catch (RuntimeException e)
-			{
-				throw e;
-			}
-			catch (Exception e)
-			{
-				logger.log(Level.WARNING, "Failure executing validator", e);
-				throw new RuntimeException("Failure executing validator", e);
-			}
+			};
 		}
-		else
+		else if (this == DynamicSememeValidatorType.INTERVAL)
 		{
-			Number userDataNumber = NumericUtils.readNumber(userData);
-			Number validatorDefinitionDataNumber;
-			if (this == DynamicSememeValidatorType.INTERVAL)
+			String s = validatorDefinitionData.getDataObject().toString().trim();
+			Interval interval = new Interval(s);
+			
+			return (userData, sc, tc) ->
 			{
-				String s = validatorDefinitionData.getDataObject().toString().trim();
-				Interval interval = new Interval(s);
-
+				Number userDataNumber = NumericUtils.readNumber(userData);
 				if (interval.getLeft() != null)
 				{
 					int compareLeft = NumericUtils.compare(userDataNumber, interval.getLeft());
@@ -372,13 +375,17 @@ public enum DynamicSememeValidatorType
 					}
 				}
 				return true;
-			}
-			else
+			};
+		}
+		else if (this == LESS_THAN || this == GREATER_THAN || this == GREATER_THAN_OR_EQUAL || this == LESS_THAN_OR_EQUAL)
+		{
+			Number validatorDefinitionDataNumber = NumericUtils.readNumber(validatorDefinitionData);
+			final DynamicSememeValidatorType type = this;
+			
+			return (userData, sc, tc) ->
 			{
-				validatorDefinitionDataNumber = NumericUtils.readNumber(validatorDefinitionData);
-				int compareResult = NumericUtils.compare(userDataNumber, validatorDefinitionDataNumber);
-
-				switch (this)
+				int compareResult = NumericUtils.compare(NumericUtils.readNumber(userData), validatorDefinitionDataNumber);
+				switch (type)
 				{
 					case LESS_THAN:
 						return compareResult < 0;
@@ -391,12 +398,21 @@ public enum DynamicSememeValidatorType
 					default:
 						throw new RuntimeException("oops");
 				}
-			}
+			};
+		}
+		else
+		{
+			//UNKNOWN only carries data - it can be compiled (so that column definitions which use it can be compiled) but it can't be executed
+			return (userData, sc, tc) -> 
+			{
+				throw new RuntimeException("The validator type " + this.name() + " can not be executed");
+			};
 		}
 	}
 	
+	
 	/**
-	 * A convenience wrapper of {@link #passesValidator(DynamicSememeDataBI, DynamicSememeDataBI, ViewCoordinate)} that just returns a string - never
+	 * A convenience wrapper of {@link #passesValidator(DynamicSememeData, DynamicSememeData, StampCoordinate, TaxonomyCoordinate)} that just returns a string - never
 	 * throws an error
 	 * 
 	 * These are all defined from the perspective of the userData - so for passesValidator to return true -
@@ -426,4 +442,74 @@ public enum DynamicSememeValidatorType
 			return e.getMessage();
 		}
 	}
+	
+	/**
+	 * The compiled form of {@link DynamicSememeValidatorType#IS_CHILD_OF} and {@link DynamicSememeValidatorType#IS_KIND_OF}.
+	 * The parent is resolved at compile time, and the taxonomy snapshot for the most recently used {@link TaxonomyCoordinate}
+	 * is retained, so that repeated checks against the same coordinate don't need to rebuild the snapshot.
+	 */
+	private static class TaxonomyValidator implements DynamicSememeValidator
+	{
+		private final boolean childOf_;
+		private final int parentNid_;
+		private volatile TaxonomySnapshot snapshot_;
+		
+		private TaxonomyValidator(boolean childOf, int parentNid)
+		{
+			childOf_ = childOf;
+			parentNid_ = parentNid;
+		}
+		
+		@Override
+		public boolean passes(DynamicSememeData userData, StampCoordinate sc, TaxonomyCoordinate tc)
+		{
+			try
+			{
+				int childNid;
+				
+				if (userData instanceof DynamicSememeUUID)
+				{
+					childNid = Get.identifierService().getNidForUuids(((DynamicSememeUUID) userData).getDataUUID());
+				}
+				else if (userData instanceof DynamicSememeNid)
+				{
+					childNid = ((DynamicSememeNid) userData).getDataNid();
+				}
+				else if (userData instanceof DynamicSememeSequence)
+				{
+					childNid = ((DynamicSememeSequence) userData).getDataSequence();
+				}
+				else
+				{
+					throw new RuntimeException("Userdata is invalid for a IS_CHILD_OF or IS_KIND_OF comparison");
+				}
+				
+				TaxonomySnapshot snapshot = snapshot_;
+				if (snapshot == null || snapshot.coordinate != tc)
+				{
+					snapshot = new TaxonomySnapshot(tc, Get.taxonomyService().getSnapshot(tc));
+					snapshot_ = snapshot;
+				}
+				
+				return childOf_ ? snapshot.service.isChildOf(childNid, parentNid_) : snapshot.service.isKindOf(childNid, parentNid_);
+			}
+			catch (Exception e)
+			{
+				logger.log(Level.WARNING, "Failure executing validator", e);
+				throw new RuntimeException("Failure executing validator", e);
+			}
+		}
+	}
+	
+	private static class TaxonomySnapshot
+	{
+		private final TaxonomyCoordinate coordinate;
+		private final TaxonomySnapshotService service;
+		
+		private TaxonomySnapshot(TaxonomyCoordinate coordinate, TaxonomySnapshotService service)
+		{
+			this.coordinate = coordinate;
+			this.service = service;
+		}
+	}
 }
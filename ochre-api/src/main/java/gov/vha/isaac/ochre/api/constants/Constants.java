@@ -65,5 +65,30 @@ public class Constants
 	 * This typically turns on and off things that were hacked in with System.Out calls for tracing ugly problems....
 	 */
 	public static final String ISAAC_DEBUG = "gov.vha.isaac.ochre.api.constants.isaac-debug";
-	
+
+	/**
+	 * May be optionally used to select the initial {@link gov.vha.isaac.ochre.api.memory.MemoryConfigurations}
+	 * by name, for example IMPORT, CLASSIFY or SERVE.  Defaults to SERVE.
+	 */
+	public static final String MEMORY_CONFIGURATION_PROPERTY = "gov.vha.isaac.ochre.api.constants.memory-configuration";
+
+	/**
+	 * May be optionally used to specify the byte budget for segments held in memory.  If this is specified, the
+	 * budget of the {@link gov.vha.isaac.ochre.api.memory.MemoryConfigurations} is ignored.
+	 */
+	public static final String MEMORY_CACHE_BUDGET_PROPERTY = "gov.vha.isaac.ochre.api.constants.memory-cache-budget";
+
+	/**
+	 * May be optionally used to specify, in milliseconds, how long a task added to the 
+	 * {@link gov.vha.isaac.ochre.api.progress.ActiveTasks} must run before it is registered in the active task set.
+	 * Tasks that finish sooner are never registered.  Defaults to 0, which registers tasks when they are added.
+	 */
+	public static final String TASK_REGISTRATION_THRESHOLD_PROPERTY = "gov.vha.isaac.ochre.api.constants.task-registration-threshold";
+
+	/**
+	 * May be optionally used to specify the most candidate solutions tried for each depth of the tree when
+	 * comparing two logical expressions, before the search settles for the solutions found so far.  Defaults to 100000.
+	 */
+	public static final String ISOMORPHIC_CANDIDATE_LIMIT_PROPERTY = "gov.vha.isaac.ochre.api.constants.isomorphic-candidate-limit";
+
 }
@@ -15,6 +15,8 @@
  */
 package gov.vha.isaac.ochre.api.externalizable;
 
+import java.util.stream.Stream;
+
 /**
  *
  * @author kec
@@ -22,6 +24,15 @@ package gov.vha.isaac.ochre.api.externalizable;
 public interface BinaryDataWriterService extends AutoCloseable {
     
     void put(OchreExternalizable ochreObject);
+
+    /**
+     * Write each object of the stream, in the order of the stream. Writers
+     * may serialize the objects in parallel.
+     * @param ochreObjects the objects to write
+     */
+    default void putAll(Stream<? extends OchreExternalizable> ochreObjects) {
+        ochreObjects.forEachOrdered((ochreObject) -> put(ochreObject));
+    }
     
     @Override
     public void close();
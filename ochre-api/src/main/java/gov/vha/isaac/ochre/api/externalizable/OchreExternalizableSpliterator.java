@@ -1,8 +1,10 @@
 package gov.vha.isaac.ochre.api.externalizable;
 
 import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -14,6 +16,8 @@ import java.util.stream.Stream;
 public class OchreExternalizableSpliterator implements Spliterator<OchreExternalizable> {
 
     List<Stream<? extends OchreExternalizable>> streams = new ArrayList<>();
+    int streamIndex = 0;
+    Iterator<? extends OchreExternalizable> iterator;
 
     public OchreExternalizableSpliterator() {
         streams.add(Get.conceptService().getConceptChronologyStream());
@@ -22,15 +26,53 @@ public class OchreExternalizableSpliterator implements Spliterator<OchreExternal
         streams.add(Get.commitService().getStampCommentStream());
     }
 
+    /**
+     * Only the concepts and sememes with a version after the position, and
+     * the aliases and comments of stamps after the position.
+     * @param changedAfter the position to compare against
+     */
+    public OchreExternalizableSpliterator(StampPosition changedAfter) {
+        streams.add(Get.conceptService().getConceptSequencesModifiedAfterPosition(changedAfter).stream()
+                .mapToObj((conceptSequence) -> Get.conceptService().getConcept(conceptSequence)));
+        streams.add(Get.sememeService().getSememeSequencesModifiedAfterPosition(changedAfter).stream()
+                .mapToObj((sememeSequence) -> Get.sememeService().getSememe(sememeSequence)));
+        streams.add(Get.commitService().getStampAliasStream()
+                .filter((stampAlias) -> isAfter(stampAlias.getStampSequence(), changedAfter)
+                        || isAfter(stampAlias.getStampAlias(), changedAfter)));
+        streams.add(Get.commitService().getStampCommentStream()
+                .filter((stampComment) -> isAfter(stampComment.getStampSequence(), changedAfter)));
+    }
+
+    private static boolean isAfter(int stampSequence, StampPosition position) {
+        return Get.stampService().getTimeForStamp(stampSequence) > position.getTime()
+                && Get.stampService().getPathSequenceForStamp(stampSequence) == position.getStampPathSequence();
+    }
+
     @Override
     public boolean tryAdvance(Consumer<? super OchreExternalizable> action) {
-        throw new UnsupportedOperationException();
+        while (true) {
+            if (iterator == null) {
+                if (streamIndex == streams.size()) {
+                    return false;
+                }
+                iterator = streams.get(streamIndex++).iterator();
+            }
+            if (iterator.hasNext()) {
+                action.accept(iterator.next());
+                return true;
+            }
+            iterator = null;
+        }
     }
 
     @Override
     public void forEachRemaining(Consumer<? super OchreExternalizable> action) {
-        for (Stream<? extends OchreExternalizable> stream: streams) {
-            stream.forEach(action);
+        if (iterator != null) {
+            iterator.forEachRemaining(action);
+            iterator = null;
+        }
+        while (streamIndex < streams.size()) {
+            streams.get(streamIndex++).forEach(action);
         }
     }
 
@@ -70,13 +70,17 @@ public interface LogicalExpression {
 
     /**
      * Present the consumer the nodes of this expression in a depth-first manner, 
-     * starting with the root node. 
+     * starting with the root node. The visit data given to the consumer is
+     * pooled, and reused by later traversals, so it must not be kept after
+     * this method returns.
      * @param consumer the consumer of the nodes. 
      */
     void processDepthFirst(BiConsumer<LogicNode, TreeNodeVisitData> consumer);
     
     /**
      * Process the fragment starting at fragmentRoot in a depth first manner. 
+     * As for {@link #processDepthFirst(BiConsumer)}, the visit data must not
+     * be kept after this method returns.
      * @param fragmentRoot
      * @param consumer 
      */
@@ -1,51 +1,200 @@
 package gov.vha.isaac.ochre.api.memory;
 
+import gov.vha.isaac.ochre.api.constants.Constants;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
+ * Holds segments in memory within a byte budget, as a segmented LRU. A
+ * segment enters the probationary part of the cache when loaded, and is
+ * protected once it has been accessed again. When the estimated size of the
+ * held segments exceeds the budget, the least recently used probationary
+ * segments are released first, and the protected part is limited to
+ * {@link #PROTECTED_FRACTION} of the budget by demoting its least recently used
+ * segments.
+ *
+ * A released segment is only softly reachable from its
+ * {@link MemoryManagedReference}, and is read from disk again if it has been
+ * reclaimed when next needed. Segments with unwritten updates stay in memory until
+ * written, regardless of the budget.
+ *
  * Created by kec on 4/10/15.
  */
 public class HoldInMemoryCache {
 
-    private static final int CACHE_SIZE = 512;
-    private static final int GENERATIONS = 3;
-    private static final LinkedBlockingDeque<Set<MemoryManagedReference>> queue = new LinkedBlockingDeque();
+    private static final Logger LOG = LogManager.getLogger();
 
-    private static final AtomicReference<Set<MemoryManagedReference>> cacheRef = new AtomicReference<>(new ConcurrentSkipListSet<>());
-    private static final AtomicInteger cacheCount = new AtomicInteger();
+    /**
+     * Fraction of the budget that may be used by protected segments.
+     */
+    public static final double PROTECTED_FRACTION = 0.8;
 
-    public static void addToCache(MemoryManagedReference newRef) {
+    /**
+     * Fraction of the budget to release down to when the budget is exceeded,
+     * so that releasing segments is not repeated for each load.
+     */
+    private static final double RELEASE_TO_FRACTION = 0.9;
+
+    private static final Set<MemoryManagedReference> cache = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong residentBytes = new AtomicLong();
+    private static final ReentrantLock evictionLock = new ReentrantLock();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder loadTimeNanos = new LongAdder();
+
+    private static volatile MemoryConfigurations configuration;
+    private static volatile long budget;
+
+    static {
+        String configurationName = System.getProperty(Constants.MEMORY_CONFIGURATION_PROPERTY);
+        configuration = configurationName == null ? MemoryConfigurations.SERVE
+                : MemoryConfigurations.valueOf(configurationName.trim().toUpperCase());
+        String budgetString = System.getProperty(Constants.MEMORY_CACHE_BUDGET_PROPERTY);
+        budget = budgetString == null ? configuration.getCacheBudget() : Long.parseLong(budgetString.trim());
+    }
 
-        Set<MemoryManagedReference> cache = cacheRef.get();
-        if (!cache.contains(newRef)) {
-            newRef.cacheEntry();
+    /**
+     * Record an access to a segment, and hold the segment in memory if it is
+     * not already held. Call each time the segment is used.
+     * @param newRef the reference to the segment
+     */
+    public static void addToCache(MemoryManagedReference newRef) {
+        if (newRef.isCached()) {
+            hits.increment();
+            newRef.cacheAccess();
+            return;
+        }
+        if (newRef.cacheEntry()) {
             cache.add(newRef);
-            int count = cacheCount.incrementAndGet();
-            if (count > CACHE_SIZE) {
-                if (cacheRef.compareAndSet(cache, new ConcurrentSkipListSet<>())) {
-                    queue.addFirst(cache);
-                    while (queue.size() > GENERATIONS) {
-                        Set<MemoryManagedReference> oldCache = queue.removeLast();
-                        oldCache.stream().forEach(memoryManagedReference -> {
-                            memoryManagedReference.cacheExit();
-                        });
-                    }
-                }
+            if (residentBytes.addAndGet(newRef.getEstimatedSize()) > budget) {
+                releaseOverBudget();
             }
+        } else {
+            // entered concurrently by another thread.
+            newRef.cacheExit();
+            newRef.cacheAccess();
         }
+    }
 
+    /**
+     * Record the time taken to read a segment from disk.
+     * @param nanos elapsed time of the read
+     */
+    public static void recordLoad(long nanos) {
+        misses.increment();
+        loadTimeNanos.add(nanos);
+    }
+
+    static void residentSizeChanged(long delta) {
+        if (residentBytes.addAndGet(delta) > budget && delta > 0) {
+            releaseOverBudget();
+        }
     }
 
     public static void clearCache() {
-        queue.stream().forEach((Set<MemoryManagedReference> referenceSet)-> {
-            referenceSet.stream().forEach((MemoryManagedReference ref) -> {
-                ref.cacheExit();
-                referenceSet.remove(ref);
-            });
-        }); 
+        cache.forEach((ref) -> release(ref));
+    }
+
+    public static MemoryConfigurations getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Set the configuration, and the budget to the budget of the configuration.
+     * @param configuration the new configuration
+     */
+    public static void setConfiguration(MemoryConfigurations configuration) {
+        HoldInMemoryCache.configuration = configuration;
+        setBudget(configuration.getCacheBudget());
+    }
+
+    public static long getBudget() {
+        return budget;
+    }
+
+    public static void setBudget(long budget) {
+        HoldInMemoryCache.budget = budget;
+        LOG.info("Segment cache budget: {} MB for {}", budget >> 20, configuration);
+        if (residentBytes.get() > budget) {
+            releaseOverBudget();
+        }
+    }
+
+    public static MemoryCacheStatistics getStatistics() {
+        return new MemoryCacheStatistics(configuration, budget, residentBytes.get(), cache.size(),
+                hits.sum(), misses.sum(), evictions.sum(), loadTimeNanos.sum());
+    }
+
+    private static void release(MemoryManagedReference ref) {
+        if (cache.remove(ref)) {
+            residentBytes.addAndGet(-ref.getEstimatedSize());
+            ref.cacheExit();
+            evictions.increment();
+        }
+    }
+
+    private static void releaseOverBudget() {
+        if (!evictionLock.tryLock()) {
+            // another thread is already releasing segments.
+            return;
+        }
+        try {
+            long total = 0;
+            long protectedBytes = 0;
+            List<MemoryManagedReference> probation = new ArrayList<>();
+            List<MemoryManagedReference> protectedRefs = new ArrayList<>();
+            for (MemoryManagedReference ref : cache) {
+                long size = ref.getEstimatedSize();
+                total += size;
+                if (ref.getCacheAccessCount() > 0) {
+                    protectedRefs.add(ref);
+                    protectedBytes += size;
+                } else {
+                    probation.add(ref);
+                }
+            }
+            // correct any drift from concurrent size changes.
+            residentBytes.set(total);
+            long target = (long) (budget * RELEASE_TO_FRACTION);
+            if (total <= target) {
+                return;
+            }
+            Comparator<MemoryManagedReference> leastRecentlyUsed
+                    = (r1, r2) -> Long.compare(r1.getLastCacheAccess(), r2.getLastCacheAccess());
+            protectedRefs.sort(leastRecentlyUsed);
+            long protectedLimit = (long) (budget * PROTECTED_FRACTION);
+            int demoted = 0;
+            while (protectedBytes > protectedLimit && demoted < protectedRefs.size()) {
+                MemoryManagedReference ref = protectedRefs.get(demoted++);
+                ref.resetCacheAccessCount();
+                protectedBytes -= ref.getEstimatedSize();
+                probation.add(ref);
+            }
+            probation.sort(leastRecentlyUsed);
+            for (MemoryManagedReference ref : probation) {
+                if (residentBytes.get() <= target) {
+                    return;
+                }
+                release(ref);
+            }
+            for (int i = demoted; i < protectedRefs.size(); i++) {
+                if (residentBytes.get() <= target) {
+                    return;
+                }
+                release(protectedRefs.get(i));
+            }
+        } finally {
+            evictionLock.unlock();
+        }
     }
 }
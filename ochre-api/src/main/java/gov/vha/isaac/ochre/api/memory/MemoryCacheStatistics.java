@@ -0,0 +1,96 @@
+package gov.vha.isaac.ochre.api.memory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the {@link HoldInMemoryCache} statistics.
+ */
+public class MemoryCacheStatistics {
+
+    private final MemoryConfigurations configuration;
+    private final long budget;
+    private final long residentBytes;
+    private final int residentSegments;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long loadTimeNanos;
+
+    public MemoryCacheStatistics(MemoryConfigurations configuration, long budget, long residentBytes,
+            int residentSegments, long hits, long misses, long evictions, long loadTimeNanos) {
+        this.configuration = configuration;
+        this.budget = budget;
+        this.residentBytes = residentBytes;
+        this.residentSegments = residentSegments;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.loadTimeNanos = loadTimeNanos;
+    }
+
+    public MemoryConfigurations getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the byte budget for segments held in memory.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return the estimated size of the segments held in memory.
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public int getResidentSegments() {
+        return residentSegments;
+    }
+
+    /**
+     * @return accesses to segments that were held in memory.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return segments read from disk.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return segments released to stay within the budget.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return total time spent reading segments from disk.
+     */
+    public long getLoadTimeNanos() {
+        return loadTimeNanos;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryCacheStatistics{" + configuration
+                + ", resident: " + (residentBytes >> 20) + "/" + (budget >> 20) + " MB in " + residentSegments + " segments"
+                + ", hits: " + hits
+                + ", misses: " + misses
+                + ", hit rate: " + String.format("%.3f", getHitRate())
+                + ", evictions: " + evictions
+                + ", load time: " + TimeUnit.NANOSECONDS.toMillis(loadTimeNanos) + " ms}";
+    }
+}
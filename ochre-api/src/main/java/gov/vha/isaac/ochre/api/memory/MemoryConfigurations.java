@@ -16,10 +16,50 @@
 package gov.vha.isaac.ochre.api.memory;
 
 /**
+ * Named memory profiles. Each profile sets the byte budget of the
+ * {@link HoldInMemoryCache} as a fraction of the maximum heap, unless the
+ * budget is set explicitly by the
+ * {@link gov.vha.isaac.ochre.api.constants.Constants#MEMORY_CACHE_BUDGET_PROPERTY}
+ * system property, or {@link MemoryManagementService#setCacheBudget(long)}.
  *
  * @author kec
  */
 public enum MemoryConfigurations {
-    IMPORT, CLASSIFY;
-    
+    /**
+     * Bulk loading. Most heap is left for the objects being imported, and
+     * for segments with unwritten updates, which stay in memory until written
+     * regardless of the budget.
+     */
+    IMPORT(0.25),
+    /**
+     * Classification. The classifier holds its own copy of the definitions,
+     * so the segment cache is kept small.
+     */
+    CLASSIFY(0.15),
+    /**
+     * Read mostly use, such as a terminology server or editor. The default.
+     */
+    SERVE(0.5);
+
+    private final double heapFraction;
+
+    private MemoryConfigurations(double heapFraction) {
+        this.heapFraction = heapFraction;
+    }
+
+    /**
+     * @return the fraction of the maximum heap that may be used to hold
+     * segments in memory.
+     */
+    public double getHeapFraction() {
+        return heapFraction;
+    }
+
+    /**
+     * @return the cache budget in bytes for this configuration, given the
+     * maximum heap of this JVM.
+     */
+    public long getCacheBudget() {
+        return (long) (Runtime.getRuntime().maxMemory() * heapFraction);
+    }
 }
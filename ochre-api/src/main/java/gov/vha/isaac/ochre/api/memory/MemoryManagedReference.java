@@ -6,7 +6,9 @@ import java.io.*;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import gov.vha.isaac.ochre.api.DataSerializer;
@@ -37,6 +39,27 @@ public class MemoryManagedReference<T extends Object> extends SoftReference<T> i
     private final LongAdder hits = new LongAdder();
     private final AtomicInteger cacheCount = new AtomicInteger();
 
+    /**
+     * Estimated heap used by the referent, maintained by the owner of the
+     * reference, and used by the {@link HoldInMemoryCache} byte budget.
+     */
+    private final AtomicLong estimatedSize = new AtomicLong();
+    /**
+     * Time of the last access while in the {@link HoldInMemoryCache}.
+     */
+    private volatile long lastCacheAccess;
+    /**
+     * Accesses since entering the {@link HoldInMemoryCache}, or since the
+     * last demotion from the protected part of the cache.
+     */
+    private volatile int cacheAccessCount;
+
+    /**
+     * True while the reference is in the {@link WriteToDiskCache} write queue.
+     */
+    private final AtomicBoolean queuedForWrite = new AtomicBoolean();
+    private volatile long queuedForWriteTime;
+
     private final File diskLocation;
     private final DataSerializer<T> serializer;
 
@@ -57,6 +80,7 @@ public class MemoryManagedReference<T extends Object> extends SoftReference<T> i
         this.strongReferenceForUpdate.set(this.get());
         lastElementUpdateSequence = referenceSequenceSupplier.getAndIncrement();
         lastElementUpdateTime = System.currentTimeMillis();
+        WriteToDiskCache.addToCache(this);
     }
 
     public void elementRead() {
@@ -68,33 +92,108 @@ public class MemoryManagedReference<T extends Object> extends SoftReference<T> i
         return Duration.ofMillis(System.currentTimeMillis() - lastElementReadTime);
     }
 
-    public void cacheEntry() {
+    /**
+     * Hold the referent in memory, until a matching {@link #cacheExit()}.
+     * @return true if the referent was not already held.
+     */
+    public boolean cacheEntry() {
         int count = cacheCount.incrementAndGet();
         if (count == 1) {
             strongReferenceForCache.set(this.get());
+            cacheAccessCount = 0;
+            lastCacheAccess = System.nanoTime();
+            return true;
         }
+        return false;
     }
 
-    public void cacheExit() {
+    /**
+     * Release a hold from {@link #cacheEntry()}. Once no holds remain, the
+     * referent is only softly reachable.
+     * @return true if no holds remain.
+     */
+    public boolean cacheExit() {
         int count = cacheCount.decrementAndGet();
         if (count == 0) {
             strongReferenceForCache.set(null);
+            return true;
         }
+        return false;
     }
 
-    public void write() {
-        T objectToWrite = strongReferenceForUpdate.get();
+    public boolean isCached() {
+        return cacheCount.get() > 0;
+    }
+
+    void cacheAccess() {
+        cacheAccessCount++;
+        lastCacheAccess = System.nanoTime();
+    }
+
+    int getCacheAccessCount() {
+        return cacheAccessCount;
+    }
+
+    void resetCacheAccessCount() {
+        cacheAccessCount = 0;
+    }
+
+    long getLastCacheAccess() {
+        return lastCacheAccess;
+    }
+
+    public long getEstimatedSize() {
+        return estimatedSize.get();
+    }
+
+    /**
+     * Set the estimated heap used by the referent.
+     * @param size estimated size in bytes
+     */
+    public void setEstimatedSize(long size) {
+        addToEstimatedSize(size - estimatedSize.get());
+    }
+
+    /**
+     * Adjust the estimated heap used by the referent, for example after
+     * replacing an element of a segment.
+     * @param delta change in estimated size in bytes
+     */
+    public void addToEstimatedSize(long delta) {
+        if (delta != 0) {
+            estimatedSize.addAndGet(delta);
+            if (isCached()) {
+                HoldInMemoryCache.residentSizeChanged(delta);
+            }
+        }
+    }
+
+    /**
+     * @return true if the reference was not already queued for write.
+     */
+    boolean queueForWrite() {
+        if (queuedForWrite.compareAndSet(false, true)) {
+            queuedForWriteTime = System.currentTimeMillis();
+            return true;
+        }
+        return false;
+    }
+
+    long msSinceQueuedForWrite() {
+        return System.currentTimeMillis() - queuedForWriteTime;
+    }
+
+    public synchronized void write() {
+        // updates after this point queue the reference again.
+        queuedForWrite.set(false);
+        T objectToWrite = strongReferenceForUpdate.getAndSet(null);
         if (objectToWrite != null) {
-            strongReferenceForUpdate.set(null);
             DiskSemaphore.acquire();
             lastWriteToDiskSequence = referenceSequenceSupplier.getAndIncrement();
             lastWriteToDiskTime = System.currentTimeMillis();
             diskLocation.getParentFile().mkdirs();
-            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(diskLocation)))) {
-                serializer.serialize(out, objectToWrite);
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException(e);
+            try {
+                writeToDisk(objectToWrite);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             } finally {
@@ -103,6 +202,27 @@ public class MemoryManagedReference<T extends Object> extends SoftReference<T> i
         }
     }
 
+    /**
+     * Write the referent to the disk location. Writes the whole referent
+     * with the serializer; override to write only what has changed.
+     * @param objectToWrite the referent
+     * @throws IOException
+     */
+    protected void writeToDisk(T objectToWrite) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(diskLocation)))) {
+            serializer.serialize(out, objectToWrite);
+        }
+    }
+
+    public File getDiskLocation() {
+        return diskLocation;
+    }
+
+    protected DataSerializer<T> getSerializer() {
+        return serializer;
+    }
+
     public boolean hasUnwrittenUpdate() {
         return lastWriteToDiskSequence < lastElementUpdateSequence;
     }
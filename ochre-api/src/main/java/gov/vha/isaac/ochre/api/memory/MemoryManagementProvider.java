@@ -29,6 +29,7 @@ public class MemoryManagementProvider implements MemoryManagementService {
     @Override
     public void setMemoryConfiguration(MemoryConfigurations memoryConfiguration) {
         System.out.println("Setting memory configuration to: " + memoryConfiguration);
+        HoldInMemoryCache.setConfiguration(memoryConfiguration);
         switch (memoryConfiguration) {
             case CLASSIFY:
                 // reclaim as much memory as possible...
@@ -36,8 +37,29 @@ public class MemoryManagementProvider implements MemoryManagementService {
                 WriteToDiskCache.flushAndClearCache();
                 break;
             case IMPORT:
+            case SERVE:
                 default:
         }
     }
+
+    @Override
+    public MemoryConfigurations getMemoryConfiguration() {
+        return HoldInMemoryCache.getConfiguration();
+    }
+
+    @Override
+    public void setCacheBudget(long bytes) {
+        HoldInMemoryCache.setBudget(bytes);
+    }
+
+    @Override
+    public long getCacheBudget() {
+        return HoldInMemoryCache.getBudget();
+    }
+
+    @Override
+    public MemoryCacheStatistics getCacheStatistics() {
+        return HoldInMemoryCache.getStatistics();
+    }
     
 }
@@ -24,5 +24,26 @@ import org.jvnet.hk2.annotations.Contract;
  */
 @Contract
 public interface MemoryManagementService {
+    /**
+     * Select a memory profile, which sets the byte budget for segments held
+     * in memory.
+     * @param memoryConfiguration the profile to use
+     */
     void setMemoryConfiguration(MemoryConfigurations memoryConfiguration);
+
+    MemoryConfigurations getMemoryConfiguration();
+
+    /**
+     * Override the byte budget of the current memory configuration.
+     * @param bytes the estimated heap that segments held in memory may use
+     */
+    void setCacheBudget(long bytes);
+
+    long getCacheBudget();
+
+    /**
+     * @return hit, miss, eviction and load time statistics for segments held
+     * in memory.
+     */
+    MemoryCacheStatistics getCacheStatistics();
 }
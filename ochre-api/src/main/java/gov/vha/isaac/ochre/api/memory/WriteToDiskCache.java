@@ -1,18 +1,26 @@
 package gov.vha.isaac.ochre.api.memory;
 
-import java.util.Optional;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
+ * Writes references with unwritten updates to disk, no later than
+ * {@link #WRITE_INTERVAL_IN_MS} after they were first updated. References
+ * are queued in the order they become dirty, so the writer only visits
+ * references that need to be written.
+ *
  * Created by kec on 4/10/15.
  */
 public class WriteToDiskCache {
 
+    private static final Logger LOG = LogManager.getLogger();
+
     private static final int WRITE_INTERVAL_IN_MS = 15000;
 
     static final Thread writerThread;
 
-    static ConcurrentSkipListSet<MemoryManagedReference> cacheSet = new ConcurrentSkipListSet<>();
+    static final LinkedBlockingQueue<MemoryManagedReference> writeQueue = new LinkedBlockingQueue<>();
 
     static {
         writerThread = new Thread(new WriteToDiskRunnable(), "WriteToDiskCache thread");
@@ -24,55 +32,53 @@ public class WriteToDiskCache {
         @Override
         public void run() {
             while (true) {
-                Optional<MemoryManagedReference> optionalReference = cacheSet.stream().
-                        filter((memoryManagedReference) -> {
-                            if (memoryManagedReference.get() == null) {
-                                cacheSet.remove(memoryManagedReference);
-                                return false;
-                            }
-
-                            return memoryManagedReference.hasUnwrittenUpdate();
-                        }).max((o1, o2) -> {
-                            if (o1.msSinceLastUnwrittenUpdate() > o2.msSinceLastUnwrittenUpdate()) {
-                                return 1;
-                            }
-                            if (o1.msSinceLastUnwrittenUpdate() < o2.msSinceLastUnwrittenUpdate()) {
-                                return -1;
-                            }
-                            return 0;
-                        });
-                boolean written = false;
-                if (optionalReference.isPresent()) {
-                    written = true;
-                    MemoryManagedReference ref = (MemoryManagedReference) optionalReference.get();
-                    if (ref.msSinceLastUnwrittenUpdate() > WRITE_INTERVAL_IN_MS) {
+                try {
+                    MemoryManagedReference ref = writeQueue.peek();
+                    // the queue is in order of time queued, so nothing else
+                    // is due before the head of the queue.
+                    long msToWait = ref == null ? WRITE_INTERVAL_IN_MS
+                            : WRITE_INTERVAL_IN_MS - ref.msSinceQueuedForWrite();
+                    if (msToWait > 0) {
+                        Thread.sleep(msToWait);
+                    } else if (writeQueue.remove(ref)) {
                         ref.write();
                     }
-                }
-                if (!written) {
-                    try {
-                        writerThread.wait(WRITE_INTERVAL_IN_MS);
-                    } catch (InterruptedException e) {
-                        // continue work
-                    }
+                } catch (InterruptedException e) {
+                    // continue work
+                } catch (RuntimeException e) {
+                    LOG.error("Error writing to disk", e);
                 }
             }
         }
     }
 
+    /**
+     * Queue a reference to be written, if it is not already queued. Called
+     * when the reference is updated.
+     * @param newRef the reference with unwritten updates
+     */
     public static void addToCache(MemoryManagedReference newRef) {
-        cacheSet.add(newRef);
+        if (newRef.queueForWrite()) {
+            writeQueue.add(newRef);
+            if (!writerThread.isAlive()) {
+                startWriter();
+            }
+        }
+    }
+
+    private static synchronized void startWriter() {
+        if (writerThread.getState() == Thread.State.NEW) {
+            writerThread.start();
+        }
     }
 
     public static void flushAndClearCache() {
-        cacheSet.stream().
-                forEach((memoryManagedReference) -> {
-                    
-                    cacheSet.remove(memoryManagedReference);
-                    while (memoryManagedReference.hasUnwrittenUpdate()) {
-                        memoryManagedReference.clear();
-                        memoryManagedReference.write();
-                    }
-                });
+        MemoryManagedReference memoryManagedReference;
+        while ((memoryManagedReference = writeQueue.poll()) != null) {
+            do {
+                memoryManagedReference.write();
+            } while (memoryManagedReference.hasUnwrittenUpdate());
+            memoryManagedReference.clear();
+        }
     }
 }
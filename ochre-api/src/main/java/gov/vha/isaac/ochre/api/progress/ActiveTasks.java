@@ -15,17 +15,52 @@
  */
 package gov.vha.isaac.ochre.api.progress;
 
+import java.util.List;
 import java.util.Set;
 import javafx.concurrent.Task;
 import org.jvnet.hk2.annotations.Contract;
 
 /**
+ * Tracks the work in progress. Long running tasks are added as
+ * {@link Task} objects, so their progress can be shown. Short, high volume
+ * work, such as writing a single chronology, is only counted by category
+ * with {@link #begin(String)} and {@link #end(String, long)}, so tracking it
+ * costs the same however many are in flight.
  *
  * @author kec
  */
 @Contract
 public interface ActiveTasks {
+
+    /**
+     * @return the registered tasks. A task added with {@link #add(Task)} is
+     * only registered once it has run for the threshold given by
+     * {@link gov.vha.isaac.ochre.api.constants.Constants#TASK_REGISTRATION_THRESHOLD_PROPERTY}.
+     */
     Set<Task<?>> get();
+
     void add(Task<?> task);
+
     void remove(Task<?> task);
+
+    /**
+     * Count the start of a unit of work of a category, without registering
+     * a task for it.
+     * @param category the category of the work
+     * @return the start time, to pass to {@link #end(String, long)}
+     */
+    long begin(String category);
+
+    /**
+     * Count the end of a unit of work started with {@link #begin(String)}.
+     * @param category the category of the work
+     * @param startTime the value returned by {@link #begin(String)}
+     */
+    void end(String category, long startTime);
+
+    /**
+     * @return the counts and latencies of each category of work counted
+     * with {@link #begin(String)}, in category order.
+     */
+    List<TaskCategoryStatistics> getCategoryStatistics();
 }
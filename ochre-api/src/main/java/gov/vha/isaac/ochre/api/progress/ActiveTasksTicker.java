@@ -7,7 +7,9 @@ import javafx.concurrent.Task;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by kec on 4/9/15.
@@ -17,12 +19,23 @@ public class ActiveTasksTicker {
 
     private static final Ticker ticker = new Ticker();
 
+    /**
+     * The completed count of each category at the last tick, so idle categories are not logged.
+     */
+    private static final Map<String, Long> lastCompleted = new ConcurrentHashMap<>();
+
     public static void stop() {
         ticker.stop();
     }
 
     public static void start(int intervalInSeconds) {
         ticker.start(intervalInSeconds, (tick) -> {
+            Get.activeTasks().getCategoryStatistics().forEach((statistics) -> {
+                Long previous = lastCompleted.put(statistics.getCategory(), statistics.getCompleted());
+                if (statistics.getInFlight() > 0 || previous == null || previous != statistics.getCompleted()) {
+                    log.info(statistics);
+                }
+            });
             Set<Task<?>> taskSet = Get.activeTasks().get();
             taskSet.stream().forEach((task) -> {
                 double percentProgress = task.getProgress() * 100;
@@ -0,0 +1,66 @@
+package gov.vha.isaac.ochre.api.progress;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The counts and latencies of a category of work counted by
+ * {@link ActiveTasks}, at the time they were read.
+ */
+public class TaskCategoryStatistics {
+
+    private final String category;
+    private final long inFlight;
+    private final long completed;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+
+    public TaskCategoryStatistics(String category, long inFlight, long completed,
+            long totalLatencyNanos, long maxLatencyNanos) {
+        this.category = category;
+        this.inFlight = inFlight;
+        this.completed = completed;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the work that has begun and not ended.
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @param unit
+     * @return the mean time from begin to end of the completed work, or 0 if
+     * none has completed.
+     */
+    public long getMeanLatency(TimeUnit unit) {
+        if (completed == 0) {
+            return 0;
+        }
+        return unit.convert(totalLatencyNanos / completed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit
+     * @return the longest time from begin to end of the completed work.
+     */
+    public long getMaxLatency(TimeUnit unit) {
+        return unit.convert(maxLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return category + ": " + inFlight + " in flight, " + completed + " completed, mean "
+                + getMeanLatency(TimeUnit.MICROSECONDS) + " us, max " + getMaxLatency(TimeUnit.MICROSECONDS) + " us";
+    }
+}
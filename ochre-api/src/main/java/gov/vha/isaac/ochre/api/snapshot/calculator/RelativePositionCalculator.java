@@ -20,6 +20,7 @@ import gov.vha.isaac.ochre.api.OchreCache;
 import gov.vha.isaac.ochre.api.State;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronology;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.commit.StampService;
 import gov.vha.isaac.ochre.api.identity.StampedVersion;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampPosition;
@@ -30,11 +31,13 @@ import gov.vha.isaac.ochre.api.collections.StampSequenceSet;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.BiConsumer;
 import java.util.function.ObjIntConsumer;
 import java.util.stream.IntStream;
@@ -76,20 +79,83 @@ public class RelativePositionCalculator implements OchreCache {
 		return calculator;
 	}
 	StampCoordinate coordinate;
+	/**
+	 * The source of the time, state, path and module of each stamp.
+	 */
+	StampService stampService;
 	/**
 	 * Mapping from pathNid to each segment for that pathNid. There is one entry
 	 * for each path reachable antecedent to the destination position of the
 	 * computer.
 	 */
 	OpenIntObjectHashMap<Segment> pathSequenceSegmentMap;
+	/**
+	 * Segments indexed by segment sequence.
+	 */
+	Segment[] segments;
+	/**
+	 * True if no path on the route has more than one origin, in which case 
+	 * segments are totally ordered by their segment sequence. 
+	 */
+	boolean linearRoute = true;
+	int segmentCount;
+
+	private static final int COMPUTED = 1;
+	private static final int ON_ROUTE = 1 << 1;
+	private static final int ALLOWED_STATE = 1 << 2;
+	private static final int SEGMENT_SHIFT = 8;
+
+	/**
+	 * Per stamp visibility for this calculator's coordinate, indexed by stamp
+	 * sequence, and grown as new stamps are encountered. Each info entry packs
+	 * the {@code COMPUTED}, {@code ON_ROUTE} and {@code ALLOWED_STATE} flags,
+	 * and the segment sequence of an on route stamp. Zero means not yet
+	 * computed.
+	 */
+	private static class StampTable {
+
+		final AtomicIntegerArray info;
+		final long[] times;
+
+		StampTable(int size) {
+			this.info = new AtomicIntegerArray(size);
+			this.times = new long[size];
+		}
+
+		StampTable(StampTable from, int size) {
+			this(size);
+			for (int i = 0; i < from.times.length; i++) {
+				int fromInfo = from.info.get(i);
+				if (fromInfo != 0) {
+					this.times[i] = from.times[i];
+					this.info.lazySet(i, fromInfo);
+				}
+			}
+		}
+	}
+
+	private volatile StampTable stampTable = new StampTable(0);
 
 	public RelativePositionCalculator() {
 		// No arg constructor for HK2 managed instance
 	}
 
 	public RelativePositionCalculator(StampCoordinate coordinate) {
+		this(coordinate, Get.stampService());
+	}
+
+	/**
+	 * @param coordinate the stamp coordinate the latest versions are computed
+	 * for
+	 * @param stampService the source of the time, state, path and module of
+	 * each stamp
+	 */
+	public RelativePositionCalculator(StampCoordinate coordinate, StampService stampService) {
 		this.coordinate = coordinate;
+		this.stampService = stampService;
 		this.pathSequenceSegmentMap = setupPathSequenceSegmentMap(coordinate.getStampPosition());
+		this.segments = new Segment[segmentCount];
+		pathSequenceSegmentMap.values().forEach((segment) -> segments[segment.segmentSequence] = segment);
 	}
 
 	@Override
@@ -158,6 +224,7 @@ public class RelativePositionCalculator implements OchreCache {
 		// call to recursive method...
 		addOriginsToPathSequenceSegmentMap(destination,
 				  pathSequenceSegmentMapToSetup, segmentSequence, precedingSegments);
+		segmentCount = segmentSequence.get();
 
 		return pathSequenceSegmentMapToSetup;
 
@@ -172,9 +239,11 @@ public class RelativePositionCalculator implements OchreCache {
 		// precedingSegments is cumulative, each recursive call adds another
 		precedingSegments.add(segment.segmentSequence);
 		pathNidSegmentMap.put(destination.getStampPathSequence(), segment);
-		destination.getStampPath()
-				  .getPathOrigins()
-				  .stream()
+		Collection<? extends StampPosition> origins = destination.getStampPath().getPathOrigins();
+		if (origins.size() > 1) {
+			linearRoute = false;
+		}
+		origins.stream()
 				  .forEach((origin) -> {
 					  // Recursive call
 					  addOriginsToPathSequenceSegmentMap(origin, pathNidSegmentMap, segmentSequence, precedingSegments);
@@ -183,109 +252,37 @@ public class RelativePositionCalculator implements OchreCache {
 	
 
 	public RelativePosition fastRelativePosition(StampedVersion v1, StampedVersion v2, StampPrecedence precedencePolicy) {
-		if (v1.getPathSequence() == v2.getPathSequence()) {
-			Segment seg = (Segment) pathSequenceSegmentMap.get(v1.getPathSequence());
-			if (seg == null) {
-				StringBuilder builder = new StringBuilder();
-				builder.append("Segment cannot be null.");
-				builder.append("\nv1: ").append(v1);
-				builder.append("\nv2: ").append(v1);
-				builder.append("\nno segment in map: ").append(pathSequenceSegmentMap);
-				throw new IllegalStateException(builder.toString());
-			}
-			if (seg.containsPosition(v1.getPathSequence(), v1.getModuleSequence(), v1.getTime())
-					  && seg.containsPosition(v2.getPathSequence(), v2.getModuleSequence(), v2.getTime())) {
-				if (v1.getTime() < v2.getTime()) {
-					return RelativePosition.BEFORE;
-				}
-				if (v1.getTime() > v2.getTime()) {
-					return RelativePosition.AFTER;
-				}
-				if (v1.getTime() == v2.getTime()) {
-					return RelativePosition.EQUAL;
-				}
-			}
-			return RelativePosition.UNREACHABLE;
-		}
-
-		Segment seg1 = (Segment) pathSequenceSegmentMap.get(v1.getPathSequence());
-		Segment seg2 = (Segment) pathSequenceSegmentMap.get(v2.getPathSequence());
-		if (seg1 == null || seg2 == null) {
-			return RelativePosition.UNREACHABLE;
-		}
-		if (!(seg1.containsPosition(v1.getPathSequence(), v1.getModuleSequence(), v1.getTime())
-				  && seg2.containsPosition(v2.getPathSequence(), v2.getModuleSequence(), v2.getTime()))) {
-			return RelativePosition.UNREACHABLE;
-		}
-		if (precedencePolicy == StampPrecedence.TIME) {
-			if (v1.getTime() < v2.getTime()) {
-				return RelativePosition.BEFORE;
-			}
-			if (v1.getTime() > v2.getTime()) {
-				return RelativePosition.AFTER;
-			}
-			if (v1.getTime() == v2.getTime()) {
-				return RelativePosition.EQUAL;
-			}
-		}
-		if (seg1.precedingSegments.contains(seg2.segmentSequence)) {
-			return RelativePosition.BEFORE;
-		}
-		if (seg2.precedingSegments.contains(seg1.segmentSequence)) {
-			return RelativePosition.AFTER;
-		}
-		return RelativePosition.CONTRADICTION;
+		return fastRelativePosition(v1.getStampSequence(), v2.getStampSequence(), precedencePolicy);
 	}
 
 	public RelativePosition fastRelativePosition(int stampSequence1, int stampSequence2, StampPrecedence precedencePolicy) {
-		long ss1Time = Get.stampService().getTimeForStamp(stampSequence1);
-		int ss1ModuleSequence = Get.stampService().getModuleSequenceForStamp(stampSequence1);
-		int ss1PathSequence = Get.stampService().getPathSequenceForStamp(stampSequence1);
-		long ss2Time = Get.stampService().getTimeForStamp(stampSequence2);
-		int ss2ModuleSequence = Get.stampService().getModuleSequenceForStamp(stampSequence2);
-		int ss2PathSequence = Get.stampService().getPathSequenceForStamp(stampSequence2);
-
-		if (ss1PathSequence == ss2PathSequence) {
-			Segment seg = (Segment) pathSequenceSegmentMap.get(ss1PathSequence);
-			if (seg.containsPosition(ss1PathSequence, ss1ModuleSequence, ss1Time)
-					  && seg.containsPosition(ss2PathSequence, ss2ModuleSequence, ss2Time)) {
-				if (ss1Time < ss2Time) {
-					return RelativePosition.BEFORE;
-				}
-				if (ss1Time > ss2Time) {
-					return RelativePosition.AFTER;
-				}
-				if (ss1Time == ss2Time) {
-					return RelativePosition.EQUAL;
-				}
-			}
+		int info1 = getStampInfo(stampSequence1);
+		int info2 = getStampInfo(stampSequence2);
+		if ((info1 & ON_ROUTE) == 0 || (info2 & ON_ROUTE) == 0) {
 			return RelativePosition.UNREACHABLE;
 		}
+		int segment1 = info1 >>> SEGMENT_SHIFT;
+		int segment2 = info2 >>> SEGMENT_SHIFT;
 
-		Segment seg1 = (Segment) pathSequenceSegmentMap.get(ss1PathSequence);
-		Segment seg2 = (Segment) pathSequenceSegmentMap.get(ss2PathSequence);
-		if (seg1 == null || seg2 == null) {
-			return RelativePosition.UNREACHABLE;
-		}
-		if (!(seg1.containsPosition(ss1PathSequence, ss1ModuleSequence, ss1Time)
-				  && seg2.containsPosition(ss2PathSequence, ss2ModuleSequence, ss2Time))) {
-			return RelativePosition.UNREACHABLE;
-		}
-		if (precedencePolicy == StampPrecedence.TIME) {
+		if (segment1 == segment2 || precedencePolicy == StampPrecedence.TIME) {
+			long ss1Time = getStampTime(stampSequence1);
+			long ss2Time = getStampTime(stampSequence2);
 			if (ss1Time < ss2Time) {
 				return RelativePosition.BEFORE;
 			}
 			if (ss1Time > ss2Time) {
 				return RelativePosition.AFTER;
 			}
-			if (ss1Time == ss2Time) {
-				return RelativePosition.EQUAL;
-			}
+			return RelativePosition.EQUAL;
+		}
+		if (linearRoute) {
+			// segments further from the destination precede those closer to it. 
+			return segment1 > segment2 ? RelativePosition.BEFORE : RelativePosition.AFTER;
 		}
-		if (seg1.precedingSegments.contains(seg2.segmentSequence)) {
+		if (segments[segment1].precedingSegments.contains(segment2)) {
 			return RelativePosition.BEFORE;
 		}
-		if (seg2.precedingSegments.contains(seg1.segmentSequence)) {
+		if (segments[segment2].precedingSegments.contains(segment1)) {
 			return RelativePosition.AFTER;
 		}
 		return RelativePosition.CONTRADICTION;
@@ -296,22 +293,91 @@ public class RelativePositionCalculator implements OchreCache {
 	}
 
 	public boolean onRoute(StampedVersion v) {
-		Segment seg = (Segment) pathSequenceSegmentMap.get(v.getPathSequence());
-		if (seg != null) {
-			return seg.containsPosition(v.getPathSequence(), v.getModuleSequence(), v.getTime());
-		}
-		return false;
+		return onRoute(v.getStampSequence());
 	}
 
 	public boolean onRoute(int stampSequence) {
-		Segment seg = (Segment) pathSequenceSegmentMap.get(Get.stampService().getPathSequenceForStamp(stampSequence));
-		if (seg != null) {
-			return seg.containsPosition(
-					  Get.stampService().getPathSequenceForStamp(stampSequence),
-					  Get.stampService().getModuleSequenceForStamp(stampSequence),
-					  Get.stampService().getTimeForStamp(stampSequence));
+		return (getStampInfo(stampSequence) & ON_ROUTE) != 0;
+	}
+
+	private boolean isAllowedState(int stampSequence) {
+		return (getStampInfo(stampSequence) & ALLOWED_STATE) != 0;
+	}
+
+	/**
+	 * @param stampSequence
+	 * @return the packed visibility flags and segment for the stamp, from the
+	 * stamp table if the stamp is committed.
+	 */
+	private int getStampInfo(int stampSequence) {
+		if (stampSequence < 0) {
+			return computeStampInfo(stampSequence, stampService.getTimeForStamp(stampSequence));
+		}
+		StampTable table = stampTable;
+		if (stampSequence < table.times.length) {
+			int info = table.info.get(stampSequence);
+			if (info != 0) {
+				return info;
+			}
+		} else {
+			table = growStampTable(stampSequence);
+		}
+		long time = stampService.getTimeForStamp(stampSequence);
+		int info = computeStampInfo(stampSequence, time);
+		if (time != Long.MAX_VALUE) {
+			// uncommitted stamps are reused with a commit or cancel time, 
+			// so only committed or canceled stamps are added to the table. 
+			table.times[stampSequence] = time;
+			table.info.lazySet(stampSequence, info);
+		}
+		return info;
+	}
+
+	private long getStampTime(int stampSequence) {
+		if (stampSequence >= 0) {
+			StampTable table = stampTable;
+			if (stampSequence < table.times.length && table.info.get(stampSequence) != 0) {
+				return table.times[stampSequence];
+			}
+		}
+		return stampService.getTimeForStamp(stampSequence);
+	}
+
+	/**
+	 * Canceled stamps are never latest, whatever their path, module or state.
+	 * Both the stamp and the version based computations skip them with this
+	 * test.
+	 *
+	 * @param stampSequence
+	 * @return true if the stamp was canceled
+	 */
+	private boolean isCanceled(int stampSequence) {
+		return getStampTime(stampSequence) == Long.MIN_VALUE;
+	}
+
+	private int computeStampInfo(int stampSequence, long time) {
+		int info = COMPUTED;
+		int pathSequence = stampService.getPathSequenceForStamp(stampSequence);
+		Segment seg = (Segment) pathSequenceSegmentMap.get(pathSequence);
+		if (seg != null && seg.containsPosition(pathSequence,
+				  stampService.getModuleSequenceForStamp(stampSequence), time)) {
+			info |= ON_ROUTE | (seg.segmentSequence << SEGMENT_SHIFT);
+		}
+		if (coordinate.getAllowedStates().contains(stampService.getStatusForStamp(stampSequence))) {
+			info |= ALLOWED_STATE;
+		}
+		return info;
+	}
+
+	private StampTable growStampTable(int stampSequence) {
+		synchronized (this) {
+			StampTable table = stampTable;
+			if (stampSequence >= table.times.length) {
+				table = new StampTable(table, Math.max(stampSequence + 1, table.times.length + (table.times.length >> 1)));
+				stampTable = table;
+			}
+			return table;
 		}
-		return false;
 	}
 
 	public RelativePosition relativePosition(int stampSequence1, int stampSequence2) {
@@ -338,10 +404,93 @@ public class RelativePositionCalculator implements OchreCache {
 				  new LatestStampCombiner());
 
 		return StampSequenceSet.of(result.stream().filter((stampSequence) -> {
-			return coordinate.getAllowedStates().contains(Get.stampService().getStatusForStamp(stampSequence));
+			return isAllowedState(stampSequence);
 		}));
 	}
 
+	/**
+	 * Computes the latest stamp sequences without allocating a set for each
+	 * comparison, for use with the small number of stamps found in a single
+	 * chronology.
+	 *
+	 * @param stampSequences the stamp sequences of each version of a
+	 * chronology. The array is not modified.
+	 * @return the latest stamp sequences (more than one in the case of a
+	 * contradiction) with a state allowed by the coordinate. May be empty, will
+	 * not be null.
+	 */
+	public int[] getLatestStampSequencesAsArray(int[] stampSequences) {
+		return getLatestStampSequencesAsArray(stampSequences, stampSequences.length);
+	}
+
+	/**
+	 * @param stampSequences a buffer holding the stamp sequences of each
+	 * version of a chronology. The buffer is not modified.
+	 * @param count the number of stamp sequences in the buffer.
+	 * @return the latest stamp sequences, as for
+	 * {@link #getLatestStampSequencesAsArray(int[])}.
+	 */
+	public int[] getLatestStampSequencesAsArray(int[] stampSequences, int count) {
+		int[] latest = new int[Math.max(1, Math.min(count, 4))];
+		int latestCount = 0;
+		for (int index = 0; index < count; index++) {
+			int stampSequence = stampSequences[index];
+			if (!onRoute(stampSequence) || isCanceled(stampSequence)) {
+				continue;
+			}
+			boolean add = latestCount == 0;
+			int keep = 0;
+			for (int i = 0; i < latestCount; i++) {
+				int prevStamp = latest[i];
+				switch (fastRelativePosition(stampSequence, prevStamp, coordinate.getStampPrecedence())) {
+					case AFTER:
+						// drop prevStamp
+						add = true;
+						break;
+					case BEFORE:
+						latest[keep++] = prevStamp;
+						break;
+					case CONTRADICTION:
+						latest[keep++] = prevStamp;
+						add = true;
+						break;
+					case EQUAL:
+						latest[keep++] = prevStamp;
+						if (prevStamp != stampSequence) {
+							logEqualStamps(stampSequence, prevStamp);
+						}
+						break;
+					case UNREACHABLE:
+					default:
+						latest[keep++] = prevStamp;
+						break;
+				}
+			}
+			latestCount = keep;
+			if (add) {
+				if (latestCount == latest.length) {
+					latest = Arrays.copyOf(latest, latest.length * 2);
+				}
+				latest[latestCount++] = stampSequence;
+			}
+		}
+		int allowedCount = 0;
+		for (int i = 0; i < latestCount; i++) {
+			if (isAllowedState(latest[i])) {
+				latest[allowedCount++] = latest[i];
+			}
+		}
+		return allowedCount == latest.length ? latest : Arrays.copyOf(latest, allowedCount);
+	}
+
+	private void logEqualStamps(int stampSequence, int prevStamp) {
+		errorCount++;
+		if (errorCount < 5) {
+			log.warn("{} should never happen. Data is malformed. stampSequence: {} stamp to test: {}",
+					  new Object[]{RelativePosition.EQUAL, stampSequence, prevStamp});
+		}
+	}
+
 	private class LatestStampAccumulator implements ObjIntConsumer<StampSequenceSet> {
 
 		@Override
@@ -382,7 +531,28 @@ public class RelativePositionCalculator implements OchreCache {
 	 */
 	public boolean isLatestActive(IntStream stampSequences) {
 		return Arrays.stream(getLatestStampSequencesAsArray(stampSequences)).anyMatch((int stampSequence)
-				  -> Get.stampService().getStatusForStamp(stampSequence) == State.ACTIVE);
+				  -> stampService.getStatusForStamp(stampSequence) == State.ACTIVE);
+	}
+
+	/**
+	 * @param stampSequences a buffer holding the stampSequences from which the
+	 * latest is found. The buffer is not modified.
+	 * @param count the number of stamp sequences in the buffer.
+	 * @return true if any of the latest stampSequences are active.
+	 */
+	public boolean isLatestActive(int[] stampSequences, int count) {
+		if (count == 1) {
+			// a single stamp is the latest if it is on route and not canceled.
+			int stampSequence = stampSequences[0];
+			return onRoute(stampSequence) && !isCanceled(stampSequence) && isAllowedState(stampSequence)
+					  && stampService.getStatusForStamp(stampSequence) == State.ACTIVE;
+		}
+		for (int stampSequence : getLatestStampSequencesAsArray(stampSequences, count)) {
+			if (stampService.getStatusForStamp(stampSequence) == State.ACTIVE) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	public <C extends ObservableChronology<V>, V extends ObservableVersion>
@@ -392,8 +562,8 @@ public class RelativePositionCalculator implements OchreCache {
 		HashSet<V> latestVersionSet = new HashSet<>();
 
 		chronicle.getVersionList().stream().filter((newVersionToTest)
-				  -> (newVersionToTest.getTime() != Long.MIN_VALUE)).filter(
-				  (newVersionToTest) -> (onRoute(newVersionToTest))).forEach((newVersionToTest) -> {
+				  -> (onRoute(newVersionToTest))).filter(
+				  (newVersionToTest) -> (!isCanceled(newVersionToTest.getStampSequence()))).forEach((newVersionToTest) -> {
 					  if (latestVersionSet.isEmpty()) {
 						  latestVersionSet.add(newVersionToTest);
 					  } else {
@@ -419,8 +589,8 @@ public class RelativePositionCalculator implements OchreCache {
 		HashSet<V> latestVersionSet = new HashSet<>();
 
 		chronicle.getVersionList().stream().filter((newVersionToTest)
-				  -> (newVersionToTest.getTime() != Long.MIN_VALUE)).filter(
-				  (newVersionToTest) -> (onRoute(newVersionToTest))).forEach((newVersionToTest) -> {
+				  -> (onRoute(newVersionToTest))).filter(
+				  (newVersionToTest) -> (!isCanceled(newVersionToTest.getStampSequence()))).forEach((newVersionToTest) -> {
 					  if (latestVersionSet.isEmpty()) {
 						  latestVersionSet.add(newVersionToTest);
 					  } else {
@@ -500,7 +670,7 @@ public class RelativePositionCalculator implements OchreCache {
 
 	private void handleStamp(
 			  StampSequenceSet stampsForPosition, int stampSequence) {
-		if (!onRoute(stampSequence)) {
+		if (!onRoute(stampSequence) || isCanceled(stampSequence)) {
 			return;
 		}
 		if (stampsForPosition.isEmpty()) {
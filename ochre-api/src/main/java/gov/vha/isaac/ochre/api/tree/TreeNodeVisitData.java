@@ -8,15 +8,26 @@ package gov.vha.isaac.ochre.api.tree;
 import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.collections.SequenceSet;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
 import org.apache.mahout.math.list.IntArrayList;
 import org.apache.mahout.math.set.OpenIntHashSet;
 
 /**
+ * The state of a traversal of a tree or graph. Traversals that are repeated
+ * many times over small graphs, such as logic graphs, should take their visit
+ * data with {@link #acquire(int)} and return it with {@link #release()}, so
+ * the lists and sets are reused rather than allocated for each traversal.
  *
  * @author kec
  */
 public class TreeNodeVisitData {
 
+    private static final int MAX_POOLED_PER_THREAD = 8;
+    private static final ThreadLocal<ArrayDeque<TreeNodeVisitData>> POOL
+            = ThreadLocal.withInitial(() -> new ArrayDeque<>(MAX_POOLED_PER_THREAD));
+
     protected final IntArrayList distanceList;
     protected final IntArrayList discoveryTimeList;
     protected final IntArrayList finishTimeList;
@@ -26,11 +37,12 @@ public class TreeNodeVisitData {
     private SequenceSet<?> visitEnded = new SequenceSet<>();
     private SequenceSet<?> leafNodes = new SequenceSet<>();
     private OpenIntHashSet[] conceptsReferencedAtNodeOrAbove;
+    private ObjIntConsumer<ConceptSequenceSet> conceptsReferencedByNode;
 
     private int maxDepth = 0;
     private int time = 0;
     private int nodesVisited = 0;
-    private final int graphSize;
+    private int graphSize;
 
     public TreeNodeVisitData(int graphSize) {
 
@@ -46,6 +58,65 @@ public class TreeNodeVisitData {
         this.predecessorSequenceList.fillFromToWith(0, graphSize - 1, -1);
     }
 
+    /**
+     * Take visit data from the pool of the current thread, reset for a graph
+     * of the given size, or create it if the pool is empty.
+     *
+     * @param graphSize
+     * @return visit data to be returned with {@link #release()} on the same
+     * thread, once the results of the traversal are no longer used.
+     */
+    public static TreeNodeVisitData acquire(int graphSize) {
+        TreeNodeVisitData visitData = POOL.get().pollFirst();
+        if (visitData == null) {
+            return new TreeNodeVisitData(graphSize);
+        }
+        visitData.reset(graphSize);
+        return visitData;
+    }
+
+    /**
+     * Return visit data taken with {@link #acquire(int)} to the pool of the
+     * current thread. The visit data must not be used after it is released.
+     */
+    public void release() {
+        conceptsReferencedByNode = null;
+        ArrayDeque<TreeNodeVisitData> pool = POOL.get();
+        if (pool.size() < MAX_POOLED_PER_THREAD) {
+            pool.addFirst(this);
+        }
+    }
+
+    /**
+     * Clear the results of a previous traversal, keeping the capacity of the
+     * lists and sets.
+     *
+     * @param graphSize
+     */
+    public void reset(int graphSize) {
+        this.graphSize = graphSize;
+        this.visitStarted.clear();
+        this.visitEnded.clear();
+        this.leafNodes.clear();
+        resetList(distanceList, graphSize, 0);
+        resetList(discoveryTimeList, graphSize, 0);
+        resetList(finishTimeList, graphSize, 0);
+        resetList(siblingGroupSequenceList, graphSize, 0);
+        resetList(predecessorSequenceList, graphSize, -1);
+        if (conceptsReferencedAtNodeOrAbove != null) {
+            Arrays.fill(conceptsReferencedAtNodeOrAbove, null);
+        }
+        this.conceptsReferencedByNode = null;
+        this.maxDepth = 0;
+        this.time = 0;
+        this.nodesVisited = 0;
+    }
+
+    private static void resetList(IntArrayList list, int size, int value) {
+        list.setSize(size);
+        list.fillFromToWith(0, size - 1, value);
+    }
+
     public int getTime() {
         return time;
     }
@@ -62,41 +133,64 @@ public class TreeNodeVisitData {
         leafNodes.add(sequence);
     }
 
+    /**
+     * Set how the concepts referenced by a single node are added to a set, so
+     * the concepts referenced at a node or above are computed from the node
+     * and its predecessors when they are requested, rather than for each node
+     * as it is visited.
+     *
+     * @param conceptsReferencedByNode adds the concepts referenced by the node
+     * with the given sequence to the set.
+     */
+    public void setConceptsReferencedByNode(ObjIntConsumer<ConceptSequenceSet> conceptsReferencedByNode) {
+        this.conceptsReferencedByNode = conceptsReferencedByNode;
+    }
+
     public OpenIntHashSet getConceptsReferencedAtNodeOrAbove(int nodeSequence) {
         if (nodeSequence >= 0) {
             // lazy creation to save memory since not all tree traversals want to 
             // use this capability. 
-            if (conceptsReferencedAtNodeOrAbove == null) {
-                conceptsReferencedAtNodeOrAbove = new OpenIntHashSet[graphSize];
-            }
-            if (conceptsReferencedAtNodeOrAbove[nodeSequence] == null) {
-                conceptsReferencedAtNodeOrAbove[nodeSequence] = new OpenIntHashSet(graphSize);
+            OpenIntHashSet[] conceptSets = getConceptSets();
+            if (conceptSets[nodeSequence] == null) {
+                conceptSets[nodeSequence] = computeConceptsReferencedAtNodeOrAbove(nodeSequence);
             }
-            return conceptsReferencedAtNodeOrAbove[nodeSequence];
+            return conceptSets[nodeSequence];
         }
         return new OpenIntHashSet(graphSize);
     }
 
+    private OpenIntHashSet computeConceptsReferencedAtNodeOrAbove(int nodeSequence) {
+        if (conceptsReferencedByNode == null) {
+            return new OpenIntHashSet(graphSize);
+        }
+        ConceptSequenceSet conceptSet = new ConceptSequenceSet();
+        for (int sequence = nodeSequence; sequence >= 0; sequence = getPredecessorSequence(sequence)) {
+            if (conceptsReferencedAtNodeOrAbove[sequence] != null) {
+                conceptSet.addAll(conceptsReferencedAtNodeOrAbove[sequence]);
+                break;
+            }
+            conceptsReferencedByNode.accept(conceptSet, sequence);
+        }
+        return conceptSet.asOpenIntHashSet();
+    }
+
     public void setConceptsReferencedAtNodeOrAbove(int nodeSequence, OpenIntHashSet conceptSet) {
         if (nodeSequence >= 0) {
-            // lazy creation to save memory since not all tree traversals want to
-            // use this capability.
-            if (conceptsReferencedAtNodeOrAbove == null) {
-                conceptsReferencedAtNodeOrAbove = new OpenIntHashSet[graphSize];
-            }
-            conceptsReferencedAtNodeOrAbove[nodeSequence] = conceptSet;
+            getConceptSets()[nodeSequence] = conceptSet;
         }
     }
 
     public void setConceptsReferencedAtNodeOrAbove(int nodeSequence, ConceptSequenceSet conceptSet) {
         if (nodeSequence >= 0) {
-            // lazy creation to save memory since not all tree traversals want to
-            // use this capability.
-            if (conceptsReferencedAtNodeOrAbove == null) {
-                conceptsReferencedAtNodeOrAbove = new OpenIntHashSet[graphSize];
-            }
-            conceptsReferencedAtNodeOrAbove[nodeSequence] = conceptSet.asOpenIntHashSet();
+            getConceptSets()[nodeSequence] = conceptSet.asOpenIntHashSet();
+        }
+    }
+
+    private OpenIntHashSet[] getConceptSets() {
+        if (conceptsReferencedAtNodeOrAbove == null || conceptsReferencedAtNodeOrAbove.length < graphSize) {
+            conceptsReferencedAtNodeOrAbove = new OpenIntHashSet[graphSize];
         }
+        return conceptsReferencedAtNodeOrAbove;
     }
 
     public int getPredecessorSequence(int sequence) {
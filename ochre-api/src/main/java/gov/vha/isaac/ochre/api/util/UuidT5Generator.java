@@ -22,6 +22,7 @@ import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.UUID;
 
 /**
@@ -38,36 +39,126 @@ public class UuidT5Generator {
     
     public static final UUID AUTHOR_TIME_ID = UUID.fromString("c6915290-30fc-11e1-b86c-0800200c9a66");
 
+    /**
+     * Digests that have already consumed the bytes of a namespace, per thread.  Generating a UUID in a
+     * namespace clones the primed digest, rather than re-hashing the namespace bytes each time.
+     */
+    private static final ThreadLocal<NamespaceDigests> DIGESTS = ThreadLocal.withInitial(() -> new NamespaceDigests());
+
     public static UUID get(UUID namespace, String name) {
         try {
-            MessageDigest sha1Algorithm = MessageDigest.getInstance("SHA-1");
-            
-            // Generate the digest.
-            sha1Algorithm.reset();
-            if (namespace != null) {
-                sha1Algorithm.update(getRawBytes(namespace));
-            }
+            MessageDigest sha1Algorithm = DIGESTS.get().getDigest(namespace);
             sha1Algorithm.update(name.getBytes(encoding));
-            byte[] sha1digest = sha1Algorithm.digest();
-            
-            sha1digest[6] &= 0x0f; /* clear version */
-            sha1digest[6] |= 0x50; /* set to version 5 */
-            sha1digest[8] &= 0x3f; /* clear variant */
-            sha1digest[8] |= 0x80; /* set to IETF variant */
-            
-            long msb = 0;
-            long lsb = 0;
-            for (int i = 0; i < 8; i++) {
-                msb = (msb << 8) | (sha1digest[i] & 0xff);
-            }
-            for (int i = 8; i < 16; i++) {
-                lsb = (lsb << 8) | (sha1digest[i] & 0xff);
+            return toUuid(sha1Algorithm.digest());
+        } catch (UnsupportedEncodingException ex) {
+           throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Generate a type 5 uuid for each of the provided names, within the same namespace.  Equivalent to calling
+     * {@link #get(UUID, String)} for each name, but only looks up the namespace state once.
+     *
+     * @param namespace the namespace, may be null
+     * @param names the names to generate uuids for
+     * @return the generated uuids, in the same order as the names
+     */
+    public static UUID[] getBatch(UUID namespace, String[] names) {
+        UUID[] result = new UUID[names.length];
+        NamespaceDigests digests = DIGESTS.get();
+        try {
+            for (int i = 0; i < names.length; i++) {
+                MessageDigest sha1Algorithm = digests.getDigest(namespace);
+                sha1Algorithm.update(names[i].getBytes(encoding));
+                result[i] = toUuid(sha1Algorithm.digest());
             }
-            
-            return new UUID(msb, lsb);
-        } catch (NoSuchAlgorithmException | UnsupportedEncodingException ex) {
+        } catch (UnsupportedEncodingException ex) {
            throw new RuntimeException(ex);
         }
+        return result;
+    }
+
+    private static UUID toUuid(byte[] sha1digest) {
+        sha1digest[6] &= 0x0f; /* clear version */
+        sha1digest[6] |= 0x50; /* set to version 5 */
+        sha1digest[8] &= 0x3f; /* clear variant */
+        sha1digest[8] |= 0x80; /* set to IETF variant */
+
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (sha1digest[i] & 0xff);
+        }
+        for (int i = 8; i < 16; i++) {
+            lsb = (lsb << 8) | (sha1digest[i] & 0xff);
+        }
+
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * A per thread cache of SHA-1 digests which have already been fed the bytes of a namespace.
+     */
+    private static class NamespaceDigests {
+        private static final int MAX_NAMESPACES = 64;
+        private final MessageDigest sha1Algorithm;
+        private final HashMap<UUID, MessageDigest> primed = new HashMap<>();
+        private boolean cloneable = true;
+        private UUID lastNamespace;
+        private MessageDigest lastPrimed;
+
+        NamespaceDigests() {
+            try {
+                sha1Algorithm = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        /**
+         * @return a digest which has consumed the namespace bytes (if any), ready for the name bytes.
+         * Only valid until the next call on this thread.
+         */
+        MessageDigest getDigest(UUID namespace) {
+            if (namespace == null) {
+                sha1Algorithm.reset();
+                return sha1Algorithm;
+            }
+            if (cloneable) {
+                MessageDigest prototype;
+                if (namespace.equals(lastNamespace)) {
+                    prototype = lastPrimed;
+                } else {
+                    prototype = primed.get(namespace);
+                    if (prototype == null) {
+                        if (primed.size() >= MAX_NAMESPACES) {
+                            primed.clear();
+                        }
+                        try {
+                            prototype = MessageDigest.getInstance("SHA-1");
+                        } catch (NoSuchAlgorithmException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                        prototype.update(getRawBytes(namespace));
+                        primed.put(namespace, prototype);
+                    }
+                    lastNamespace = namespace;
+                    lastPrimed = prototype;
+                }
+                try {
+                    return (MessageDigest) prototype.clone();
+                } catch (CloneNotSupportedException e) {
+                    //provider doesn't support clone - fall back to hashing the namespace on each call
+                    cloneable = false;
+                    primed.clear();
+                    lastNamespace = null;
+                    lastPrimed = null;
+                }
+            }
+            sha1Algorithm.reset();
+            sha1Algorithm.update(getRawBytes(namespace));
+            return sha1Algorithm;
+        }
     }
 
     public static UUID get(String name) {
@@ -82,41 +173,18 @@ public class UuidT5Generator {
    }
 
     /**
-     * This routine adapted from org.safehaus.uuid.UUID,
-     * which is licensed under Apache 2.
-     *
      * @param uid
-     * @return
+     * @return the 16 bytes of the uuid, most significant byte first
      */
     public static byte[] getRawBytes(UUID uid) {
-        String id = uid.toString();
         byte[] rawBytes = new byte[16];
-
-        for (int i = 0, j = 0; i < 36; ++j) {
-            // Need to bypass hyphens:
-            switch (i) {
-            case 8:
-            case 13:
-            case 18:
-            case 23:
-                ++i;
-            }
-            char c = id.charAt(i);
-
-            if (c >= '0' && c <= '9') {
-                rawBytes[j] = (byte) ((c - '0') << 4);
-            } else if (c >= 'a' && c <= 'f') {
-                rawBytes[j] = (byte) ((c - 'a' + 10) << 4);
-            }
-
-            c = id.charAt(++i);
-
-            if (c >= '0' && c <= '9') {
-                rawBytes[j] |= (byte) (c - '0');
-            } else if (c >= 'a' && c <= 'f') {
-                rawBytes[j] |= (byte) (c - 'a' + 10);
-            }
-            ++i;
+        long msb = uid.getMostSignificantBits();
+        long lsb = uid.getLeastSignificantBits();
+        for (int i = 7; i >= 0; i--) {
+            rawBytes[i] = (byte) msb;
+            msb >>>= 8;
+            rawBytes[i + 8] = (byte) lsb;
+            lsb >>>= 8;
         }
         return rawBytes;
     }
@@ -0,0 +1,158 @@
+package gov.vha.isaac.ochre.api.collections.uuidnidmap;
+
+import gov.vha.isaac.ochre.api.collections.UuidIntMapMap;
+import gov.vha.isaac.ochre.api.util.UUIDUtil;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Lookups of keys by value, with the value index that
+ * {@link UuidIntMapMap#NID_TO_UUID_INDEX} turns on, compared with the
+ * expected keys as the table is changed and rehashed.
+ */
+public class UuidToIntHashMapTest {
+
+    private static final int VALUES = 50;
+
+    private boolean previousNidToUuidIndex;
+
+    @BeforeMethod
+    public void setUp() {
+        previousNidToUuidIndex = UuidIntMapMap.NID_TO_UUID_INDEX;
+        UuidIntMapMap.NID_TO_UUID_INDEX = true;
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        UuidIntMapMap.NID_TO_UUID_INDEX = previousNidToUuidIndex;
+    }
+
+    private static UUID uuid(int i) {
+        return new UUID(i * 0x9E3779B97F4A7C15L, i);
+    }
+
+    private static UuidToIntHashMap newMap() {
+        UuidToIntHashMap map = new UuidToIntHashMap(16, 0.2, 0.5);
+        map.setValueIndexed(UuidIntMapMap.NID_TO_UUID_INDEX);
+        return map;
+    }
+
+    private static void put(UuidToIntHashMap map, Map<UUID, Integer> expected, int i, int value) {
+        map.put(uuid(i), value);
+        expected.put(uuid(i), value);
+    }
+
+    private static void remove(UuidToIntHashMap map, Map<UUID, Integer> expected, int i) {
+        assertEquals(map.removeKey(UUIDUtil.convert(uuid(i))), expected.remove(uuid(i)) != null);
+    }
+
+    private static void assertKeysOf(UuidToIntHashMap map, Map<UUID, Integer> expected) {
+        assertTrue(map.isValueIndexed());
+        assertEquals(map.size(), expected.size());
+        for (int value = -1; value <= VALUES; value++) {
+            Set<UUID> expectedKeys = new HashSet<>();
+            for (Map.Entry<UUID, Integer> entry : expected.entrySet()) {
+                if (entry.getValue() == value) {
+                    expectedKeys.add(entry.getKey());
+                }
+            }
+            assertEquals(new HashSet<>(map.keysOf(value)), expectedKeys, "value " + value);
+            assertEquals(map.keysOf(value).size(), expectedKeys.size(), "value " + value);
+            long[] key = map.keyOf(value);
+            if (expectedKeys.isEmpty()) {
+                assertNull(key, "value " + value);
+            } else {
+                assertTrue(expectedKeys.contains(new UUID(key[0], key[1])), "value " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testPutAndRehash() {
+        UuidToIntHashMap map = newMap();
+        Map<UUID, Integer> expected = new HashMap<>();
+        // several keys per value, with growth rehashing the table.
+        for (int i = 0; i < 1000; i++) {
+            put(map, expected, i, i % VALUES);
+        }
+        assertKeysOf(map, expected);
+
+        // a new value for an existing key moves the key.
+        for (int i = 0; i < 1000; i += 7) {
+            put(map, expected, i, (i + 1) % VALUES);
+        }
+        assertKeysOf(map, expected);
+    }
+
+    @Test
+    public void testRemove() {
+        UuidToIntHashMap map = newMap();
+        Map<UUID, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            put(map, expected, i, i % VALUES);
+        }
+        // remove from the head, middle and end of the keys of each value.
+        for (int i = 0; i < 1000; i += 3) {
+            remove(map, expected, i);
+        }
+        remove(map, expected, 0);
+        assertKeysOf(map, expected);
+
+        // removing most keys shrinks, and rehashes, the table.
+        for (int i = 0; i < 990; i++) {
+            remove(map, expected, i);
+        }
+        assertKeysOf(map, expected);
+        for (int i = 0; i < 1000; i += 2) {
+            put(map, expected, i, i % VALUES);
+        }
+        assertKeysOf(map, expected);
+    }
+
+    @Test
+    public void testClear() {
+        UuidToIntHashMap map = newMap();
+        Map<UUID, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            put(map, expected, i, i % VALUES);
+        }
+        map.clear();
+        expected.clear();
+        assertKeysOf(map, expected);
+
+        for (int i = 0; i < 100; i++) {
+            put(map, expected, i, i % 3);
+        }
+        assertKeysOf(map, expected);
+    }
+
+    @Test
+    public void testClone() {
+        UuidToIntHashMap map = newMap();
+        Map<UUID, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            put(map, expected, i, i % VALUES);
+        }
+        UuidToIntHashMap copy = (UuidToIntHashMap) map.clone();
+        Map<UUID, Integer> expectedCopy = new HashMap<>(expected);
+        assertKeysOf(copy, expectedCopy);
+
+        // changes to either map leave the value index of the other unchanged.
+        for (int i = 0; i < 500; i += 2) {
+            remove(copy, expectedCopy, i);
+        }
+        for (int i = 500; i < 700; i++) {
+            put(map, expected, i, i % VALUES);
+        }
+        assertKeysOf(map, expected);
+        assertKeysOf(copy, expectedCopy);
+    }
+}
@@ -0,0 +1,123 @@
+package gov.vha.isaac.ochre.api.memory;
+
+import java.io.File;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Byte budget and segmented LRU behavior of the {@link HoldInMemoryCache}.
+ */
+public class HoldInMemoryCacheTest {
+
+    private static final long BUDGET = 1000;
+    private static final long SEGMENT_SIZE = 300;
+
+    private long previousBudget;
+
+    @BeforeMethod
+    public void setUp() {
+        previousBudget = HoldInMemoryCache.getBudget();
+        HoldInMemoryCache.clearCache();
+        HoldInMemoryCache.setBudget(BUDGET);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        HoldInMemoryCache.clearCache();
+        HoldInMemoryCache.setBudget(previousBudget);
+    }
+
+    private static MemoryManagedReference<byte[]> segment(byte[] referent) {
+        MemoryManagedReference<byte[]> ref = new MemoryManagedReference<>(referent,
+                new File("target/hold-in-memory-test"), null);
+        ref.setEstimatedSize(SEGMENT_SIZE);
+        return ref;
+    }
+
+    /**
+     * Access the segment once the clock used for least recently used ordering
+     * has advanced, so consecutive accesses are ordered.
+     */
+    private static void access(MemoryManagedReference<?> ref) {
+        long time = System.nanoTime();
+        while (System.nanoTime() == time) {
+            Thread.yield();
+        }
+        HoldInMemoryCache.addToCache(ref);
+    }
+
+    @Test
+    public void testBudgetEnforced() {
+        byte[] referent = new byte[0];
+        long evictions = HoldInMemoryCache.getStatistics().getEvictions();
+        MemoryManagedReference<?>[] refs = new MemoryManagedReference<?>[5];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = segment(referent);
+            access(refs[i]);
+            assertTrue(HoldInMemoryCache.getStatistics().getResidentBytes() <= BUDGET);
+        }
+        MemoryCacheStatistics statistics = HoldInMemoryCache.getStatistics();
+        assertEquals(statistics.getResidentBytes(), 3 * SEGMENT_SIZE);
+        assertEquals(statistics.getResidentSegments(), 3);
+        assertEquals(statistics.getEvictions() - evictions, 2);
+        // the least recently used segments are released first
+        assertFalse(refs[0].isCached());
+        assertFalse(refs[1].isCached());
+        assertTrue(refs[4].isCached());
+
+        // growing a held segment past the budget releases others
+        refs[4].addToEstimatedSize(SEGMENT_SIZE);
+        assertTrue(HoldInMemoryCache.getStatistics().getResidentBytes() <= BUDGET);
+        assertTrue(refs[4].isCached());
+        assertFalse(refs[2].isCached());
+    }
+
+    @Test
+    public void testProbationToProtectedPromotion() {
+        byte[] referent = new byte[0];
+        MemoryManagedReference<byte[]> first = segment(referent);
+        MemoryManagedReference<byte[]> second = segment(referent);
+        MemoryManagedReference<byte[]> third = segment(referent);
+        access(first);
+        access(second);
+        access(third);
+        long hits = HoldInMemoryCache.getStatistics().getHits();
+
+        // a second access promotes the oldest segment out of probation
+        access(first);
+        assertEquals(HoldInMemoryCache.getStatistics().getHits() - hits, 1);
+        assertEquals(first.getCacheAccessCount(), 1);
+
+        access(segment(referent));
+        assertTrue(first.isCached());
+        assertFalse(second.isCached());
+        assertTrue(third.isCached());
+    }
+
+    @Test
+    public void testProtectedLimitDemotes() {
+        byte[] referent = new byte[0];
+        MemoryManagedReference<byte[]> first = segment(referent);
+        MemoryManagedReference<byte[]> second = segment(referent);
+        MemoryManagedReference<byte[]> third = segment(referent);
+        access(first);
+        access(second);
+        access(third);
+        access(first);
+        access(second);
+        access(third);
+
+        // protected segments exceed PROTECTED_FRACTION of the budget, so the
+        // least recently used one is demoted, and then released before the
+        // new segment.
+        MemoryManagedReference<byte[]> fourth = segment(referent);
+        access(fourth);
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertTrue(third.isCached());
+        assertTrue(fourth.isCached());
+    }
+}
@@ -16,6 +16,7 @@
 package gov.vha.isaac.ochre.model;
 
 import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import gov.vha.isaac.ochre.api.externalizable.OchreExternalizableObjectType;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronology;
@@ -33,6 +34,7 @@ import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
 
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -125,6 +127,15 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
      */
     private SoftReference<ArrayList<V>> versionListReference;
 
+    /**
+     * Stamp header for the written data: the stamp sequence and the start
+     * position of each written version, as {@code stamp, position} pairs.
+     * Derived from the length and stamp prefix of each version record on first
+     * use, so latest version computations can run over stamps, and decode only
+     * the versions that are selected.
+     */
+    private volatile int[] writtenStampHeader;
+
     /**
      * For constructing an object for the first time.
      *
@@ -192,6 +203,34 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
         }
     }
 
+    /**
+     * Adds the UUIDs of the identifiers in the chronicle fields of external
+     * data, without resolving them: the primordial UUID, and for a sememe,
+     * the assemblage and referenced component. Lets a reader resolve the
+     * identifiers of a batch of chronicles with
+     * {@code IdentifierService.getNidsForUuids} before the chronicles are made.
+     * @param data external data, positioned at the start of a concept or
+     * sememe chronicle. The position is not changed.
+     * @param type the type of the chronicle
+     * @param uuids the collection to add the UUIDs to
+     */
+    public static void addExternalIdentifierUuids(ByteArrayDataBuffer data, OchreExternalizableObjectType type,
+            Collection<UUID> uuids) {
+        int start = data.getPosition();
+        try {
+            uuids.add(data.getUuid()); // primordial uuid
+            int additionalUuidPartsSize = data.getInt();
+            data.setPosition(data.getPosition() + additionalUuidPartsSize * 8);
+            if (type == OchreExternalizableObjectType.SEMEME) {
+                data.getByte(); // sememeTypeToken
+                uuids.add(data.getUuid()); // assemblage
+                uuids.add(data.getUuid()); // referenced component
+            }
+        } finally {
+            data.setPosition(start);
+        }
+    }
+
     private void goToVersionStart(ByteArrayDataBuffer data) {
         if (data.isExternalData()) {
             throw new UnsupportedOperationException("Can't handle external data for this method.");
@@ -306,6 +345,7 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
         }
         // reset written data
         writtenData = null;
+        writtenStampHeader = null;
         versions.forEach((V version) -> addVersion(version));
     }
 
@@ -463,10 +503,81 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
      */
     public void setWrittenData(byte[] writtenData) {
         this.writtenData = writtenData;
+        this.writtenStampHeader = null;
         this.unwrittenData = null;
         this.versionListReference = null;
     }
 
+    /**
+     * @return the stamp header for the written data, constructing it if
+     * necessary. Empty if there is no written data.
+     */
+    private int[] getWrittenStampHeader() {
+        int[] header = writtenStampHeader;
+        if (header != null) {
+            return header;
+        }
+        byte[] data = writtenData;
+        if (data == null || data.length < 4) {
+            header = new int[0];
+        } else {
+            ByteArrayDataBuffer bb = new ByteArrayDataBuffer(data);
+            if (versionStartPosition < 0) {
+                goToVersionStart(bb);
+                versionStartPosition = bb.getPosition();
+            }
+            header = new int[8];
+            int size = 0;
+            int position = versionStartPosition;
+            int limit = bb.getLimit();
+            while (position < limit) {
+                bb.setPosition(position);
+                int versionLength = bb.getInt();
+                if (versionLength <= 0) {
+                    break;
+                }
+                int stampSequence = bb.getStampSequence();
+                if (stampSequence >= 0) {
+                    if (size == header.length) {
+                        header = Arrays.copyOf(header, header.length * 2);
+                    }
+                    header[size++] = stampSequence;
+                    header[size++] = position;
+                }
+                position = position + versionLength;
+            }
+            header = Arrays.copyOf(header, size);
+        }
+        if (data == writtenData) {
+            writtenStampHeader = header;
+        }
+        return header;
+    }
+
+    /**
+     * @return the stamp sequences of each version of this chronology, from the
+     * stamp header and unwritten data, without constructing version objects.
+     */
+    public int[] getVersionStampSequenceArray() {
+        int[] header = getWrittenStampHeader();
+        int writtenCount = header.length / 2;
+        ConcurrentSkipListMap<Integer, V> unwritten = unwrittenData;
+        int[] stamps = new int[writtenCount + (unwritten == null ? 0 : unwritten.size())];
+        for (int i = 0; i < writtenCount; i++) {
+            stamps[i] = header[i * 2];
+        }
+        int size = writtenCount;
+        if (unwritten != null) {
+            for (Integer stamp : unwritten.keySet()) {
+                if (size == stamps.length) {
+                    stamps = Arrays.copyOf(stamps, size + 1);
+                }
+                stamps[size++] = stamp;
+            }
+        }
+        return size == stamps.length ? stamps : Arrays.copyOf(stamps, size);
+    }
+
     /**
      *
      * @return a list of all versions contained in this chronicle.
@@ -540,17 +651,16 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
         if (unwrittenData != null && unwrittenData.containsKey(stampSequence)) {
             return Optional.of(unwrittenData.get(stampSequence));
         }
-        ByteArrayDataBuffer bb = new ByteArrayDataBuffer(writtenData);
-        bb.setPosition(versionStartPosition);
-        int nextPosition = bb.getPosition();
-        while (nextPosition < bb.getLimit()) {
-            int versionLength = bb.getInt();
-            nextPosition = nextPosition + versionLength;
-            int stampSequenceForVersion = bb.getStampSequence();
-            if (stampSequence == stampSequenceForVersion) {
+        byte[] data = writtenData;
+        int[] header = getWrittenStampHeader();
+        for (int i = 0; i < header.length; i += 2) {
+            if (header[i] == stampSequence) {
+                ByteArrayDataBuffer bb = new ByteArrayDataBuffer(data);
+                bb.setPosition(header[i + 1]);
+                bb.getInt(); // version length
+                bb.getStampSequence();
                 return Optional.of(makeVersion(stampSequence, bb));
             }
-            bb.setPosition(nextPosition);
         }
         return Optional.empty();
     }
@@ -604,15 +714,11 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
             versions = versionListReference.get();
         }
         if (versions != null) {
+            // the version list includes the unwritten versions
             versions.forEach((version) -> builder.accept(version.getStampSequence()));
-        } else if (writtenData != null) {
-            ByteArrayDataBuffer bb = new ByteArrayDataBuffer(writtenData);
-            getVersionStampSequences(versionStartPosition, bb, builder);
-        }
-        if (unwrittenData != null) {
-            unwrittenData.keySet().forEach((stamp) -> builder.accept(stamp));
+            return builder.build();
         }
-        return builder.build();
+        return IntStream.of(getVersionStampSequenceArray());
     }
 
     @Override
@@ -747,33 +853,40 @@ public abstract class ObjectChronologyImpl<V extends ObjectVersionImpl>
         return results;
     }
 
-    private List<V> getVersionsForStamps(StampSequenceSet stampSequences) {
-        List<V> versions = new ArrayList<>(stampSequences.size());
-        stampSequences.stream().forEach((stampSequence) -> versions.add(getVersionForStamp(stampSequence).get()));
-        return versions;
-    }
-
     @Override
     public Optional<LatestVersion<V>> getLatestVersion(Class<V> type, StampCoordinate coordinate) {
-        RelativePositionCalculator calc = RelativePositionCalculator.getCalculator(coordinate);
-        if (versionListReference != null) {
-            ArrayList<V> versions = versionListReference.get();
-            if (versions != null) {
-                return calc.getLatestVersion(this);
-            }
-        }
-        StampSequenceSet latestStampSequences = calc.getLatestStampSequencesAsSet(this.getVersionStampSequences());
-        if (latestStampSequences.isEmpty()) {
+        return getLatestVersion(RelativePositionCalculator.getCalculator(coordinate));
+    }
+
+    /**
+     * Compute the latest version using the stamp header, decoding only the
+     * versions that are latest. Decoded versions are reused if the version
+     * list is cached, but the latest stamps are always computed the same way,
+     * so the result does not depend on what is cached.
+     *
+     * @param calc the calculator for the stamp coordinate of interest
+     * @return the latest version, if any
+     */
+    public Optional<LatestVersion<V>> getLatestVersion(RelativePositionCalculator calc) {
+        int[] latestStampSequences = calc.getLatestStampSequencesAsArray(getVersionStampSequenceArray());
+        if (latestStampSequences.length == 0) {
             return Optional.empty();
         }
-        return Optional.of(new LatestVersion<>((List<V>) getVersionsForStamps(latestStampSequences)));
+        V latest = getVersionForStamp(latestStampSequences[0]).get();
+        if (latestStampSequences.length == 1) {
+            return Optional.of(new LatestVersion<>(latest));
+        }
+        List<V> contradictions = new ArrayList<>(latestStampSequences.length - 1);
+        for (int i = 1; i < latestStampSequences.length; i++) {
+            contradictions.add(getVersionForStamp(latestStampSequences[i]).get());
+        }
+        return Optional.of(new LatestVersion<>(latest, contradictions));
     }
 
     @Override
     public boolean isLatestVersionActive(StampCoordinate coordinate) {
         RelativePositionCalculator calc = RelativePositionCalculator.getCalculator(coordinate);
-        StampSequenceSet latestStampSequences = calc.getLatestStampSequencesAsSet(this.getVersionStampSequences());
-        return !latestStampSequences.isEmpty();
+        return calc.getLatestStampSequencesAsArray(getVersionStampSequenceArray()).length > 0;
     }
 
     @Override
@@ -0,0 +1,86 @@
+package gov.vha.isaac.ochre.model;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.commit.StampService;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Index from stamp sequences to the sequences of the chronicles, concepts or
+ * sememes, that have a version with the stamp. The index only grows, as
+ * versions are never removed from a chronicle.
+ *
+ * The index is keyed by stamp rather than by time, since the time of an
+ * uncommitted version is not known until it is committed, while its stamp
+ * sequence stays the same. Queries by time and path check each indexed stamp,
+ * of which there are far fewer than chronicles, against the stamp service.
+ */
+public class StampChangeIndex {
+
+    private final ConcurrentHashMap<Integer, RoaringBitmap> stampChronicleSequences = new ConcurrentHashMap<>();
+
+    /**
+     * Index the stamps of each version of a chronicle. Call each time the
+     * chronicle is written.
+     * @param chronicleSequence the concept or sememe sequence of the chronicle
+     * @param stampSequences the stamp sequences of the versions of the chronicle
+     */
+    public void index(int chronicleSequence, IntStream stampSequences) {
+        stampSequences.forEach((stampSequence) -> {
+            RoaringBitmap chronicleSequences = stampChronicleSequences.computeIfAbsent(
+                    stampSequence, (stamp) -> new RoaringBitmap());
+            synchronized (chronicleSequences) {
+                chronicleSequences.add(chronicleSequence);
+            }
+        });
+    }
+
+    /**
+     * @param position the position to compare against
+     * @return the sequences of the chronicles with a version on the path of
+     * the position, with a time after the time of the position. Uncommitted
+     * versions are after any position.
+     */
+    public int[] getSequencesModifiedAfter(StampPosition position) {
+        StampService stampService = Get.stampService();
+        RoaringBitmap modified = new RoaringBitmap();
+        stampChronicleSequences.forEach((stampSequence, chronicleSequences) -> {
+            if (stampService.getTimeForStamp(stampSequence) > position.getTime()
+                    && stampService.getPathSequenceForStamp(stampSequence) == position.getStampPathSequence()) {
+                synchronized (chronicleSequences) {
+                    modified.or(chronicleSequences);
+                }
+            }
+        });
+        return modified.toArray();
+    }
+
+    public void write(DataOutput out) throws IOException {
+        List<Map.Entry<Integer, RoaringBitmap>> entries = new ArrayList<>(stampChronicleSequences.entrySet());
+        out.writeInt(entries.size());
+        for (Map.Entry<Integer, RoaringBitmap> entry : entries) {
+            out.writeInt(entry.getKey());
+            synchronized (entry.getValue()) {
+                entry.getValue().serialize(out);
+            }
+        }
+    }
+
+    public void read(DataInput in) throws IOException {
+        int stampCount = in.readInt();
+        for (int i = 0; i < stampCount; i++) {
+            int stampSequence = in.readInt();
+            RoaringBitmap chronicleSequences = new RoaringBitmap();
+            chronicleSequences.deserialize(in);
+            stampChronicleSequences.put(stampSequence, chronicleSequences);
+        }
+    }
+}
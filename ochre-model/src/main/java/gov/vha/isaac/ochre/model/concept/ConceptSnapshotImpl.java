@@ -47,7 +47,7 @@ public class ConceptSnapshotImpl implements ConceptSnapshot {
         this.stampCoordinate = stampCoordinate;
         this.languageCoordinate = languageCoordinate;
         Optional<LatestVersion<ConceptVersionImpl>> optionalVersion = 
-                RelativePositionCalculator.getCalculator(stampCoordinate).getLatestVersion(conceptChronology);
+                conceptChronology.getLatestVersion(RelativePositionCalculator.getCalculator(stampCoordinate));
         snapshotVersion = optionalVersion.get();
     }
 
@@ -16,6 +16,7 @@
 package gov.vha.isaac.ochre.model.logic;
 
 import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.constants.Constants;
 import gov.vha.isaac.ochre.api.logic.IsomorphicResults;
 import gov.vha.isaac.ochre.api.logic.LogicNode;
 import gov.vha.isaac.ochre.api.logic.LogicalExpression;
@@ -26,6 +27,8 @@ import gov.vha.isaac.ochre.api.collections.SequenceSet;
 import java.util.*;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  *
@@ -33,6 +36,18 @@ import java.util.stream.Stream;
  */
 public class IsomorphicResultsBottomUp implements IsomorphicResults {
 
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * The most candidate solutions tried for each depth of the tree before
+     * the search settles for the solutions found so far. Bounds the search
+     * for large definitions with many similar role groups, for which the
+     * number of possible solutions grows combinatorially. Set with
+     * {@link Constants#ISOMORPHIC_CANDIDATE_LIMIT_PROPERTY}.
+     */
+    private static final int MAX_CANDIDATE_SOLUTIONS
+            = Integer.getInteger(Constants.ISOMORPHIC_CANDIDATE_LIMIT_PROPERTY, 100000);
+
     LogicalExpressionOchreImpl comparisonExpression;
     LogicalExpressionOchreImpl referenceExpression;
 
@@ -41,11 +56,11 @@ public class IsomorphicResultsBottomUp implements IsomorphicResults {
     /**
      * Nodes that are relationship roots in the referenceExpression.
      */
-    private final Map<RelationshipKey, Integer> referenceRelationshipNodesMap = new TreeMap<>();
+    private final Map<RelationshipKey, Integer> referenceRelationshipNodesMap = new HashMap<>();
     /**
      * Nodes that are relationship roots in the comparisonExpression.
      */
-    private final Map<RelationshipKey, Integer> comparisonRelationshipNodesMap = new TreeMap<>();
+    private final Map<RelationshipKey, Integer> comparisonRelationshipNodesMap = new HashMap<>();
 
     /*
      isomorphicSolution is a mapping from logicNodes in the referenceExpression to logicNodes
@@ -66,45 +81,57 @@ public class IsomorphicResultsBottomUp implements IsomorphicResults {
     public IsomorphicResultsBottomUp(LogicalExpression referenceExpression, LogicalExpression comparisonExpression) {
         this.referenceExpression = (LogicalExpressionOchreImpl) referenceExpression;
         this.comparisonExpression = (LogicalExpressionOchreImpl) comparisonExpression;
-        this.referenceVisitData = new TreeNodeVisitData(referenceExpression.getNodeCount());
-        this.referenceExpression.depthFirstVisit(null, this.referenceExpression.getRoot(), referenceVisitData, 0);
-        this.comparisonVisitData = new TreeNodeVisitData(comparisonExpression.getNodeCount());
-        this.comparisonExpression.depthFirstVisit(null, comparisonExpression.getRoot(), comparisonVisitData, 0);
+        // the visit data is only used while the results are computed.
+        this.referenceVisitData = TreeNodeVisitData.acquire(referenceExpression.getNodeCount());
+        this.comparisonVisitData = TreeNodeVisitData.acquire(comparisonExpression.getNodeCount());
+        try {
+            this.referenceExpression.depthFirstVisit(null, this.referenceExpression.getRoot(), referenceVisitData, 0);
+            this.comparisonExpression.depthFirstVisit(null, comparisonExpression.getRoot(), comparisonVisitData, 0);
 
-        this.isomorphicSolution = isomorphicAnalysis();
+            this.isomorphicSolution = isomorphicAnalysis();
 
-        this.isomorphicExpression = new LogicalExpressionOchreImpl(this.referenceExpression,
-                this.isomorphicSolution.solution);
+            this.isomorphicExpression = new LogicalExpressionOchreImpl(this.referenceExpression,
+                    this.isomorphicSolution.solution);
 
-        this.referenceVisitData.getNodeIdsForDepth(3).stream().forEach((nodeId) -> {
-            referenceRelationshipNodesMap.put(new RelationshipKey(nodeId, this.referenceExpression), nodeId);
-        });
-        this.comparisonVisitData.getNodeIdsForDepth(3).stream().forEach((nodeId) -> {
-            comparisonRelationshipNodesMap.put(new RelationshipKey(nodeId, this.comparisonExpression), nodeId);
-        });
-        computeAdditions();
-        computeDeletions();
+            this.referenceVisitData.getNodeIdsForDepth(3).stream().forEach((nodeId) -> {
+                referenceRelationshipNodesMap.put(new RelationshipKey(nodeId, this.referenceExpression), nodeId);
+            });
+            this.comparisonVisitData.getNodeIdsForDepth(3).stream().forEach((nodeId) -> {
+                comparisonRelationshipNodesMap.put(new RelationshipKey(nodeId, this.comparisonExpression), nodeId);
+            });
+            computeAdditions();
+            computeDeletions();
+        } finally {
+            this.comparisonVisitData.release();
+            this.referenceVisitData.release();
+            this.comparisonVisitData = null;
+            this.referenceVisitData = null;
+        }
     }
 
+    // relationship roots are returned in key order.
     @Override
     public Stream<LogicNode> getDeletedRelationshipRoots() {
-        TreeSet<RelationshipKey> deletedRelationshipRoots = new TreeSet<>(comparisonRelationshipNodesMap.keySet());
-        deletedRelationshipRoots.removeAll(referenceRelationshipNodesMap.keySet());
-        return deletedRelationshipRoots.stream().map((RelationshipKey key) -> comparisonExpression.getNode(comparisonRelationshipNodesMap.get(key)));
+        return comparisonRelationshipNodesMap.keySet().stream()
+                .filter((RelationshipKey key) -> !referenceRelationshipNodesMap.containsKey(key))
+                .sorted()
+                .map((RelationshipKey key) -> comparisonExpression.getNode(comparisonRelationshipNodesMap.get(key)));
     }
 
     @Override
     public Stream<LogicNode> getAddedRelationshipRoots() {
-        TreeSet<RelationshipKey> addedRelationshipRoots = new TreeSet<>(referenceRelationshipNodesMap.keySet());
-        addedRelationshipRoots.removeAll(comparisonRelationshipNodesMap.keySet());
-        return addedRelationshipRoots.stream().map((RelationshipKey key) -> referenceExpression.getNode(referenceRelationshipNodesMap.get(key)));
+        return referenceRelationshipNodesMap.keySet().stream()
+                .filter((RelationshipKey key) -> !comparisonRelationshipNodesMap.containsKey(key))
+                .sorted()
+                .map((RelationshipKey key) -> referenceExpression.getNode(referenceRelationshipNodesMap.get(key)));
     }
 
     @Override
     public Stream<LogicNode> getSharedRelationshipRoots() {
-        TreeSet<RelationshipKey> sharedRelationshipRoots = new TreeSet<>(referenceRelationshipNodesMap.keySet());
-        sharedRelationshipRoots.retainAll(comparisonRelationshipNodesMap.keySet());
-        return sharedRelationshipRoots.stream().map((RelationshipKey key) -> referenceExpression.getNode(referenceRelationshipNodesMap.get(key)));
+        return referenceRelationshipNodesMap.keySet().stream()
+                .filter((RelationshipKey key) -> comparisonRelationshipNodesMap.containsKey(key))
+                .sorted()
+                .map((RelationshipKey key) -> referenceExpression.getNode(referenceRelationshipNodesMap.get(key)));
     }
 
     @Override
@@ -309,78 +336,178 @@ public class IsomorphicResultsBottomUp implements IsomorphicResults {
             nodesToTry = nextSetToTry;
         }
 
-        return possibleSolutions.stream().max((IsomorphicSolution o1, IsomorphicSolution o2)
-                -> Integer.compare(o1.getScore(), o2.getScore())).get();
+        // solutions are ordered by score, then by solution, so equal scores
+        // don't leave the choice to hash order.
+        return possibleSolutions.stream().max(Comparator.naturalOrder()).get();
     }
 
     /**
+     * Generate the solutions for the next depth of the tree, trying the
+     * possible logicNodes for each reference node in reference node order.
+     * At each reference node, every solution is extended with each possible
+     * logicNode that keeps it legal, and solutions that cannot be extended
+     * are dropped, unless no solution can be extended, in which case the
+     * solutions are kept unchanged. So all the generated solutions have the
+     * same score.
+     *
+     * Rather than generating the solutions for each reference node in turn,
+     * the search first decides, depth first, for which reference nodes some
+     * solution can be extended, and then generates only the solutions that
+     * are extended at those reference nodes.
      *
      * @param incomingPossibleSolutions the incoming set of solutions, to seed
      * the generation for this depth
      * @param possibleSolutionMap The set of possible logicNodes to consider for the
      * next depth of the tree.
-     * @return A set of possible solutions
+     * @return A set of possible solutions, generated from at most
+     * {@link #MAX_CANDIDATE_SOLUTIONS} candidates, or from more if needed to
+     * generate one solution.
      *
      */
-    public Set<IsomorphicSolution> generatePossibleSolutions(Set<IsomorphicSolution> incomingPossibleSolutions,
+    private Set<IsomorphicSolution> generatePossibleSolutions(Set<IsomorphicSolution> incomingPossibleSolutions,
                                                                     Map<Integer, SortedSet<IsomorphicSearchBottomUpNode>> possibleSolutionMap) {
+        int[] referenceNodeIds = new int[possibleSolutionMap.size()];
+        int[][] candidateNodeIds = new int[possibleSolutionMap.size()][];
+        int searchDepth = 0;
+        for (Map.Entry<Integer, SortedSet<IsomorphicSearchBottomUpNode>> entry : possibleSolutionMap.entrySet()) {
+            LogicNode referenceNode = referenceExpression.getNode(entry.getKey());
+            referenceNodeIds[searchDepth] = entry.getKey();
+            candidateNodeIds[searchDepth] = entry.getValue().stream()
+                    .mapToInt((isomorphicSearchNode) -> isomorphicSearchNode.nodeId)
+                    .distinct()
+                    .filter((comparisonNodeId) -> comparisonExpression.getNode(comparisonNodeId).equals(referenceNode))
+                    .toArray();
+            searchDepth++;
+        }
 
+        // sorted, so the candidates generated before reaching the limit don't
+        // depend on hash order.
+        int[][] incomingSolutions = incomingPossibleSolutions.stream().sorted()
+                .map((incomingSolution) -> incomingSolution.getSolution().clone())
+                .toArray(int[][]::new);
+        SolutionSearch search = new SolutionSearch(referenceNodeIds, candidateNodeIds);
+        // a solution generated so far, which usually shows a reference node
+        // can be extended without searching.
+        int[] witness = incomingSolutions.length == 0 ? null : incomingSolutions[0].clone();
+        for (searchDepth = 0; searchDepth < referenceNodeIds.length; searchDepth++) {
+            boolean extendable = witness != null && search.isExtendable(witness, searchDepth, searchDepth);
+            for (int i = 0; !extendable && i < incomingSolutions.length; i++) {
+                extendable = search.isExtendable(incomingSolutions[i], 0, searchDepth);
+            }
+            if (extendable) {
+                search.extended[searchDepth] = true;
+                witness = search.extendedSolution;
+            }
+        }
         Set<IsomorphicSolution> possibleSolutions = new HashSet<>();
-        possibleSolutions.addAll(incomingPossibleSolutions);
-
-        for (Map.Entry<Integer, SortedSet<IsomorphicSearchBottomUpNode>> entry : possibleSolutionMap.entrySet()) {
-            possibleSolutions = generatePossibleSolutionsForNode(
-                    entry.getKey(),
-                    entry.getValue(),
-                    possibleSolutions);
+        for (int[] incomingSolution : incomingSolutions) {
+            search.generate(incomingSolution, 0, possibleSolutions);
+        }
+        if (search.isLimitReached()) {
+            LOG.warn("Isomorphic search for concept {} stopped after {} candidate solutions, "
+                    + "the comparison may not be minimal.", referenceExpression.conceptSequence,
+                    search.candidatesGenerated);
         }
         if (possibleSolutions.isEmpty()) {
             return incomingPossibleSolutions;
         }
+        return possibleSolutions;
+    }
 
-        HashMap<Integer, HashSet<IsomorphicSolution>> scoreSolutionMap = new HashMap<>();
-        int maxScore = 0;
-        for (IsomorphicSolution solution: possibleSolutions) {
-            if (solution.getScore() >= maxScore) {
-                maxScore = solution.getScore();
-                HashSet<IsomorphicSolution> maxScoreSet = scoreSolutionMap.get(maxScore);
-                if (maxScoreSet == null) {
-                    maxScoreSet = new HashSet<>();
-                    scoreSolutionMap.put(maxScore, maxScoreSet);
-                }
-                maxScoreSet.add(solution);
-            }
+    /**
+     * The state of a search of one depth of the tree. Solutions are changed in
+     * place while searching, and copied only when generated.
+     */
+    private class SolutionSearch {
+
+        final int[] referenceNodeIds;
+        final int[][] candidateNodeIds;
+        /**
+         * True for each reference node for which some solution can be
+         * extended. Decided in reference node order.
+         */
+        final boolean[] extended;
+        /**
+         * A copy of the solution last found to be extendable, as extended.
+         */
+        int[] extendedSolution;
+        int candidatesGenerated = 0;
+
+        SolutionSearch(int[] referenceNodeIds, int[][] candidateNodeIds) {
+            this.referenceNodeIds = referenceNodeIds;
+            this.candidateNodeIds = candidateNodeIds;
+            this.extended = new boolean[referenceNodeIds.length];
         }
 
-        return scoreSolutionMap.get(maxScore);
-    }
+        private boolean isLimitReached() {
+            return candidatesGenerated >= MAX_CANDIDATE_SOLUTIONS;
+        }
 
-    private Set<IsomorphicSolution> generatePossibleSolutionsForNode(int solutionNodeId,
-                                                                     Set<IsomorphicSearchBottomUpNode> incomingPossibleNodes,
-                                                                     Set<IsomorphicSolution> possibleSolutions) {
-
-        // Using a set to eliminate duplicate solutions. 
-        Set<IsomorphicSolution> outgoingPossibleNodes = new HashSet<>();
-
-        possibleSolutions.forEach((incomingPossibleSolution) -> {
-            incomingPossibleNodes.forEach((isomorphicSearchNode) -> {
-                if (comparisonExpression.getNode(isomorphicSearchNode.nodeId)
-                        .equals(referenceExpression.getNode(solutionNodeId))) {
-                    int[] generatedPossibleSolution = new int[incomingPossibleSolution.getSolution().length];
-                    System.arraycopy(incomingPossibleSolution.getSolution(), 0,
-                            generatedPossibleSolution, 0, generatedPossibleSolution.length);
-                    generatedPossibleSolution[solutionNodeId] = isomorphicSearchNode.nodeId;
-                    IsomorphicSolution isomorphicSolution = new IsomorphicSolution(generatedPossibleSolution, referenceVisitData, comparisonVisitData);
-                    if (isomorphicSolution.legal) {
-                        outgoingPossibleNodes.add(isomorphicSolution);
+        /**
+         * @return true if the candidate for the reference node at the search
+         * depth keeps the solution legal. The solution keeps the candidate.
+         */
+        private boolean tryCandidate(int[] solution, int searchDepth, int comparisonNodeId) {
+            solution[referenceNodeIds[searchDepth]] = comparisonNodeId;
+            candidatesGenerated++;
+            return IsomorphicSolution.computeScore(solution, referenceVisitData, comparisonVisitData) >= 0;
+        }
+
+        /**
+         * @return true if a solution generated from the solution up to the
+         * search depth can be extended at the target depth, in which case it
+         * is copied to {@link #extendedSolution}. Gives up, and returns
+         * false, once the limit is reached.
+         */
+        boolean isExtendable(int[] solution, int searchDepth, int targetDepth) {
+            if (isLimitReached()) {
+                return false;
+            }
+            boolean atTarget = searchDepth == targetDepth;
+            if (!atTarget && !extended[searchDepth]) {
+                return isExtendable(solution, searchDepth + 1, targetDepth);
+            }
+            int previousNodeId = solution[referenceNodeIds[searchDepth]];
+            boolean extendable = false;
+            for (int comparisonNodeId : candidateNodeIds[searchDepth]) {
+                if (tryCandidate(solution, searchDepth, comparisonNodeId)
+                        && (atTarget || isExtendable(solution, searchDepth + 1, targetDepth))) {
+                    if (atTarget) {
+                        extendedSolution = solution.clone();
                     }
+                    extendable = true;
+                    break;
                 }
-            });
-        });
-        if (outgoingPossibleNodes.isEmpty()) {
-            outgoingPossibleNodes.addAll(possibleSolutions);
+            }
+            solution[referenceNodeIds[searchDepth]] = previousNodeId;
+            return extendable;
+        }
+
+        /**
+         * Add the solutions generated from the solution, from the search depth
+         * on, to the possible solutions. Stops once the limit is reached and
+         * a solution has been generated.
+         */
+        void generate(int[] solution, int searchDepth, Set<IsomorphicSolution> possibleSolutions) {
+            if (isLimitReached() && !possibleSolutions.isEmpty()) {
+                return;
+            }
+            if (searchDepth == referenceNodeIds.length) {
+                possibleSolutions.add(new IsomorphicSolution(solution.clone(), referenceVisitData, comparisonVisitData));
+                return;
+            }
+            if (!extended[searchDepth]) {
+                generate(solution, searchDepth + 1, possibleSolutions);
+                return;
+            }
+            int previousNodeId = solution[referenceNodeIds[searchDepth]];
+            for (int comparisonNodeId : candidateNodeIds[searchDepth]) {
+                if (tryCandidate(solution, searchDepth, comparisonNodeId)) {
+                    generate(solution, searchDepth + 1, possibleSolutions);
+                }
+            }
+            solution[referenceNodeIds[searchDepth]] = previousNodeId;
         }
-        return outgoingPossibleNodes;
     }
 
     /**
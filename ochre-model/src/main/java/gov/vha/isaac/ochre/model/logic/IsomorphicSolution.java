@@ -4,8 +4,7 @@ import gov.vha.isaac.ochre.api.tree.TreeNodeVisitData;
 
 import java.util.Arrays;
 
-import org.apache.mahout.math.map.OpenIntObjectHashMap;
-import org.apache.mahout.math.set.OpenIntHashSet;
+import org.apache.mahout.math.map.OpenIntIntHashMap;
 
 /**
  * Created by kec on 7/19/15.
@@ -75,58 +74,63 @@ public class IsomorphicSolution implements Comparable<IsomorphicSolution> {
     }
 
     final void score(TreeNodeVisitData referenceTreeVisitData, TreeNodeVisitData comparisonTreeVisitData) {
-        OpenIntHashSet parentNodeIds = new OpenIntHashSet(solution.length);
-        OpenIntHashSet usedNodeIds = new OpenIntHashSet(solution.length);
-        OpenIntObjectHashMap<OpenIntHashSet> siblingGroupToNodeSequenceMap = new OpenIntObjectHashMap<>();
+        score = computeScore(solution, referenceTreeVisitData, comparisonTreeVisitData);
+        legal = score >= 0;
+    }
+
+    /**
+     * Score a solution without constructing an {@code IsomorphicSolution}, so
+     * candidate solutions can be scored in place while searching.
+     *
+     * @param solution the solution to score
+     * @param referenceTreeVisitData
+     * @param comparisonTreeVisitData
+     * @return the score of the solution, or a negative number if the solution
+     * is not legal.
+     */
+    static int computeScore(int[] solution, TreeNodeVisitData referenceTreeVisitData,
+                            TreeNodeVisitData comparisonTreeVisitData) {
+        int maxNodeId = -1;
+        for (int nodeId : solution) {
+            maxNodeId = Math.max(maxNodeId, nodeId);
+        }
+        boolean[] usedNodeIds = new boolean[maxNodeId + 1];
+        boolean[] parentNodeIds = new boolean[solution.length];
+        // For all logicNodes corresponding to a sibling group in the reference expression, the logicNodes in the
+        // comparison expression must all be in the same sibling group in the comparison expression
+        OpenIntIntHashMap siblingGroupToComparisonSiblingGroupMap = new OpenIntIntHashMap();
+        boolean siblingGroupsMatch = true;
         int sum = 0;
         // give a bonus point ever time a common parent is used in the solution.
         int bonus = 0;
         for (int i = 0; i < solution.length; i++) {
             if (solution[i] >= 0) {
                 sum++;
-                if (usedNodeIds.contains(solution[i])) {
-                    legal = false;
-                    score = -1;
-                    return;
-                } else {
-                    usedNodeIds.add(solution[i]);
+                if (usedNodeIds[solution[i]]) {
+                    return -1;
                 }
-                int referenceParentNodeId = referenceTreeVisitData.getPredecessorSequence(i);
+                usedNodeIds[solution[i]] = true;
                 int siblingGroup = referenceTreeVisitData.getSiblingGroupForSequence(i);
-                OpenIntHashSet nodesInSiblingGroup = siblingGroupToNodeSequenceMap.get(siblingGroup);
-                if (nodesInSiblingGroup == null) {
-                    nodesInSiblingGroup = new OpenIntHashSet();
-                    siblingGroupToNodeSequenceMap.put(siblingGroup, nodesInSiblingGroup);
+                int comparisonSiblingGroup = comparisonTreeVisitData.getSiblingGroupForSequence(solution[i]);
+                if (!siblingGroupToComparisonSiblingGroupMap.containsKey(siblingGroup)) {
+                    siblingGroupToComparisonSiblingGroupMap.put(siblingGroup, comparisonSiblingGroup);
+                } else if (siblingGroupToComparisonSiblingGroupMap.get(siblingGroup) != comparisonSiblingGroup) {
+                    siblingGroupsMatch = false;
                 }
-                nodesInSiblingGroup.add(i);
+                int referenceParentNodeId = referenceTreeVisitData.getPredecessorSequence(i);
                 if (referenceParentNodeId >= 0) {
-                    if (parentNodeIds.contains(referenceParentNodeId)) {
+                    if (parentNodeIds[referenceParentNodeId]) {
                         bonus++;
                     } else {
-                        parentNodeIds.add(referenceParentNodeId);
+                        parentNodeIds[referenceParentNodeId] = true;
                     }
                 }
             }
         }
-        // For all logicNodes corresponding to a sibling group in the reference expression, the logicNodes in the
-        // comparison expression must all be in the same sibling group in the comparison expression
-        for (int siblingGroup: siblingGroupToNodeSequenceMap.keys().elements()) {
-            OpenIntHashSet groupMembers = siblingGroupToNodeSequenceMap.get(siblingGroup);
-            int comparisonSiblingGroup = -1;
-            for (int groupMember: groupMembers.keys().elements()) {
-                if (comparisonSiblingGroup == -1) {
-                    comparisonSiblingGroup = comparisonTreeVisitData.getSiblingGroupForSequence(solution[groupMember]);
-                } else {
-                    if (comparisonSiblingGroup != comparisonTreeVisitData.getSiblingGroupForSequence(solution[groupMember])) {
-                        legal = false;
-                        score = -2;
-                        return;
-                    }
-                }
-            }
+        if (!siblingGroupsMatch) {
+            return -2;
         }
-
-        score =  sum + bonus;
+        return sum + bonus;
     }
 
     @Override
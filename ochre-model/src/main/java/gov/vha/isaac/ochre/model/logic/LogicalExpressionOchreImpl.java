@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.apache.mahout.math.list.IntArrayList;
 
@@ -59,6 +60,19 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
     ArrayList<LogicNode> logicNodes = new ArrayList<>();
     int rootNode = 0;
 
+    /**
+     * The serialized nodes this expression was read from, or null if it was
+     * built. Nodes that have not been requested are null in logicNodes.
+     */
+    private byte[][] nodeData;
+    private DataSource dataSource;
+    /**
+     * True once nodes have been added or reordered, so nodeData no longer
+     * matches the nodes.
+     */
+    private boolean modified = false;
+    private int decodingNodeIndex = -1;
+
     public LogicalExpressionOchreImpl() {
     }
 
@@ -162,153 +176,323 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
         this.conceptSequence = conceptId;
     }
 
+    /**
+     * The nodes are not decoded until they are requested, and the node data
+     * is read in place, so callers that only need a few nodes, or that use the
+     * primitive accessors such as {@link #getNodeSemantic(int)}, do not pay to
+     * decode the whole graph.
+     *
+     * @param nodeDataArray the serialized nodes, which must not be modified
+     * while this expression is in use.
+     * @param dataSource
+     */
     public LogicalExpressionOchreImpl(byte[][] nodeDataArray, DataSource dataSource) {
+        this.nodeData = nodeDataArray;
+        this.dataSource = dataSource;
+        logicNodes = new ArrayList<>(Collections.nCopies(nodeDataArray.length, (LogicNode) null));
+    }
+
+    private synchronized LogicNode decodeNode(int nodeIndex) {
+        LogicNode logicNode = logicNodes.get(nodeIndex);
+        if (logicNode != null) {
+            return logicNode;
+        }
         try {
-            logicNodes = new ArrayList<>(nodeDataArray.length);
-            for (byte[] nodeDataArray1 : nodeDataArray) {
-                DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(nodeDataArray1));
-                byte nodeSemanticIndex = dataInputStream.readByte();
-                NodeSemantic nodeSemantic = NODE_SEMANTICS[nodeSemanticIndex];
-                switch (nodeSemantic) {
-                    case DEFINITION_ROOT:
-                        Root(dataInputStream);
-                        break;
-                    case NECESSARY_SET:
-                        NecessarySet(dataInputStream);
-                        break;
-                    case SUFFICIENT_SET:
-                        SufficientSet(dataInputStream);
-                        break;
-                    case AND:
-                        And(dataInputStream);
-                        break;
-                    case OR:
-                        Or(dataInputStream);
-                        break;
-                    case DISJOINT_WITH:
-                        DisjointWith(dataInputStream);
-                        break;
-                    case ROLE_ALL:
-                        switch (dataSource) {
-                            case EXTERNAL:
-                                AllRoleWithUuids(dataInputStream);
-                                break;
-                            case INTERNAL:
-                                AllRole(dataInputStream);
-                                break;
-                            default:
-                                throw new UnsupportedOperationException("Can't handle: " + dataSource);
-                        }
+            byte[] nodeBytes = nodeData[nodeIndex];
+            DataInputStream dataInputStream
+                    = new DataInputStream(new ByteArrayInputStream(nodeBytes, 1, nodeBytes.length - 1));
+            NodeSemantic nodeSemantic = NODE_SEMANTICS[nodeBytes[0]];
+            decodingNodeIndex = nodeIndex;
+            switch (nodeSemantic) {
+                case DEFINITION_ROOT:
+                    Root(dataInputStream);
+                    break;
+                case NECESSARY_SET:
+                    NecessarySet(dataInputStream);
+                    break;
+                case SUFFICIENT_SET:
+                    SufficientSet(dataInputStream);
+                    break;
+                case AND:
+                    And(dataInputStream);
+                    break;
+                case OR:
+                    Or(dataInputStream);
+                    break;
+                case DISJOINT_WITH:
+                    DisjointWith(dataInputStream);
+                    break;
+                case ROLE_ALL:
+                    switch (dataSource) {
+                        case EXTERNAL:
+                            AllRoleWithUuids(dataInputStream);
+                            break;
+                        case INTERNAL:
+                            AllRole(dataInputStream);
+                            break;
+                        default:
+                            throw new UnsupportedOperationException("Can't handle: " + dataSource);
+                    }
 
-                        break;
-                    case ROLE_SOME:
-                        switch (dataSource) {
-                            case EXTERNAL:
-                                SomeRoleWithUuids(dataInputStream);
-                                break;
-                            case INTERNAL:
-                                SomeRole(dataInputStream);
-                                break;
-                            default:
-                                throw new UnsupportedOperationException("Can't handle: " + dataSource);
-                        }
+                    break;
+                case ROLE_SOME:
+                    switch (dataSource) {
+                        case EXTERNAL:
+                            SomeRoleWithUuids(dataInputStream);
+                            break;
+                        case INTERNAL:
+                            SomeRole(dataInputStream);
+                            break;
+                        default:
+                            throw new UnsupportedOperationException("Can't handle: " + dataSource);
+                    }
 
-                        break;
-                    case FEATURE:
-                        switch (dataSource) {
-                            case EXTERNAL:
-                                FeatureWithUuids(dataInputStream);
-                                break;
-                            case INTERNAL:
-                                Feature(dataInputStream);
-                                break;
-                            default:
-                                throw new UnsupportedOperationException("Can't handle: " + dataSource);
-                        }
+                    break;
+                case FEATURE:
+                    switch (dataSource) {
+                        case EXTERNAL:
+                            FeatureWithUuids(dataInputStream);
+                            break;
+                        case INTERNAL:
+                            Feature(dataInputStream);
+                            break;
+                        default:
+                            throw new UnsupportedOperationException("Can't handle: " + dataSource);
+                    }
 
-                        break;
-                    case LITERAL_BOOLEAN:
-                        BooleanLiteral(dataInputStream);
-                        break;
-                    case LITERAL_FLOAT:
-                        FloatLiteral(dataInputStream);
-                        break;
-                    case LITERAL_INSTANT:
-                        InstantLiteral(dataInputStream);
-                        break;
-                    case LITERAL_INTEGER:
-                        IntegerLiteral(dataInputStream);
-                        break;
-                    case LITERAL_STRING:
-                        StringLiteral(dataInputStream);
-                        break;
-                    case CONCEPT:
-                        switch (dataSource) {
-                            case EXTERNAL:
-                                ConceptWithUuids(dataInputStream);
-                                break;
-                            case INTERNAL:
-                                Concept(dataInputStream);
-                                break;
-                            default:
-                                throw new UnsupportedOperationException("Can't handle: " + dataSource);
-                        }
+                    break;
+                case LITERAL_BOOLEAN:
+                    BooleanLiteral(dataInputStream);
+                    break;
+                case LITERAL_FLOAT:
+                    FloatLiteral(dataInputStream);
+                    break;
+                case LITERAL_INSTANT:
+                    InstantLiteral(dataInputStream);
+                    break;
+                case LITERAL_INTEGER:
+                    IntegerLiteral(dataInputStream);
+                    break;
+                case LITERAL_STRING:
+                    StringLiteral(dataInputStream);
+                    break;
+                case CONCEPT:
+                    switch (dataSource) {
+                        case EXTERNAL:
+                            ConceptWithUuids(dataInputStream);
+                            break;
+                        case INTERNAL:
+                            Concept(dataInputStream);
+                            break;
+                        default:
+                            throw new UnsupportedOperationException("Can't handle: " + dataSource);
+                    }
 
-                        break;
-                    case TEMPLATE:
-                        switch (dataSource) {
-                            case EXTERNAL:
-                                TemplateWithUuids(dataInputStream);
-                                break;
-                            case INTERNAL:
-                                Template(dataInputStream);
-                                break;
-                            default:
-                                throw new UnsupportedOperationException("Can't handle: " + dataSource);
-                        }
+                    break;
+                case TEMPLATE:
+                    switch (dataSource) {
+                        case EXTERNAL:
+                            TemplateWithUuids(dataInputStream);
+                            break;
+                        case INTERNAL:
+                            Template(dataInputStream);
+                            break;
+                        default:
+                            throw new UnsupportedOperationException("Can't handle: " + dataSource);
+                    }
 
-                        break;
-                    case SUBSTITUTION_BOOLEAN:
-                        BooleanSubstitution(dataInputStream);
-                        break;
-                    case SUBSTITUTION_CONCEPT:
-                        ConceptSubstitution(dataInputStream);
-                        break;
-                    case SUBSTITUTION_FLOAT:
-                        FloatSubstitution(dataInputStream);
-                        break;
-                    case SUBSTITUTION_INSTANT:
-                        InstantSubstitution(dataInputStream);
-                        break;
-                    case SUBSTITUTION_INTEGER:
-                        IntegerSubstitution(dataInputStream);
-                        break;
-                    case SUBSTITUTION_STRING:
-                        StringSubstitution(dataInputStream);
-                        break;
-                    default:
-                        throw new UnsupportedOperationException("Can't handle: " + nodeSemantic);
-                }
+                    break;
+                case SUBSTITUTION_BOOLEAN:
+                    BooleanSubstitution(dataInputStream);
+                    break;
+                case SUBSTITUTION_CONCEPT:
+                    ConceptSubstitution(dataInputStream);
+                    break;
+                case SUBSTITUTION_FLOAT:
+                    FloatSubstitution(dataInputStream);
+                    break;
+                case SUBSTITUTION_INSTANT:
+                    InstantSubstitution(dataInputStream);
+                    break;
+                case SUBSTITUTION_INTEGER:
+                    IntegerSubstitution(dataInputStream);
+                    break;
+                case SUBSTITUTION_STRING:
+                    StringSubstitution(dataInputStream);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Can't handle: " + nodeSemantic);
             }
-            logicNodes.trimToSize();
+            return logicNodes.get(nodeIndex);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            decodingNodeIndex = -1;
         }
     }
 
     @Override
     public boolean contains(NodeSemantic semantic) {
-        return logicNodes.stream().anyMatch((node) -> (node.getNodeSemantic() == semantic));
+        return IntStream.range(0, logicNodes.size()).anyMatch((nodeIndex) -> (getNodeSemantic(nodeIndex) == semantic));
     }
 
     @Override
     public Stream<LogicNode> getNodesOfType(NodeSemantic semantic) {
-        return logicNodes.stream().filter((node) -> (node.getNodeSemantic() == semantic));
+        return IntStream.range(0, logicNodes.size())
+                .filter((nodeIndex) -> (getNodeSemantic(nodeIndex) == semantic))
+                .mapToObj((nodeIndex) -> getNode(nodeIndex));
     }
 
     @Override
     public boolean isMeaningful() {
-        return logicNodes.stream().anyMatch((node) -> (meaningfulNodeSemantics.contains(node.getNodeSemantic())));
+        return IntStream.range(0, logicNodes.size())
+                .anyMatch((nodeIndex) -> (meaningfulNodeSemantics.contains(getNodeSemantic(nodeIndex))));
+    }
+
+    /**
+     * @param nodeIndex
+     * @return the semantic of the node, without decoding the node.
+     */
+    public NodeSemantic getNodeSemantic(int nodeIndex) {
+        if (isSerialized(nodeIndex)) {
+            return NODE_SEMANTICS[nodeData[nodeIndex][0]];
+        }
+        return getNode(nodeIndex).getNodeSemantic();
+    }
+
+    /**
+     * @param nodeIndex
+     * @return the indexes of the children of the node, without decoding the
+     * node.
+     */
+    public int[] getChildIndices(int nodeIndex) {
+        if (isSerialized(nodeIndex)) {
+            switch (getNodeSemantic(nodeIndex)) {
+                case DEFINITION_ROOT:
+                case NECESSARY_SET:
+                case SUFFICIENT_SET:
+                case AND:
+                case OR:
+                case DISJOINT_WITH:
+                case ROLE_ALL:
+                case ROLE_SOME:
+                case FEATURE:
+                    byte[] nodeBytes = nodeData[nodeIndex];
+                    int[] childIndices = new int[getShort(nodeBytes, 3)];
+                    for (int i = 0; i < childIndices.length; i++) {
+                        childIndices[i] = getShort(nodeBytes, 5 + 2 * i);
+                    }
+                    return childIndices;
+                default:
+                    return new int[0];
+            }
+        }
+        LogicNode[] children = getNode(nodeIndex).getChildren();
+        int[] childIndices = new int[children.length];
+        for (int i = 0; i < children.length; i++) {
+            childIndices[i] = children[i].getNodeIndex();
+        }
+        return childIndices;
+    }
+
+    /**
+     * @param nodeIndex the index of a {@code CONCEPT} node.
+     * @return the concept sequence of the node, without decoding the node.
+     */
+    public int getConceptSequenceForNode(int nodeIndex) {
+        if (isSerialized(nodeIndex) && dataSource == DataSource.INTERNAL
+                && getNodeSemantic(nodeIndex) == NodeSemantic.CONCEPT) {
+            return getInt(nodeData[nodeIndex], 3);
+        }
+        return ((ConceptNodeWithSequences) getNode(nodeIndex)).getConceptSequence();
+    }
+
+    /**
+     * @param nodeIndex the index of a {@code ROLE_ALL}, {@code ROLE_SOME} or
+     * {@code FEATURE} node.
+     * @return the type concept sequence of the node, without decoding the
+     * node.
+     */
+    public int getTypeConceptSequenceForNode(int nodeIndex) {
+        if (isSerialized(nodeIndex) && dataSource == DataSource.INTERNAL) {
+            switch (getNodeSemantic(nodeIndex)) {
+                case ROLE_ALL:
+                case ROLE_SOME:
+                case FEATURE:
+                    byte[] nodeBytes = nodeData[nodeIndex];
+                    return getInt(nodeBytes, 5 + 2 * getShort(nodeBytes, 3));
+                default:
+                    break;
+            }
+        }
+        return ((TypedNodeWithSequences) getNode(nodeIndex)).getTypeConceptSequence();
+    }
+
+    /**
+     * @return the sequences of the concepts of the {@code CONCEPT} nodes, and
+     * of the types of the role and feature nodes, of this expression.
+     */
+    public ConceptSequenceSet getReferencedConceptSequences() {
+        IntStream.Builder conceptSequences = IntStream.builder();
+        for (int nodeIndex = 0; nodeIndex < logicNodes.size(); nodeIndex++) {
+            switch (getNodeSemantic(nodeIndex)) {
+                case CONCEPT:
+                    conceptSequences.add(getConceptSequenceForNode(nodeIndex));
+                    break;
+                case ROLE_ALL:
+                case ROLE_SOME:
+                case FEATURE:
+                    conceptSequences.add(getTypeConceptSequenceForNode(nodeIndex));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return ConceptSequenceSet.of(conceptSequences.build());
+    }
+
+    /**
+     * @param setSemantic {@code NECESSARY_SET} or {@code SUFFICIENT_SET}
+     * @return the sequences of the concepts of the {@code CONCEPT} nodes under
+     * the {@code AND} nodes of the sets of the root with the given semantic,
+     * which are the parents the taxonomy records for this expression.
+     */
+    public ConceptSequenceSet getParentConceptSequences(NodeSemantic setSemantic) {
+        IntStream.Builder parentSequences = IntStream.builder();
+        if (logicNodes.isEmpty()) {
+            return new ConceptSequenceSet();
+        }
+        for (int setIndex : getChildIndices(rootNode)) {
+            if (getNodeSemantic(setIndex) == setSemantic) {
+                for (int andIndex : getChildIndices(setIndex)) {
+                    if (getNodeSemantic(andIndex) == NodeSemantic.AND) {
+                        for (int childIndex : getChildIndices(andIndex)) {
+                            if (getNodeSemantic(childIndex) == NodeSemantic.CONCEPT) {
+                                parentSequences.add(getConceptSequenceForNode(childIndex));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return ConceptSequenceSet.of(parentSequences.build());
+    }
+
+    /**
+     * @return true if the node has not been decoded, so may be read from the
+     * serialized data.
+     */
+    private synchronized boolean isSerialized(int nodeIndex) {
+        return nodeData != null && logicNodes.get(nodeIndex) == null;
+    }
+
+    private static int getShort(byte[] bytes, int offset) {
+        return (short) (((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff));
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
     }
 
     @Override
@@ -326,20 +510,38 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
         if (logicNodes.isEmpty()) {
             return Root();
         }
-        return (RootNode) logicNodes.get(rootNode);
+        return (RootNode) getNode(rootNode);
     }
 
+    /**
+     * The nodes of an expression read from serialized data are decoded, and
+     * read, while holding the lock of the expression, so threads that share
+     * the expression only see fully decoded nodes.
+     */
     @Override
     public LogicNode getNode(int nodeIndex) {
+        if (nodeData != null) {
+            return decodeNode(nodeIndex);
+        }
         return logicNodes.get(nodeIndex);
     }
 
+    /**
+     * @param dataTarget
+     * @return the serialized nodes. If the expression was read from data for
+     * the same target, and has not been modified, the data it was read from is
+     * returned.
+     */
     @Override
     public byte[][] getData(DataTarget dataTarget) {
         init();
+        if (nodeData != null && !modified
+                && (dataSource == DataSource.INTERNAL) == (dataTarget == DataTarget.INTERNAL)) {
+            return nodeData;
+        }
         byte[][] byteArrayArray = new byte[logicNodes.size()][];
         for (int index = 0; index < byteArrayArray.length; index++) {
-            byteArrayArray[index] = logicNodes.get(index).getBytes(dataTarget);
+            byteArrayArray[index] = getNode(index).getBytes(dataTarget);
         }
         return byteArrayArray;
     }
@@ -349,10 +551,24 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
     }
 
     public void addNode(LogicNode logicNode) {
+        if (decodingNodeIndex >= 0) {
+            logicNode.setNodeIndex((short) decodingNodeIndex);
+            logicNodes.set(decodingNodeIndex, logicNode);
+            return;
+        }
+        markModified();
         logicNode.setNodeIndex((short) logicNodes.size());
         logicNodes.add(logicNode);
     }
 
+    /**
+     * Called when the nodes change, so {@link #getData(DataTarget)} no longer
+     * returns the data the expression was read from.
+     */
+    public void markModified() {
+        modified = true;
+    }
+
     @Override
     public void processDepthFirst(BiConsumer<LogicNode, TreeNodeVisitData> consumer) {
         processDepthFirst(getRoot(), consumer);
@@ -367,8 +583,12 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
     @Override
     public void processDepthFirst(LogicNode fragmentRoot, BiConsumer<LogicNode, TreeNodeVisitData> consumer) {
         init();
-        TreeNodeVisitData graphVisitData = new TreeNodeVisitData(logicNodes.size());
-        depthFirstVisit(consumer, fragmentRoot, graphVisitData, 0);
+        TreeNodeVisitData graphVisitData = TreeNodeVisitData.acquire(logicNodes.size());
+        try {
+            depthFirstVisit(consumer, fragmentRoot, graphVisitData, 0);
+        } finally {
+            graphVisitData.release();
+        }
     }
 
     protected void depthFirstVisit(BiConsumer<LogicNode, TreeNodeVisitData> consumer, LogicNode logicNode,
@@ -379,14 +599,12 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
             throw new RuntimeException("Depth limit exceeded for logicNode: " + logicNode); // + " in graph: " + this);
         }
 
+        if (depth == 0) {
+            // the concepts at or above a node are computed from the predecessors, only if requested.
+            graphVisitData.setConceptsReferencedByNode((conceptSequenceSet, nodeIndex)
+                    -> getNode(nodeIndex).addConceptsReferencedByNode(conceptSequenceSet));
+        }
         graphVisitData.startNodeVisit(logicNode.getNodeIndex(), depth);
-        ConceptSequenceSet conceptsAtNodeOrAbove = new ConceptSequenceSet();
-        logicNode.addConceptsReferencedByNode(conceptsAtNodeOrAbove);
-        graphVisitData.getConceptsReferencedAtNodeOrAbove(logicNode.getNodeIndex());
-
-        logicNode.addConceptsReferencedByNode(ConceptSequenceSet.of(graphVisitData.getConceptsReferencedAtNodeOrAbove(logicNode.getNodeIndex())));
-        conceptsAtNodeOrAbove.addAll(graphVisitData.getConceptsReferencedAtNodeOrAbove(graphVisitData.getPredecessorSequence(logicNode.getNodeIndex())));
-        graphVisitData.setConceptsReferencedAtNodeOrAbove(logicNode.getNodeIndex(), conceptsAtNodeOrAbove);
 
         if (consumer != null) {
             consumer.accept(logicNode, graphVisitData);
@@ -655,10 +873,13 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
             if (this.logicNodes.size() != other.logicNodes.size()) {
                 return false;
             }
-            TreeNodeVisitData graphVisitData = new TreeNodeVisitData(logicNodes.size());
-            depthFirstVisit(null, getRoot(), graphVisitData, 0);
-
-            return graphsEqual(this.getRoot(), other.getRoot(), 0, graphVisitData.getMaxDepth());
+            TreeNodeVisitData graphVisitData = TreeNodeVisitData.acquire(logicNodes.size());
+            try {
+                depthFirstVisit(null, getRoot(), graphVisitData, 0);
+                return graphsEqual(this.getRoot(), other.getRoot(), 0, graphVisitData.getMaxDepth());
+            } finally {
+                graphVisitData.release();
+            }
         }
         return true;
     }
@@ -707,7 +928,7 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
                 }
                 int match = -1;
                 for (int possibleMatchIndex : possibleMatches.elements()) {
-                    if (graphsEqual((AbstractLogicNode) this.logicNodes.get(possibleMatchIndex), g2Child, depth + 1, maxDepth)) {
+                    if (graphsEqual((AbstractLogicNode) getNode(possibleMatchIndex), g2Child, depth + 1, maxDepth)) {
                         match = possibleMatchIndex;
                         break;
                     }
@@ -723,7 +944,10 @@ public class LogicalExpressionOchreImpl implements LogicalExpression {
     }
 
     public void sort() {
-        logicNodes.forEach((node) -> node.sort());
+        for (int nodeIndex = 0; nodeIndex < logicNodes.size(); nodeIndex++) {
+            getNode(nodeIndex).sort();
+        }
+        markModified();
     }
 
     @Override
@@ -17,28 +17,63 @@ package gov.vha.isaac.ochre.model.logic;
 
 import gov.vha.isaac.ochre.api.logic.LogicNode;
 import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import java.util.Arrays;
 
 /**
+ * The concepts referenced by a relationship, held as a sorted array so keys
+ * can be hashed and compared without iterating a set.
  *
  * @author kec
  */
 public class RelationshipKey implements Comparable<RelationshipKey> {
 
-    ConceptSequenceSet conceptsReferencedAtNodeOrBelow = new ConceptSequenceSet();
+    final int[] conceptsReferencedAtNodeOrBelow;
+    final int hashcode;
 
     public RelationshipKey(int nodeId, LogicalExpressionOchreImpl expression) {
-        addNodes(nodeId, expression);
+        ConceptSequenceSet conceptSequences = new ConceptSequenceSet();
+        addNodes(nodeId, expression, conceptSequences);
+        this.conceptsReferencedAtNodeOrBelow = conceptSequences.asArray();
+        this.hashcode = Arrays.hashCode(conceptsReferencedAtNodeOrBelow);
     }
     
-    private void addNodes(int nodeId, LogicalExpressionOchreImpl expression) {
+    private static void addNodes(int nodeId, LogicalExpressionOchreImpl expression, ConceptSequenceSet conceptSequences) {
         LogicNode logicNode = expression.getNode(nodeId);
-        expression.getNode(nodeId).addConceptsReferencedByNode(conceptsReferencedAtNodeOrBelow);
-        logicNode.getChildStream().forEach((childNode) -> addNodes(childNode.getNodeIndex(), expression));
+        logicNode.addConceptsReferencedByNode(conceptSequences);
+        logicNode.getChildStream().forEach((childNode) -> addNodes(childNode.getNodeIndex(), expression, conceptSequences));
     }
  
     @Override
     public int compareTo(RelationshipKey o) {
-        return conceptsReferencedAtNodeOrBelow.compareTo(o.conceptsReferencedAtNodeOrBelow);
+        int comparison = Integer.compare(conceptsReferencedAtNodeOrBelow.length, o.conceptsReferencedAtNodeOrBelow.length);
+        if (comparison != 0) {
+            return comparison;
+        }
+        for (int i = 0; i < conceptsReferencedAtNodeOrBelow.length; i++) {
+            comparison = Integer.compare(conceptsReferencedAtNodeOrBelow[i], o.conceptsReferencedAtNodeOrBelow[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashcode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        RelationshipKey other = (RelationshipKey) obj;
+        return hashcode == other.hashcode
+                && Arrays.equals(conceptsReferencedAtNodeOrBelow, other.conceptsReferencedAtNodeOrBelow);
     }
     
 }
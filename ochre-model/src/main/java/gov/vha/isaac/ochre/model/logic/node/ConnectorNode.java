@@ -76,6 +76,7 @@ public abstract class ConnectorNode extends AbstractLogicNode {
         for (LogicNode child : children) {
             childIndices.add(child.getNodeIndex());
         }
+        logicGraphVersion.markModified();
         sort();
     }
 
@@ -44,26 +44,55 @@ public class DynamicSememeImpl extends SememeVersionImpl<DynamicSememeImpl> impl
 
     private DynamicSememeData[] data_ = null;
 
+    /**
+     * When read from internal data, the columns are not decoded up front. Instead, we keep the
+     * serialized bytes, together with a table of the column types and column offsets, and decode
+     * individual columns on demand. These fields are null if the data was set directly, or read
+     * from external data.
+     */
+    private byte[] serialized_ = null;
+    private int serializedStart_;
+    private int serializedEnd_;
+    private DynamicSememeDataType[] columnTypes_ = null;
+    private int[] columnOffsets_ = null;
+
     public DynamicSememeImpl(SememeChronologyImpl<DynamicSememeImpl> container, int stampSequence, short versionSequence, ByteArrayDataBuffer data) {
         super(container, stampSequence, versionSequence);
 
         // read the following format - dataFieldCount [dataFieldType dataFieldBytes] [dataFieldType dataFieldBytes] ...
-        int colCount = data.getInt();
-        data_ = new DynamicSememeData[colCount];
-        for (int i = 0; i < colCount; i++) {
-            DynamicSememeDataType dt = DynamicSememeDataType.getFromToken(data.getInt());
-            if (dt == DynamicSememeDataType.UNKNOWN) {
-                data_[i] = null;
-            } else {
-                if (data.isExternalData() && dt == DynamicSememeDataType.NID) {
+        if (data.isExternalData()) {
+            int colCount = data.getInt();
+            data_ = new DynamicSememeData[colCount];
+            for (int i = 0; i < colCount; i++) {
+                DynamicSememeDataType dt = DynamicSememeDataType.getFromToken(data.getInt());
+                if (dt == DynamicSememeDataType.UNKNOWN) {
+                    data_[i] = null;
+                } else if (dt == DynamicSememeDataType.NID) {
                     UUID temp = ((DynamicSememeUUIDImpl)DynamicSememeTypeToClassUtility.typeToClass(DynamicSememeDataType.UUID, data.getByteArrayField(), 0, 0)).getDataUUID();
                     data_[i] = DynamicSememeTypeToClassUtility.typeToClass(dt, 
                             new DynamicSememeNidImpl(Get.identifierService().getNidForUuids(temp)).getData(), getAssemblageSequence(), i);
-                }
-                else {
+                } else {
                     data_[i] = DynamicSememeTypeToClassUtility.typeToClass(dt, data.getByteArrayField(), getAssemblageSequence(), i);
                 }
             }
+        } else {
+            serialized_ = data.getData();
+            serializedStart_ = data.getPositionStart() + data.getPosition();
+            int colCount = data.getInt();
+            columnTypes_ = new DynamicSememeDataType[colCount];
+            columnOffsets_ = new int[colCount];
+            for (int i = 0; i < colCount; i++) {
+                columnTypes_[i] = DynamicSememeDataType.getFromToken(data.getInt());
+                if (columnTypes_[i] == DynamicSememeDataType.UNKNOWN) {
+                    columnOffsets_[i] = -1;
+                } else {
+                    // offset of the length of the byte array field
+                    columnOffsets_[i] = data.getPositionStart() + data.getPosition();
+                    data.setPosition(data.getPosition() + 4 + data.getInt());
+                }
+            }
+            serializedEnd_ = data.getPositionStart() + data.getPosition();
+            data_ = new DynamicSememeData[colCount];
         }
     }
 
@@ -77,7 +106,10 @@ public class DynamicSememeImpl extends SememeVersionImpl<DynamicSememeImpl> impl
         super.writeVersionData(data);
         //Write with the following format - 
         //dataFieldCount [dataFieldType dataFieldBytes] [dataFieldType dataFieldBytes] ...
-        if (getData() != null) {
+        if (serialized_ != null && !data.isExternalData()) {
+            // unchanged since it was read, copy the serialized columns as is
+            data.put(serialized_, serializedStart_, serializedEnd_ - serializedStart_);
+        } else if (getData() != null) {
             data.putInt(getData().length);
             for (DynamicSememeData column : getData()) {
                 if (column == null) {
@@ -110,12 +142,93 @@ public class DynamicSememeImpl extends SememeVersionImpl<DynamicSememeImpl> impl
      */
     @Override
     public DynamicSememeData[] getData() {
-        return data_ == null ? new DynamicSememeData[]{} : data_;
+        if (data_ == null) {
+            return new DynamicSememeData[]{};
+        }
+        if (columnTypes_ != null) {
+            for (int i = 0; i < data_.length; i++) {
+                getData(i);
+            }
+        }
+        return data_;
     }
 
     @Override
     public DynamicSememeData getData(int columnNumber) throws IndexOutOfBoundsException {
-        return getData()[columnNumber];
+        if (data_ == null) {
+            throw new IndexOutOfBoundsException("No data column " + columnNumber);
+        }
+        DynamicSememeData column = data_[columnNumber];
+        if (column == null && columnTypes_ != null && columnTypes_[columnNumber] != DynamicSememeDataType.UNKNOWN) {
+            int offset = columnOffsets_[columnNumber];
+            int length = readInt(offset);
+            byte[] columnData = new byte[length];
+            System.arraycopy(serialized_, offset + 4, columnData, 0, length);
+            column = DynamicSememeTypeToClassUtility.typeToClass(columnTypes_[columnNumber], columnData, getAssemblageSequence(), columnNumber);
+            data_[columnNumber] = column;
+        }
+        return column;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return data_ == null ? 0 : data_.length;
+    }
+
+    @Override
+    public DynamicSememeDataType getColumnType(int columnNumber) throws IndexOutOfBoundsException {
+        if (columnTypes_ != null) {
+            return columnTypes_[columnNumber];
+        }
+        DynamicSememeData column = getData(columnNumber);
+        return column == null ? DynamicSememeDataType.UNKNOWN : column.getDynamicSememeDataType();
+    }
+
+    @Override
+    public int getInt(int columnNumber) throws IndexOutOfBoundsException {
+        DynamicSememeDataType type = getColumnType(columnNumber);
+        if (type != DynamicSememeDataType.INTEGER && type != DynamicSememeDataType.NID && type != DynamicSememeDataType.SEQUENCE) {
+            throw new UnsupportedOperationException("Column " + columnNumber + " is of type " + type);
+        }
+        if (columnTypes_ != null) {
+            return readInt(columnOffsets_[columnNumber] + 4);
+        }
+        return readInt(getData(columnNumber).getData(), 0);
+    }
+
+    @Override
+    public long getLong(int columnNumber) throws IndexOutOfBoundsException {
+        DynamicSememeDataType type = getColumnType(columnNumber);
+        if (type != DynamicSememeDataType.LONG) {
+            throw new UnsupportedOperationException("Column " + columnNumber + " is of type " + type);
+        }
+        if (columnTypes_ != null) {
+            int offset = columnOffsets_[columnNumber] + 4;
+            return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xFFFFFFFFL);
+        }
+        byte[] columnData = getData(columnNumber).getData();
+        return ((long) readInt(columnData, 0) << 32) | (readInt(columnData, 4) & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public String getString(int columnNumber) throws IndexOutOfBoundsException {
+        DynamicSememeDataType type = getColumnType(columnNumber);
+        if (type != DynamicSememeDataType.STRING) {
+            throw new UnsupportedOperationException("Column " + columnNumber + " is of type " + type);
+        }
+        if (columnTypes_ != null) {
+            int offset = columnOffsets_[columnNumber];
+            return new String(serialized_, offset + 4, readInt(offset));
+        }
+        return new String(getData(columnNumber).getData());
+    }
+
+    private int readInt(int offset) {
+        return readInt(serialized_, offset);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF));
     }
 
     @Override
@@ -140,6 +253,9 @@ public class DynamicSememeImpl extends SememeVersionImpl<DynamicSememeImpl> impl
             checkUncommitted();
         }
         data_ = data == null ? new DynamicSememeData[]{} : data;
+        serialized_ = null;
+        columnTypes_ = null;
+        columnOffsets_ = null;
     }
 
     @Override
@@ -158,7 +274,7 @@ public class DynamicSememeImpl extends SememeVersionImpl<DynamicSememeImpl> impl
         sb.append("[");
         if (data_ != null)
         {
-            for (DynamicSememeData dsd : data_)
+            for (DynamicSememeData dsd : getData())
             {
                 if (dsd != null)
                 {
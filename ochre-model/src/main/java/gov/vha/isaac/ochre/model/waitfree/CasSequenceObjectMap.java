@@ -8,19 +8,24 @@ package gov.vha.isaac.ochre.model.waitfree;
 import gov.vha.isaac.ochre.api.memory.DiskSemaphore;
 import gov.vha.isaac.ochre.api.memory.HoldInMemoryCache;
 import gov.vha.isaac.ochre.api.memory.MemoryManagedReference;
-import gov.vha.isaac.ochre.api.memory.WriteToDiskCache;
 import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
 import gov.vha.isaac.ochre.model.ObjectChronologyImpl;
 import gov.vha.isaac.ochre.model.WaitFreeComparable;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
+import java.util.Spliterator;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import gov.vha.isaac.ochre.api.DataSerializer;
@@ -37,6 +42,21 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
     private static final Logger log = LogManager.getLogger();
     private static final int SEGMENT_SIZE = 1280;
     private static final int WRITE_SEQUENCES = 64;
+    private static final int SEGMENT_FILE_LOCKS = 64;
+    /**
+     * Estimated heap used by an empty segment, and by each byte array held
+     * in a segment, in addition to its length.
+     */
+    private static final int SEGMENT_OVERHEAD = 16 + 4 * SEGMENT_SIZE + 32;
+    private static final int ELEMENT_OVERHEAD = 16;
+    /**
+     * Changed elements are appended to a delta log beside the segment file,
+     * which is compacted into the segment file once larger than this fraction
+     * of the segment file.
+     */
+    private static final double COMPACTION_FRACTION = 0.5;
+    private static final String DELTA_SUFFIX = ".delta";
+    private static final String COMPACTION_SUFFIX = ".compacting";
 
     private static final AtomicIntegerArray writeSequences = new AtomicIntegerArray(WRITE_SEQUENCES);
 
@@ -45,6 +65,11 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
     }
 
     ReentrantLock expandLock = new ReentrantLock();
+    /**
+     * Keeps segments from being read while their files are being written,
+     * striped by segment index.
+     */
+    private final ReentrantReadWriteLock[] segmentFileLocks = new ReentrantReadWriteLock[SEGMENT_FILE_LOCKS];
 
     private final String filePrefix;
     private final String fileSuffix;
@@ -52,7 +77,7 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
     WaitFreeMergeSerializer<T> elementSerializer;
     CasSequenceMapSerializer segmentSerializer = new CasSequenceMapSerializer();
 
-    CopyOnWriteArrayList<MemoryManagedReference<SerializedAtomicReferenceArray>> objectByteList = new CopyOnWriteArrayList<>();
+    CopyOnWriteArrayList<SegmentReference> objectByteList = new CopyOnWriteArrayList<>();
 
 
     public CasSequenceObjectMap(WaitFreeMergeSerializer<T> elementSerializer, Path dbFolderPath,
@@ -61,7 +86,13 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
         this.dbFolderPath = dbFolderPath;
         this.filePrefix = filePrefix;
         this.fileSuffix = fileSuffix;
+        for (int i = 0; i < SEGMENT_FILE_LOCKS; i++) {
+            segmentFileLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
 
+    private ReentrantReadWriteLock getSegmentFileLock(int segmentIndex) {
+        return segmentFileLocks[segmentIndex % SEGMENT_FILE_LOCKS];
     }
 
     /**
@@ -73,13 +104,158 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
         int segmentIndex = 0;
         File segmentFile = new File(dbFolderPath.toFile(), filePrefix + segmentIndex + fileSuffix);
 
+        recoverCompaction(segmentFile);
         while (segmentFile.exists()) {
-            MemoryManagedReference<SerializedAtomicReferenceArray> reference =
-                    new MemoryManagedReference<>(null, segmentFile, segmentSerializer);
+            SegmentReference reference = new SegmentReference(null, segmentIndex, segmentFile);
             objectByteList.add(segmentIndex, reference);
             segmentIndex++;
             segmentFile = new File(dbFolderPath.toFile(), filePrefix + segmentIndex + fileSuffix);
+            recoverCompaction(segmentFile);
+        }
+    }
+
+    private static File getDeltaFile(File segmentFile) {
+        return new File(segmentFile.getParentFile(), segmentFile.getName() + DELTA_SUFFIX);
+    }
+
+    private static File getCompactionFile(File segmentFile) {
+        return new File(segmentFile.getParentFile(), segmentFile.getName() + COMPACTION_SUFFIX);
+    }
+
+    /**
+     * Completes, or discards, a compaction interrupted before the compacted
+     * segment replaced the segment file. The delta log is only deleted once
+     * the compacted segment is complete, so a compacted segment without a
+     * delta log replaces the segment file, and one with a delta log may be
+     * incomplete, and is discarded.
+     *
+     * @param segmentFile
+     */
+    private static void recoverCompaction(File segmentFile) {
+        File compactionFile = getCompactionFile(segmentFile);
+        if (compactionFile.exists()) {
+            try {
+                if (getDeltaFile(segmentFile).exists()) {
+                    Files.delete(compactionFile.toPath());
+                } else {
+                    Files.move(compactionFile.toPath(), segmentFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Persists a segment by appending its changed elements to the delta log,
+     * rather than rewriting the whole segment file for each change.
+     */
+    private class SegmentReference extends MemoryManagedReference<SerializedAtomicReferenceArray> {
+
+        /**
+         * Set when the delta log ends with an incomplete entry, which must
+         * not be appended to.
+         */
+        private volatile boolean compactOnNextWrite;
+        private final int segmentIndex;
+
+        SegmentReference(SerializedAtomicReferenceArray referent, int segmentIndex, File segmentFile) {
+            super(referent, segmentFile, segmentSerializer);
+            this.segmentIndex = segmentIndex;
+        }
+
+        @Override
+        protected void writeToDisk(SerializedAtomicReferenceArray segmentArray) throws IOException {
+            File segmentFile = getDiskLocation();
+            File deltaFile = getDeltaFile(segmentFile);
+            ReentrantReadWriteLock segmentFileLock = getSegmentFileLock(segmentIndex);
+            segmentFileLock.writeLock().lock();
+            try {
+                int[] dirtyIndexes = segmentArray.takeDirtyIndexes();
+                if (compactOnNextWrite || !segmentFile.exists()
+                        || deltaFile.length() > segmentFile.length() * COMPACTION_FRACTION) {
+                    compactOnNextWrite = true;
+                    compact(segmentArray, segmentFile, deltaFile);
+                    compactOnNextWrite = false;
+                } else if (dirtyIndexes.length > 0) {
+                    // the dirty indexes have been taken, and the delta log
+                    // may end with part of an entry, if the append fails.
+                    compactOnNextWrite = true;
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                            new FileOutputStream(deltaFile, true)))) {
+                        for (int index : dirtyIndexes) {
+                            byte[] value = segmentArray.get(index);
+                            out.writeInt(index);
+                            if (value == null) {
+                                out.writeInt(-1);
+                            } else {
+                                out.writeInt(value.length);
+                                out.write(value);
+                            }
+                        }
+                    }
+                    compactOnNextWrite = false;
+                }
+            } finally {
+                segmentFileLock.writeLock().unlock();
+            }
+        }
+
+        private void compact(SerializedAtomicReferenceArray segmentArray, File segmentFile, File deltaFile)
+                throws IOException {
+            File compactionFile = getCompactionFile(segmentFile);
+            // an empty delta log marks the compacted segment as incomplete
+            // until written.
+            deltaFile.createNewFile();
+            try (FileOutputStream fileOut = new FileOutputStream(compactionFile);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                segmentSerializer.serialize(out, segmentArray);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            Files.delete(deltaFile.toPath());
+            Files.move(compactionFile.toPath(), segmentFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Apply the delta log of a segment to the segment read from the segment
+     * file.
+     *
+     * @return false if the delta log ends with an incomplete entry, which is
+     * ignored.
+     */
+    private static boolean readDelta(SerializedAtomicReferenceArray segmentArray, File deltaFile)
+            throws IOException {
+        long remaining = deltaFile.length();
+        if (remaining == 0) {
+            return true;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(deltaFile)))) {
+            while (remaining > 0) {
+                if (remaining < 8) {
+                    return false;
+                }
+                int index = in.readInt();
+                int length = in.readInt();
+                remaining -= 8;
+                if (index < 0 || index >= segmentArray.length() || length > remaining) {
+                    return false;
+                }
+                if (length < 0) {
+                    segmentArray.set(index, null);
+                } else {
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    segmentArray.set(index, bytes);
+                    remaining -= length;
+                }
+            }
         }
+        return true;
     }
 
     private class CasSequenceMapSerializer implements DataSerializer<SerializedAtomicReferenceArray> {
@@ -128,24 +304,111 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
         objectByteList.stream().forEach((segment) -> segment.write());
     }
 
+    /**
+     *
+     * @return the elements of the map, in sequence order.
+     */
     public Stream<T> getStream() {
-        IntStream sequences = IntStream.range(0, objectByteList.size() * SEGMENT_SIZE);
-        return sequences.filter(sequence -> containsKey(sequence)).mapToObj(sequence -> getQuick(sequence));
+        return StreamSupport.stream(new SegmentSpliterator(0, objectByteList.size()), false);
     }
 
+    /**
+     *
+     * @return the elements of the map, split between threads on segment
+     * boundaries, so each segment is read by one thread.
+     */
     public Stream<T> getParallelStream() {
-        IntStream sequences = IntStream.range(0, objectByteList.size() * SEGMENT_SIZE).parallel();
-        return sequences.filter(sequence -> containsKey(sequence)).mapToObj(sequence -> getQuick(sequence));
+        return StreamSupport.stream(new SegmentSpliterator(0, objectByteList.size()), true);
+    }
+
+    /**
+     * Iterates the occupied slots of a range of segments, reading each segment
+     * once, and holding it until its slots have been iterated. Splits on
+     * segment boundaries. The number of elements is not known until the
+     * segments are read, so the spliterator is not sized.
+     */
+    private class SegmentSpliterator implements Spliterator<T> {
+
+        private int segmentIndex;
+        private final int endSegmentIndex;
+        private SerializedAtomicReferenceArray segment;
+        private int indexInSegment;
+
+        SegmentSpliterator(int segmentIndex, int endSegmentIndex) {
+            this.segmentIndex = segmentIndex;
+            this.endSegmentIndex = endSegmentIndex;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (segmentIndex < endSegmentIndex) {
+                if (segment == null) {
+                    segment = getSegment(segmentIndex);
+                    indexInSegment = 0;
+                }
+                while (indexInSegment < SEGMENT_SIZE) {
+                    byte[] data = segment.get(indexInSegment++);
+                    if (data != null) {
+                        action.accept(elementSerializer.deserialize(new ByteArrayDataBuffer(data)));
+                        return true;
+                    }
+                }
+                segment = null;
+                segmentIndex++;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            // a segment that has been started is not split.
+            int firstUnstarted = segment == null ? segmentIndex : segmentIndex + 1;
+            int splitIndex = firstUnstarted + (endSegmentIndex - firstUnstarted) / 2;
+            if (splitIndex <= segmentIndex || splitIndex >= endSegmentIndex) {
+                return null;
+            }
+            SegmentSpliterator prefix = new SegmentSpliterator(segmentIndex, splitIndex);
+            prefix.segment = segment;
+            prefix.indexInSegment = indexInSegment;
+            segment = null;
+            segmentIndex = splitIndex;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) (endSegmentIndex - segmentIndex) * SEGMENT_SIZE - (segment == null ? 0 : indexInSegment);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
+
+    private static long estimateSize(SerializedAtomicReferenceArray segmentArray) {
+        long size = SEGMENT_OVERHEAD;
+        for (int i = 0; i < segmentArray.length(); i++) {
+            byte[] value = segmentArray.get(i);
+            if (value != null) {
+                size += ELEMENT_OVERHEAD + value.length;
+            }
+        }
+        return size;
     }
 
     protected SerializedAtomicReferenceArray readSegmentFromDisk(int segmentIndex) {
         File segmentFile = new File(dbFolderPath.toFile(), filePrefix + segmentIndex + fileSuffix);
+        long loadStart = System.nanoTime();
         DiskSemaphore.acquire();
+        ReentrantReadWriteLock segmentFileLock = getSegmentFileLock(segmentIndex);
+        segmentFileLock.readLock().lock();
         try (DataInputStream in = new DataInputStream(new BufferedInputStream(
                 new FileInputStream(segmentFile)))) {
             SerializedAtomicReferenceArray segmentArray = segmentSerializer.deserialize(in);
-            MemoryManagedReference<SerializedAtomicReferenceArray> reference =
-                    new MemoryManagedReference<>(segmentArray, segmentFile, segmentSerializer);
+            SegmentReference reference = new SegmentReference(segmentArray, segmentIndex, segmentFile);
+            reference.compactOnNextWrite = !readDelta(segmentArray, getDeltaFile(segmentFile));
+            reference.setEstimatedSize(estimateSize(segmentArray));
             if (objectByteList.size() > segmentArray.getSegment()) {
                 objectByteList.set(segmentArray.getSegment(), reference);
             } else {
@@ -153,25 +416,29 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
             }
 
             HoldInMemoryCache.addToCache(reference);
-            WriteToDiskCache.addToCache(reference);
 
             return segmentArray;
         } catch (IOException e) {
             throw new RuntimeException(e);
         } finally {
+            segmentFileLock.readLock().unlock();
             DiskSemaphore.release();
+            HoldInMemoryCache.recordLoad(System.nanoTime() - loadStart);
         }
 
     }
 
     protected SerializedAtomicReferenceArray getSegment(int segmentIndex) {
-        SerializedAtomicReferenceArray referenceArray = objectByteList.get(segmentIndex).get();
+        SegmentReference reference = objectByteList.get(segmentIndex);
+        SerializedAtomicReferenceArray referenceArray = reference.get();
         if (referenceArray == null) {
             referenceArray =
                     readSegmentFromDisk(segmentIndex);
-
+            reference = objectByteList.get(segmentIndex);
+        } else {
+            HoldInMemoryCache.addToCache(reference);
         }
-        objectByteList.get(segmentIndex).elementRead();
+        reference.elementRead();
         return referenceArray;
     }
 
@@ -213,9 +480,28 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
     
 
     public int getSize() {
-        // TODO determine if this is the best way / if this method is necessary.  
-        // Calculating this is taking on the order of seconds, on the SOLOR-ALL db. 
-        return (int) getParallelStream().count();
+        // counts the occupied slots of each segment, without deserializing
+        // the elements.
+        return IntStream.range(0, objectByteList.size()).parallel().map((segmentIndex) -> {
+            SerializedAtomicReferenceArray segmentArray = getSegment(segmentIndex);
+            int count = 0;
+            for (int i = 0; i < SEGMENT_SIZE; i++) {
+                if (segmentArray.get(i) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }).sum();
+    }
+
+    /**
+     *
+     * @param sequence
+     * @return the index of the segment that holds the sequence, so work over
+     * many sequences can be grouped by segment.
+     */
+    public static int getSegmentIndex(int sequence) {
+        return sequence / SEGMENT_SIZE;
     }
 
     public boolean containsKey(int sequence) {
@@ -255,10 +541,10 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
                 while (segmentIndex > currentMaxSegment) {
                     int newSegment = currentMaxSegment + 1;
                     File segmentFile = new File(dbFolderPath.toFile(), filePrefix + newSegment + fileSuffix);
-                    MemoryManagedReference<SerializedAtomicReferenceArray> reference =
-                            new MemoryManagedReference<>(
-                                    new SerializedAtomicReferenceArray(SEGMENT_SIZE, elementSerializer, newSegment),
-                                    segmentFile, segmentSerializer);
+                    SegmentReference reference = new SegmentReference(
+                            new SerializedAtomicReferenceArray(SEGMENT_SIZE, elementSerializer, newSegment),
+                            newSegment, segmentFile);
+                    reference.setEstimatedSize(SEGMENT_OVERHEAD);
                     objectByteList.add(newSegment, reference);
                     currentMaxSegment = objectByteList.size() -1;
                 }
@@ -290,7 +576,11 @@ public class CasSequenceObjectMap<T extends WaitFreeComparable> {
             elementSerializer.serialize(newDataBuffer, value);
             newDataBuffer.trimToSize();
             if (segment.compareAndSet(indexInSegment, oldData, newDataBuffer.getData())) {
-                objectByteList.get(segmentIndex).elementUpdated();
+                segment.markDirty(indexInSegment);
+                SegmentReference reference = objectByteList.get(segmentIndex);
+                reference.elementUpdated();
+                reference.addToEstimatedSize(newDataBuffer.getData().length
+                        - (oldData == null ? -ELEMENT_OVERHEAD : oldData.length));
                 if (originalValue != value && value instanceof ObjectChronologyImpl) {
                     ObjectChronologyImpl objc = (ObjectChronologyImpl) originalValue;
                     objc.setWrittenData(newDataBuffer.getData());
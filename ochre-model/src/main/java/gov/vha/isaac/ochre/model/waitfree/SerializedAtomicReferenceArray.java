@@ -7,6 +7,7 @@ package gov.vha.isaac.ochre.model.waitfree;
 
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
@@ -19,10 +20,52 @@ public class SerializedAtomicReferenceArray extends AtomicReferenceArray<byte[]>
 
     int segment;
 
+    /**
+     * One bit per element, set when the element is changed, and cleared when
+     * taken to write the changed elements to disk.
+     */
+    private final AtomicLongArray dirtyBits;
+
     public SerializedAtomicReferenceArray(int length, WaitFreeMergeSerializer isaacSerializer, int segment) {
         super(length);
         this.isaacSerializer = isaacSerializer;
         this.segment = segment;
+        this.dirtyBits = new AtomicLongArray((length + 63) / 64);
+    }
+
+    public void markDirty(int i) {
+        long bit = 1L << (i & 63);
+        int word = i >>> 6;
+        long bits = dirtyBits.get(word);
+        while ((bits & bit) == 0 && !dirtyBits.compareAndSet(word, bits, bits | bit)) {
+            bits = dirtyBits.get(word);
+        }
+    }
+
+    /**
+     * Clears the dirty elements.
+     * @return the indexes of the elements changed since the last call, in
+     * ascending order.
+     */
+    public int[] takeDirtyIndexes() {
+        long[] taken = new long[dirtyBits.length()];
+        int count = 0;
+        for (int word = 0; word < taken.length; word++) {
+            if (dirtyBits.get(word) != 0) {
+                taken[word] = dirtyBits.getAndSet(word, 0);
+                count += Long.bitCount(taken[word]);
+            }
+        }
+        int[] indexes = new int[count];
+        int position = 0;
+        for (int word = 0; word < taken.length; word++) {
+            long bits = taken[word];
+            while (bits != 0) {
+                indexes[position++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return indexes;
     }
 
     /**
@@ -0,0 +1,228 @@
+package gov.vha.isaac.ochre.model;
+
+import gov.vha.isaac.ochre.api.State;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.commit.Stamp;
+import gov.vha.isaac.ochre.api.commit.StampService;
+import gov.vha.isaac.ochre.api.commit.UncommittedStamp;
+import gov.vha.isaac.ochre.api.coordinate.StampPath;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
+import gov.vha.isaac.ochre.api.coordinate.StampPrecedence;
+import gov.vha.isaac.ochre.api.snapshot.calculator.RelativePositionCalculator;
+import gov.vha.isaac.ochre.model.concept.ConceptChronologyImpl;
+import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
+import gov.vha.isaac.ochre.model.coordinate.StampCoordinateImpl;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import javafx.concurrent.Task;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Latest version computation over the stamps of a chronology, compared with
+ * the computation over its decoded versions.
+ */
+public class ObjectChronologyImplTest {
+
+    private static final int PATH = 1;
+    private static final int MODULE = 2;
+
+    private static final int ACTIVE_STAMP = 1;
+    private static final int INACTIVE_STAMP = 2;
+    private static final int CANCELED_STAMP = 3;
+
+    private final TestStampService stampService = new TestStampService();
+    private final RelativePositionCalculator calc;
+
+    public ObjectChronologyImplTest() {
+        stampService.put(ACTIVE_STAMP, State.ACTIVE, 1000);
+        stampService.put(INACTIVE_STAMP, State.INACTIVE, 2000);
+        stampService.put(CANCELED_STAMP, State.ACTIVE, Long.MIN_VALUE);
+        calc = new RelativePositionCalculator(new StampCoordinateImpl(StampPrecedence.PATH, new LatestPosition(),
+                new ConceptSequenceSet(), EnumSet.allOf(State.class)), stampService);
+    }
+
+    private static ConceptChronologyImpl chronology(int... stampSequences) {
+        ConceptChronologyImpl chronology = new ConceptChronologyImpl(
+                UUID.fromString("6c1b7f3e-2d4a-4c5b-9e8f-0a1b2c3d4e5f"), -7, 3);
+        for (int stampSequence : stampSequences) {
+            chronology.createMutableVersion(stampSequence);
+        }
+        return chronology;
+    }
+
+    private void assertLatest(ConceptChronologyImpl chronology, int expectedStamp) {
+        Optional<LatestVersion<ConceptVersionImpl>> fromStamps = chronology.getLatestVersion(calc);
+        Optional<LatestVersion<ConceptVersionImpl>> fromVersions = calc.getLatestVersion(chronology);
+        if (expectedStamp == 0) {
+            assertFalse(fromStamps.isPresent());
+            assertFalse(fromVersions.isPresent());
+        } else {
+            assertEquals(expectedStamp, fromStamps.get().value().getStampSequence());
+            assertEquals(expectedStamp, fromVersions.get().value().getStampSequence());
+            assertFalse(fromStamps.get().contradictions().isPresent());
+        }
+        assertEquals(expectedStamp != 0, calc.getLatestStampSequencesAsArray(
+                chronology.getVersionStampSequenceArray()).length > 0);
+    }
+
+    @Test
+    public void testCanceledVersionIsNotLatest() {
+        ConceptChronologyImpl chronology = chronology(ACTIVE_STAMP, CANCELED_STAMP);
+        assertLatest(chronology, ACTIVE_STAMP);
+        // the result does not depend on whether the version list is cached
+        assertEquals(2, chronology.getVersionList().size());
+        assertLatest(chronology, ACTIVE_STAMP);
+
+        chronology = chronology(CANCELED_STAMP, ACTIVE_STAMP, INACTIVE_STAMP);
+        assertLatest(chronology, INACTIVE_STAMP);
+        chronology.getVersionList();
+        assertLatest(chronology, INACTIVE_STAMP);
+    }
+
+    @Test
+    public void testOnlyCanceledVersion() {
+        ConceptChronologyImpl chronology = chronology(CANCELED_STAMP);
+        assertLatest(chronology, 0);
+        chronology.getVersionList();
+        assertLatest(chronology, 0);
+        assertFalse(calc.isLatestActive(new int[]{CANCELED_STAMP}, 1));
+        assertTrue(calc.isLatestActive(new int[]{ACTIVE_STAMP}, 1));
+    }
+
+    private static class LatestPosition implements StampPosition {
+
+        @Override
+        public long getTime() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int getStampPathSequence() {
+            return PATH;
+        }
+
+        @Override
+        public StampPath getStampPath() {
+            return new StampPath() {
+                @Override
+                public int getPathConceptSequence() {
+                    return PATH;
+                }
+
+                @Override
+                public Collection<? extends StampPosition> getPathOrigins() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                public int compareTo(StampPath o) {
+                    return Integer.compare(PATH, o.getPathConceptSequence());
+                }
+            };
+        }
+    }
+
+    private static class TestStampService implements StampService {
+
+        private final Map<Integer, State> states = new HashMap<>();
+        private final Map<Integer, Long> times = new HashMap<>();
+
+        void put(int stampSequence, State state, long time) {
+            states.put(stampSequence, state);
+            times.put(stampSequence, time);
+        }
+
+        @Override
+        public int getAuthorSequenceForStamp(int stampSequence) {
+            return 1;
+        }
+
+        @Override
+        public int getModuleSequenceForStamp(int stampSequence) {
+            return MODULE;
+        }
+
+        @Override
+        public int getPathSequenceForStamp(int stampSequence) {
+            return PATH;
+        }
+
+        @Override
+        public State getStatusForStamp(int stampSequence) {
+            return states.get(stampSequence);
+        }
+
+        @Override
+        public long getTimeForStamp(int stampSequence) {
+            return times.get(stampSequence);
+        }
+
+        @Override
+        public boolean isNotCanceled(int stampSequence) {
+            return getTimeForStamp(stampSequence) != Long.MIN_VALUE;
+        }
+
+        @Override
+        public boolean isUncommitted(int stampSequence) {
+            return getTimeForStamp(stampSequence) == Long.MAX_VALUE;
+        }
+
+        @Override
+        public int getRetiredStampSequence(int stampSequence) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getActivatedStampSequence(int stampSequence) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getStampSequence(State status, long time, int authorSequence, int moduleSequence, int pathSequence) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String describeStampSequence(int stampSequence) {
+            return states.get(stampSequence) + "@" + times.get(stampSequence);
+        }
+
+        @Override
+        public boolean stampSequencesEqualExceptAuthorAndTime(int stampSequence1, int stampSequence2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IntStream getStampSequences() {
+            return states.keySet().stream().mapToInt((stampSequence) -> stampSequence);
+        }
+
+        @Override
+        public Map<UncommittedStamp, Integer> getPendingStampsForCommit() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setPendingStampsForCommit(Map<UncommittedStamp, Integer> pendingStamps) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Task<Void> cancel(int authorSequence) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addStamp(Stamp stamp, int stampSequence) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotService;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
 import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 import org.jvnet.hk2.annotations.Service;
 
 import java.util.Arrays;
@@ -80,6 +81,11 @@ public class MockConceptService implements ConceptService {
         return conceptsMap.size();
     }
 
+    @Override
+    public ConceptSequenceSet getConceptSequencesModifiedAfterPosition(StampPosition position) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Stream<ConceptChronology<? extends ConceptVersion<?>>> getConceptChronologyStream() {
         return conceptsMap.values().stream();
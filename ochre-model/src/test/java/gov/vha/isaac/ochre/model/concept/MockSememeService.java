@@ -70,6 +70,11 @@ public class MockSememeService implements SememeService {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SememeSequenceSet getSememeSequencesModifiedAfterPosition(StampPosition position) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Stream<SememeChronology<? extends SememeVersion<?>>> getSememesForComponent(int componentNid) {
         throw new UnsupportedOperationException();
@@ -145,4 +150,14 @@ public class MockSememeService implements SememeService {
     public Stream<Integer> getAssemblageTypes() {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public int[] getReferencedComponentNidsForIdentifier(int assemblageConceptSequence, String identifier) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int[] getReferencedComponentNidsForIdentifiers(int assemblageConceptSequence, String... identifiers) {
+        throw new UnsupportedOperationException();
+    }
 }
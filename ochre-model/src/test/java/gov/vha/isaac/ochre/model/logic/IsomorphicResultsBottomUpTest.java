@@ -0,0 +1,209 @@
+package gov.vha.isaac.ochre.model.logic;
+
+import gov.vha.isaac.ochre.api.DataSource;
+import gov.vha.isaac.ochre.api.logic.LogicNode;
+import gov.vha.isaac.ochre.api.logic.NodeSemantic;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Comparisons of definitions with role groups. The expected solutions are
+ * those found before the search for solutions was bounded.
+ */
+public class IsomorphicResultsBottomUpTest {
+
+    private static final int ROLE_GROUP = 50;
+    private static final int PARENT = 5;
+    private static final int FINDING_SITE = 9;
+    private static final int ASSOCIATED_MORPHOLOGY = 13;
+    private static final int LUNG = 11;
+    private static final int HEART = 17;
+    private static final int INFLAMMATION = 15;
+    private static final int NEOPLASM = 19;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        TestIdentifierService.install();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        TestIdentifierService.uninstall();
+    }
+
+    /**
+     * Builds the serialized nodes of an expression, with node indices in
+     * depth first order.
+     */
+    private static class ExpressionData {
+
+        private final List<byte[]> nodes = new ArrayList<>();
+
+        /**
+         * Root -> NecessarySet -> And -> children
+         */
+        static LogicalExpressionOchreImpl definition(ExpressionBuilder builder) {
+            ExpressionData data = new ExpressionData();
+            data.connector(NodeSemantic.DEFINITION_ROOT,
+                    () -> data.connector(NodeSemantic.NECESSARY_SET,
+                            () -> data.connector(NodeSemantic.AND, builder.children(data))));
+            return new LogicalExpressionOchreImpl(data.nodes.toArray(new byte[0][]), DataSource.INTERNAL);
+        }
+
+        int connector(NodeSemantic semantic, IntSupplier... children) {
+            int nodeIndex = reserve();
+            int[] childIndices = Arrays.stream(children).mapToInt(IntSupplier::getAsInt).toArray();
+            try {
+                nodes.set(nodeIndex, LogicalExpressionOchreImplTest.connector(semantic, nodeIndex, childIndices));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return nodeIndex;
+        }
+
+        IntSupplier concept(int conceptSequence) {
+            return () -> {
+                int nodeIndex = reserve();
+                try {
+                    nodes.set(nodeIndex, LogicalExpressionOchreImplTest.concept(nodeIndex, conceptSequence));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return nodeIndex;
+            };
+        }
+
+        IntSupplier role(int typeSequence, IntSupplier restriction) {
+            return () -> {
+                int nodeIndex = reserve();
+                int restrictionIndex = restriction.getAsInt();
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream output = new DataOutputStream(bytes);
+                    output.write(LogicalExpressionOchreImplTest.connector(NodeSemantic.ROLE_SOME, nodeIndex,
+                            restrictionIndex));
+                    output.writeInt(typeSequence);
+                    nodes.set(nodeIndex, bytes.toByteArray());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return nodeIndex;
+            };
+        }
+
+        IntSupplier roleGroup(IntSupplier... roles) {
+            return role(ROLE_GROUP, () -> connector(NodeSemantic.AND, roles));
+        }
+
+        private int reserve() {
+            nodes.add(null);
+            return nodes.size() - 1;
+        }
+    }
+
+    private interface ExpressionBuilder {
+
+        IntSupplier[] children(ExpressionData data);
+    }
+
+    private static int[] nodeIndices(Stream<LogicNode> nodes) {
+        return nodes.mapToInt(LogicNode::getNodeIndex).toArray();
+    }
+
+    private static void assertResults(IsomorphicResultsBottomUp results, int[] additionRoots, int[] deletionRoots,
+            int[] sharedRelationshipRoots, int[] addedRelationshipRoots, int[] deletedRelationshipRoots,
+            int[] solution) {
+        assertEquals(results.isomorphicSolution.getSolution(), solution, "solution");
+        assertEquals(nodeIndices(results.getAdditionalNodeRoots()), additionRoots, "additions");
+        assertEquals(nodeIndices(results.getDeletedNodeRoots()), deletionRoots, "deletions");
+        assertEquals(nodeIndices(results.getSharedRelationshipRoots()), sharedRelationshipRoots, "shared");
+        assertEquals(nodeIndices(results.getAddedRelationshipRoots()), addedRelationshipRoots, "added");
+        assertEquals(nodeIndices(results.getDeletedRelationshipRoots()), deletedRelationshipRoots, "deleted");
+        assertEquals(results.getIsomorphicExpression().getNodeCount(),
+                Arrays.stream(solution).filter((nodeId) -> nodeId >= 0).count(), "isomorphic");
+    }
+
+    @Test
+    public void testChangedRoleGroup() {
+        LogicalExpressionOchreImpl reference = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION))),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(HEART)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(NEOPLASM)))});
+        LogicalExpressionOchreImpl comparison = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION))),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(HEART)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION)))});
+        // the changed morphology, and its group, is both added and deleted.
+        assertResults(new IsomorphicResultsBottomUp(reference, comparison), new int[]{14}, new int[]{14},
+                new int[]{3, 4}, new int[]{10}, new int[]{10},
+                new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, -1, -1});
+    }
+
+    @Test
+    public void testReorderedRoleGroups() {
+        LogicalExpressionOchreImpl reference = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION))),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(HEART)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(NEOPLASM)))});
+        LogicalExpressionOchreImpl comparison = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.roleGroup(data.role(ASSOCIATED_MORPHOLOGY, data.concept(NEOPLASM)),
+                    data.role(FINDING_SITE, data.concept(HEART))),
+            data.concept(PARENT),
+            data.roleGroup(data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION)),
+                    data.role(FINDING_SITE, data.concept(LUNG)))});
+        assertResults(new IsomorphicResultsBottomUp(reference, comparison), new int[0], new int[0],
+                new int[]{3, 4, 10}, new int[0], new int[0],
+                new int[]{0, 1, 2, 9, 10, 11, 14, 15, 12, 13, 3, 4, 7, 8, 5, 6});
+    }
+
+    @Test
+    public void testDuplicatedRoleGroup() {
+        LogicalExpressionOchreImpl reference = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION))),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(NEOPLASM)))});
+        LogicalExpressionOchreImpl comparison = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)),
+                    data.role(ASSOCIATED_MORPHOLOGY, data.concept(INFLAMMATION)))});
+        assertResults(new IsomorphicResultsBottomUp(reference, comparison), new int[]{10}, new int[0],
+                new int[]{3, 4}, new int[]{10}, new int[0],
+                new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, -1, -1, -1, -1, -1, -1});
+    }
+
+    @Test
+    public void testIdenticalRoleGroups() {
+        LogicalExpressionOchreImpl reference = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG))),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)))});
+        LogicalExpressionOchreImpl comparison = ExpressionData.definition((data) -> new IntSupplier[]{
+            data.concept(PARENT),
+            data.roleGroup(data.role(FINDING_SITE, data.concept(LUNG)))});
+        // either reference group matches the comparison group, and the same
+        // one is chosen every time.
+        assertResults(new IsomorphicResultsBottomUp(reference, comparison), new int[]{8}, new int[0],
+                new int[]{3, 8}, new int[0], new int[0],
+                new int[]{0, 1, 2, 3, 4, 5, 6, 7, -1, -1, -1, -1});
+    }
+}
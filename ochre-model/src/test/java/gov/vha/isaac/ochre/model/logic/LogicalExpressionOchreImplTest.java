@@ -0,0 +1,250 @@
+package gov.vha.isaac.ochre.model.logic;
+
+import gov.vha.isaac.ochre.api.DataSource;
+import gov.vha.isaac.ochre.api.DataTarget;
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.logic.LogicNode;
+import gov.vha.isaac.ochre.api.logic.NodeSemantic;
+import gov.vha.isaac.ochre.api.tree.TreeNodeVisitData;
+import gov.vha.isaac.ochre.model.logic.node.internal.ConceptNodeWithSequences;
+import gov.vha.isaac.ochre.model.logic.node.internal.RoleNodeSomeWithSequences;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import org.apache.mahout.math.set.OpenIntHashSet;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests reading the nodes of a serialized expression without decoding them.
+ */
+public class LogicalExpressionOchreImplTest {
+
+    private static final int ROOT = 0;
+    private static final int NECESSARY_SET = 1;
+    private static final int AND = 2;
+    private static final int PARENT = 3;
+    private static final int OTHER_PARENT = 4;
+    private static final int ROLE = 5;
+    private static final int RESTRICTION = 6;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        TestIdentifierService.install();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        TestIdentifierService.uninstall();
+    }
+
+    /**
+     * Root -> NecessarySet -> And -> (Concept 5, Concept 7, SomeRole 9 -> Concept 11)
+     */
+    private static byte[][] expressionData() throws IOException {
+        byte[][] data = new byte[7][];
+        data[ROOT] = connector(NodeSemantic.DEFINITION_ROOT, ROOT, NECESSARY_SET);
+        data[NECESSARY_SET] = connector(NodeSemantic.NECESSARY_SET, NECESSARY_SET, AND);
+        data[AND] = connector(NodeSemantic.AND, AND, PARENT, OTHER_PARENT, ROLE);
+        data[PARENT] = concept(PARENT, 5);
+        data[OTHER_PARENT] = concept(OTHER_PARENT, 7);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.write(connector(NodeSemantic.ROLE_SOME, ROLE, RESTRICTION));
+        output.writeInt(9);
+        data[ROLE] = bytes.toByteArray();
+        data[RESTRICTION] = concept(RESTRICTION, 11);
+        return data;
+    }
+
+    static byte[] connector(NodeSemantic semantic, int nodeIndex, int... childIndices) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(semantic.ordinal());
+        output.writeShort(nodeIndex);
+        output.writeShort(childIndices.length);
+        for (int childIndex : childIndices) {
+            output.writeShort(childIndex);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] concept(int nodeIndex, int conceptSequence) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(NodeSemantic.CONCEPT.ordinal());
+        output.writeShort(nodeIndex);
+        output.writeInt(conceptSequence);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testPrimitiveAccessors() throws Exception {
+        LogicalExpressionOchreImpl expression = new LogicalExpressionOchreImpl(expressionData(), DataSource.INTERNAL);
+        assertEquals(expression.getNodeCount(), 7);
+        assertEquals(expression.getNodeSemantic(ROLE), NodeSemantic.ROLE_SOME);
+        assertEquals(expression.getChildIndices(AND), new int[]{PARENT, OTHER_PARENT, ROLE});
+        assertEquals(expression.getChildIndices(PARENT), new int[0]);
+        assertEquals(expression.getConceptSequenceForNode(OTHER_PARENT), 7);
+        assertEquals(expression.getTypeConceptSequenceForNode(ROLE), 9);
+        assertEquals(expression.getParentConceptSequences(NodeSemantic.NECESSARY_SET).asArray(), new int[]{5, 7});
+        assertTrue(expression.getParentConceptSequences(NodeSemantic.SUFFICIENT_SET).isEmpty());
+        assertEquals(expression.getReferencedConceptSequences().asArray(), new int[]{5, 7, 9, 11});
+        assertTrue(expression.isMeaningful());
+        assertFalse(expression.contains(NodeSemantic.SUFFICIENT_SET));
+    }
+
+    @Test
+    public void testLazyNodes() throws Exception {
+        LogicalExpressionOchreImpl expression = new LogicalExpressionOchreImpl(expressionData(), DataSource.INTERNAL);
+        RoleNodeSomeWithSequences role = (RoleNodeSomeWithSequences) expression.getNode(ROLE);
+        assertEquals(role.getNodeIndex(), ROLE);
+        assertEquals(role.getTypeConceptSequence(), 9);
+        ConceptNodeWithSequences restriction = (ConceptNodeWithSequences) role.getOnlyChild();
+        assertEquals(restriction.getNodeIndex(), RESTRICTION);
+        assertEquals(restriction.getConceptSequence(), 11);
+        assertSame(expression.getNode(ROLE), role);
+        // decoded nodes answer the same as the serialized data.
+        assertEquals(expression.getTypeConceptSequenceForNode(ROLE), 9);
+        assertEquals(expression.getChildIndices(ROLE), new int[]{RESTRICTION});
+        assertEquals(expression.getNodesOfType(NodeSemantic.CONCEPT).count(), 3);
+    }
+
+    @Test
+    public void testConcurrentDecode() throws Exception {
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (int iteration = 0; iteration < 200; iteration++) {
+                LogicalExpressionOchreImpl expression
+                        = new LogicalExpressionOchreImpl(expressionData(), DataSource.INTERNAL);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<LogicNode[]>> futures = new ArrayList<>();
+                for (int thread = 0; thread < threadCount; thread++) {
+                    int first = thread;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        LogicNode[] nodes = new LogicNode[expression.getNodeCount()];
+                        for (int i = 0; i < nodes.length; i++) {
+                            int nodeIndex = (first + i) % nodes.length;
+                            assertEquals(expression.getNodeSemantic(nodeIndex).ordinal(),
+                                    expressionData()[nodeIndex][0]);
+                            nodes[nodeIndex] = expression.getNode(nodeIndex);
+                        }
+                        return nodes;
+                    }));
+                }
+                start.countDown();
+                LogicNode[] decoded = futures.get(0).get();
+                for (Future<LogicNode[]> future : futures) {
+                    LogicNode[] nodes = future.get();
+                    for (int nodeIndex = 0; nodeIndex < nodes.length; nodeIndex++) {
+                        assertSame(nodes[nodeIndex], decoded[nodeIndex]);
+                        assertEquals(nodes[nodeIndex].getNodeIndex(), nodeIndex);
+                    }
+                }
+                assertEquals(((RoleNodeSomeWithSequences) decoded[ROLE]).getTypeConceptSequence(), 9);
+                assertEquals(((ConceptNodeWithSequences) decoded[RESTRICTION]).getConceptSequence(), 11);
+                assertEquals(expression.getChildIndices(AND), new int[]{PARENT, OTHER_PARENT, ROLE});
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGetData() throws Exception {
+        byte[][] data = expressionData();
+        LogicalExpressionOchreImpl expression = new LogicalExpressionOchreImpl(data, DataSource.INTERNAL);
+        expression.getNode(AND);
+        assertSame(expression.getData(DataTarget.INTERNAL), data);
+
+        expression.markModified();
+        byte[][] written = expression.getData(DataTarget.INTERNAL);
+        assertNotSame(written, data);
+        LogicalExpressionOchreImpl reread = new LogicalExpressionOchreImpl(written, DataSource.INTERNAL);
+        assertEquals(reread.getNodeCount(), 7);
+        assertEquals(reread.getReferencedConceptSequences().asArray(), new int[]{5, 7, 9, 11});
+        assertEquals(reread.getParentConceptSequences(NodeSemantic.NECESSARY_SET).asArray(), new int[]{5, 7});
+    }
+
+    private static int[] conceptsReferencedAtNodeOrAbove(TreeNodeVisitData visitData, int nodeIndex) {
+        return ConceptSequenceSet.of(visitData.getConceptsReferencedAtNodeOrAbove(nodeIndex)).asArray();
+    }
+
+    private static int[] semanticConcepts(NodeSemantic... semantics) {
+        return concepts(new int[0], semantics);
+    }
+
+    /**
+     * @return the concepts, and the concepts of the node semantics, in order.
+     */
+    private static int[] concepts(int[] conceptSequences, NodeSemantic... semantics) {
+        return IntStream.concat(IntStream.of(conceptSequences), Arrays.stream(semantics)
+                .mapToInt((semantic) -> TestIdentifierService.NODE_SEMANTIC_SEQUENCE + semantic.ordinal()))
+                .sorted().toArray();
+    }
+
+    @Test
+    public void testVisitDataReuse() throws Exception {
+        LogicalExpressionOchreImpl expression = new LogicalExpressionOchreImpl(expressionData(), DataSource.INTERNAL);
+        int[] distances = new int[7];
+        int[] predecessors = new int[7];
+        TreeNodeVisitData[] firstVisitData = new TreeNodeVisitData[1];
+        int[][] conceptsAtNodeOrAbove = new int[7][];
+        expression.processDepthFirst((logicNode, visitData) -> {
+            distances[logicNode.getNodeIndex()] = visitData.getDistance(logicNode.getNodeIndex());
+            predecessors[logicNode.getNodeIndex()] = visitData.getPredecessorSequence(logicNode.getNodeIndex());
+            conceptsAtNodeOrAbove[logicNode.getNodeIndex()]
+                    = conceptsReferencedAtNodeOrAbove(visitData, logicNode.getNodeIndex());
+            firstVisitData[0] = visitData;
+        });
+        assertEquals(distances, new int[]{0, 1, 2, 3, 3, 3, 4});
+        assertEquals(predecessors, new int[]{-1, 0, 1, 2, 2, 2, 5});
+        assertEquals(conceptsAtNodeOrAbove[AND], semanticConcepts(NodeSemantic.DEFINITION_ROOT,
+                NodeSemantic.NECESSARY_SET, NodeSemantic.AND));
+        assertEquals(conceptsAtNodeOrAbove[OTHER_PARENT], concepts(new int[]{7}, NodeSemantic.DEFINITION_ROOT,
+                NodeSemantic.NECESSARY_SET, NodeSemantic.AND, NodeSemantic.CONCEPT));
+        assertEquals(conceptsAtNodeOrAbove[RESTRICTION], concepts(new int[]{9, 11}, NodeSemantic.DEFINITION_ROOT,
+                NodeSemantic.NECESSARY_SET, NodeSemantic.AND, NodeSemantic.ROLE_SOME, NodeSemantic.CONCEPT));
+
+        // the next traversal on this thread reuses the released visit data, reset.
+        int[] visited = new int[1];
+        expression.processDepthFirst(expression.getNode(ROLE), (logicNode, visitData) -> {
+            assertSame(visitData, firstVisitData[0]);
+            assertEquals(visitData.getPredecessorSequence(ROLE), -1);
+            assertEquals(visitData.getDistance(AND), 0);
+            if (logicNode.getNodeIndex() == ROLE) {
+                // the concepts above a node are added from the nearest
+                // ancestor with a computed set.
+                OpenIntHashSet cached = new OpenIntHashSet();
+                cached.add(42);
+                visitData.setConceptsReferencedAtNodeOrAbove(ROLE, cached);
+            } else {
+                assertEquals(conceptsReferencedAtNodeOrAbove(visitData, RESTRICTION),
+                        concepts(new int[]{11, 42}, NodeSemantic.CONCEPT));
+            }
+            visited[0]++;
+        });
+        assertEquals(visited[0], 2);
+
+        TreeNodeVisitData visitData = TreeNodeVisitData.acquire(3);
+        assertSame(visitData, firstVisitData[0]);
+        assertEquals(visitData.getNodesVisited(), 0);
+        assertEquals(visitData.getMaxDepth(), 0);
+        assertTrue(visitData.getLeafNodes().isEmpty());
+        assertTrue(visitData.getConceptsReferencedAtNodeOrAbove(2).isEmpty());
+        visitData.release();
+    }
+}
@@ -0,0 +1,63 @@
+package gov.vha.isaac.ochre.model.logic;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.IdentifierService;
+import gov.vha.isaac.ochre.api.logic.NodeSemantic;
+import gov.vha.isaac.ochre.api.logic.NodeSemanticReset;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * The identifiers needed to compute the concepts referenced by logic nodes,
+ * without a running system. Concept nids are their own sequences, and the
+ * concept of each {@link NodeSemantic} is {@link #NODE_SEMANTIC_SEQUENCE}
+ * plus its ordinal.
+ */
+class TestIdentifierService implements InvocationHandler {
+
+    static final int NODE_SEMANTIC_SEQUENCE = 1000;
+
+    /**
+     * Make this the service returned by {@link Get#identifierService()}.
+     */
+    static void install() throws ReflectiveOperationException {
+        Field field = Get.class.getDeclaredField("identifierService");
+        field.setAccessible(true);
+        field.set(null, Proxy.newProxyInstance(TestIdentifierService.class.getClassLoader(),
+                new Class<?>[]{IdentifierService.class}, new TestIdentifierService()));
+    }
+
+    /**
+     * Forget this service, and the node semantic concepts it provided.
+     */
+    static void uninstall() {
+        new Get().reset();
+        new NodeSemanticReset().reset();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getConceptSequence":
+                return args[0];
+            case "getConceptSequenceForUuids":
+                Collection<?> uuids = args[0] instanceof Collection ? (Collection<?>) args[0]
+                        : Arrays.asList((UUID[]) args[0]);
+                for (NodeSemantic nodeSemantic : NodeSemantic.values()) {
+                    if (uuids.contains(nodeSemantic.getSemanticUuid())) {
+                        return NODE_SEMANTIC_SEQUENCE + nodeSemantic.ordinal();
+                    }
+                }
+                throw new IllegalStateException("No concept for: " + uuids);
+            case "toString":
+                return getClass().getSimpleName();
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.beans.PropertyVetoException;
 import java.io.IOException;
 import org.junit.Assert;
 import org.junit.Test;
+import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeValidator;
 import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeValidatorType;
 import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeDoubleImpl;
 import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeFloatImpl;
@@ -156,4 +157,31 @@ public class DynamicSememeValidatorTypeImplTest
 		Assert.assertFalse(DynamicSememeValidatorType.REGEXP.passesValidator(new DynamicSememeStringImpl("4264"), new DynamicSememeStringImpl("\\d{3}?") , null, null));
 
 	}
+	
+	@Test
+	public void testCompiled() throws PropertyVetoException, IOException
+	{
+		DynamicSememeValidator regexp = DynamicSememeValidatorType.REGEXP.compile(new DynamicSememeStringImpl("\\d{3}?"));
+		Assert.assertTrue(regexp.passes(new DynamicSememeStringImpl("426"), null, null));
+		Assert.assertFalse(regexp.passes(new DynamicSememeStringImpl("4264"), null, null));
+		Assert.assertFalse(regexp.passes(null, null, null));
+		
+		DynamicSememeValidator interval = DynamicSememeValidatorType.INTERVAL.compile(new DynamicSememeStringImpl("[4,6)"));
+		Assert.assertTrue(interval.passes(new DynamicSememeIntegerImpl(4), null, null));
+		Assert.assertFalse(interval.passes(new DynamicSememeIntegerImpl(6), null, null));
+		
+		DynamicSememeValidator lessThan = DynamicSememeValidatorType.LESS_THAN.compile(new DynamicSememeLongImpl(3));
+		Assert.assertTrue(lessThan.passes(new DynamicSememeDoubleImpl(1.0), null, null));
+		Assert.assertFalse(lessThan.passes(new DynamicSememeLongImpl(3), null, null));
+		
+		try
+		{
+			DynamicSememeValidatorType.REGEXP.compile(new DynamicSememeStringImpl("[a-z"));
+			Assert.fail("Should have been an exception");
+		}
+		catch (RuntimeException e)
+		{
+			//expected
+		}
+	}
 }
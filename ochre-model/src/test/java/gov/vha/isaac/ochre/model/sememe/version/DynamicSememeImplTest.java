@@ -0,0 +1,226 @@
+package gov.vha.isaac.ochre.model.sememe.version;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.Test;
+import gov.vha.isaac.ochre.api.component.sememe.SememeType;
+import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeData;
+import gov.vha.isaac.ochre.api.component.sememe.version.dynamicSememe.DynamicSememeDataType;
+import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeArrayImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeBooleanImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeByteArrayImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeDoubleImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeFloatImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeIntegerImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeLongImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeNidImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeSequenceImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeStringImpl;
+import gov.vha.isaac.ochre.model.sememe.dataTypes.DynamicSememeUUIDImpl;
+
+/**
+ * {@link DynamicSememeImplTest}
+ *
+ * Round trips of the columns of a {@link DynamicSememeImpl} through the internal serialized form, which is
+ * decoded a column at a time.
+ */
+public class DynamicSememeImplTest
+{
+	private static final int STAMP = 7;
+	private static final short VERSION = 3;
+	private static final UUID UUID_VALUE = UUID.fromString("a1b2c3d4-0000-4000-8000-00000000abcd");
+
+	private final SememeChronologyImpl<DynamicSememeImpl> container = new SememeChronologyImpl<>(SememeType.DYNAMIC,
+			UUID.fromString("0f6e3b2a-1c5d-4e7f-9a8b-123456789abc"), -5, 12, -6, 1);
+
+	private static DynamicSememeData[] allColumnTypes()
+	{
+		return new DynamicSememeData[] {
+				new DynamicSememeBooleanImpl(true),
+				new DynamicSememeByteArrayImpl(new byte[] {1, -2, 3}),
+				new DynamicSememeDoubleImpl(-2.5d),
+				new DynamicSememeFloatImpl(1.25f),
+				new DynamicSememeIntegerImpl(Integer.MIN_VALUE),
+				null,
+				new DynamicSememeLongImpl(-9128934721874891L),
+				new DynamicSememeNidImpl(-2147483000),
+				new DynamicSememeSequenceImpl(42),
+				new DynamicSememeStringImpl("column text"),
+				new DynamicSememeUUIDImpl(UUID_VALUE),
+				new DynamicSememeArrayImpl<DynamicSememeIntegerImpl>(new DynamicSememeIntegerImpl[] {
+						new DynamicSememeIntegerImpl(5), new DynamicSememeIntegerImpl(8)}),
+				null};
+	}
+
+	private byte[] write(DynamicSememeImpl version)
+	{
+		ByteArrayDataBuffer buffer = new ByteArrayDataBuffer();
+		version.writeVersionData(buffer);
+		return Arrays.copyOf(buffer.getData(), buffer.getLimit());
+	}
+
+	private DynamicSememeImpl read(byte[] serialized)
+	{
+		ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(serialized);
+		assertEquals(STAMP, buffer.getStampSequence());
+		assertEquals(VERSION, buffer.getShort());
+		return new DynamicSememeImpl(container, STAMP, VERSION, buffer);
+	}
+
+	private DynamicSememeImpl roundTrip(DynamicSememeData[] columns)
+	{
+		DynamicSememeImpl version = new DynamicSememeImpl(container, STAMP, VERSION);
+		version.setData(columns);
+		return read(write(version));
+	}
+
+	@Test
+	public void testColumnRoundTrip()
+	{
+		DynamicSememeData[] columns = allColumnTypes();
+		DynamicSememeImpl read = roundTrip(columns);
+
+		assertEquals(columns.length, read.getColumnCount());
+		for (int i = 0; i < columns.length; i++)
+		{
+			if (columns[i] == null)
+			{
+				assertEquals(DynamicSememeDataType.UNKNOWN, read.getColumnType(i));
+				assertNull(read.getData(i));
+			}
+			else
+			{
+				assertEquals(columns[i].getDynamicSememeDataType(), read.getColumnType(i));
+				assertEquals(columns[i], read.getData(i));
+				assertArrayEquals(columns[i].getData(), read.getData(i).getData());
+			}
+		}
+		assertEquals(Arrays.asList(columns), Arrays.asList(read.getData()));
+	}
+
+	@Test
+	public void testColumnsDecodedIndividually()
+	{
+		DynamicSememeImpl read = roundTrip(allColumnTypes());
+
+		// read the last column first, then one in the middle, so no column depends on the ones before it
+		assertEquals(DynamicSememeDataType.ARRAY, read.getData(11).getDynamicSememeDataType());
+		assertEquals(UUID_VALUE, ((DynamicSememeUUIDImpl) read.getData(10)).getDataUUID());
+		assertEquals(-2.5d, ((DynamicSememeDoubleImpl) read.getData(2)).getDataDouble(), 0d);
+		assertNull(read.getData(5));
+		assertNull(read.getData(12));
+	}
+
+	@Test
+	public void testTypedAccessors()
+	{
+		DynamicSememeData[] columns = allColumnTypes();
+		for (DynamicSememeImpl version : new DynamicSememeImpl[] {roundTrip(columns), decoded(columns)})
+		{
+			assertEquals(Integer.MIN_VALUE, version.getInt(4));
+			assertEquals(-9128934721874891L, version.getLong(6));
+			assertEquals(-2147483000, version.getInt(7));
+			assertEquals(42, version.getInt(8));
+			assertEquals("column text", version.getString(9));
+			try
+			{
+				version.getInt(9);
+				fail("a string column is not an int");
+			}
+			catch (UnsupportedOperationException e)
+			{
+				// expected
+			}
+			try
+			{
+				version.getLong(5);
+				fail("a null column has no value");
+			}
+			catch (UnsupportedOperationException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	private DynamicSememeImpl decoded(DynamicSememeData[] columns)
+	{
+		DynamicSememeImpl version = new DynamicSememeImpl(container, STAMP, VERSION);
+		version.setData(columns);
+		return version;
+	}
+
+	@Test
+	public void testUnchangedBytesWrittenAsRead()
+	{
+		byte[] serialized = write(decoded(allColumnTypes()));
+		DynamicSememeImpl read = read(serialized);
+		assertArrayEquals(serialized, write(read));
+
+		// decoding some or all of the columns does not change what is written
+		read.getData(3);
+		read.getString(9);
+		assertArrayEquals(serialized, write(read));
+		read.getData();
+		assertArrayEquals(serialized, write(read));
+
+		// the serialized bytes may start part way into the buffer
+		byte[] offset = new byte[serialized.length + 9];
+		System.arraycopy(serialized, 0, offset, 9, serialized.length);
+		ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(offset);
+		buffer.setPosition(9);
+		assertEquals(STAMP, buffer.getStampSequence());
+		assertEquals(VERSION, buffer.getShort());
+		DynamicSememeImpl readFromOffset = new DynamicSememeImpl(container, STAMP, VERSION, buffer);
+		assertEquals("column text", readFromOffset.getString(9));
+		assertArrayEquals(serialized, write(readFromOffset));
+
+		// or the buffer itself may start part way into the data
+		buffer = new ByteArrayDataBuffer(offset, 9);
+		buffer.setPosition(0);
+		assertEquals(STAMP, buffer.getStampSequence());
+		assertEquals(VERSION, buffer.getShort());
+		DynamicSememeImpl readFromStart = new DynamicSememeImpl(container, STAMP, VERSION, buffer);
+		assertEquals(-9128934721874891L, readFromStart.getLong(6));
+		assertEquals("column text", readFromStart.getString(9));
+		assertArrayEquals(serialized, write(readFromStart));
+	}
+
+	@Test
+	public void testChangedDataWritten()
+	{
+		ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(write(decoded(allColumnTypes())));
+		buffer.getStampSequence();
+		buffer.getShort();
+		DynamicSememeImpl read = new DynamicSememeImpl(container, STAMP, VERSION, buffer)
+		{
+			@Override
+			public boolean isUncommitted()
+			{
+				return true;
+			}
+		};
+		DynamicSememeData[] changed = new DynamicSememeData[] {null, new DynamicSememeStringImpl("changed")};
+		read.setData(changed);
+		assertEquals(DynamicSememeDataType.STRING, read.getColumnType(1));
+
+		DynamicSememeImpl reread = read(write(read));
+		assertEquals(2, reread.getColumnCount());
+		assertNull(reread.getData(0));
+		assertEquals("changed", reread.getString(1));
+	}
+
+	@Test
+	public void testNoColumns()
+	{
+		DynamicSememeImpl read = roundTrip(new DynamicSememeData[0]);
+		assertEquals(0, read.getColumnCount());
+		assertEquals(0, read.getData().length);
+	}
+}
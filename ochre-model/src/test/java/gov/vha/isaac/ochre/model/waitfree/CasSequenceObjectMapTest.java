@@ -0,0 +1,203 @@
+package gov.vha.isaac.ochre.model.waitfree;
+
+import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import gov.vha.isaac.ochre.model.WaitFreeComparable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that segments written as a delta log read back the same as
+ * segments written whole.
+ */
+public class CasSequenceObjectMapTest {
+
+    private static final int SEGMENT_SIZE = 1280;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".test";
+
+    private Path folder;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("cas-sequence-object-map");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.walk(folder).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+
+    @Test
+    public void testDeltaWrite() throws IOException {
+        System.out.println("deltaWrite");
+        CasSequenceObjectMap<TestElement> map = newMap();
+        for (int i = 0; i < 3 * SEGMENT_SIZE; i++) {
+            map.put(i, new TestElement(i));
+        }
+        map.write();
+        File segmentFile = segmentFile(0);
+        assertTrue(segmentFile.exists());
+        assertFalse(deltaFile(0).exists());
+        long segmentLength = segmentFile.length();
+
+        for (int i = 0; i < 5; i++) {
+            update(map, i * 100, -i);
+        }
+        map.write();
+        assertEquals(segmentLength, segmentFile.length());
+        assertEquals(5 * 16, deltaFile(0).length());
+        assertFalse(deltaFile(1).exists());
+
+        CasSequenceObjectMap<TestElement> reloaded = newMap();
+        for (int i = 0; i < 3 * SEGMENT_SIZE; i++) {
+            int expected = (i % 100 == 0 && i < 500) ? -(i / 100) : i;
+            assertEquals(expected, reloaded.get(i).get().value);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        System.out.println("compaction");
+        CasSequenceObjectMap<TestElement> map = newMap();
+        for (int i = 0; i < SEGMENT_SIZE; i++) {
+            map.put(i, new TestElement(i));
+        }
+        map.write();
+        for (int i = 0; i < SEGMENT_SIZE; i++) {
+            update(map, i, i + 1);
+        }
+        map.write();
+        assertTrue(deltaFile(0).length() > segmentFile(0).length() / 2);
+
+        update(map, 7, 70);
+        map.write();
+        assertFalse(deltaFile(0).exists());
+
+        CasSequenceObjectMap<TestElement> reloaded = newMap();
+        for (int i = 0; i < SEGMENT_SIZE; i++) {
+            assertEquals(i == 7 ? 70 : i + 1, reloaded.get(i).get().value);
+        }
+    }
+
+    @Test
+    public void testIncompleteDelta() throws IOException {
+        System.out.println("incompleteDelta");
+        CasSequenceObjectMap<TestElement> map = newMap();
+        for (int i = 0; i < SEGMENT_SIZE; i++) {
+            map.put(i, new TestElement(i));
+        }
+        map.write();
+        update(map, 1, 10);
+        update(map, 2, 20);
+        map.write();
+        try (RandomAccessFile delta = new RandomAccessFile(deltaFile(0), "rw")) {
+            delta.setLength(delta.length() - 3);
+        }
+
+        CasSequenceObjectMap<TestElement> reloaded = newMap();
+        assertEquals(10, reloaded.get(1).get().value);
+        assertEquals(2, reloaded.get(2).get().value);
+
+        // the incomplete entry is compacted away, not appended to.
+        update(reloaded, 3, 30);
+        reloaded.write();
+        assertFalse(deltaFile(0).exists());
+        CasSequenceObjectMap<TestElement> compacted = newMap();
+        assertEquals(10, compacted.get(1).get().value);
+        assertEquals(2, compacted.get(2).get().value);
+        assertEquals(30, compacted.get(3).get().value);
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        System.out.println("streams");
+        CasSequenceObjectMap<TestElement> map = newMap();
+        // gaps in each segment, a second segment with only its last slots
+        // filled, and a partly filled last segment.
+        int[] expected = IntStream.range(0, 5 * SEGMENT_SIZE + 17)
+                .filter((i) -> i % 7 != 0 && (i < SEGMENT_SIZE || i >= 2 * SEGMENT_SIZE - 3)).toArray();
+        for (int i : expected) {
+            map.put(i, new TestElement(i));
+        }
+        assertArrayEquals(expected, map.getStream().mapToInt((element) -> element.value).toArray());
+        assertArrayEquals(expected, map.getParallelStream().mapToInt((element) -> element.value).toArray());
+        assertEquals(expected.length, map.getSize());
+
+        map.write();
+        CasSequenceObjectMap<TestElement> reloaded = newMap();
+        assertArrayEquals(expected, reloaded.getParallelStream().mapToInt((element) -> element.value).toArray());
+    }
+
+    private CasSequenceObjectMap<TestElement> newMap() {
+        CasSequenceObjectMap<TestElement> map
+                = new CasSequenceObjectMap<>(new TestElementSerializer(), folder, PREFIX, SUFFIX);
+        map.initialize();
+        return map;
+    }
+
+    private static void update(CasSequenceObjectMap<TestElement> map, int sequence, int value) {
+        TestElement element = map.get(sequence).get();
+        element.value = value;
+        map.put(sequence, element);
+    }
+
+    private File segmentFile(int segment) {
+        return new File(folder.toFile(), PREFIX + segment + SUFFIX);
+    }
+
+    private File deltaFile(int segment) {
+        return new File(folder.toFile(), PREFIX + segment + SUFFIX + ".delta");
+    }
+
+    private static class TestElement implements WaitFreeComparable {
+
+        int writeSequence;
+        int value;
+
+        TestElement(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int getWriteSequence() {
+            return writeSequence;
+        }
+
+        @Override
+        public void setWriteSequence(int sequence) {
+            this.writeSequence = sequence;
+        }
+    }
+
+    private static class TestElementSerializer implements WaitFreeMergeSerializer<TestElement> {
+
+        @Override
+        public void serialize(ByteArrayDataBuffer d, TestElement a) {
+            d.putInt(a.writeSequence);
+            d.putInt(a.value);
+        }
+
+        @Override
+        public TestElement merge(TestElement a, TestElement b, int writeSequence) {
+            a.writeSequence = writeSequence;
+            return a;
+        }
+
+        @Override
+        public TestElement deserialize(ByteArrayDataBuffer di) {
+            TestElement element = new TestElement(0);
+            element.writeSequence = di.getInt();
+            element.value = di.getInt();
+            return element;
+        }
+    }
+}
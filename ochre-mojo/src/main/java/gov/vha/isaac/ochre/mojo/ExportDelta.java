@@ -0,0 +1,84 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.ochre.mojo;
+
+import java.io.File;
+import java.util.ArrayList;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import gov.vha.isaac.ochre.api.ConceptProxy;
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.State;
+import gov.vha.isaac.ochre.api.bootstrap.TermAux;
+import gov.vha.isaac.ochre.api.component.concept.ConceptSpecification;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
+import gov.vha.isaac.ochre.api.coordinate.StampPrecedence;
+import gov.vha.isaac.ochre.api.externalizable.BinaryDataWriterService;
+
+/**
+ * Goal which exports the concepts and sememes changed on a path after a
+ * time, with the stamp aliases and comments of the changes, to an
+ * {@code ibdf format} file. Load the file with the load-termstore goal, which
+ * merges the versions of existing components with the exported versions.
+ */
+@Mojo(name = "export-delta", defaultPhase = LifecyclePhase.PROCESS_RESOURCES)
+
+public class ExportDelta extends AbstractMojo
+{
+	/**
+	 * {@code ibdf format} file to write.
+	 */
+	@Parameter(required = true)
+	private File ibdfFile;
+
+	/**
+	 * Export changes after this time, in ISO-8601 format, such as
+	 * "2016-03-01T00:00:00".
+	 */
+	@Parameter(required = true)
+	private String changedAfter;
+
+	/**
+	 * UUID of the path to export changes from. Defaults to the development
+	 * path.
+	 */
+	@Parameter(required = false)
+	private String pathUuid;
+
+	@Override
+	public void execute() throws MojoExecutionException
+	{
+		try
+		{
+			ConceptSpecification path = pathUuid == null ? TermAux.DEVELOPMENT_PATH : new ConceptProxy("path", pathUuid);
+			StampPosition position = Get.coordinateFactory().createStampCoordinate(path, StampPrecedence.PATH,
+					new ArrayList<>(), State.ANY_STATE_SET, changedAfter).getStampPosition();
+			getLog().info("Exporting changes after " + changedAfter + " on " + path + " to " + ibdfFile.getCanonicalPath());
+			ibdfFile.getParentFile().mkdirs();
+			try (BinaryDataWriterService writer = Get.binaryDataWriter(ibdfFile.toPath()))
+			{
+				writer.putAll(Get.ochreExternalizableStream(position));
+			}
+			getLog().info("Finished export. ");
+		}
+		catch (Exception ex)
+		{
+			throw new MojoExecutionException(ex.getLocalizedMessage(), ex);
+		}
+	}
+}
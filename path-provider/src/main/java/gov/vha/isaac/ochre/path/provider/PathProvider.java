@@ -18,26 +18,41 @@ package gov.vha.isaac.ochre.path.provider;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.PathService;
 import gov.vha.isaac.ochre.api.bootstrap.TermAux;
+import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
+import gov.vha.isaac.ochre.api.commit.CommitRecord;
+import gov.vha.isaac.ochre.api.commit.StampService;
+import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.identity.StampedVersion;
 import gov.vha.isaac.ochre.api.component.sememe.version.LongSememe;
+import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
 import gov.vha.isaac.ochre.api.coordinate.StampPath;
 import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 import gov.vha.isaac.ochre.api.snapshot.calculator.RelativePosition;
 import gov.vha.isaac.ochre.model.coordinate.StampPathImpl;
 import gov.vha.isaac.ochre.model.coordinate.StampPositionImpl;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.mahout.math.map.OpenIntLongHashMap;
 import org.glassfish.hk2.runlevel.RunLevel;
 import org.jvnet.hk2.annotations.Service;
 
 /**
+ * Paths and their origins are read from the path and path origin assemblages
+ * into an immutable {@link PathGraph}, which is replaced as a whole when
+ * sememes of those assemblages change.
+ *
  * TODO handle versions properly in path provider.
  *
  * @author kec
@@ -45,95 +60,106 @@ import org.jvnet.hk2.annotations.Service;
 @Service(name = "Path Provider")
 @RunLevel(value = 2)
 
-public class PathProvider implements PathService {
+public class PathProvider implements PathService, ChronologyChangeListener {
 
     private static final Logger LOG = LogManager.getLogger();
 
     private static final Lock LOCK = new ReentrantLock();
 
     //~--- fields --------------------------------------------------------------
-    ConcurrentHashMap<Integer, StampPath> pathMap;
+    private final UUID listenerUuid = UUID.randomUUID();
+
+    /**
+     * null until first use, and after path or origin sememes change.
+     */
+    private volatile PathGraph pathGraph;
+
+    private final AtomicBoolean pathChangesPending = new AtomicBoolean(false);
 
     //~--- constructors --------------------------------------------------------
     protected PathProvider() {
 
     }
 
+    @PostConstruct
+    private void startMe() {
+        Get.commitService().addChangeListener(this);
+    }
+
     //~--- methods -------------------------------------------------------------
     @Override
     public boolean exists(int pathConceptId) {
-        setupPathMap();
         if (pathConceptId < 0) {
             pathConceptId = Get.identifierService().getConceptSequence(pathConceptId);
         }
-        if (pathMap.containsKey(pathConceptId)) {
-            return true;
+        return getPathGraph(pathConceptId).paths.containsKey(pathConceptId);
+    }
+
+    /**
+     * @return the current path graph, read from the assemblages if there is
+     * none.
+     */
+    private PathGraph getPathGraph() {
+        PathGraph graph = pathGraph;
+        if (graph == null) {
+            LOCK.lock();
+            try {
+                graph = pathGraph;
+                if (graph == null) {
+                    graph = new PathGraph();
+                    pathGraph = graph;
+                }
+            } finally {
+                LOCK.unlock();
+            }
         }
-        Optional<StampPath> stampPath = getFromDisk(pathConceptId);
-        return stampPath.isPresent();
+        return graph;
     }
 
-    private void setupPathMap() {
-        if (pathMap == null) {
+    /**
+     * @param stampPathSequence a path the caller expects to exist
+     * @return the current path graph, read again from the assemblages if it
+     * does not have the path but the path assemblage does, such as after an
+     * import, which does not notify change listeners.
+     */
+    private PathGraph getPathGraph(int stampPathSequence) {
+        PathGraph graph = getPathGraph();
+        if (!graph.paths.containsKey(stampPathSequence) && isPathOnDisk(stampPathSequence)) {
             LOCK.lock();
             try {
-                pathMap = new ConcurrentHashMap<>();
-                Get.sememeService().getSememesFromAssemblage(
-                        TermAux.PATH_ASSEMBLAGE.getConceptSequence()).forEach((pathSememe) -> {
-                            int pathSequence = Get.identifierService().getConceptSequence(pathSememe.getReferencedComponentNid());
-                            pathMap.put(pathSequence,
-                                    new StampPathImpl(pathSequence));
-                        });
+                graph = pathGraph;
+                if (graph == null || !graph.paths.containsKey(stampPathSequence)) {
+                    graph = new PathGraph();
+                    pathGraph = graph;
+                }
             } finally {
                 LOCK.unlock();
             }
         }
+        return graph;
     }
 
-    private Optional<StampPath> getFromDisk(int stampPathSequence) {
+    private boolean isPathOnDisk(int stampPathSequence) {
         return Get.sememeService().getSememesForComponentFromAssemblage(stampPathSequence,
-                TermAux.PATH_ASSEMBLAGE.getConceptSequence()).map((sememeChronicle) -> {
-
-                    int pathId = sememeChronicle.getReferencedComponentNid();
-                    pathId = Get.identifierService().getConceptSequence(pathId);
-                    assert pathId == stampPathSequence : "pathId: " + pathId + " stampPathSequence: " + stampPathSequence;
-                    StampPath stampPath = new StampPathImpl(stampPathSequence);
-                    pathMap.put(stampPathSequence, stampPath);
-                    return stampPath;
-                }).findFirst();
+                TermAux.PATH_ASSEMBLAGE.getConceptSequence()).findAny().isPresent();
     }
 
     @Override
     public Collection<? extends StampPosition> getOrigins(int stampPathSequence) {
-        setupPathMap();
         if (stampPathSequence < 0) {
             stampPathSequence = Get.identifierService().getConceptSequence(stampPathSequence);
         }
-        return getPathOriginsFromDb(stampPathSequence);
-    }
-
-    private List<StampPosition> getPathOriginsFromDb(int nid) {
-        return Get.sememeService().getSememesForComponentFromAssemblage(nid,
-                TermAux.PATH_ORIGIN_ASSEMBLAGE.getConceptSequence())
-                .map((pathOrigin) -> {
-                    long time = ((LongSememe) pathOrigin.getVersionList().get(0)).getLongValue();
-                    return new StampPositionImpl(time, Get.identifierService().getConceptSequence(nid));
-                })
-                .collect(Collectors.toList());
+        return getPathGraph(stampPathSequence).getOrigins(stampPathSequence);
     }
 
     @Override
     public StampPath getStampPath(int stampPathSequence) {
-        setupPathMap();
         if (stampPathSequence < 0) {
             stampPathSequence = Get.identifierService().getConceptSequence(stampPathSequence);
         }
-        if (exists(stampPathSequence)) {
-            return pathMap.get(stampPathSequence);
-        }
-        Optional<StampPath> stampPath = getFromDisk(stampPathSequence);
-        if (stampPath.isPresent()) {
-            return stampPath.get();
+        StampPath stampPath = getPathGraph(stampPathSequence).paths.get(stampPathSequence);
+        if (stampPath != null) {
+            return stampPath;
         }
         throw new IllegalStateException("No path for: " + stampPathSequence
                 + " " + Get.conceptService().getConcept(stampPathSequence).toString());
@@ -141,46 +167,134 @@ public class PathProvider implements PathService {
 
     @Override
     public Collection<? extends StampPath> getPaths() {
-        return Get.sememeService().getSememesFromAssemblage(
-                TermAux.PATH_ASSEMBLAGE.getConceptSequence()).map((sememeChronicle) -> {
-                    int pathId = sememeChronicle.getReferencedComponentNid();
-                    pathId = Get.identifierService().getConceptSequence(pathId);
-                    StampPath stampPath = new StampPathImpl(pathId);
-                    return stampPath;
-                }).collect(Collectors.toList());
+        return Collections.unmodifiableCollection(getPathGraph().paths.values());
     }
 
     @Override
     public RelativePosition getRelativePosition(StampedVersion v1, StampedVersion v2) {
-        if (v1.getPathSequence() == v2.getPathSequence()) {
-            if (v1.getTime() < v2.getTime()) {
-                return RelativePosition.BEFORE;
-            }
-            if (v1.getTime() > v2.getTime()) {
-                return RelativePosition.AFTER;
-            }
-            return RelativePosition.EQUAL;
+        return getPathGraph().getRelativePosition(v1.getPathSequence(), v1.getTime(),
+                v2.getPathSequence(), v2.getTime());
+    }
+
+    @Override
+    public RelativePosition getRelativePosition(int stampSequence1, int stampSequence2) {
+        StampService stampService = Get.stampService();
+        return getPathGraph().getRelativePosition(
+                stampService.getPathSequenceForStamp(stampSequence1), stampService.getTimeForStamp(stampSequence1),
+                stampService.getPathSequenceForStamp(stampSequence2), stampService.getTimeForStamp(stampSequence2));
+    }
+
+    @Override
+    public void invalidatePaths() {
+        pathGraph = null;
+    }
+
+    @Override
+    public UUID getListenerUuid() {
+        return listenerUuid;
+    }
+
+    @Override
+    public void handleChange(ConceptChronology<? extends StampedVersion> cc) {
+        // paths are defined by sememes
+    }
+
+    @Override
+    public void handleChange(SememeChronology<? extends SememeVersion<?>> sc) {
+        if (isPathSememe(sc)) {
+            pathChangesPending.set(true);
+            pathGraph = null;
         }
-        if (traverseOrigins(v1, getStampPath(v2.getPathSequence())) == RelativePosition.BEFORE) {
-            return RelativePosition.BEFORE;
+    }
+
+    @Override
+    public void handleCommit(CommitRecord commitRecord) {
+        if (pathChangesPending.getAndSet(false)) {
+            LOG.debug("Paths changed, reading path graph again on next use.");
+            pathGraph = null;
         }
-        return traverseOrigins(v2, getStampPath(v1.getPathSequence()));
     }
 
-    private RelativePosition traverseOrigins(StampedVersion v1, StampPath path) {
-        for (StampPosition origin : path.getPathOrigins()) {
-            if (origin.getStampPathSequence() == v1.getPathSequence()) {
-                if (v1.getTime() <= origin.getTime()) {
+    private static boolean isPathSememe(SememeChronology<?> sememeChronology) {
+        int assemblageSequence = sememeChronology.getAssemblageSequence();
+        return assemblageSequence == TermAux.PATH_ASSEMBLAGE.getConceptSequence()
+                || assemblageSequence == TermAux.PATH_ORIGIN_ASSEMBLAGE.getConceptSequence();
+    }
+
+    /**
+     * The paths, the origins of each path, and for each path the latest time
+     * on each path it descends from, directly or through other origins, that
+     * is visible on it. Never changed once constructed.
+     */
+    private static class PathGraph {
+
+        final Map<Integer, StampPath> paths = new HashMap<>();
+        final Map<Integer, List<StampPosition>> origins = new HashMap<>();
+        final Map<Integer, OpenIntLongHashMap> originTimes = new HashMap<>();
+
+        PathGraph() {
+            Get.sememeService().getSememesFromAssemblage(
+                    TermAux.PATH_ASSEMBLAGE.getConceptSequence()).forEach((pathSememe) -> {
+                        int pathSequence = Get.identifierService().getConceptSequence(pathSememe.getReferencedComponentNid());
+                        paths.put(pathSequence, new StampPathImpl(pathSequence));
+                    });
+            Get.sememeService().getSememesFromAssemblage(
+                    TermAux.PATH_ORIGIN_ASSEMBLAGE.getConceptSequence()).forEach((pathOrigin) -> {
+                        int pathSequence = Get.identifierService().getConceptSequence(pathOrigin.getReferencedComponentNid());
+                        long time = ((LongSememe) pathOrigin.getVersionList().get(0)).getLongValue();
+                        origins.computeIfAbsent(pathSequence, (sequence) -> new ArrayList<>())
+                                .add(new StampPositionImpl(time, pathSequence));
+                    });
+            origins.replaceAll((pathSequence, pathOrigins) -> Collections.unmodifiableList(pathOrigins));
+            origins.keySet().forEach((pathSequence) -> {
+                OpenIntLongHashMap times = new OpenIntLongHashMap();
+                addOriginTimes(pathSequence, Long.MAX_VALUE, times);
+                originTimes.put(pathSequence, times);
+            });
+        }
+
+        /**
+         * Record the latest time visible on the destination for each path
+         * the path descends from. Only recurses when a later time is found
+         * for a path, so cycles in the origins terminate.
+         */
+        private void addOriginTimes(int pathSequence, long visibleTime, OpenIntLongHashMap times) {
+            for (StampPosition origin : origins.getOrDefault(pathSequence, Collections.emptyList())) {
+                int originPathSequence = origin.getStampPathSequence();
+                long time = Math.min(visibleTime, origin.getTime());
+                if (!times.containsKey(originPathSequence) || times.get(originPathSequence) < time) {
+                    times.put(originPathSequence, time);
+                    addOriginTimes(originPathSequence, time, times);
+                }
+            }
+        }
+
+        List<StampPosition> getOrigins(int pathSequence) {
+            return origins.getOrDefault(pathSequence, Collections.emptyList());
+        }
+
+        RelativePosition getRelativePosition(int pathSequence1, long time1, int pathSequence2, long time2) {
+            if (pathSequence1 == pathSequence2) {
+                if (time1 < time2) {
                     return RelativePosition.BEFORE;
                 }
+                if (time1 > time2) {
+                    return RelativePosition.AFTER;
+                }
+                return RelativePosition.EQUAL;
+            }
+            if (isVisibleOn(pathSequence1, time1, pathSequence2)) {
+                return RelativePosition.BEFORE;
             }
+            if (isVisibleOn(pathSequence2, time2, pathSequence1)) {
+                return RelativePosition.AFTER;
+            }
+            return RelativePosition.UNREACHABLE;
         }
-        return RelativePosition.UNREACHABLE;
-    }
 
-    @Override
-    public RelativePosition getRelativePosition(int stampSequence1, int stampSequence2) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        private boolean isVisibleOn(int pathSequence, long time, int destinationPathSequence) {
+            OpenIntLongHashMap times = originTimes.get(destinationPathSequence);
+            return times != null && times.containsKey(pathSequence) && time <= times.get(pathSequence);
+        }
     }
-
 }
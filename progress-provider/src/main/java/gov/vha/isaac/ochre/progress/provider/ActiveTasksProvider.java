@@ -1,10 +1,21 @@
 package gov.vha.isaac.ochre.progress.provider;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 import javax.inject.Singleton;
 import org.jvnet.hk2.annotations.Service;
+import gov.vha.isaac.ochre.api.constants.Constants;
 import gov.vha.isaac.ochre.api.progress.ActiveTasks;
+import gov.vha.isaac.ochre.api.progress.TaskCategoryStatistics;
 import javafx.concurrent.Task;
 
 /**
@@ -13,8 +24,22 @@ import javafx.concurrent.Task;
 @Service
 @Singleton
 public class ActiveTasksProvider implements ActiveTasks {
+
+    private final long registrationThresholdMillis
+            = Long.getLong(Constants.TASK_REGISTRATION_THRESHOLD_PROPERTY, 0);
+
     Set<Task<?>> taskSet = ConcurrentHashMap.newKeySet();
 
+    /**
+     * The tasks added, but not yet registered or removed, while a registration
+     * threshold is set. Tasks are registered and removed while holding its lock.
+     */
+    private final Set<Task<?>> pendingTasks = new HashSet<>();
+
+    ConcurrentSkipListMap<String, CategoryCounters> categoryCounters = new ConcurrentSkipListMap<>();
+
+    private volatile ScheduledExecutorService registrationExecutor;
+
     @Override
     public Set<Task<?>> get() {
         return taskSet;
@@ -22,11 +47,92 @@ public class ActiveTasksProvider implements ActiveTasks {
 
     @Override
     public void add(Task<?> task) {
-        taskSet.add(task);
+        if (registrationThresholdMillis > 0) {
+            synchronized (pendingTasks) {
+                pendingTasks.add(task);
+            }
+            getRegistrationExecutor().schedule(() -> register(task),
+                    registrationThresholdMillis, TimeUnit.MILLISECONDS);
+        } else {
+            taskSet.add(task);
+        }
+    }
+
+    private void register(Task<?> task) {
+        synchronized (pendingTasks) {
+            if (pendingTasks.remove(task) && !task.isDone()) {
+                taskSet.add(task);
+            }
+        }
+        // a task that finished while it was registered is not left in the set,
+        // even if it is never removed.
+        if (task.isDone()) {
+            taskSet.remove(task);
+        }
     }
 
     @Override
     public void remove(Task<?> task) {
-        taskSet.remove(task);
+        if (registrationThresholdMillis > 0) {
+            synchronized (pendingTasks) {
+                pendingTasks.remove(task);
+                taskSet.remove(task);
+            }
+        } else {
+            taskSet.remove(task);
+        }
+    }
+
+    @Override
+    public long begin(String category) {
+        CategoryCounters counters = categoryCounters.get(category);
+        if (counters == null) {
+            counters = categoryCounters.computeIfAbsent(category, (key) -> new CategoryCounters());
+        }
+        counters.started.increment();
+        return System.nanoTime();
+    }
+
+    @Override
+    public void end(String category, long startTime) {
+        long latency = System.nanoTime() - startTime;
+        CategoryCounters counters = categoryCounters.get(category);
+        counters.completed.increment();
+        counters.totalLatency.add(latency);
+        counters.maxLatency.accumulate(latency);
+    }
+
+    @Override
+    public List<TaskCategoryStatistics> getCategoryStatistics() {
+        return categoryCounters.entrySet().stream().map((entry) -> {
+            CategoryCounters counters = entry.getValue();
+            // read completed first, so in flight is not negative.
+            long completed = counters.completed.sum();
+            return new TaskCategoryStatistics(entry.getKey(), counters.started.sum() - completed, completed,
+                    counters.totalLatency.sum(), counters.maxLatency.get());
+        }).collect(Collectors.toList());
+    }
+
+    private ScheduledExecutorService getRegistrationExecutor() {
+        if (registrationExecutor == null) {
+            synchronized (this) {
+                if (registrationExecutor == null) {
+                    registrationExecutor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+                        Thread thread = new Thread(runnable, "active task registration");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return registrationExecutor;
+    }
+
+    private static class CategoryCounters {
+
+        final LongAdder started = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder totalLatency = new LongAdder();
+        final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
     }
 }
@@ -44,6 +44,10 @@ public enum ClauseSemantic {
      * Test to see if component has changed from the previous version.
      */
     CHANGED_FROM_PREVIOUS_VERSION,
+    /**
+     * Components identified by a set of SNOMED CT ids.
+     */
+    COMPONENTS_FROM_SNOMED_IDS,
     /**
      * Substitute the concept for any components matching criterion.
      */
@@ -28,6 +28,7 @@ import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.collections.NidSet;
 import gov.vha.isaac.ochre.api.collections.SememeSequenceSet;
 import gov.vha.isaac.ochre.query.provider.clauses.ChangedFromPreviousVersion;
+import gov.vha.isaac.ochre.query.provider.clauses.ComponentsFromSnomedIds;
 import gov.vha.isaac.ochre.query.provider.clauses.ConceptForComponent;
 import gov.vha.isaac.ochre.query.provider.clauses.ConceptIs;
 import gov.vha.isaac.ochre.query.provider.clauses.ConceptIsChildOf;
@@ -373,6 +374,16 @@ public abstract class Query {
         return new DescriptionActiveLuceneMatch(this, queryTextKey, viewCoordinateKey);
     }
 
+    /**
+     * Creates <code>ComponentsFromSnomedIds</code> clause.
+     *
+     * @param snomedIdsKey let key for the SNOMED CT ids
+     * @return
+     */
+    protected ComponentsFromSnomedIds ComponentsFromSnomedIds(String snomedIdsKey) {
+        return new ComponentsFromSnomedIds(this, snomedIdsKey);
+    }
+
     protected DescriptionLuceneMatch DescriptionLuceneMatch(String queryTextKey) {
         return new DescriptionLuceneMatch(this, queryTextKey, currentTaxonomyCoordinateKey);
     }
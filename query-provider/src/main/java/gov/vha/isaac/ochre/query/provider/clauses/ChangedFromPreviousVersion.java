@@ -15,7 +15,10 @@
  */
 package gov.vha.isaac.ochre.query.provider.clauses;
 
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.ObjectChronologyType;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
+import gov.vha.isaac.ochre.api.coordinate.StampPosition;
 import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
 import gov.vha.isaac.ochre.api.collections.NidSet;
 import java.util.EnumSet;
@@ -30,9 +33,12 @@ import gov.vha.isaac.ochre.query.provider.Query;
 import gov.vha.isaac.ochre.query.provider.WhereClause;
 
 /**
- * Computes the components that have been modified since the version specified
- * by the <code>ViewCoordinate</code>. Currently only retrieves descriptions
- * that were modified since the specified <code>ViewCoordinate</code>.
+ * Computes the concepts that have been modified since the position of the
+ * <code>TaxonomyCoordinate</code> specified by the let declaration. A concept
+ * is modified if the concept, or a sememe that refers to the concept directly
+ * or through other sememes, such as a description or a logic graph, has a
+ * version on the path of the position, with a time after the time of the
+ * position.
  *
  * @author dylangrald
  */
@@ -41,18 +47,10 @@ import gov.vha.isaac.ochre.query.provider.WhereClause;
 public class ChangedFromPreviousVersion extends LeafClause {
 
     /**
-     * The <code>ViewCoordinate</code> used to specify the previous version.
+     * The <code>TaxonomyCoordinate</code> used to specify the previous version.
      */
-
-
     @XmlElement
     String previousViewCoordinateKey;
-    /**
-     * Cached set of incoming components. Used to optimize speed in
-     * getQueryMatches method.
-     */
-    NidSet cache = new NidSet();
-
     /**
      * Creates an instance of a ChangedFromPreviousVersion <code>Clause</code>
      * from the enclosing query and key used in let declarations for a previous
@@ -71,28 +69,33 @@ public class ChangedFromPreviousVersion extends LeafClause {
 
     @Override
     public EnumSet<ClauseComputeType> getComputePhases() {
-        return ITERATION;
+        return PRE_ITERATION;
     }
 
     @Override
     public NidSet computePossibleComponents(NidSet incomingPossibleComponents) {
-//        System.out.println(incomingPossibleComponents.size());
-        this.cache = incomingPossibleComponents;
-        return incomingPossibleComponents;
+        TaxonomyCoordinate previousCoordinate = (TaxonomyCoordinate) enclosingQuery.getLetDeclarations().get(previousViewCoordinateKey);
+        StampPosition previousPosition = previousCoordinate.getStampCoordinate().getStampPosition();
+        NidSet changedNids = new NidSet();
+        Get.conceptService().getConceptSequencesModifiedAfterPosition(previousPosition).stream()
+                .forEach((conceptSequence) -> changedNids.add(Get.identifierService().getConceptNid(conceptSequence)));
+        Get.sememeService().getSememeSequencesModifiedAfterPosition(previousPosition).stream()
+                .forEach((sememeSequence) -> {
+                    int referencedNid = Get.sememeService().getSememe(sememeSequence).getReferencedComponentNid();
+                    while (Get.identifierService().getChronologyTypeForNid(referencedNid) == ObjectChronologyType.SEMEME) {
+                        referencedNid = Get.sememeService().getSememe(referencedNid).getReferencedComponentNid();
+                    }
+                    if (Get.identifierService().getChronologyTypeForNid(referencedNid) == ObjectChronologyType.CONCEPT) {
+                        changedNids.add(referencedNid);
+                    }
+                });
+        getResultsCache().or(changedNids);
+        return getResultsCache();
     }
 
     @Override
     public void getQueryMatches(ConceptVersion conceptVersion) {
-        TaxonomyCoordinate previousViewCoordinate = (TaxonomyCoordinate) enclosingQuery.getLetDeclarations().get(previousViewCoordinateKey);
-        throw new UnsupportedOperationException();
-        //TODO FIX BACK UP
-//        for (DescriptionVersionBI desc : conceptVersion.getDescriptionsActive()) {
-//            if (desc.getVersion(previousViewCoordinate) != null) {
-//                if (!desc.getVersion(previousViewCoordinate).equals(desc.getVersion(ViewCoordinates.getDevelopmentInferredLatestActiveOnly()))) {
-//                    getResultsCache().add(desc.getConceptNid());
-//                }
-//            }
-//        }
+        getResultsCache();
     }
 
     @Override
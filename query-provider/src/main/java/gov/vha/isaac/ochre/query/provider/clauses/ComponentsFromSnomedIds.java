@@ -16,19 +16,27 @@
 
 package gov.vha.isaac.ochre.query.provider.clauses;
 
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.bootstrap.TermAux;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
 import gov.vha.isaac.ochre.api.collections.NidSet;
+import java.util.Collection;
 import java.util.EnumSet;
 import gov.vha.isaac.ochre.query.provider.ClauseComputeType;
+import gov.vha.isaac.ochre.query.provider.ClauseSemantic;
 import gov.vha.isaac.ochre.query.provider.LeafClause;
 import gov.vha.isaac.ochre.query.provider.Query;
 import gov.vha.isaac.ochre.query.provider.WhereClause;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 /**
+ * Returns the components identified by a set of SNOMED CT ids. The let
+ * declaration for the key may be a long[], a collection of ids, or a string of
+ * ids separated by white space or commas.
  *
  * @author dylangrald
  */
@@ -36,30 +44,66 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlAccessorType(value = XmlAccessType.NONE)
 public class ComponentsFromSnomedIds extends LeafClause {
 
-    public ComponentsFromSnomedIds(Query enclosingQuery){
+    @XmlElement
+    String snomedIdsKey;
+
+    public ComponentsFromSnomedIds(Query enclosingQuery, String snomedIdsKey){
         super(enclosingQuery);
+        this.snomedIdsKey = snomedIdsKey;
     }
     protected ComponentsFromSnomedIds() {
     }
 
     @Override
     public WhereClause getWhereClause() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        WhereClause whereClause = new WhereClause();
+        whereClause.setSemantic(ClauseSemantic.COMPONENTS_FROM_SNOMED_IDS);
+        whereClause.getLetKeys().add(snomedIdsKey);
+        return whereClause;
     }
 
     @Override
     public EnumSet<ClauseComputeType> getComputePhases() {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return PRE_ITERATION;
     }
 
     @Override
     public NidSet computePossibleComponents(NidSet incomingPossibleComponents) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        String[] snomedIds = getSnomedIds(enclosingQuery.getLetDeclarations().get(snomedIdsKey));
+        int[] nids = Get.identifierService().getNidsForIdentifiers(
+                TermAux.SNOMED_IDENTIFIER.getConceptSequence(), snomedIds);
+        NidSet nidSet = new NidSet();
+        for (int nid : nids) {
+            if (nid != 0) {
+                nidSet.add(nid);
+            }
+        }
+        getResultsCache().or(nidSet);
+        return nidSet;
+    }
+
+    private static String[] getSnomedIds(Object snomedIds) {
+        if (snomedIds instanceof long[]) {
+            long[] ids = (long[]) snomedIds;
+            String[] idStrings = new String[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                idStrings[i] = Long.toString(ids[i]);
+            }
+            return idStrings;
+        }
+        if (snomedIds instanceof Collection) {
+            return ((Collection<?>) snomedIds).stream().map((id) -> id.toString().trim()).toArray(String[]::new);
+        }
+        if (snomedIds instanceof String) {
+            String ids = ((String) snomedIds).trim();
+            return ids.isEmpty() ? new String[0] : ids.split("[\\s,]+");
+        }
+        throw new IllegalStateException("Can't get SNOMED CT ids from: " + snomedIds);
     }
 
     @Override
     public void getQueryMatches(ConceptVersion conceptVersion) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        getResultsCache();
     }
     
 }
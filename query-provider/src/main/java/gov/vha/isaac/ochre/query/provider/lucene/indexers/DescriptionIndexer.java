@@ -244,7 +244,7 @@ public class DescriptionIndexer extends LuceneIndexer implements IndexServiceBI
                 for (DynamicSememe<?> sememeDynamic : sememeDynamicChronicle.getVersionList()) {
                     if (Get.taxonomyService().wasEverKindOf(sememeDynamic.getAssemblageSequence(), descSourceTypeSequence)) {
                         //this is a UUID, but we want to treat it as a string anyway
-                        String extendedDescType = sememeDynamic.getData()[0].getDataObject().toString();
+                        String extendedDescType = sememeDynamic.getData(0).getDataObject().toString();
                         String value = null;
 
                         //Find the text that was active at the time of this refex - timestamp on the refex must not be
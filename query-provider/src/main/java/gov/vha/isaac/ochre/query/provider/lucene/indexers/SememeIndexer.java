@@ -132,7 +132,7 @@ public class SememeIndexer extends LuceneIndexer
 				Integer[] columns = lric.whatColumnsToIndex(dsv.getAssemblageSequence());
 				if (columns != null)
 				{
-					int dataColCount = dsv.getData().length;
+					int dataColCount = dsv.getColumnCount();
 					for (int col : columns)
 					{
 						DynamicSememeData dataCol = col >= dataColCount ? null : dsv.getData(col);
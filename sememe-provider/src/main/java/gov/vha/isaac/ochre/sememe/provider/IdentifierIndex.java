@@ -0,0 +1,326 @@
+package gov.vha.isaac.ochre.sememe.provider;
+
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeType;
+import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.component.sememe.version.StringSememe;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.apache.mahout.math.map.OpenLongIntHashMap;
+
+/**
+ * Index from the values of string sememes, such as SNOMED CT ids, VUIDs or
+ * LOINC codes, to the nids of the components they identify, for each
+ * assemblage. The values of all versions of a sememe are indexed.
+ *
+ * Only assemblages whose identifiers have been looked up are indexed. The
+ * index of an assemblage is built from its sememes on the first lookup, and
+ * kept up to date as its sememes are written from then on.
+ *
+ * Values that are canonical decimal longs, as most identifiers are, are
+ * keyed by their value, and matches are exact. Other values are keyed by a 64
+ * bit hash, and matches must be confirmed against the sememes, see
+ * {@link #isExact(String)}.
+ */
+class IdentifierIndex {
+
+    private static final int[] NO_NIDS = new int[0];
+
+    private final ConcurrentHashMap<Integer, AssemblageIdentifiers> assemblageIdentifiers = new ConcurrentHashMap<>();
+    private final IntFunction<Stream<? extends SememeChronology<?>>> assemblageSememes;
+
+    /**
+     * @param assemblageSememes the sememes of an assemblage, from which its
+     * index is built.
+     */
+    IdentifierIndex(IntFunction<Stream<? extends SememeChronology<?>>> assemblageSememes) {
+        this.assemblageSememes = assemblageSememes;
+    }
+
+    /**
+     * Index a written sememe, if its assemblage is indexed. Call after the
+     * sememe is written, so a concurrent build of the index of its
+     * assemblage either finds the sememe, or is seen by this call.
+     */
+    void index(SememeChronology<?> sememeChronicle) {
+        AssemblageIdentifiers identifiers = assemblageIdentifiers.get(sememeChronicle.getAssemblageSequence());
+        if (identifiers != null) {
+            identifiers.add(sememeChronicle);
+        }
+    }
+
+    /**
+     * @param assemblageSequence
+     * @return true if the identifiers of the assemblage are indexed.
+     */
+    boolean isIndexed(int assemblageSequence) {
+        return assemblageIdentifiers.containsKey(assemblageSequence);
+    }
+
+    private AssemblageIdentifiers getIdentifiers(int assemblageSequence) {
+        AssemblageIdentifiers identifiers = assemblageIdentifiers.get(assemblageSequence);
+        if (identifiers != null) {
+            return identifiers;
+        }
+        // lookups and writes wait on the lock until the index is built.
+        AssemblageIdentifiers newIdentifiers = new AssemblageIdentifiers();
+        newIdentifiers.lock.writeLock().lock();
+        try {
+            identifiers = assemblageIdentifiers.putIfAbsent(assemblageSequence, newIdentifiers);
+            if (identifiers != null) {
+                return identifiers;
+            }
+            try {
+                assemblageSememes.apply(assemblageSequence).forEach(newIdentifiers::add);
+            } catch (RuntimeException e) {
+                assemblageIdentifiers.remove(assemblageSequence, newIdentifiers);
+                throw e;
+            }
+            return newIdentifiers;
+        } finally {
+            newIdentifiers.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param assemblageSequence the identifier assemblage
+     * @param identifier the identifier
+     * @return the nids of the components with the identifier, which must be
+     * confirmed against the sememes unless {@link #isExact(String)}.
+     */
+    int[] getNids(int assemblageSequence, String identifier) {
+        return getIdentifiers(assemblageSequence).get(identifier);
+    }
+
+    /**
+     * @param assemblageSequence the identifier assemblage
+     * @param identifiers the identifiers
+     * @return an array parallel to identifiers, with the nids of the
+     * components with each identifier, looked up under one read lock.
+     */
+    int[][] getNids(int assemblageSequence, String[] identifiers) {
+        int[][] nids = new int[identifiers.length][];
+        getIdentifiers(assemblageSequence).get(identifiers, nids);
+        return nids;
+    }
+
+    /**
+     * @param identifier
+     * @return true if matches for the identifier are exact.
+     */
+    static boolean isExact(String identifier) {
+        int length = identifier.length();
+        int start = length > 0 && identifier.charAt(0) == '-' ? 1 : 0;
+        int digits = length - start;
+        if (digits == 0 || digits > 19) {
+            return false;
+        }
+        if (identifier.charAt(start) == '0' && (digits > 1 || start == 1)) {
+            // leading zeros, or negative zero, would not round trip.
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = identifier.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return digits < 19 || identifier.substring(start).compareTo("9223372036854775807") <= 0;
+    }
+
+    /**
+     * 64 bit FNV-1a hash, with a final mix to spread the low bits.
+     */
+    static long hash(String identifier) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < identifier.length(); i++) {
+            hash ^= identifier.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(assemblageIdentifiers.size());
+        for (Map.Entry<Integer, AssemblageIdentifiers> entry : assemblageIdentifiers.entrySet()) {
+            out.writeInt(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    void read(DataInput in) throws IOException {
+        int assemblageCount = in.readInt();
+        for (int i = 0; i < assemblageCount; i++) {
+            int assemblageSequence = in.readInt();
+            AssemblageIdentifiers identifiers = new AssemblageIdentifiers();
+            identifiers.read(in);
+            assemblageIdentifiers.put(assemblageSequence, identifiers);
+        }
+    }
+
+    private static class AssemblageIdentifiers {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final KeyNidMap exact = new KeyNidMap();
+        private final KeyNidMap hashed = new KeyNidMap();
+
+        void add(SememeChronology<?> sememeChronicle) {
+            if (sememeChronicle.getSememeType() != SememeType.STRING) {
+                return;
+            }
+            int nid = sememeChronicle.getReferencedComponentNid();
+            lock.writeLock().lock();
+            try {
+                for (SememeVersion<?> version : sememeChronicle.getVersionList()) {
+                    String identifier = ((StringSememe<?>) version).getString();
+                    if (identifier == null) {
+                        continue;
+                    }
+                    if (isExact(identifier)) {
+                        exact.add(Long.parseLong(identifier), nid);
+                    } else {
+                        hashed.add(hash(identifier), nid);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int[] get(String identifier) {
+            lock.readLock().lock();
+            try {
+                if (isExact(identifier)) {
+                    return exact.get(Long.parseLong(identifier));
+                }
+                return hashed.get(hash(identifier));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void get(String[] identifiers, int[][] nids) {
+            lock.readLock().lock();
+            try {
+                for (int i = 0; i < identifiers.length; i++) {
+                    String identifier = identifiers[i];
+                    nids[i] = isExact(identifier) ? exact.get(Long.parseLong(identifier))
+                            : hashed.get(hash(identifier));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void write(DataOutput out) throws IOException {
+            lock.readLock().lock();
+            try {
+                exact.write(out);
+                hashed.write(out);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            exact.read(in);
+            hashed.read(in);
+        }
+    }
+
+    /**
+     * Maps a key to one nid, with any further nids for the same key, which
+     * are rare, held separately.
+     */
+    private static class KeyNidMap {
+
+        private final OpenLongIntHashMap keyNidMap = new OpenLongIntHashMap();
+        private final HashMap<Long, int[]> additionalNids = new HashMap<>();
+
+        void add(long key, int nid) {
+            int existingNid = keyNidMap.get(key);
+            if (existingNid == 0) {
+                keyNidMap.put(key, nid);
+            } else if (existingNid != nid) {
+                int[] nids = additionalNids.get(key);
+                if (nids == null) {
+                    additionalNids.put(key, new int[]{nid});
+                } else if (Arrays.stream(nids).noneMatch((additionalNid) -> additionalNid == nid)) {
+                    nids = Arrays.copyOf(nids, nids.length + 1);
+                    nids[nids.length - 1] = nid;
+                    additionalNids.put(key, nids);
+                }
+            }
+        }
+
+        int[] get(long key) {
+            int nid = keyNidMap.get(key);
+            if (nid == 0) {
+                return NO_NIDS;
+            }
+            int[] nids = additionalNids.get(key);
+            if (nids == null) {
+                return new int[]{nid};
+            }
+            int[] allNids = new int[nids.length + 1];
+            allNids[0] = nid;
+            System.arraycopy(nids, 0, allNids, 1, nids.length);
+            return allNids;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeInt(keyNidMap.size());
+            IOException[] exception = new IOException[1];
+            keyNidMap.forEachPair((long key, int nid) -> {
+                try {
+                    out.writeLong(key);
+                    out.writeInt(nid);
+                    return true;
+                } catch (IOException e) {
+                    exception[0] = e;
+                    return false;
+                }
+            });
+            if (exception[0] != null) {
+                throw exception[0];
+            }
+            out.writeInt(additionalNids.size());
+            for (Map.Entry<Long, int[]> entry : additionalNids.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (int nid : entry.getValue()) {
+                    out.writeInt(nid);
+                }
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            int size = in.readInt();
+            keyNidMap.ensureCapacity(size);
+            for (int i = 0; i < size; i++) {
+                long key = in.readLong();
+                keyNidMap.put(key, in.readInt());
+            }
+            int additionalSize = in.readInt();
+            for (int i = 0; i < additionalSize; i++) {
+                long key = in.readLong();
+                int[] nids = new int[in.readInt()];
+                for (int j = 0; j < nids.length; j++) {
+                    nids[j] = in.readInt();
+                }
+                additionalNids.put(key, nids);
+            }
+        }
+    }
+}
@@ -56,8 +56,10 @@ import gov.vha.isaac.ochre.api.component.sememe.SememeServiceTyped;
 import gov.vha.isaac.ochre.api.component.sememe.SememeSnapshotService;
 import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
 import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.component.sememe.version.StringSememe;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampPosition;
+import gov.vha.isaac.ochre.model.StampChangeIndex;
 import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
 import gov.vha.isaac.ochre.model.waitfree.CasSequenceObjectMap;
 
@@ -75,6 +77,12 @@ public class SememeProvider implements SememeService {
     final CasSequenceObjectMap<SememeChronologyImpl<? extends SememeVersion<?>>> sememeMap;
     final ConcurrentSkipListSet<AssemblageSememeKey> assemblageSequenceSememeSequenceMap = new ConcurrentSkipListSet<>();
     final ConcurrentSkipListSet<ReferencedNidAssemblageSequenceSememeSequenceKey> referencedNidAssemblageSequenceSememeSequenceMap = new ConcurrentSkipListSet<>();
+    final IdentifierIndex identifierIndex = new IdentifierIndex((assemblageSequence)
+            -> getSememeSequencesFromAssemblage(assemblageSequence).stream()
+                    .mapToObj((int sememeSequence) -> getOptionalSememe(sememeSequence))
+                    .filter((sememe) -> sememe.isPresent())
+                    .map((sememe) -> sememe.get()));
+    final StampChangeIndex changeIndex = new StampChangeIndex();
     final Path sememePath;
     private transient HashSet<Integer> inUseAssemblages = new HashSet<>();
     private AtomicBoolean loadRequired = new AtomicBoolean();
@@ -123,6 +131,22 @@ public class SememeProvider implements SememeService {
                         referencedNidAssemblageSequenceSememeSequenceMap.add(new ReferencedNidAssemblageSequenceSememeSequenceKey(referencedNid, assemblageSequence, sequence));
                     }
                 }
+                File identifierIndexFile = new File(sememePath.toFile(), "identifier.index");
+                if (identifierIndexFile.exists()) {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(identifierIndexFile)))) {
+                        identifierIndex.read(in);
+                    }
+                }
+                File changeIndexFile = new File(sememePath.toFile(), "stamp-change.index");
+                if (changeIndexFile.exists()) {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(changeIndexFile)))) {
+                        changeIndex.read(in);
+                    }
+                } else {
+                    LOG.info("Building sememe change index.");
+                    sememeMap.getParallelStream().forEach((sememeChronicle) -> changeIndex.index(
+                            sememeChronicle.getSememeSequence(), sememeChronicle.getVersionStampSequences()));
+                }
             }
 
             SememeSequenceSet statedGraphSequences = getSememeSequencesFromAssemblage(Get.identifierService().getConceptSequence(Get.identifierService().getNidForUuids(TermAux.EL_PLUS_PLUS_STATED_ASSEMBLAGE.getUuids())));
@@ -164,6 +188,14 @@ public class SememeProvider implements SememeService {
                     out.writeInt(key.sememeSequence);
                 }
             }
+            LOG.info("writing identifier index.");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(sememePath.toFile(), "identifier.index"))))) {
+                identifierIndex.write(out);
+            }
+            LOG.info("writing sememe change index.");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(sememePath.toFile(), "stamp-change.index"))))) {
+                changeIndex.write(out);
+            }
         }
         catch (IOException e) {
             throw new RuntimeException(e);
@@ -315,8 +347,49 @@ public class SememeProvider implements SememeService {
                 new ReferencedNidAssemblageSequenceSememeSequenceKey(sememeChronicle.getReferencedComponentNid(),
                         sememeChronicle.getAssemblageSequence(),
                         sememeChronicle.getSememeSequence()));
+        changeIndex.index(sememeChronicle.getSememeSequence(), sememeChronicle.getVersionStampSequences());
         sememeMap.put(sememeChronicle.getSememeSequence(),
                 (SememeChronologyImpl<?>) sememeChronicle);
+        identifierIndex.index(sememeChronicle);
+    }
+
+    @Override
+    public int[] getReferencedComponentNidsForIdentifier(int assemblageConceptSequence, String identifier) {
+        assemblageConceptSequence = Get.identifierService().getConceptSequence(assemblageConceptSequence);
+        int[] nids = identifierIndex.getNids(assemblageConceptSequence, identifier);
+        if (nids.length == 0 || IdentifierIndex.isExact(identifier)) {
+            return nids;
+        }
+        // confirm hashed matches against the identifier sememes.
+        final int assemblageSequence = assemblageConceptSequence;
+        return Arrays.stream(nids).filter((nid) -> hasIdentifier(nid, assemblageSequence, identifier)).toArray();
+    }
+
+    @Override
+    public int[] getReferencedComponentNidsForIdentifiers(int assemblageConceptSequence, String... identifiers) {
+        assemblageConceptSequence = Get.identifierService().getConceptSequence(assemblageConceptSequence);
+        int[][] candidates = identifierIndex.getNids(assemblageConceptSequence, identifiers);
+        int[] nids = new int[identifiers.length];
+        for (int i = 0; i < identifiers.length; i++) {
+            for (int nid : candidates[i]) {
+                if (IdentifierIndex.isExact(identifiers[i])
+                        || hasIdentifier(nid, assemblageConceptSequence, identifiers[i])) {
+                    nids[i] = nid;
+                    break;
+                }
+            }
+        }
+        return nids;
+    }
+
+    /**
+     * Confirm a hashed identifier index match against the identifier sememes.
+     */
+    private boolean hasIdentifier(int nid, int assemblageSequence, String identifier) {
+        return getSememesForComponentFromAssemblage(nid, assemblageSequence)
+                .anyMatch((sememeChronicle) -> sememeChronicle.getVersionList().stream()
+                        .anyMatch((version) -> version instanceof StringSememe
+                                && identifier.equals(((StringSememe<?>) version).getString())));
     }
 
     @Override
@@ -324,19 +397,16 @@ public class SememeProvider implements SememeService {
             NidSet componentNidSet, int assemblageConceptSequence, StampPosition position) {
         SememeSequenceSet sequencesToTest
                 = getSememeSequencesForComponentsFromAssemblage(componentNidSet, assemblageConceptSequence);
-        SememeSequenceSet sequencesThatPassedTest = new SememeSequenceSet();
-        sequencesToTest.stream().forEach((sememeSequence) -> {
-            SememeChronologyImpl<?> chronicle = (SememeChronologyImpl<?>) getSememe(sememeSequence);
-            if (chronicle.getVersionStampSequences().anyMatch((stampSequence) -> {
-                return (Get.stampService().getTimeForStamp(stampSequence) > position.getTime()
-                        && (position.getStampPathSequence() == Get.stampService().getPathSequenceForStamp(stampSequence)));
-            })) {
-                sequencesThatPassedTest.add(sememeSequence);
-            }
-        });
+        SememeSequenceSet sequencesThatPassedTest = getSememeSequencesModifiedAfterPosition(position);
+        sequencesThatPassedTest.and(sequencesToTest);
         return sequencesThatPassedTest;
     }
 
+    @Override
+    public SememeSequenceSet getSememeSequencesModifiedAfterPosition(StampPosition position) {
+        return SememeSequenceSet.of(changeIndex.getSequencesModifiedAfter(position));
+    }
+
     @Override
     public Stream<SememeChronology<? extends SememeVersion<?>>> getSememeChronologyStream() {
         return Get.identifierService().getSememeSequenceStream().mapToObj((int sememeSequence) -> getSememe(sememeSequence));
@@ -344,16 +414,9 @@ public class SememeProvider implements SememeService {
 
     @Override
     public Stream<SememeChronology<? extends SememeVersion<?>>> getParallelSememeStream() {
-        return Get.identifierService().getSememeSequenceStream().parallel().mapToObj((int sememeSequence) -> {
-            try {
-                //TODO Keith - this is DEBUG code that should be removed - it isn't proper to inject a null into the return stream.  However, something _ELSE_
-                //is broken at the moment, and the sememeSequenceStream is returning invalid sememe identifiers... eek.
-                return getSememe(sememeSequence);
-            } catch (Exception e) {
-                LOG.error("sememe sequence " + sememeSequence + " could not be resolved!", e);
-                return null;
-            }
-        });
+        // streams the sememes that have been written, rather than every
+        // sememe sequence that has been assigned.
+        return sememeMap.getParallelStream().map((sememeChronicle) -> sememeChronicle);
     }
     int descriptionAssemblageSequence = Integer.MIN_VALUE;
 
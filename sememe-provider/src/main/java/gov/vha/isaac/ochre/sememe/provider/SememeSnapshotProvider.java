@@ -20,12 +20,14 @@ import gov.vha.isaac.ochre.api.ProgressTracker;
 import gov.vha.isaac.ochre.api.bootstrap.TermAux;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.component.sememe.LatestSememeVersionTable;
 import gov.vha.isaac.ochre.api.component.sememe.SememeService;
 import gov.vha.isaac.ochre.api.component.sememe.SememeSnapshotService;
 import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
 import gov.vha.isaac.ochre.api.snapshot.calculator.RelativePositionCalculator;
+import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.collections.NidSet;
 import gov.vha.isaac.ochre.api.collections.SememeSequenceSet;
-import gov.vha.isaac.ochre.api.collections.StampSequenceSet;
 import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
 import java.util.Arrays;
 import java.util.Optional;
@@ -64,17 +66,7 @@ public class SememeSnapshotProvider<V extends SememeVersion<?>> implements Semem
     @Override
     public Optional<LatestVersion<V>> getLatestSememeVersion(int sememeSequenceOrNid) {
         SememeChronologyImpl<?> sc = (SememeChronologyImpl<?>) sememeProvider.getSememe(sememeSequenceOrNid);
-        IntStream stampSequences = sc.getVersionStampSequences();
-        StampSequenceSet latestSequences = calculator.getLatestStampSequencesAsSet(stampSequences);
-        if (latestSequences.isEmpty()) {
-            return Optional.empty();
-        }
-        LatestVersion<V> latest = new LatestVersion<>(versionType);
-        latestSequences.stream().forEach((stampSequence) -> {
-            latest.addLatest((V) sc.getVersionForStamp(stampSequence).get());
-        });
-
-        return Optional.of(latest);
+        return (Optional<LatestVersion<V>>) (Optional) sc.getLatestVersion(calculator);
     }
 
     @Override
@@ -90,16 +82,7 @@ public class SememeSnapshotProvider<V extends SememeVersion<?>> implements Semem
                 .mapToObj((int sememeSequence) -> {
                     try {
                         SememeChronologyImpl<?> sc = (SememeChronologyImpl<?>) sememeProvider.getSememe(sememeSequence);
-                        IntStream stampSequences = sc.getVersionStampSequences();
-                        StampSequenceSet latestStampSequences = calculator.getLatestStampSequencesAsSet(stampSequences);
-                        if (latestStampSequences.isEmpty()) {
-                            return Optional.empty();
-                        }
-                        LatestVersion<V> latest = new LatestVersion<>(versionType);
-                        latestStampSequences.stream().forEach((stampSequence) -> {
-                            latest.addLatest((V) sc.getVersionForStamp(stampSequence).get());
-                        });
-                        return Optional.of(latest);
+                        return sc.getLatestVersion(calculator);
                     } finally {
                         Arrays.stream(progressTrackers).forEach((tracker) -> {
                             tracker.completedUnitOfWork();
@@ -126,4 +109,37 @@ public class SememeSnapshotProvider<V extends SememeVersion<?>> implements Semem
     public Stream<LatestVersion<V>> getLatestDescriptionVersionsForComponent(int componentNid) {
         return getLatestSememeVersions(sememeProvider.getSememeSequencesForComponentFromAssemblage(componentNid, getDescriptionAssemblageSequence()));
     }
+
+    @Override
+    public LatestSememeVersionTable getLatestSememeVersionsForComponentsFromAssemblage(NidSet componentNidSet, int assemblageConceptSequence) {
+        return getLatestSememeVersionTable(sememeProvider.getSememeSequencesForComponentsFromAssemblage(componentNidSet, assemblageConceptSequence));
+    }
+
+    @Override
+    public LatestSememeVersionTable getLatestSememeVersionsForComponentsFromAssemblages(NidSet componentNidSet, ConceptSequenceSet assemblageConceptSequenceSet) {
+        SememeSequenceSet sememeSequenceSet = new SememeSequenceSet();
+        assemblageConceptSequenceSet.stream().forEach((assemblageConceptSequence) -> {
+            sememeSequenceSet.or(sememeProvider.getSememeSequencesForComponentsFromAssemblage(componentNidSet, assemblageConceptSequence));
+        });
+        return getLatestSememeVersionTable(sememeSequenceSet);
+    }
+
+    private LatestSememeVersionTable getLatestSememeVersionTable(SememeSequenceSet sememeSequenceSet) {
+        int[] sememeSequences = sememeSequenceSet.asArray();
+        SememeVersion<?>[] versions = new SememeVersion<?>[sememeSequences.length];
+        IntStream.range(0, sememeSequences.length).parallel().forEach((index) -> {
+            SememeChronologyImpl<?> sc = (SememeChronologyImpl<?>) sememeProvider.getSememe(sememeSequences[index]);
+            Optional<LatestVersion<V>> latest = (Optional<LatestVersion<V>>) (Optional) sc.getLatestVersion(calculator);
+            if (latest.isPresent()) {
+                versions[index] = latest.get().value();
+            }
+        });
+        int latestCount = 0;
+        for (SememeVersion<?> version : versions) {
+            if (version != null) {
+                versions[latestCount++] = version;
+            }
+        }
+        return new LatestSememeVersionTable(Arrays.copyOf(versions, latestCount));
+    }
 }
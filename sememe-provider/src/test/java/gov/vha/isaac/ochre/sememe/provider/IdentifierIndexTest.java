@@ -0,0 +1,152 @@
+package gov.vha.isaac.ochre.sememe.provider;
+
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeType;
+import gov.vha.isaac.ochre.model.sememe.SememeChronologyImpl;
+import gov.vha.isaac.ochre.model.sememe.version.StringSememeImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Lookups of the identifier index, as built from the sememes of an
+ * assemblage and updated as sememes are written.
+ */
+public class IdentifierIndexTest {
+
+    private static final int SCTID_ASSEMBLAGE = 3;
+    private static final int CODE_ASSEMBLAGE = 4;
+
+    private final List<SememeChronology<?>> sememes = new ArrayList<>();
+    private final AtomicInteger builds = new AtomicInteger();
+    private int nextSememeNid = -1000;
+
+    @BeforeMethod
+    public void clear() {
+        sememes.clear();
+        builds.set(0);
+    }
+
+    private IdentifierIndex newIndex() {
+        return new IdentifierIndex((assemblageSequence) -> {
+            builds.incrementAndGet();
+            return sememes.stream().filter((sememe) -> sememe.getAssemblageSequence() == assemblageSequence);
+        });
+    }
+
+    /**
+     * @param values the value of each version, in stamp order. The index
+     * does not depend on the status of the stamps.
+     */
+    private SememeChronology<?> identifier(int assemblageSequence, int referencedComponentNid, String... values) {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        SememeChronologyImpl<StringSememeImpl> sememe = new SememeChronologyImpl(SememeType.STRING,
+                UUID.randomUUID(), nextSememeNid--, assemblageSequence, referencedComponentNid, sememes.size());
+        for (int i = 0; i < values.length; i++) {
+            sememe.createMutableVersion(StringSememeImpl.class, i + 1).setString(values[i]);
+        }
+        sememes.add(sememe);
+        return sememe;
+    }
+
+    private static void assertNids(int[] nids, int... expected) {
+        int[] sorted = nids.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted, expected);
+    }
+
+    @Test
+    public void testIsExact() {
+        assertTrue(IdentifierIndex.isExact("22298006"));
+        assertTrue(IdentifierIndex.isExact("-5"));
+        assertTrue(IdentifierIndex.isExact("9223372036854775807"));
+        assertFalse(IdentifierIndex.isExact("9223372036854775808"));
+        assertFalse(IdentifierIndex.isExact("0042"));
+        assertFalse(IdentifierIndex.isExact("-0"));
+        assertFalse(IdentifierIndex.isExact("2160-0"));
+        assertFalse(IdentifierIndex.isExact(""));
+    }
+
+    @Test
+    public void testLookups() {
+        identifier(SCTID_ASSEMBLAGE, -1, "22298006");
+        identifier(SCTID_ASSEMBLAGE, -2, "0042");
+        identifier(CODE_ASSEMBLAGE, -3, "2160-0");
+        identifier(CODE_ASSEMBLAGE, -4, "2160-0");
+        IdentifierIndex index = newIndex();
+
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "22298006"), -1);
+        // candidates, to be confirmed against the sememes.
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "0042"), -2);
+        assertNids(index.getNids(CODE_ASSEMBLAGE, "2160-0"), -4, -3);
+        // values are indexed by assemblage.
+        assertNids(index.getNids(CODE_ASSEMBLAGE, "22298006"));
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "2160-0"));
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "42"));
+
+        int[][] nids = index.getNids(SCTID_ASSEMBLAGE, new String[]{"0042", "1", "22298006"});
+        assertNids(nids[0], -2);
+        assertNids(nids[1]);
+        assertNids(nids[2], -1);
+    }
+
+    @Test
+    public void testOlderAndRetiredValues() {
+        // a code changed from 100 to 200, and then retired as MX-7.
+        identifier(SCTID_ASSEMBLAGE, -1, "100", "200", "MX-7");
+        IdentifierIndex index = newIndex();
+
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "100"), -1);
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "200"), -1);
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "MX-7"), -1);
+    }
+
+    @Test
+    public void testIndexedOnFirstLookup() {
+        IdentifierIndex index = newIndex();
+        index.index(identifier(SCTID_ASSEMBLAGE, -1, "22298006"));
+        assertFalse(index.isIndexed(SCTID_ASSEMBLAGE));
+        assertEquals(builds.get(), 0);
+
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "22298006"), -1);
+        assertTrue(index.isIndexed(SCTID_ASSEMBLAGE));
+        assertFalse(index.isIndexed(CODE_ASSEMBLAGE));
+
+        // sememes written after the first lookup are indexed as written.
+        index.index(identifier(SCTID_ASSEMBLAGE, -2, "404684003"));
+        assertNids(index.getNids(SCTID_ASSEMBLAGE, "404684003"), -2);
+        assertEquals(builds.get(), 1);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        identifier(SCTID_ASSEMBLAGE, -1, "22298006", "MX-7");
+        identifier(SCTID_ASSEMBLAGE, -2, "22298006");
+        identifier(CODE_ASSEMBLAGE, -3, "2160-0");
+        IdentifierIndex index = newIndex();
+        index.getNids(SCTID_ASSEMBLAGE, "22298006");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        IdentifierIndex readIndex = newIndex();
+        readIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        int buildsBeforeLookup = builds.get();
+
+        assertTrue(readIndex.isIndexed(SCTID_ASSEMBLAGE));
+        assertFalse(readIndex.isIndexed(CODE_ASSEMBLAGE));
+        assertNids(readIndex.getNids(SCTID_ASSEMBLAGE, "22298006"), -2, -1);
+        assertNids(readIndex.getNids(SCTID_ASSEMBLAGE, "MX-7"), -1);
+        assertEquals(builds.get(), buildsBeforeLookup);
+    }
+}
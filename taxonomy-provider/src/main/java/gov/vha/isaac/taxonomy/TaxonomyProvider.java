@@ -25,7 +25,6 @@ import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
 import gov.vha.isaac.ochre.api.commit.CommitRecord;
 import gov.vha.isaac.ochre.api.commit.CommitStates;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
-import gov.vha.isaac.ochre.api.component.concept.ConceptService;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeType;
 import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
@@ -58,14 +57,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
 import java.util.stream.IntStream;
 import javax.annotation.PostConstruct;
@@ -74,6 +74,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.glassfish.hk2.runlevel.RunLevel;
 import org.jvnet.hk2.annotations.Service;
+import org.roaringbitmap.RoaringBitmap;
 
 /**
  *
@@ -104,6 +105,29 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
     private final StampedLock stampedLock = new StampedLock();
     private IdentifierService identifierService;
 
+    private static final int ACTIVE_CONCEPT_CACHE_SIZE = 16;
+    /**
+     * The number of concepts tested under a stamp coordinate, one at a time,
+     * before the active concepts under the coordinate are all computed, so a
+     * coordinate used for a few tests does not scan every concept.
+     */
+    private static final int ACTIVE_CONCEPT_SCAN_THRESHOLD = 256;
+    /**
+     * The recently used stamp coordinates, with the sequences of the concepts
+     * that are active under the coordinates used most. A bitmap is not changed
+     * once it is in the cache; status changes replace it with an updated copy.
+     * Entries are only added, removed, or given a bitmap while holding the
+     * lock of the cache, and {@code statusChangeCount} and
+     * {@code activeConceptBitmaps} are only changed while holding it.
+     */
+    private final ConcurrentHashMap<StampCoordinate, ActiveConcepts> activeConceptCache = new ConcurrentHashMap<>();
+    private volatile long statusChangeCount = 0;
+    /**
+     * The number of bitmaps in the cache, plus the number being computed.
+     * Status changes don't need to be tracked while there are none.
+     */
+    private volatile int activeConceptBitmaps = 0;
+
     private TaxonomyProvider() throws IOException {
         folderPath = LookupService.getService(ConfigurationService.class).getChronicleFolderPath();
         taxonomyProviderFolder = folderPath.resolve(TAXONOMY);
@@ -212,17 +236,10 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
 
         Optional<TaxonomyRecordPrimitive> record = originDestinationTaxonomyRecordMap.get(childId);
         if (stampedLock.validate(stamp)) {
-            if (record.isPresent()) {
-                TaxonomyRecordUnpacked childTaxonomyRecords = new TaxonomyRecordUnpacked(record.get().getArray());
-                Optional<TypeStampTaxonomyRecords> parentStampRecordsOptional = childTaxonomyRecords.getConceptSequenceStampRecords(parentId);
-                if (parentStampRecordsOptional.isPresent()) {
-                    TypeStampTaxonomyRecords parentStampRecords = parentStampRecordsOptional.get();
-                    if (computer.isLatestActive(parentStampRecords.getStampsOfTypeWithFlags(
-                            isaSequence, flags))) {
-                        if (stampedLock.validate(stamp)) {
-                            return true;
-                        }
-                    }
+            if (record.isPresent()
+                    && record.get().isDestinationActiveViaType(parentId, isaSequence, flags, computer)) {
+                if (stampedLock.validate(stamp)) {
+                    return true;
                 }
             }
             return false;
@@ -232,17 +249,10 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
 
         try {
             record = originDestinationTaxonomyRecordMap.get(childId);
-            if (record.isPresent()) {
-                TaxonomyRecordUnpacked childTaxonomyRecords = new TaxonomyRecordUnpacked(record.get().getArray());
-                Optional<TypeStampTaxonomyRecords> parentStampRecordsOptional = childTaxonomyRecords.getConceptSequenceStampRecords(parentId);
-                if (parentStampRecordsOptional.isPresent()) {
-                    TypeStampTaxonomyRecords parentStampRecords = parentStampRecordsOptional.get();
-                    if (computer.isLatestActive(parentStampRecords.getStampsOfTypeWithFlags(
-                           isaSequence, flags))) {
-                        if (stampedLock.validate(stamp)) {
-                            return true;
-                        }
-                    }
+            if (record.isPresent()
+                    && record.get().isDestinationActiveViaType(parentId, isaSequence, flags, computer)) {
+                if (stampedLock.validate(stamp)) {
+                    return true;
                 }
             }
         } finally {
@@ -273,23 +283,20 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
     }
 
     private boolean recursiveFindAncestor(int childSequence, int parentSequence, HashSet<Integer> examined) {
-        // currently unpacking from array to object. 
-        // TODO operate directly on array if unpacking is a performance bottleneck.
         if (examined.contains(childSequence)) {
             return false;
         }
         examined.add(childSequence);
         Optional<TaxonomyRecordPrimitive> record = originDestinationTaxonomyRecordMap.get(childSequence);
         if (record.isPresent()) {
-            TaxonomyRecordUnpacked childTaxonomyRecords = new TaxonomyRecordUnpacked(record.get().getArray());
-            int[] conceptSequencesForType
-                    = childTaxonomyRecords.getConceptSequencesForType(
-                            isaSequence).toArray();
-            if (Arrays.stream(conceptSequencesForType).anyMatch((int parentSequenceOfType) -> parentSequenceOfType == parentSequence)) {
+            // scans the packed record twice, checking the direct destinations
+            // before recursing, rather than collecting them.
+            TaxonomyRecordPrimitive childRecord = record.get();
+            if (!childRecord.forEachDestination((int destinationSequence) -> destinationSequence != parentSequence)) {
                 return true;
             }
-            return Arrays.stream(conceptSequencesForType).anyMatch(
-                    (int intermediateChild) -> recursiveFindAncestor(intermediateChild, parentSequence, examined));
+            return !childRecord.forEachDestination(
+                    (int intermediateChild) -> !recursiveFindAncestor(intermediateChild, parentSequence, examined));
         }
         return false;
     }
@@ -317,21 +324,16 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
 
     private boolean recursiveFindAncestor(int childSequence, int parentSequence,
             TaxonomyCoordinate tc) {
-        // currently unpacking from array to object.
-        // TODO operate directly on array if unpacking is a performance bottleneck.
-
         Optional<TaxonomyRecordPrimitive> record = originDestinationTaxonomyRecordMap.get(childSequence);
 
         if (record.isPresent()) {
-            TaxonomyRecordUnpacked childTaxonomyRecords = new TaxonomyRecordUnpacked(record.get().getArray());
-            int[] activeConceptSequences
-                    = childTaxonomyRecords.getConceptSequencesForType(
-                            isaSequence, tc).toArray();
-            if (Arrays.stream(activeConceptSequences).anyMatch((int activeParentSequence) -> activeParentSequence == parentSequence)) {
+            TaxonomyRecordPrimitive childRecord = record.get();
+            if (!childRecord.forEachActiveDestinationOfType(isaSequence, tc,
+                    (int activeParentSequence) -> activeParentSequence != parentSequence)) {
                 return true;
             }
-            return Arrays.stream(activeConceptSequences).anyMatch(
-                    (int intermediateChild) -> recursiveFindAncestor(intermediateChild, parentSequence, tc));
+            return !childRecord.forEachActiveDestinationOfType(isaSequence, tc,
+                    (int intermediateChild) -> !recursiveFindAncestor(intermediateChild, parentSequence, tc));
         }
 
         return false;
@@ -365,25 +367,165 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
 
     @Override
     public boolean isConceptActive(int conceptSequence, StampCoordinate stampCoordinate) {
-        long stamp = stampedLock.tryOptimisticRead();
-        Optional<TaxonomyRecordPrimitive> taxonomyRecordOptional
-                = originDestinationTaxonomyRecordMap.get(conceptSequence);
-        if (stampedLock.validate(stamp)) {
-            if (taxonomyRecordOptional.isPresent()) {
-                return taxonomyRecordOptional.get().isConceptActive(conceptSequence, stampCoordinate);
+        ActiveConcepts activeConcepts = getActiveConceptsEntry(stampCoordinate);
+        RoaringBitmap bitmap = activeConcepts.bitmap;
+        if (bitmap == null) {
+            if (activeConcepts.conceptsTested.incrementAndGet() < ACTIVE_CONCEPT_SCAN_THRESHOLD) {
+                return TaxonomyRecordPrimitive.isConceptActive(conceptSequence,
+                        originDestinationTaxonomyRecordMap, stampCoordinate);
             }
-            return false;
+            bitmap = getActiveConcepts(activeConcepts);
         }
-        stamp = stampedLock.readLock();
-        try {
-            taxonomyRecordOptional
-                    = originDestinationTaxonomyRecordMap.get(conceptSequence);
-            if (taxonomyRecordOptional.isPresent()) {
-                return taxonomyRecordOptional.get().isConceptActive(conceptSequence, stampCoordinate);
+        return bitmap.contains(conceptSequence);
+    }
+
+    @Override
+    public ConceptSequenceSet getActiveConceptSequenceSet(StampCoordinate stampCoordinate) {
+        return new ConceptSequenceSet(getActiveConcepts(stampCoordinate).toArray());
+    }
+
+    /**
+     * The concepts that are active under a stamp coordinate, once computed,
+     * and when the coordinate was last used.
+     */
+    private static class ActiveConcepts {
+
+        final StampCoordinate stampCoordinate;
+        final AtomicInteger conceptsTested = new AtomicInteger();
+        volatile RoaringBitmap bitmap;
+        volatile long lastUsed = System.nanoTime();
+
+        ActiveConcepts(StampCoordinate stampCoordinate) {
+            this.stampCoordinate = stampCoordinate;
+        }
+
+        /**
+         * @return true if this entry is removed from a full cache before the
+         * other: an entry without a bitmap before one with a bitmap, then the
+         * least recently used.
+         */
+        boolean isRemovedBefore(ActiveConcepts other) {
+            if ((bitmap == null) != (other.bitmap == null)) {
+                return bitmap == null;
+            }
+            return lastUsed - other.lastUsed < 0;
+        }
+    }
+
+    /**
+     * @param stampCoordinate
+     * @return the cache entry for the coordinate, added if the coordinate was
+     * not recently used, in which case the entry that is
+     * {@link ActiveConcepts#isRemovedBefore removed first} makes room when the
+     * cache is full.
+     */
+    private ActiveConcepts getActiveConceptsEntry(StampCoordinate stampCoordinate) {
+        ActiveConcepts activeConcepts = activeConceptCache.get(stampCoordinate);
+        if (activeConcepts == null) {
+            synchronized (activeConceptCache) {
+                activeConcepts = activeConceptCache.get(stampCoordinate);
+                if (activeConcepts == null) {
+                    if (activeConceptCache.size() >= ACTIVE_CONCEPT_CACHE_SIZE) {
+                        ActiveConcepts leastRecentlyUsed = null;
+                        for (ActiveConcepts cached : activeConceptCache.values()) {
+                            if (leastRecentlyUsed == null || cached.isRemovedBefore(leastRecentlyUsed)) {
+                                leastRecentlyUsed = cached;
+                            }
+                        }
+                        activeConceptCache.remove(leastRecentlyUsed.stampCoordinate);
+                        if (leastRecentlyUsed.bitmap != null) {
+                            activeConceptBitmaps--;
+                        }
+                    }
+                    activeConcepts = new ActiveConcepts(stampCoordinate);
+                    activeConceptCache.put(stampCoordinate, activeConcepts);
+                    return activeConcepts;
+                }
+            }
+        }
+        activeConcepts.lastUsed = System.nanoTime();
+        return activeConcepts;
+    }
+
+    /**
+     * @param stampCoordinate
+     * @return the cached bitmap of the concepts that are active under the
+     * coordinate, computed from the status records of each concept on first
+     * use. The bitmap must not be changed.
+     */
+    private RoaringBitmap getActiveConcepts(StampCoordinate stampCoordinate) {
+        ActiveConcepts activeConcepts = getActiveConceptsEntry(stampCoordinate);
+        RoaringBitmap bitmap = activeConcepts.bitmap;
+        if (bitmap != null) {
+            return bitmap;
+        }
+        return getActiveConcepts(activeConcepts);
+    }
+
+    private RoaringBitmap getActiveConcepts(ActiveConcepts activeConcepts) {
+        long changeCountAtStart;
+        synchronized (activeConceptCache) {
+            activeConceptBitmaps++;
+            changeCountAtStart = statusChangeCount;
+        }
+        StampCoordinate stampCoordinate = activeConcepts.stampCoordinate;
+        RoaringBitmap bitmap = RoaringBitmap.bitmapOf(identifierService.getParallelConceptSequenceStream()
+                .filter((conceptSequence) -> TaxonomyRecordPrimitive.isConceptActive(conceptSequence,
+                        originDestinationTaxonomyRecordMap, stampCoordinate)).toArray());
+        synchronized (activeConceptCache) {
+            if (activeConcepts.bitmap != null) {
+                activeConceptBitmaps--;
+                return activeConcepts.bitmap;
+            }
+            // a status that changed while computing may not be in the bitmap.
+            if (changeCountAtStart == statusChangeCount
+                    && activeConceptCache.get(stampCoordinate) == activeConcepts) {
+                activeConcepts.bitmap = bitmap;
+            } else {
+                activeConceptBitmaps--;
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Test the status of the concepts again under each cached coordinate, and
+     * replace the bitmaps in which some changed with one updated copy.
+     * @param conceptSequences
+     */
+    private void updateActiveConcepts(int... conceptSequences) {
+        // the status records are written before the count is read, and the
+        // count is raised before a bitmap is computed, so a bitmap computed
+        // after the count is read sees the changes.
+        if (activeConceptBitmaps == 0) {
+            return;
+        }
+        synchronized (activeConceptCache) {
+            statusChangeCount++;
+            for (ActiveConcepts activeConcepts : activeConceptCache.values()) {
+                RoaringBitmap bitmap = activeConcepts.bitmap;
+                if (bitmap == null) {
+                    continue;
+                }
+                RoaringBitmap updated = null;
+                for (int conceptSequence : conceptSequences) {
+                    boolean active = TaxonomyRecordPrimitive.isConceptActive(conceptSequence,
+                            originDestinationTaxonomyRecordMap, activeConcepts.stampCoordinate);
+                    if (active != bitmap.contains(conceptSequence)) {
+                        if (updated == null) {
+                            updated = bitmap.clone();
+                        }
+                        if (active) {
+                            updated.add(conceptSequence);
+                        } else {
+                            updated.remove(conceptSequence);
+                        }
+                    }
+                }
+                if (updated != null) {
+                    activeConcepts.bitmap = updated;
+                }
             }
-            return false;
-        } finally {
-            stampedLock.unlock(stamp);
         }
     }
 
@@ -712,6 +854,9 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
 
     @Override
     public void handleCommit(CommitRecord commitRecord) {
+        // committing sets the time of the versions, which may change the
+        // status of the concepts under coordinates at a time.
+        updateActiveConcepts(commitRecord.getConceptsInCommit().asArray());
         UpdateTaxonomyAfterCommitTask.get(this, commitRecord, sememeSequencesForUnhandledChanges, stampedLock);
     }
 
@@ -912,35 +1057,22 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
 
     @Override
     public IntStream getAllCircularRelationshipOriginSequences(TaxonomyCoordinate tc) {
-        ConceptService conceptService = Get.conceptService();
         StampCoordinate stampCoordinate = tc.getStampCoordinate();
-        return Get.identifierService().getParallelConceptSequenceStream().filter((conceptSequence) -> {
-            if (conceptService.isConceptActive(conceptSequence, stampCoordinate)) {
-                if (getAllCircularRelationshipTypeSequences(conceptSequence, tc).anyMatch(((typeSequence) -> true))) {
-                    return true;
-                }
-            }
-            return false;
-        });
+        return IntStream.of(getActiveConcepts(stampCoordinate).toArray()).parallel().filter((conceptSequence) -> 
+                getAllCircularRelationshipTypeSequences(conceptSequence, tc).anyMatch(((typeSequence) -> true)));
     }
 
     private void recursiveFindAncestors(int childSequence, ConceptSequenceSet ancestors,
             TaxonomyCoordinate tc) {
-        // currently unpacking from array to object.
-        // TODO operate directly on array if unpacking is a performance bottleneck.
-
         Optional<TaxonomyRecordPrimitive> record = originDestinationTaxonomyRecordMap.get(childSequence);
 
         if (record.isPresent()) {
-            TaxonomyRecordUnpacked childTaxonomyRecords = new TaxonomyRecordUnpacked(record.get().getArray());
-            int[] activeConceptSequences
-                    = childTaxonomyRecords.getConceptSequencesForType(
-                            isaSequence, tc).toArray();
-            Arrays.stream(activeConceptSequences).forEach((parent) -> {
+            record.get().forEachActiveDestinationOfType(isaSequence, tc, (int parent) -> {
                 if (!ancestors.contains(parent)) {
                     ancestors.add(parent);
                     recursiveFindAncestors(parent, ancestors, tc);
                 }
+                return true;
             });
         }
     }
@@ -1035,6 +1167,7 @@ public class TaxonomyProvider implements TaxonomyService, ConceptActiveService,
         });
 
         originDestinationTaxonomyRecordMap.put(conceptSequence, parentTaxonomyRecord);
+        updateActiveConcepts(conceptSequence);
     }
 
 }
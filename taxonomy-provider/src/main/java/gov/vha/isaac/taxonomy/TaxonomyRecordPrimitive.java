@@ -9,11 +9,23 @@ import gov.vha.isaac.ochre.model.WaitFreeComparable;
 import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
 import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
+import gov.vha.isaac.ochre.api.snapshot.calculator.RelativePositionCalculator;
 import gov.vha.isaac.ochre.model.waitfree.CasSequenceObjectMap;
+import gov.vha.isaac.ochre.api.bootstrap.TermAux;
 import java.util.Optional;
+import java.util.function.IntPredicate;
 import java.util.stream.IntStream;
+import org.apache.mahout.math.function.IntProcedure;
 
 /**
+ * The packed taxonomy record of an origin concept. For each destination
+ * concept, the array holds the destination sequence with the length of its
+ * record in the top 8 bits, followed by a pair of ints for each type stamp
+ * record: the stamp sequence with the taxonomy flags in the top 8 bits, and
+ * the type sequence.
+ *
+ * Queries scan the packed array directly, rather than unpacking it into a
+ * {@link TaxonomyRecordUnpacked}, which is only needed to add records.
  *
  * @author kec
  */
@@ -23,6 +35,28 @@ public class TaxonomyRecordPrimitive implements WaitFreeComparable {
     public static final int STAMP_BIT_MASK = 0x00FFFFFF;
     public static final int LENGTH_BIT_MASK = 0xFF000000;
     public static final int FLAGS_BIT_MASK = 0xFF000000;
+
+    /**
+     * Accepts the type stamp records of a packed taxonomy record.
+     */
+    @FunctionalInterface
+    public interface TypeStampFlagProcedure {
+
+        /**
+         * @param destinationSequence the destination concept of the record
+         * @param typeSequence the type of the record
+         * @param stampSequence the stamp of the record
+         * @param flags the taxonomy flags of the record
+         * @return true to continue, false to stop.
+         */
+        boolean apply(int destinationSequence, int typeSequence, int stampSequence, int flags);
+    }
+
+    /**
+     * Holds the matching stamps of one destination while computing the latest,
+     * so scans don't allocate.
+     */
+    private static final ThreadLocal<int[]> STAMP_BUFFER = ThreadLocal.withInitial(() -> new int[16]);
         
     public static Optional<TaxonomyRecordPrimitive> getIfActiveViaType(int conceptSequence, 
             int typeSequence,
@@ -148,15 +182,33 @@ public class TaxonomyRecordPrimitive implements WaitFreeComparable {
     }
     
     public IntStream getParentSequences(TaxonomyCoordinate tc) {
-        return getTaxonomyRecordUnpacked().getConceptSequencesForType(tc.getIsaConceptSequence(), tc);
+        IntStream.Builder parentSequences = IntStream.builder();
+        forEachActiveDestinationOfType(tc.getIsaConceptSequence(), tc, (int parentSequence) -> {
+            parentSequences.accept(parentSequence);
+            return true;
+        });
+        return parentSequences.build();
     }
 
     public IntStream getParentSequences() {
-       return getTaxonomyRecordUnpacked().getParentConceptSequences();
+        int isaSequence = TermAux.IS_A.getConceptSequence();
+        IntStream.Builder parentSequences = IntStream.builder();
+        forEachTypeStampFlag((int destinationSequence, int typeSequence, int stampSequence, int flags) -> {
+            if (typeSequence == isaSequence) {
+                parentSequences.accept(destinationSequence);
+            }
+            return true;
+        });
+        return parentSequences.build();
     }
 
     public IntStream getDestinationSequences() {
-       return getTaxonomyRecordUnpacked().getDestinationConceptSequences();
+        IntStream.Builder destinationSequences = IntStream.builder();
+        forEachDestination((int destinationSequence) -> {
+            destinationSequences.accept(destinationSequence);
+            return true;
+        });
+        return destinationSequences.build();
     }
 
     public IntStream getDestinationSequencesOfType(ConceptSequenceSet typeSequenceSet) {
@@ -164,11 +216,24 @@ public class TaxonomyRecordPrimitive implements WaitFreeComparable {
     }
 
     public IntStream getDestinationSequencesOfType(ConceptSequenceSet typeSequenceSet, TaxonomyCoordinate tc) {
-       return getTaxonomyRecordUnpacked().getDestinationConceptSequencesOfType(typeSequenceSet, tc);
+        return getActiveDestinationSequences(typeSequenceSet::contains, typeSequenceSet.isEmpty(), tc);
     }
 
     public IntStream getDestinationSequencesNotOfType(ConceptSequenceSet typeSequenceSet, TaxonomyCoordinate tc) {
-       return getTaxonomyRecordUnpacked().getDestinationConceptSequencesNotOfType(typeSequenceSet, tc);
+        return getActiveDestinationSequences((int typeSequence) -> !typeSequenceSet.contains(typeSequence),
+                typeSequenceSet.isEmpty(), tc);
+    }
+
+    private IntStream getActiveDestinationSequences(IntPredicate typeFilter, boolean anyType, TaxonomyCoordinate tc) {
+        int flags = TaxonomyFlags.getFlagsFromTaxonomyCoordinate(tc);
+        RelativePositionCalculator computer = RelativePositionCalculator.getCalculator(tc.getStampCoordinate());
+        IntPredicate matchingType = anyType ? (int typeSequence) -> true : typeFilter;
+        IntStream.Builder destinationSequences = IntStream.builder();
+        forEachActiveDestination(matchingType, flags, flags, computer, (int destinationSequence) -> {
+            destinationSequences.accept(destinationSequence);
+            return true;
+        });
+        return destinationSequences.build();
     }
 
     public TaxonomyRecordUnpacked unpack() {
@@ -179,36 +244,241 @@ public class TaxonomyRecordPrimitive implements WaitFreeComparable {
         return taxonomyData;
     }
 
+    /**
+     * @param conceptSequence the destination concept
+     * @param typeSequence the type to match, or Integer.MAX_VALUE to match
+     * any type.
+     * @param flags the flags to match, or 0 to match any flags.
+     * @return true if any version of the destination has the type and flags.
+     */
     public boolean containsSequenceViaTypeWithFlags(int conceptSequence, int typeSequence, int flags) {
-        return getTaxonomyRecordUnpacked().containsSequenceViaTypeWithFlags(conceptSequence, typeSequence, flags);
+        int[] data = getArray();
+        int index = getDestinationIndex(data, conceptSequence);
+        if (index < 0) {
+            return false;
+        }
+        int flagsMask = flags == 0 ? 0 : FLAGS_BIT_MASK;
+        int recordEnd = index + (data[index] >>> 24);
+        for (int i = index + 1; i < recordEnd; i += 2) {
+            if ((typeSequence == Integer.MAX_VALUE || data[i + 1] == typeSequence)
+                    && (data[i] & flagsMask) == flags) {
+                return true;
+            }
+        }
+        return false;
     }
-    
+
     public boolean containsSequenceViaType(int conceptSequence, int typeSequence, TaxonomyCoordinate tc) {
-        return getTaxonomyRecordUnpacked().containsConceptSequenceViaType(conceptSequence, typeSequence, tc);
+        return containsSequenceViaType(conceptSequence, typeSequence, tc, TaxonomyFlags.getFlagsFromTaxonomyCoordinate(tc));
     }
-    
+
     public boolean containsSequenceViaType(int conceptSequence, ConceptSequenceSet typeSequenceSet, TaxonomyCoordinate tc) {
-        return getTaxonomyRecordUnpacked().containsConceptSequenceViaType(conceptSequence, typeSequenceSet, tc);
+        return containsSequenceViaType(conceptSequence, typeSequenceSet, tc, TaxonomyFlags.getFlagsFromTaxonomyCoordinate(tc));
     }
 
     public boolean containsSequenceViaType(int conceptSequence, int typeSequence, TaxonomyCoordinate tc, int flags) {
-        return getTaxonomyRecordUnpacked().containsConceptSequenceViaType(conceptSequence, typeSequence, tc, flags);
+        return hasLatestViaType(conceptSequence, typeSequenceFilter(typeSequence), flags,
+                RelativePositionCalculator.getCalculator(tc.getStampCoordinate()));
     }
-    
+
     public boolean containsSequenceViaType(int conceptSequence, ConceptSequenceSet typeSequenceSet, TaxonomyCoordinate tc, int flags) {
-        return getTaxonomyRecordUnpacked().containsConceptSequenceViaType(conceptSequence, typeSequenceSet, tc, flags);
+        return hasLatestViaType(conceptSequence, typeSequenceFilter(typeSequenceSet), flags,
+                RelativePositionCalculator.getCalculator(tc.getStampCoordinate()));
     }
-    
+
     public boolean isConceptActive(int conceptSequence, StampCoordinate stampCoordinate) {
-        return getTaxonomyRecordUnpacked().conceptSatisfiesStamp(conceptSequence, stampCoordinate);
+        return conceptSatisfiesStamp(conceptSequence, stampCoordinate);
     }
 
     public boolean conceptSatisfiesStamp(int conceptSequence, StampCoordinate stampCoordinate) {
-        return getTaxonomyRecordUnpacked().conceptSatisfiesStamp(conceptSequence, stampCoordinate);
+        return hasLatestViaType(conceptSequence, (int typeSequence) -> true, TaxonomyFlags.CONCEPT_STATUS.bits,
+                RelativePositionCalculator.getCalculator(stampCoordinate));
+    }
+
+    /**
+     * @param conceptSequence the destination concept
+     * @param typeSequenceSet the types to match, or an empty set to match any
+     * type.
+     * @param flags the flags to match.
+     * @return true if any version of the destination has one of the types and
+     * the flags.
+     */
+    public boolean containsSequenceViaType(int conceptSequence, ConceptSequenceSet typeSequenceSet, int flags) {
+        int[] data = getArray();
+        int index = getDestinationIndex(data, conceptSequence);
+        if (index < 0) {
+            return false;
+        }
+        IntPredicate typeFilter = typeSequenceFilter(typeSequenceSet);
+        int recordEnd = index + (data[index] >>> 24);
+        for (int i = index + 1; i < recordEnd; i += 2) {
+            if ((data[i] & FLAGS_BIT_MASK) == flags && typeFilter.test(data[i + 1])) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public boolean containsSequenceViaType(int conceptSequence, ConceptSequenceSet typeSequenceSet, int flags) {
-        return getTaxonomyRecordUnpacked().containsConceptSequenceViaType(conceptSequence, typeSequenceSet, flags);
+    /**
+     * Determine if the latest version of the relationship to a destination,
+     * with the type and exactly the flags, is active. The test used by
+     * {@code isChildOf}.
+     *
+     * @param destinationSequence the destination concept
+     * @param typeSequence the type of the relationship
+     * @param flags the taxonomy flags the relationship must have.
+     * @param computer calculator for the stamp coordinate
+     * @return true if the latest version is active
+     */
+    public boolean isDestinationActiveViaType(int destinationSequence, int typeSequence, int flags,
+            RelativePositionCalculator computer) {
+        int[] data = getArray();
+        int index = getDestinationIndex(data, destinationSequence);
+        if (index < 0) {
+            return false;
+        }
+        int[] stamps = getStampBuffer(data, index);
+        int stampCount = collectStamps(data, index, typeSequenceFilter(typeSequence), FLAGS_BIT_MASK, flags, stamps);
+        return computer.isLatestActive(stamps, stampCount);
+    }
+
+    /**
+     * Visits each destination with an active relationship of the type, under
+     * the coordinate, without unpacking the record.
+     *
+     * @param typeSequence the type to match, or Integer.MAX_VALUE to match
+     * any type.
+     * @param tc the coordinate to determine the active relationships, and the
+     * taxonomy flags (stated or inferred) they must include.
+     * @param procedure receives each active destination sequence
+     * @return false if the procedure stopped the visit, otherwise true.
+     */
+    public boolean forEachActiveDestinationOfType(int typeSequence, TaxonomyCoordinate tc, IntProcedure procedure) {
+        int flags = TaxonomyFlags.getFlagsFromTaxonomyCoordinate(tc);
+        return forEachActiveDestination(typeSequenceFilter(typeSequence), flags, flags,
+                RelativePositionCalculator.getCalculator(tc.getStampCoordinate()), procedure);
+    }
+
+    /**
+     * @param procedure receives each destination sequence, active or not.
+     * @return false if the procedure stopped the visit, otherwise true.
+     */
+    public boolean forEachDestination(IntProcedure procedure) {
+        int[] data = getArray();
+        for (int index = 0; index < data.length; index += data[index] >>> 24) {
+            if (!procedure.apply(data[index] & SEQUENCE_BIT_MASK)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param procedure receives each type stamp record, active or not.
+     * @return false if the procedure stopped the visit, otherwise true.
+     */
+    public boolean forEachTypeStampFlag(TypeStampFlagProcedure procedure) {
+        int[] data = getArray();
+        int index = 0;
+        while (index < data.length) {
+            int destinationSequence = data[index] & SEQUENCE_BIT_MASK;
+            int recordEnd = index + (data[index] >>> 24);
+            for (int i = index + 1; i < recordEnd; i += 2) {
+                if (!procedure.apply(destinationSequence, data[i + 1],
+                        data[i] & STAMP_BIT_MASK, data[i] & FLAGS_BIT_MASK)) {
+                    return false;
+                }
+            }
+            index = recordEnd;
+        }
+        return true;
+    }
+
+    private boolean forEachActiveDestination(IntPredicate typeFilter, int flagsMask, int flags,
+            RelativePositionCalculator computer, IntProcedure procedure) {
+        int[] data = getArray();
+        int index = 0;
+        while (index < data.length) {
+            int[] stamps = getStampBuffer(data, index);
+            int stampCount = collectStamps(data, index, typeFilter, flagsMask, flags, stamps);
+            // the procedure may scan other records, reusing the stamp buffer,
+            // so the latest is computed before calling it.
+            if (stampCount > 0 && computer.isLatestActive(stamps, stampCount)) {
+                if (!procedure.apply(data[index] & SEQUENCE_BIT_MASK)) {
+                    return false;
+                }
+            }
+            index += data[index] >>> 24;
+        }
+        return true;
+    }
+
+    private boolean hasLatestViaType(int destinationSequence, IntPredicate typeFilter, int flags,
+            RelativePositionCalculator computer) {
+        int[] data = getArray();
+        int index = getDestinationIndex(data, destinationSequence);
+        if (index < 0) {
+            return false;
+        }
+        int[] stamps = getStampBuffer(data, index);
+        int stampCount = collectStamps(data, index, typeFilter, FLAGS_BIT_MASK, flags, stamps);
+        return stampCount > 0 && computer.getLatestStampSequencesAsArray(stamps, stampCount).length > 0;
+    }
+
+    /**
+     * @return the stamp buffer of this thread, large enough for the stamps of
+     * the destination at index.
+     */
+    private static int[] getStampBuffer(int[] data, int index) {
+        int[] stamps = STAMP_BUFFER.get();
+        int stampRecords = (data[index] >>> 24) / 2;
+        if (stamps.length < stampRecords) {
+            stamps = new int[Math.max(stampRecords, stamps.length * 2)];
+            STAMP_BUFFER.set(stamps);
+        }
+        return stamps;
+    }
+
+    /**
+     * Copies the stamps of the type stamp records of the destination at index
+     * with a matching type, and with {@code (recordFlags & flagsMask) == flags},
+     * into the stamp buffer.
+     *
+     * @return the number of stamps copied.
+     */
+    private static int collectStamps(int[] data, int index, IntPredicate typeFilter, int flagsMask, int flags,
+            int[] stamps) {
+        int recordEnd = index + (data[index] >>> 24);
+        int stampCount = 0;
+        for (int i = index + 1; i < recordEnd; i += 2) {
+            if ((data[i] & flagsMask) == flags && typeFilter.test(data[i + 1])) {
+                stamps[stampCount++] = data[i] & STAMP_BIT_MASK;
+            }
+        }
+        return stampCount;
+    }
+
+    private static int getDestinationIndex(int[] data, int destinationSequence) {
+        for (int index = 0; index < data.length; index += data[index] >>> 24) {
+            if ((data[index] & SEQUENCE_BIT_MASK) == destinationSequence) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static IntPredicate typeSequenceFilter(int typeSequence) {
+        if (typeSequence == Integer.MAX_VALUE) {
+            return (int recordType) -> true;
+        }
+        return (int recordType) -> recordType == typeSequence;
+    }
+
+    private static IntPredicate typeSequenceFilter(ConceptSequenceSet typeSequenceSet) {
+        if (typeSequenceSet.isEmpty()) {
+            return (int recordType) -> true;
+        }
+        return typeSequenceSet::contains;
     }
 
     @Override
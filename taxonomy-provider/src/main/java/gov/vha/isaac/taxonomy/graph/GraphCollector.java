@@ -7,7 +7,6 @@ package gov.vha.isaac.taxonomy.graph;
 
 import gov.vha.isaac.taxonomy.TaxonomyFlags;
 import gov.vha.isaac.taxonomy.TaxonomyRecordPrimitive;
-import gov.vha.isaac.taxonomy.TaxonomyRecordUnpacked;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.bootstrap.TermAux;
 import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
@@ -19,7 +18,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.function.BiConsumer;
 import java.util.function.ObjIntConsumer;
-import java.util.stream.IntStream;
 
 
 /**
@@ -63,9 +61,11 @@ public class GraphCollector implements
         if (watchList.contains(originSequence)) {
             System.out.println("Found watch: " + isaacPrimitiveTaxonomyRecord);
         }
-            TaxonomyRecordUnpacked taxonomyRecordUnpacked = isaacPrimitiveTaxonomyRecord.get().getTaxonomyRecordUnpacked();
-            IntStream destinationStream = taxonomyRecordUnpacked.getConceptSequencesForType(ISA_CONCEPT_SEQUENCE, taxonomyCoordinate);
-            destinationStream.forEach((int destinationSequence) -> graphBuilder.add(destinationSequence, originSequence));
+            isaacPrimitiveTaxonomyRecord.get().forEachActiveDestinationOfType(ISA_CONCEPT_SEQUENCE, taxonomyCoordinate,
+                    (int destinationSequence) -> {
+                        graphBuilder.add(destinationSequence, originSequence);
+                        return true;
+                    });
         }
         originSequenceBeingProcessed = -1;
     }